@@ -72,6 +72,10 @@ export default class Game {
     switch (event.eType()) {
       case schema.Event.GameHeader:
         const gameHeader = event.e(new schema.GameHeader()) as schema.GameHeader;
+        if (gameHeader.specVersion() === "2.0") {
+          // Packed rounds; ReplayConverter can unpack them
+          throw new Error("Can't play spec version 2.0 replays; convert them to 1.0 first");
+        }
         if (!gameStarted) {
           this._meta = new Metadata().parse(gameHeader);
         } else {
@@ -106,6 +110,13 @@ export default class Game {
         }
         break;
 
+      case schema.Event.Keyframe:
+        // Snapshots for readers that seek; every Round is applied anyway
+        if (!gameStarted || matchCount === 0 || lastMatchFinished) {
+          throw new Error("Can't apply keyframe without unfinished match");
+        }
+        break;
+
       case schema.Event.GameFooter:
         const gameFooter = event.e(new schema.GameFooter()) as schema.GameFooter;
         if (gameStarted && matchCount > 0 && lastMatchFinished) {
@@ -154,16 +165,63 @@ export default class Game {
   }
 
   /**
-   * Load a full game from a gzipped ArrayBuffer containing a GameWrapper.
+   * Load a game from an un-gzipped event stream: the bytes "BCES", a
+   * little-endian int32 format version, then each EventWrapper as a
+   * little-endian int32 length followed by that many bytes of flatbuffer.
+   * A zero length ends the events; the index after it isn't needed here,
+   * since every event is applied.
+   */
+  loadEventStream(data: Uint8Array) {
+    const view = new DataView(data.buffer, data.byteOffset, data.byteLength);
+    const version = view.getInt32(4, true);
+    if (version !== 1 && version !== 2) {
+      throw new Error(`Unsupported replay format version: ${version}`);
+    }
+    const eventSlot = new schema.EventWrapper();
+    let eventCount = 0;
+    for (let pos = 8; pos < data.byteLength; eventCount++) {
+      const size = view.getInt32(pos, true);
+      if (size === 0) {
+        break;
+      }
+      const event = new flatbuffers.ByteBuffer(data.subarray(pos + 4, pos + 4 + size));
+      this.applyEvent(schema.EventWrapper.getRootAsEventWrapper(event, eventSlot));
+      pos += 4 + size;
+    }
+    if (eventCount < 5) {
+      throw new Error(`Too few events for well-formed game: ${eventCount}`);
+    }
+    if (!this.finished) {
+      throw new Error("Event stream did not finish game!");
+    }
+  }
+
+  /**
+   * Load a full game from a gzipped ArrayBuffer containing either an event
+   * stream (see loadEventStream) or, for older replays, a GameWrapper.
    *
    * Do not mutate `data` after calling this function!
    */
   loadFullGameRaw(data: ArrayBuffer) {
     const ungzipped = ungzip(new Uint8Array(data));
     console.log("Game un-gzipped!");
+    if (Game.isEventStream(ungzipped)) {
+      this.loadEventStream(ungzipped);
+      return;
+    }
     const wrapper = schema.GameWrapper.getRootAsGameWrapper(
       new flatbuffers.ByteBuffer(ungzipped)
     );
     this.loadFullGame(wrapper);
   }
+
+  /**
+   * Whether un-gzipped replay data is an event stream rather than a
+   * GameWrapper. No GameWrapper starts with "BCES": read as its root
+   * offset, those bytes would point more than a gigabyte in.
+   */
+  static isEventStream(data: Uint8Array): boolean {
+    return data.byteLength >= 8 &&
+      data[0] === 0x42 && data[1] === 0x43 && data[2] === 0x45 && data[3] === 0x53;
+  }
 }
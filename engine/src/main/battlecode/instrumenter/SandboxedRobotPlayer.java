@@ -7,6 +7,7 @@ import battlecode.instrumenter.stream.RoboPrintStream;
 import battlecode.instrumenter.stream.SilencedPrintStream;
 import battlecode.server.ErrorReporter;
 import battlecode.server.Config;
+import battlecode.server.ServerConsole;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
@@ -95,6 +96,11 @@ public class SandboxedRobotPlayer {
      */
     private OutputStream systemOut;
 
+    /**
+     * The options that control robot output.
+     */
+    private final Config options;
+
     /**
      * Create a new sandboxed robot player.
      *
@@ -113,6 +119,32 @@ public class SandboxedRobotPlayer {
                                 OutputStream robotOut,
                                 Profiler profiler)
             throws InstrumentationException {
+        this(teamName, robotController, seed, loader, robotOut, profiler, Config.getGlobalConfig());
+    }
+
+    /**
+     * Create a new sandboxed robot player, configured by the given options
+     * rather than the global config.
+     *
+     * @param teamName          the name of the team to create a player for
+     * @param robotController   the robot we're loading a player for
+     * @param seed              the seed the robot should use for random operations
+     * @param loader            the classloader to load classes with
+     * @param robotOut          the output to write robot output to (with headers)
+     * @param profiler          the profiler to use, or null
+     * @param options           the options that control robot output
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    public SandboxedRobotPlayer(String teamName,
+                                RobotController robotController,
+                                int seed,
+                                TeamClassLoaderFactory.Loader loader,
+                                OutputStream robotOut,
+                                Profiler profiler,
+                                Config options)
+            throws InstrumentationException {
+        this.options = options;
         this.robotController = robotController;
         this.seed = seed;
         this.terminated = false;
@@ -181,7 +213,7 @@ public class SandboxedRobotPlayer {
                 // Run the robot!
                 loadAndRunPlayer(teamName, PLAYER_CLASS_NAME);
                 // If we get here, we've returned from the 'run' method. Tell the user.
-                System.out.println(robotController.getTeam().toString() + "'s "
+                ServerConsole.current().getOut().println(robotController.getTeam().toString() + "'s "
                         + robotController.getType().toString() + " " +
                         robotController.getID() + " at location " + robotController.getLocation().toString()
                         + " froze in round " +robotController.getRoundNum() +
@@ -394,8 +426,6 @@ public class SandboxedRobotPlayer {
     }
 
     public PrintStream getOut(OutputStream wrapped) {
-        Config options = Config.getGlobalConfig();
-
         if (robotController.getTeam() == Team.A
                 && options.getBoolean("bc.engine.silence-a")
                 || robotController.getTeam() == Team.B
@@ -404,9 +434,10 @@ public class SandboxedRobotPlayer {
             // Modifying Systems specific to this robot.
         } else {
             try {
-                return new RoboPrintStream(wrapped, options.getBoolean(
-                        "bc.server.robot-player-to-system-out"
-                ), options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
+                final PrintStream console = options.getBoolean("bc.server.robot-player-to-system-out")
+                        ? ServerConsole.current().getOut() : null;
+                return new RoboPrintStream(wrapped, console,
+                        options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
             } catch (UnsupportedEncodingException e) {
                 throw new RuntimeException("UTF-8 isn't supported on this system??", e);
             }
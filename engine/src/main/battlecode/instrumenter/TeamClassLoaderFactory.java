@@ -16,6 +16,7 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -100,19 +101,25 @@ public final class TeamClassLoaderFactory {
      * The values are byte arrays, not Classes, because each instance of
      * InstrumentingClassLoader should define its own class, even if another
      * InstrumentingClassLoader has already loaded a class from the same class file.
+     * Concurrent, since matches running in parallel may share a factory.
      */
     private final Map<String, byte[]> instrumentedClasses;
 
     /**
      * If this team has an error, don't bother trying to cache again.
      */
-    private boolean hasError;
+    private volatile boolean hasError;
 
     /**
      * The ClassReferenceUtil used by this cache.
      */
     private final ClassReferenceUtil refUtil;
 
+    /**
+     * The options to instrument with, or null to use the global config.
+     */
+    private final Config options;
+
     /**
      * Create a cache for classes loaded from a URL (or local file).
      * The URL can point to a jar file or a directory containing class
@@ -123,6 +130,20 @@ public final class TeamClassLoaderFactory {
      * @param classURL the URL to load clases from
      */
     public TeamClassLoaderFactory(final String classURL) {
+        this(classURL, null);
+    }
+
+    /**
+     * Create a cache for classes loaded from a URL (or local file), that
+     * instruments them according to the given options rather than the
+     * global config.
+     *
+     * @param classURL the URL to load clases from
+     * @param options the options to instrument with, or null to use the
+     *                global config
+     */
+    public TeamClassLoaderFactory(final String classURL, final Config options) {
+        this.options = options;
         URL url;
         try {
             url = getFilesystemURL(classURL);
@@ -147,7 +168,7 @@ public final class TeamClassLoaderFactory {
                 return findResource(name);
             }
         };
-        this.instrumentedClasses = new HashMap<>();
+        this.instrumentedClasses = new ConcurrentHashMap<>();
         this.hasError = false;
         this.refUtil = new ClassReferenceUtil(this);
     }
@@ -299,7 +320,7 @@ public final class TeamClassLoaderFactory {
     /**
      * Convert a URL or file path into a definitely-URL.
      */
-    static URL getFilesystemURL(String urlOrRelative) throws InstrumentationException {
+    public static URL getFilesystemURL(String urlOrRelative) throws InstrumentationException {
         if (urlOrRelative == null) {
             throw new InstrumentationException(MISSING, "Can't load player with no URL!");
         }
@@ -454,7 +475,7 @@ public final class TeamClassLoaderFactory {
                     classBytes = instrument(
                             TeamClassLoaderFactory.this.teamReader(name),
                             true,
-                            Config.getGlobalConfig().getBoolean("bc.engine.debug-methods")
+                            (options != null ? options : Config.getGlobalConfig()).getBoolean("bc.engine.debug-methods")
                     );
                 } catch (InstrumentationException e) {
                     TeamClassLoaderFactory.this.hasError = true;
@@ -24,14 +24,22 @@ public class RoboPrintStream extends PrintStream {
     private int id;
     private int round;
 
-    private boolean writeToSystemOut;
+    /**
+     * Where to echo output besides robotOut, or null.
+     */
+    private final PrintStream console;
 
     // if maxOutputBytes is -1, then it is treated as no limit
     public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, int maxOutputBytes) throws UnsupportedEncodingException {
+        this(robotOut, writeToSystemOut ? java.lang.System.out : null, maxOutputBytes);
+    }
+
+    // if console is null, output is only written to robotOut
+    public RoboPrintStream(OutputStream robotOut, PrintStream console, int maxOutputBytes) throws UnsupportedEncodingException {
         super(SilencedPrintStream.theInstance());
         this.real = new LimitedPrintStream(robotOut, true, "UTF-8", maxOutputBytes);
         this.headerThisRound = false;
-        this.writeToSystemOut = writeToSystemOut;
+        this.console = console;
     }
 
     //************************
@@ -41,55 +49,55 @@ public class RoboPrintStream extends PrintStream {
     public void print(boolean b) {
         String header = getHeader();
         real.print(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + b);
+        if (this.console != null) this.console.print(header + b);
     }
 
     public void print(char c) {
         String header = getHeader();
         real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        if (this.console != null) this.console.print(header + c);
     }
 
     public void print(char[] s) {
         String header = getHeader();
         real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        if (this.console != null) this.console.print(header + s);
     }
 
     public void print(double d) {
         String header = getHeader();
         real.print(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + d);
+        if (this.console != null) this.console.print(header + d);
     }
 
     public void print(float f) {
         String header = getHeader();
         real.print(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + f);
+        if (this.console != null) this.console.print(header + f);
     }
 
     public void print(int i) {
         String header = getHeader();
         real.print(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + i);
+        if (this.console != null) this.console.print(header + i);
     }
 
     public void print(long l) {
         String header = getHeader();
         real.print(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + l);
+        if (this.console != null) this.console.print(header + l);
     }
 
     public void print(Object obj) {
         String header = getHeader();
         real.print(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + obj);
+        if (this.console != null) this.console.print(header + obj);
     }
 
     public void print(String s) {
         String header = getHeader();
         real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        if (this.console != null) this.console.print(header + s);
     }
 
     //***************************
@@ -99,61 +107,61 @@ public class RoboPrintStream extends PrintStream {
     public void println(boolean b) {
         String header = getHeader();
         real.println(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + b);
+        if (this.console != null) this.console.println(header + b);
     }
 
     public void println(char c) {
         String header = getHeader();
         real.println(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + c);
+        if (this.console != null) this.console.println(header + c);
     }
 
     public void println(char[] s) {
         String header = getHeader();
         real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        if (this.console != null) this.console.println(header + s);
     }
 
     public void println(double d) {
         String header = getHeader();
         real.println(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + d);
+        if (this.console != null) this.console.println(header + d);
     }
 
     public void println(float f) {
         String header = getHeader();
         real.println(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + f);
+        if (this.console != null) this.console.println(header + f);
     }
 
     public void println(int i) {
         String header = getHeader();
         real.println(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + i);
+        if (this.console != null) this.console.println(header + i);
     }
 
     public void println(long l) {
         String header = getHeader();
         real.println(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + l);
+        if (this.console != null) this.console.println(header + l);
     }
 
     public void println(Object obj) {
         String header = getHeader();
         real.println(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + obj);
+        if (this.console != null) this.console.println(header + obj);
     }
 
     public void println(String s) {
         String header = getHeader();
         real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        if (this.console != null) this.console.println(header + s);
     }
 
     public void println() {
         String header = getHeader();
         real.println(header);
-        if (this.writeToSystemOut) java.lang.System.out.println(header);
+        if (this.console != null) this.console.println(header);
     }
 
 
@@ -164,21 +172,21 @@ public class RoboPrintStream extends PrintStream {
     public PrintStream append(char c) {
         String header = getHeader();
         real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        if (this.console != null) this.console.print(header + c);
         return this;
     }
 
     public PrintStream append(CharSequence csq) {
         String header = getHeader();
         real.print(header + csq);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq);
+        if (this.console != null) this.console.print(header + csq);
         return this;
     }
 
     public PrintStream append(CharSequence csq, int start, int end) {
         String header = getHeader();
         real.print(header + csq.subSequence(start, end).toString());
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq.subSequence(start, end).toString());
+        if (this.console != null) this.console.print(header + csq.subSequence(start, end).toString());
         return this;
     }
 
@@ -195,14 +203,14 @@ public class RoboPrintStream extends PrintStream {
     public PrintStream format(String format, Object... args) {
         String header = getHeader();
         real.print(header + String.format(format, args));
-        if (this.writeToSystemOut) java.lang.System.out.print(header + String.format(format, args));
+        if (this.console != null) this.console.print(header + String.format(format, args));
         return this;
     }
 
     public PrintStream printf(String format, Object... args) {
         String header = getHeader();
         real.printf(header + format, args);
-        if (this.writeToSystemOut) java.lang.System.out.printf(header + format, args);
+        if (this.console != null) this.console.printf(header + format, args);
         return this;
     }
 
@@ -212,14 +220,14 @@ public class RoboPrintStream extends PrintStream {
         System.arraycopy(header, 0, buf2, 0, header.length);
         System.arraycopy(buf, off, buf2, header.length, len);
         real.write(buf2, 0, header.length + len);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf2, 0, header.length + len);
+        if (this.console != null) this.console.write(buf2, 0, header.length + len);
     }
 
     public void write(int b) {
         String s = getHeader() + (char) b;
         byte[] buf = s.getBytes();
         real.write(buf, 0, buf.length);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf, 0, buf.length);
+        if (this.console != null) this.console.write(buf, 0, buf.length);
     }
 
     //**************************
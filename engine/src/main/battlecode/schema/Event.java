@@ -36,8 +36,13 @@ public final class Event {
    * There should only be one GameFooter, at the end of the stream.
    */
   public static final byte GameFooter = 5;
+  /**
+   * A snapshot of a match, sent every so often after a Round.
+   * Readers that replay every Round may skip these.
+   */
+  public static final byte Keyframe = 6;
 
-  public static final String[] names = { "NONE", "GameHeader", "MatchHeader", "Round", "MatchFooter", "GameFooter", };
+  public static final String[] names = { "NONE", "GameHeader", "MatchHeader", "Round", "MatchFooter", "GameFooter", "Keyframe", };
 
   public static String name(int e) { return names[e]; }
 }
@@ -0,0 +1,410 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.GameMapIO;
+import battlecode.world.LiveMap;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plays every team against every other team on every map, and writes the
+ * results to a file, one line per match.
+ *
+ * Matches are run on a work-stealing pool, biggest maps first so that the
+ * slowest matches don't all end up at the end. The results file doubles as
+ * a checkpoint: when a batch is started with a results file that already
+ * has results, the matches in it aren't run again.
+ *
+ * Options, set with -D as for the server:
+ * <ul>
+ *     <li>bc.batch.teams: comma-separated teams, each name=url or
+ *         name=package@url, where url is a directory or jar of classes; the
+ *         package defaults to the name</li>
+ *     <li>bc.batch.maps: comma-separated maps; all available maps if unset</li>
+ *     <li>bc.batch.output: the results file; JSON lines if it ends in
+ *         .jsonl, CSV otherwise</li>
+ *     <li>bc.batch.threads: how many matches to run at once; the number of
+ *         processors by default</li>
+ *     <li>bc.game.map-path: where to look for maps besides the built-in ones</li>
+ * </ul>
+ * Engine options (bc.engine.*) apply to every match. Results are cached in
+ * bc.cache.dir if it is set; see ResultCache.
+ */
+public class Batch {
+
+    /**
+     * A team taking part in the batch.
+     */
+    public static class Entrant {
+        public final String name;
+        public final String teamPackage;
+        public final String url;
+
+        public Entrant(String name, String teamPackage, String url) {
+            this.name = name;
+            this.teamPackage = teamPackage;
+            this.url = url;
+        }
+
+        /**
+         * @param team a team given as name=url or name=package@url
+         * @throws IllegalArgumentException if it isn't
+         */
+        public static Entrant parse(String team) {
+            final int eq = team.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Teams must be given as name=url or name=package@url, not " + team);
+            }
+            final String name = team.substring(0, eq);
+            final String location = team.substring(eq + 1);
+            final int at = location.indexOf('@');
+            return at < 0
+                    ? new Entrant(name, name, location)
+                    : new Entrant(name, location.substring(0, at), location.substring(at + 1));
+        }
+    }
+
+    /**
+     * One match of the batch.
+     */
+    private static class Pairing {
+        final Entrant teamA;
+        final Entrant teamB;
+        final LiveMap map;
+
+        Pairing(Entrant teamA, Entrant teamB, LiveMap map) {
+            this.teamA = teamA;
+            this.teamB = teamB;
+            this.map = map;
+        }
+
+        String key() {
+            return key(teamA.name, teamB.name, map.getMapName());
+        }
+
+        static String key(String teamA, String teamB, String map) {
+            return teamA + "\n" + teamB + "\n" + map;
+        }
+    }
+
+    /**
+     * How results are written to the results file.
+     */
+    public enum Format {
+        CSV {
+            @Override
+            String header() {
+                return "team_a,team_b,map,winner,winner_side,reason,rounds";
+            }
+
+            @Override
+            String format(MatchResult result) {
+                MatchSpec spec = result.getSpec();
+                return String.join(",",
+                        StringEscapeUtils.escapeCsv(spec.getTeamAName()),
+                        StringEscapeUtils.escapeCsv(spec.getTeamBName()),
+                        StringEscapeUtils.escapeCsv(spec.getMapName()),
+                        StringEscapeUtils.escapeCsv(winnerName(result)),
+                        result.getWinner().name(),
+                        result.getReason().name(),
+                        Integer.toString(result.getRounds()));
+            }
+
+            @Override
+            String parseKey(String line) {
+                List<String> fields = new ArrayList<>();
+                Matcher m = CSV_FIELD.matcher(line);
+                while (fields.size() < 3 && m.find()) {
+                    fields.add(StringEscapeUtils.unescapeCsv(m.group(1)));
+                }
+                return fields.size() == 3 ? Pairing.key(fields.get(0), fields.get(1), fields.get(2)) : null;
+            }
+        },
+
+        JSONL {
+            @Override
+            String header() {
+                return null;
+            }
+
+            @Override
+            String format(MatchResult result) {
+                MatchSpec spec = result.getSpec();
+                return "{\"teamA\":\"" + StringEscapeUtils.escapeJson(spec.getTeamAName())
+                        + "\",\"teamB\":\"" + StringEscapeUtils.escapeJson(spec.getTeamBName())
+                        + "\",\"map\":\"" + StringEscapeUtils.escapeJson(spec.getMapName())
+                        + "\",\"winner\":\"" + StringEscapeUtils.escapeJson(winnerName(result))
+                        + "\",\"winnerSide\":\"" + result.getWinner().name()
+                        + "\",\"reason\":\"" + result.getReason().name()
+                        + "\",\"rounds\":" + result.getRounds() + "}";
+            }
+
+            @Override
+            String parseKey(String line) {
+                String teamA = jsonField(line, "teamA");
+                String teamB = jsonField(line, "teamB");
+                String map = jsonField(line, "map");
+                return teamA != null && teamB != null && map != null ? Pairing.key(teamA, teamB, map) : null;
+            }
+        };
+
+        private static final Pattern CSV_FIELD = Pattern.compile("\\G(\"(?:[^\"]|\"\")*\"|[^,]*)(?:,|$)");
+
+        /**
+         * @return the first line of a results file, or null if there is none
+         */
+        abstract String header();
+
+        abstract String format(MatchResult result);
+
+        /**
+         * @return the key of the pairing a result line is for, or null if
+         *         the line isn't a result
+         */
+        abstract String parseKey(String line);
+
+        public static Format forFile(File file) {
+            return file.getName().endsWith(".jsonl") ? JSONL : CSV;
+        }
+
+        private static String winnerName(MatchResult result) {
+            return result.getWinner() == Team.A ? result.getSpec().getTeamAName() : result.getSpec().getTeamBName();
+        }
+
+        private static String jsonField(String line, String name) {
+            Matcher m = Pattern.compile("\"" + name + "\":\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(line);
+            return m.find() ? StringEscapeUtils.unescapeJson(m.group(1)) : null;
+        }
+    }
+
+    private final List<Entrant> teams;
+    private final List<LiveMap> maps;
+    private final File output;
+    private final Format format;
+    private final int threads;
+    private final MatchRunner runner;
+
+    /**
+     * Options applied to every match.
+     */
+    private final Properties matchOptions;
+
+    /**
+     * @param teams the teams to play against each other
+     * @param maps the maps to play on
+     * @param output the results file, which may hold results of an earlier,
+     *               interrupted run of the same batch
+     * @param threads the number of matches to run at once
+     * @param matchOptions engine options for every match
+     * @param runner the runner to run matches with
+     */
+    public Batch(List<Entrant> teams, List<LiveMap> maps, File output, int threads, Properties matchOptions,
+                 MatchRunner runner) {
+        this.teams = teams;
+        this.maps = maps;
+        this.output = output;
+        this.format = Format.forFile(output);
+        this.threads = threads;
+        this.matchOptions = matchOptions;
+        this.runner = runner;
+    }
+
+    /**
+     * Runs every pairing that doesn't have a result yet.
+     *
+     * @return whether every match ran successfully
+     */
+    public boolean run() throws IOException {
+        final Set<String> done = readCheckpoint();
+
+        final List<Pairing> pairings = new ArrayList<>();
+        for (LiveMap map : maps) {
+            for (int i = 0; i < teams.size(); i++) {
+                for (int j = i + 1; j < teams.size(); j++) {
+                    Pairing pairing = new Pairing(teams.get(i), teams.get(j), map);
+                    if (!done.contains(pairing.key())) {
+                        pairings.add(pairing);
+                    }
+                }
+            }
+        }
+        // Biggest maps take longest, so start them first
+        pairings.sort(Comparator.comparingInt((Pairing p) -> p.map.getWidth() * p.map.getHeight()).reversed());
+
+        Server.say(String.format("Running %d matches, %d already done", pairings.size(), done.size()));
+
+        final boolean newFile = !output.exists() || output.length() == 0;
+        try (final Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(output, true), StandardCharsets.UTF_8))) {
+            if (newFile && format.header() != null) {
+                out.write(format.header() + "\n");
+                out.flush();
+            }
+
+            // FIFO, so that matches start in the order they were submitted
+            final ForkJoinPool pool = new ForkJoinPool(threads,
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            final List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(pairings.size());
+            for (Pairing pairing : pairings) {
+                tasks.add(pool.submit(() -> runPairing(pairing, out)));
+            }
+
+            boolean ok = true;
+            for (ForkJoinTask<Boolean> task : tasks) {
+                ok &= task.join();
+            }
+            pool.shutdown();
+            return ok;
+        }
+    }
+
+    /**
+     * Runs a match and records its result.
+     *
+     * @return whether the match ran successfully
+     */
+    private boolean runPairing(Pairing pairing, Writer out) {
+        final MatchSpec spec = new MatchSpec(
+                pairing.teamA.name, pairing.teamA.url,
+                pairing.teamB.name, pairing.teamB.url,
+                pairing.map)
+                .setTeamAPackage(pairing.teamA.teamPackage)
+                .setTeamBPackage(pairing.teamB.teamPackage);
+        for (String key : matchOptions.stringPropertyNames()) {
+            spec.setOption(key, matchOptions.getProperty(key));
+        }
+
+        final MatchResult result;
+        try {
+            result = runner.run(spec);
+        } catch (Exception e) {
+            Server.warn("Couldn't run " + spec + ": " + e.getMessage());
+            return false;
+        }
+
+        synchronized (out) {
+            try {
+                out.write(format.format(result) + "\n");
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't write result of " + spec, e);
+            }
+        }
+        Server.say(result.toString());
+        return true;
+    }
+
+    /**
+     * Reads the pairings that already have results. A line cut short by
+     * an interruption is dropped from the file, so new results start on a
+     * fresh line.
+     *
+     * @return the keys of the pairings with results
+     */
+    private Set<String> readCheckpoint() throws IOException {
+        final Set<String> done = new HashSet<>();
+        if (!output.exists()) {
+            return done;
+        }
+
+        final byte[] contents = java.nio.file.Files.readAllBytes(output.toPath());
+        int complete = contents.length;
+        while (complete > 0 && contents[complete - 1] != '\n') {
+            complete--;
+        }
+        if (complete < contents.length) {
+            try (RandomAccessFile file = new RandomAccessFile(output, "rw")) {
+                file.setLength(complete);
+            }
+        }
+
+        final String text = new String(contents, 0, complete, StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            final String key = format.parseKey(line);
+            if (key != null && !line.equals(format.header())) {
+                done.add(key);
+            }
+        }
+        return done;
+    }
+
+    public static void main(String[] args) {
+        final Config options = Main.setupConfig(args);
+
+        final String teamsOption = options.get("bc.batch.teams");
+        final String outputOption = options.get("bc.batch.output");
+        if (teamsOption == null || outputOption == null) {
+            System.err.println("Usage: -Dbc.batch.teams=name[=package@]url,... -Dbc.batch.output=<results.csv|.jsonl> "
+                    + "[-Dbc.batch.maps=map,map,...] [-Dbc.batch.threads=n]");
+            System.exit(64);
+        }
+
+        try {
+            final List<Entrant> teams = new ArrayList<>();
+            for (String team : teamsOption.split(",")) {
+                teams.add(Entrant.parse(team));
+            }
+            final List<LiveMap> maps = loadMaps(options, options.get("bc.batch.maps"));
+            final int threads = options.get("bc.batch.threads") != null
+                    ? options.getInt("bc.batch.threads")
+                    : Runtime.getRuntime().availableProcessors();
+
+            final boolean ok = new Batch(teams, maps, new File(outputOption), threads,
+                    matchOptions(options), createRunner(options)).run();
+            System.exit(ok ? 0 : 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(64);
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @param options the options giving bc.game.map-path
+     * @param mapNames comma-separated maps, or null for all available maps
+     * @return the maps
+     * @throws IOException if a map can't be loaded
+     */
+    static List<LiveMap> loadMaps(Config options, String mapNames) throws IOException {
+        final File mapPath = new File(options.get("bc.game.map-path"));
+        final List<String> names = mapNames != null
+                ? Arrays.asList(mapNames.split(","))
+                : GameMapIO.getAvailableMaps(mapPath);
+        final List<LiveMap> maps = new ArrayList<>();
+        for (String mapName : names) {
+            maps.add(GameMapIO.loadMap(mapName, mapPath));
+        }
+        return maps;
+    }
+
+    /**
+     * @return the options among the given ones that apply to each match:
+     *         engine options (bc.engine.*) and bc.cache.bypass
+     */
+    static Properties matchOptions(Config options) {
+        final Properties matchOptions = new Properties();
+        for (String key : options.getKeys()) {
+            if (key.startsWith("bc.engine.") || key.equals("bc.cache.bypass")) {
+                matchOptions.setProperty(key, options.get(key));
+            }
+        }
+        return matchOptions;
+    }
+
+    /**
+     * @return a runner using the result cache in bc.cache.dir, if it's set
+     */
+    static MatchRunner createRunner(Config options) throws IOException {
+        final String cacheDir = options.get("bc.cache.dir");
+        return new MatchRunner(cacheDir != null ? new ResultCache(new File(cacheDir)) : null);
+    }
+}
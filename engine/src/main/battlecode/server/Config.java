@@ -43,6 +43,11 @@ public class Config {
         defaults.setProperty("bc.server.robot-player-replay-file-per-team-limit-bytes","-1");
 
         defaults.setProperty("bc.server.save-file", "match.rms");
+
+        // Whether to play headless games without building a replay at all, for
+        // when only the result or bc.server.stats-file matters; bc.server.save-file
+        // isn't needed then. A connected client still gets the game.
+        defaults.setProperty("bc.server.no-replay", "false");
         defaults.setProperty("bc.server.transcribe-input", "match.rms");
         defaults.setProperty("bc.server.transcribe-output", "transcribed.txt");
         defaults.setProperty("bc.server.debug", "false");
@@ -50,6 +55,62 @@ public class Config {
         defaults.setProperty("bc.server.throttle-count", "15");
         defaults.setProperty("bc.server.output-xml", "true");
 
+        // The gzip level of replays. They're compressed on
+        // bc.server.replay-compression-threads threads as they're written, by
+        // default as many as there are processors; 0 compresses on the thread
+        // playing the game.
+        defaults.setProperty("bc.server.replay-compression-level", "6");
+
+        // How many rounds may wait to be written to the replay, on a thread of
+        // their own, while the game plays on; 0 writes each round on the
+        // thread playing the game.
+        defaults.setProperty("bc.server.replay-round-queue", "8");
+
+        // How many rounds apart to write a snapshot of the match to the replay,
+        // so that readers can seek to a round; 0 writes none.
+        defaults.setProperty("bc.server.keyframe-interval", "250");
+
+        // Whether to pack the bodies in each round of the replay, as spec version
+        // 2.0, which is smaller but which the client can't read yet.
+        defaults.setProperty("bc.server.replay-pack-rounds", "false");
+
+        // How many games the server may run at once. Output and replays are the
+        // same as when running them one at a time.
+        defaults.setProperty("bc.server.parallel-matches", "1");
+
+        // The match daemon (bc.server.mode=daemon). bc.daemon.max-concurrency, how
+        // many matches it plays at once, is the number of processors by default.
+        defaults.setProperty("bc.daemon.port", "6176");
+        defaults.setProperty("bc.daemon.max-queued", "16");
+
+        // Not set by default. If bc.cache.dir is set, batches and sweeps keep match
+        // results there and don't replay matches they've seen; bc.cache.bypass
+        // plays them anyway (and refreshes the cache).
+        defaults.setProperty("bc.cache.bypass", "false");
+
+        // Seed sweeps (battlecode.server.SeedSweep): up to bc.sweep.seeds seeds per
+        // map, stopping once the candidate's win rate is shown to be at most p0 or
+        // at least p1, with error rates alpha and beta.
+        defaults.setProperty("bc.sweep.seeds", "1000");
+        defaults.setProperty("bc.sweep.first-seed", "1");
+        defaults.setProperty("bc.sweep.p0", "0.5");
+        defaults.setProperty("bc.sweep.p1", "0.6");
+        defaults.setProperty("bc.sweep.alpha", "0.05");
+        defaults.setProperty("bc.sweep.beta", "0.05");
+        defaults.setProperty("bc.sweep.confidence", "0.95");
+
+        // Not set by default. If bc.server.state-hash-file is set, a hash of the
+        // world state is written there every round; see battlecode.world.StateHashDiff.
+
+        // Not set by default. If bc.server.observation-file is set, the world is
+        // published there every round, in a ring buffer of bc.server.observation-slots
+        // rounds; see battlecode.world.ObservationExport for the layout.
+        defaults.setProperty("bc.server.observation-slots", "64");
+
+        // Not set by default. If bc.server.stats-file is set, totals for each
+        // round of each match are written there as CSV, gzipped if the name ends
+        // in .gz; see battlecode.world.StatsMatchSink for the columns.
+
         // Whether to write robot player output to match files / system out
         // if bc.server.robot-player-to-system-out is false then it will only write
         // to match files
@@ -118,6 +179,20 @@ public class Config {
         addArgs(args);
     }
 
+    /**
+     * Creates a new Config instance from the defaults and the given
+     * properties only. Unlike Config(String[]), this ignores system
+     * properties and bc.conf, so it is unaffected by the rest of the process.
+     *
+     * @param overrides the options to set on top of the defaults
+     */
+    public Config(Properties overrides) {
+        properties = new Properties(defaults);
+        for (String key : overrides.stringPropertyNames()) {
+            properties.setProperty(key, overrides.getProperty(key));
+        }
+    }
+
     /**
      * Processes command-line arguments, converting them to properties and
      * adding them to the local options.
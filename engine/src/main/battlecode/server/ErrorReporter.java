@@ -1,5 +1,7 @@
 package battlecode.server;
 
+import java.io.PrintStream;
+
 // TODO: pass messages along to the client
 public class ErrorReporter {
 
@@ -39,8 +41,9 @@ public class ErrorReporter {
     }
 
     private static void printStackTrace(Throwable e) {
-        System.err.println("Stack trace: ");
-        e.printStackTrace(System.err);
+        final PrintStream err = ServerConsole.current().getErr();
+        err.println("Stack trace: ");
+        e.printStackTrace(err);
     }
 
     private static void printThingsToTry(String thingsToTry) {
@@ -2,6 +2,7 @@ package battlecode.server;
 
 import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
 import battlecode.instrumenter.profiler.Profiler;
@@ -9,6 +10,7 @@ import battlecode.instrumenter.profiler.ProfilerCollection;
 import battlecode.instrumenter.profiler.ProfilerEventType;
 import battlecode.schema.*;
 import battlecode.util.FlatHelpers;
+import battlecode.util.RoundCodec;
 import battlecode.util.TeamMapping;
 import battlecode.world.*;
 import com.google.flatbuffers.FlatBufferBuilder;
@@ -17,19 +19,27 @@ import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.list.array.TCharArrayList;
 import java.util.List;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.*;
 import java.util.function.ToIntFunction;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
 
 import static battlecode.util.FlatHelpers.*;
 
 /**
  * Writes a game to a flatbuffer, hooray.
+ *
+ * Each event is built once, as a flatbuffer of its own, which is sent to
+ * the client as it is and appended to the replay; see ReplayWriter for the
+ * replay format.
+ *
+ * At the end of each round, MatchMaker swaps the round's data for a spare
+ * and may hand it to a thread of its own to be written, so the next round
+ * starts straight away. Events are written in the order they happen
+ * regardless.
  */
 public strictfp class GameMaker {
 
@@ -57,24 +67,16 @@ public strictfp class GameMaker {
     }
     private State state;
 
-    // this un-separation-of-concerns makes me uncomfortable
-
-    /**
-     * We write the whole match to this builder, then write it to a file.
-     */
-    private final FlatBufferBuilder fileBuilder;
-
     /**
-     * Null until the end of the match.
+     * Each event is built here, then copied out. The builder's buffer is
+     * reused from event to event.
      */
-    private byte[] finishedGame;
+    private FlatBufferBuilder eventBuilder;
 
     /**
-     * We have a separate byte[] for each packet sent to the client.
-     * This is necessary because flatbuffers shares metadata between structures, so we
-     * can't just cut out chunks of the larger buffer :/
+     * Where the events go.
      */
-    private FlatBufferBuilder packetBuilder;
+    private final ReplayWriter replay;
 
     /**
      * The server we're sending packets on.
@@ -87,16 +89,6 @@ public strictfp class GameMaker {
      */
     private final GameInfo gameInfo;
 
-    /**
-     * Only relevant to the file builder:
-     * We add a table called a GameWrapper to the front of the saved files
-     * that lets you quickly navigate to events by index, and tells you the
-     * indices of headers and footers.
-     */
-    private TIntArrayList events;
-    private TIntArrayList matchHeaders;
-    private TIntArrayList matchFooters;
-
     /**
      * The MatchMaker associated with this GameMaker.
      */
@@ -107,30 +99,128 @@ public strictfp class GameMaker {
      */
     private final boolean showIndicators;
 
+    /**
+     * How many rounds apart to write Keyframes; 0 for none.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * Packs the bodies in each Round, if Rounds are written in spec version
+     * RoundCodec.SPEC_VERSION; null to write them plain. Only used by
+     * whichever thread writes rounds.
+     */
+    private final RoundCodec roundCodec;
+
+    /**
+     * The thread rounds are written on, while the game plays on, or null to
+     * write them on the thread playing the game. It runs one round at a
+     * time, in order; once its queue is full, the game waits for it.
+     */
+    private final ThreadPoolExecutor roundSerializer;
+
+    /**
+     * The last round handed to roundSerializer.
+     */
+    private Future<?> lastRound;
+
+    /**
+     * Why roundSerializer failed to write a round, if it did. Nothing more
+     * is written after that.
+     */
+    private volatile RuntimeException roundFailure;
+
+    /**
+     * Rounds that have been written, cleared for reuse.
+     */
+    private final BlockingQueue<RoundData> spareRounds;
+
+    /**
+     * @param gameInfo the mapping of teams to bytes
+     * @param packetSink the NetServer to send packets to
+     * @param options the options giving bc.engine.show-indicators and
+     *                bc.server.replay-compression-*, and the rest of
+     *                bc.server.replay-* and bc.server.keyframe-interval
+     */
+    public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final Config options) {
+        this(gameInfo, packetSink, options.getBoolean("bc.engine.show-indicators"),
+                options.getInt("bc.server.replay-compression-level"),
+                options.get("bc.server.replay-compression-threads") != null
+                        ? options.getInt("bc.server.replay-compression-threads")
+                        : Runtime.getRuntime().availableProcessors(),
+                options.getInt("bc.server.replay-round-queue"),
+                options.getInt("bc.server.keyframe-interval"),
+                options.getBoolean("bc.server.replay-pack-rounds"));
+    }
+
     /**
      * @param gameInfo the mapping of teams to bytes
      * @param packetSink the NetServer to send packets to
      * @param showIndicators whether to write indicator dots and lines to replay
      */
     public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators) {
+        this(gameInfo, packetSink, showIndicators, Deflater.DEFAULT_COMPRESSION, 0, 0, 0, false);
+    }
+
+    /**
+     * @param gameInfo the mapping of teams to bytes
+     * @param packetSink the NetServer to send packets to
+     * @param showIndicators whether to write indicator dots and lines to replay
+     * @param compressionLevel the gzip level of the replay, 0-9
+     * @param compressionThreads how many threads to compress the replay on,
+     *                           or 0 to compress it on the calling thread
+     * @param roundQueue how many rounds may wait to be written on a thread
+     *                   of their own, or 0 to write them on the calling thread
+     * @param keyframeInterval how many rounds apart to write Keyframes, or 0
+     *                         for none
+     * @param packRounds whether to pack the bodies in each Round, writing
+     *                   spec version RoundCodec.SPEC_VERSION
+     */
+    private GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators,
+                      final int compressionLevel, final int compressionThreads, final int roundQueue,
+                      final int keyframeInterval, final boolean packRounds) {
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
 
         this.packetSink = packetSink;
-        if (packetSink != null) {
-            this.packetBuilder = new FlatBufferBuilder();
-        }
 
-        this.fileBuilder = new FlatBufferBuilder();
+        this.eventBuilder = new FlatBufferBuilder();
+        try {
+            this.replay = new ReplayWriter(gameInfo.getSaveFile(), compressionLevel, compressionThreads);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't start replay file", e);
+        }
 
-        this.events = new TIntArrayList();
-        this.matchHeaders = new TIntArrayList();
-        this.matchFooters = new TIntArrayList();
+        if (roundQueue > 0) {
+            this.roundSerializer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(roundQueue), r -> {
+                        Thread thread = new Thread(r, "replay-rounds");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (r, executor) -> {
+                        // The queue is full: wait for a round to be written
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted waiting to write round", e);
+                        }
+                    });
+            this.roundSerializer.allowCoreThreadTimeOut(true);
+            // One round being filled in, one being written and the queue
+            this.spareRounds = new ArrayBlockingQueue<>(roundQueue + 2);
+        } else {
+            this.roundSerializer = null;
+            this.spareRounds = null;
+        }
 
         this.matchMaker = new MatchMaker();
 
         this.showIndicators = showIndicators;
+
+        this.keyframeInterval = keyframeInterval;
+
+        this.roundCodec = packRounds ? new RoundCodec() : null;
     }
 
     /**
@@ -157,38 +247,15 @@ public strictfp class GameMaker {
     /**
      * Convert entire game to a byte array.
      *
-     * @return game as a packed flatbuffer byte array.
+     * @return game as a gzipped event stream.
      */
     public byte[] toBytes() {
-        if (finishedGame == null) {
-            assertState(State.DONE);
-
-            int events = GameWrapper.createEventsVector(fileBuilder, this.events.toArray());
-            int matchHeaders = GameWrapper.createMatchHeadersVector(fileBuilder, this.matchHeaders.toArray());
-            int matchFooters = GameWrapper.createMatchFootersVector(fileBuilder, this.matchFooters.toArray());
-
-            GameWrapper.startGameWrapper(fileBuilder);
-            GameWrapper.addEvents(fileBuilder, events);
-            GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
-            GameWrapper.addMatchFooters(fileBuilder, matchFooters);
-
-            fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
-
-            byte[] rawBytes = fileBuilder.sizedByteArray();
-
-            try {
-                ByteArrayOutputStream result = new ByteArrayOutputStream();
-                GZIPOutputStream zipper = new GZIPOutputStream(result);
-                IOUtils.copy(new ByteArrayInputStream(rawBytes), zipper);
-                zipper.close();
-                zipper.flush();
-                result.flush();
-                finishedGame = result.toByteArray();
-            } catch (IOException e) {
-                throw new RuntimeException("Gzipping failed?", e);
-            }
+        finishFile();
+        try {
+            return replay.toBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read replay file", e);
         }
-        return finishedGame;
     }
 
     /**
@@ -201,34 +268,158 @@ public strictfp class GameMaker {
             throw new RuntimeException("Null file provided to writeGame");
         }
 
+        finishFile();
         try {
-            FileUtils.writeByteArrayToFile(saveFile, toBytes());
+            replay.save(saveFile);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Run the same logic for both builders.
+     * Give up on a game that can't be finished, deleting its partial
+     * replay file.
+     */
+    public void discard() {
+        if (roundSerializer != null) {
+            roundSerializer.shutdownNow();
+            try {
+                roundSerializer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        replay.discard();
+    }
+
+    /**
+     * Write the index and close the replay.
+     */
+    private void finishFile() {
+        assertState(State.DONE);
+        if (roundSerializer != null) {
+            roundSerializer.shutdown();
+        }
+        try {
+            replay.finish();
+        } catch (IOException e) {
+            throw new RuntimeException("Can't finish replay file", e);
+        }
+    }
+
+    /**
+     * Build an event, and write it to the file and the client, after any
+     * rounds still waiting to be written.
      *
-     * @param perBuilder called with each builder; return event id. Should not mutate state.
+     * @param makeEvent called with the builder; return event id
      */
-    private void createEvent(ToIntFunction<FlatBufferBuilder> perBuilder) {
-        // make file event and add its offset to the list
-        int eventAP = perBuilder.applyAsInt(fileBuilder);
-        events.add(eventAP);
+    private void createEvent(ToIntFunction<FlatBufferBuilder> makeEvent) {
+        awaitRounds();
+        writeEvent(makeEvent);
+    }
 
-        if (packetSink != null) {
-            // make packet event and package it up
-            int eventBP = perBuilder.applyAsInt(packetBuilder);
-            packetBuilder.finish(eventBP);
-            packetSink.addEvent(packetBuilder.sizedByteArray());
+    /**
+     * Write an event made from a finished round, now or on roundSerializer.
+     *
+     * @param makeEvent called with the builder; return event id
+     * @param written called once the event is written, or null
+     */
+    private void serializeRound(ToIntFunction<FlatBufferBuilder> makeEvent, Runnable written) {
+        if (roundSerializer == null) {
+            writeEvent(makeEvent);
+            if (written != null) {
+                written.run();
+            }
+            return;
+        }
+        checkRounds();
+        lastRound = roundSerializer.submit(() -> {
+            if (roundFailure != null) {
+                return;
+            }
+            try {
+                writeEvent(makeEvent);
+            } catch (RuntimeException e) {
+                roundFailure = e;
+                return;
+            }
+            if (written != null) {
+                written.run();
+            }
+        });
+    }
 
-            // reset packet builder
-            packetBuilder = new FlatBufferBuilder(packetBuilder.dataBuffer());
+    /**
+     * Clear a round that has been written, and keep it for reuse.
+     */
+    private void recycleRound(RoundData data) {
+        data.clear();
+        if (spareRounds != null) {
+            spareRounds.offer(data);
         }
     }
 
+    /**
+     * @return data for a new round, reused if possible
+     */
+    private RoundData spareRound() {
+        RoundData data = spareRounds != null ? spareRounds.poll() : null;
+        return data != null ? data : new RoundData();
+    }
+
+    /**
+     * Wait until every round handed to roundSerializer has been written.
+     */
+    private void awaitRounds() {
+        if (lastRound != null) {
+            try {
+                lastRound.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting for rounds to be written", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Can't write round", e.getCause());
+            }
+            lastRound = null;
+        }
+        checkRounds();
+    }
+
+    /**
+     * @throws RuntimeException if a round couldn't be written
+     */
+    private void checkRounds() {
+        if (roundFailure != null) {
+            throw new RuntimeException("Can't write round", roundFailure);
+        }
+    }
+
+    /**
+     * Build an event, and write it to the file and the client.
+     *
+     * @param makeEvent called with the builder; return event id
+     */
+    private void writeEvent(ToIntFunction<FlatBufferBuilder> makeEvent) {
+        eventBuilder.finish(makeEvent.applyAsInt(eventBuilder));
+
+        // The finished event is at the end of the builder's buffer
+        ByteBuffer buffer = eventBuilder.dataBuffer();
+        int start = buffer.position();
+        int size = buffer.capacity() - start;
+        try {
+            replay.writeEvent(buffer.array(), start, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write replay file", e);
+        }
+
+        if (packetSink != null) {
+            packetSink.addEvent(Arrays.copyOfRange(buffer.array(), start, start + size));
+        }
+
+        // reset builder
+        eventBuilder = new FlatBufferBuilder(buffer);
+    }
+
     /**
      * Get the MatchMaker associated with this GameMaker.
      */
@@ -241,7 +432,8 @@ public strictfp class GameMaker {
         changeState(State.GAME_HEADER, State.IN_GAME);
 
         createEvent((builder) -> {
-            int specVersionOffset = builder.createString(GameConstants.SPEC_VERSION);
+            int specVersionOffset = builder.createString(
+                    roundCodec != null ? RoundCodec.SPEC_VERSION : GameConstants.SPEC_VERSION);
 
             int name = builder.createString(gameInfo.getTeamAName());
             int packageName = builder.createString(gameInfo.getTeamAPackage());
@@ -310,116 +502,305 @@ public strictfp class GameMaker {
     }
 
     /**
-     * Writes events from match to one or multiple flatbuffers.
-     *
-     * One of the rare cases where we want a non-static inner class in Java:
-     * this basically just provides a restricted interface to GameMaker.
-     *
-     * There is only one of these per GameMaker.
+     * What happened in one round, for MatchMaker to write. A round's data
+     * is filled in by the game, then handed to the serializer and left
+     * alone until it has been written and cleared for reuse.
      */
-    public class MatchMaker {
-        private TIntArrayList movedIDs; // ints
+    private static class RoundData {
+        int roundNum;
+
+        final TIntArrayList movedIDs = new TIntArrayList(); // ints
         // VecTable for movedLocs in Round
-        private TIntArrayList movedLocsXs;
-        private TIntArrayList movedLocsYs;
+        final TIntArrayList movedLocsXs = new TIntArrayList();
+        final TIntArrayList movedLocsYs = new TIntArrayList();
 
         // SpawnedBodyTable for spawnedBodies
-        private TIntArrayList spawnedBodiesRobotIDs;
-        private TByteArrayList spawnedBodiesTeamIDs;
-        private TByteArrayList spawnedBodiesTypes;
-        private TIntArrayList spawnedBodiesLocsXs; //For locs
-        private TIntArrayList spawnedBodiesLocsYs; //For locs
-        private TIntArrayList spawnedBodiesInfluences;
+        final TIntArrayList spawnedBodiesRobotIDs = new TIntArrayList();
+        final TByteArrayList spawnedBodiesTeamIDs = new TByteArrayList();
+        final TByteArrayList spawnedBodiesTypes = new TByteArrayList();
+        final TIntArrayList spawnedBodiesLocsXs = new TIntArrayList(); //For locs
+        final TIntArrayList spawnedBodiesLocsYs = new TIntArrayList(); //For locs
+        final TIntArrayList spawnedBodiesInfluences = new TIntArrayList();
 
-        private TIntArrayList diedIDs; // ints
+        final TIntArrayList diedIDs = new TIntArrayList(); // ints
 
-        private TIntArrayList actionIDs; // ints
-        private TByteArrayList actions; // Actions
-        private TIntArrayList actionTargets; // ints (IDs)
+        final TIntArrayList actionIDs = new TIntArrayList(); // ints
+        final TByteArrayList actions = new TByteArrayList(); // Actions
+        final TIntArrayList actionTargets = new TIntArrayList(); // ints (IDs)
 
         // Round statistics
-        private TIntArrayList teamIDs;
-        private TIntArrayList teamVotes;
-        private TIntArrayList teamBidderIDs;
-        private TIntArrayList teamNumBuffs;
+        final TIntArrayList teamIDs = new TIntArrayList();
+        final TIntArrayList teamVotes = new TIntArrayList();
+        final TIntArrayList teamBidderIDs = new TIntArrayList();
+        final TIntArrayList teamNumBuffs = new TIntArrayList();
 
         // Indicator dots with locations and RGB values
-        private TIntArrayList indicatorDotIDs;
-        private TIntArrayList indicatorDotLocsX;
-        private TIntArrayList indicatorDotLocsY;
-        private TIntArrayList indicatorDotRGBsRed;
-        private TIntArrayList indicatorDotRGBsGreen;
-        private TIntArrayList indicatorDotRGBsBlue;
+        final TIntArrayList indicatorDotIDs = new TIntArrayList();
+        final TIntArrayList indicatorDotLocsX = new TIntArrayList();
+        final TIntArrayList indicatorDotLocsY = new TIntArrayList();
+        final TIntArrayList indicatorDotRGBsRed = new TIntArrayList();
+        final TIntArrayList indicatorDotRGBsGreen = new TIntArrayList();
+        final TIntArrayList indicatorDotRGBsBlue = new TIntArrayList();
 
         // Indicator lines with locations and RGB values
-        private TIntArrayList indicatorLineIDs;
-        private TIntArrayList indicatorLineStartLocsX;
-        private TIntArrayList indicatorLineStartLocsY;
-        private TIntArrayList indicatorLineEndLocsX;
-        private TIntArrayList indicatorLineEndLocsY;
-        private TIntArrayList indicatorLineRGBsRed;
-        private TIntArrayList indicatorLineRGBsGreen;
-        private TIntArrayList indicatorLineRGBsBlue;
+        final TIntArrayList indicatorLineIDs = new TIntArrayList();
+        final TIntArrayList indicatorLineStartLocsX = new TIntArrayList();
+        final TIntArrayList indicatorLineStartLocsY = new TIntArrayList();
+        final TIntArrayList indicatorLineEndLocsX = new TIntArrayList();
+        final TIntArrayList indicatorLineEndLocsY = new TIntArrayList();
+        final TIntArrayList indicatorLineRGBsRed = new TIntArrayList();
+        final TIntArrayList indicatorLineRGBsGreen = new TIntArrayList();
+        final TIntArrayList indicatorLineRGBsBlue = new TIntArrayList();
 
         // Robot IDs and their bytecode usage
-        private TIntArrayList bytecodeIDs;
-        private TIntArrayList bytecodesUsed;
+        final TIntArrayList bytecodeIDs = new TIntArrayList();
+        final TIntArrayList bytecodesUsed = new TIntArrayList();
+
+        // What the robots printed
+        byte[] logs;
+
+        void clear() {
+            movedIDs.clear();
+            movedLocsXs.clear();
+            movedLocsYs.clear();
+            spawnedBodiesRobotIDs.clear();
+            spawnedBodiesTeamIDs.clear();
+            spawnedBodiesTypes.clear();
+            spawnedBodiesLocsXs.clear();
+            spawnedBodiesLocsYs.clear();
+            spawnedBodiesInfluences.clear();
+            diedIDs.clear();
+            actionIDs.clear();
+            actions.clear();
+            actionTargets.clear();
+            teamIDs.clear();
+            teamVotes.clear();
+            teamBidderIDs.clear();
+            teamNumBuffs.clear();
+            indicatorDotIDs.clear();
+            indicatorDotLocsX.clear();
+            indicatorDotLocsY.clear();
+            indicatorDotRGBsRed.clear();
+            indicatorDotRGBsBlue.clear();
+            indicatorDotRGBsGreen.clear();
+            indicatorLineIDs.clear();
+            indicatorLineStartLocsX.clear();
+            indicatorLineStartLocsY.clear();
+            indicatorLineEndLocsX.clear();
+            indicatorLineEndLocsY.clear();
+            indicatorLineRGBsRed.clear();
+            indicatorLineRGBsBlue.clear();
+            indicatorLineRGBsGreen.clear();
+            bytecodeIDs.clear();
+            bytecodesUsed.clear();
+            logs = null;
+        }
+
+        /**
+         * @return the offset of an EventWrapper holding the round
+         */
+        int serialize(FlatBufferBuilder builder, RoundCodec codec) {
+            // The bodies that spawned
+            int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
+            int spawnedBodiesRobotIDsP = SpawnedBodyTable.createRobotIDsVector(builder, spawnedBodiesRobotIDs.toArray());
+            int spawnedBodiesTeamIDsP = SpawnedBodyTable.createTeamIDsVector(builder, spawnedBodiesTeamIDs.toArray());
+            int spawnedBodiesTypesP = SpawnedBodyTable.createTypesVector(builder, spawnedBodiesTypes.toArray());
+            int spawnedBodiesInfluencesP = SpawnedBodyTable.createInfluencesVector(builder, spawnedBodiesInfluences.toArray());
+            SpawnedBodyTable.startSpawnedBodyTable(builder);
+            SpawnedBodyTable.addLocs(builder, spawnedBodiesLocsP);
+            SpawnedBodyTable.addRobotIDs(builder, spawnedBodiesRobotIDsP);
+            SpawnedBodyTable.addTeamIDs(builder, spawnedBodiesTeamIDsP);
+            SpawnedBodyTable.addTypes(builder, spawnedBodiesTypesP);
+            SpawnedBodyTable.addInfluences(builder, spawnedBodiesInfluencesP);
+            int spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+
+            // Round statistics
+            int teamIDsP = Round.createTeamIDsVector(builder, teamIDs.toArray());
+            int teamVotesP = Round.createTeamVotesVector(builder, teamVotes.toArray());
+            int teamBidderIDsP = Round.createTeamBidderIDsVector(builder, teamBidderIDs.toArray());
+            int teamNumBuffsP = Round.createTeamNumBuffsVector(builder, teamNumBuffs.toArray());
+
+            // The bodies that moved, died, acted and used bytecodes, packed
+            RoundCodec.Packed packed = null;
+            if (codec != null) {
+                for (int i = 0; i < spawnedBodiesRobotIDs.size(); i++) {
+                    codec.addBody(spawnedBodiesRobotIDs.get(i),
+                            spawnedBodiesLocsXs.get(i), spawnedBodiesLocsYs.get(i));
+                }
+                RoundCodec.Plain plain = new RoundCodec.Plain();
+                plain.movedIDs = movedIDs.toArray();
+                plain.movedXs = movedLocsXs.toArray();
+                plain.movedYs = movedLocsYs.toArray();
+                plain.diedIDs = diedIDs.toArray();
+                plain.actionIDs = actionIDs.toArray();
+                plain.actionTargets = actionTargets.toArray();
+                plain.bytecodeIDs = bytecodeIDs.toArray();
+                plain.bytecodesUsed = bytecodesUsed.toArray();
+                packed = codec.pack(plain);
+                packed.createVectors(builder);
+            }
+
+            // The bodies that moved
+            int movedIDsP = packed == null ? Round.createMovedIDsVector(builder, movedIDs.toArray()) : 0;
+            int movedLocsP = packed == null ? createVecTable(builder, movedLocsXs, movedLocsYs) : 0;
+
+            // The bodies that died
+            int diedIDsP = packed == null ? Round.createDiedIDsVector(builder, diedIDs.toArray()) : 0;
+
+            // The actions that happened
+            int actionIDsP = packed == null ? Round.createActionIDsVector(builder, actionIDs.toArray()) : 0;
+            int actionsP = Round.createActionsVector(builder, actions.toArray());
+            int actionTargetsP = packed == null ? Round.createActionTargetsVector(builder, actionTargets.toArray()) : 0;
+
+            // The indicator dots that were set
+            int indicatorDotIDsP = Round.createIndicatorDotIDsVector(builder, indicatorDotIDs.toArray());
+            int indicatorDotLocsP = createVecTable(builder, indicatorDotLocsX, indicatorDotLocsY);
+            int indicatorDotRGBsP = createRGBTable(builder, indicatorDotRGBsRed, indicatorDotRGBsGreen, indicatorDotRGBsBlue);
+
+            // The indicator lines that were set
+            int indicatorLineIDsP = Round.createIndicatorLineIDsVector(builder, indicatorLineIDs.toArray());
+            int indicatorLineStartLocsP = createVecTable(builder, indicatorLineStartLocsX, indicatorLineStartLocsY);
+            int indicatorLineEndLocsP = createVecTable(builder, indicatorLineEndLocsX, indicatorLineEndLocsY);
+            int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
+
+            // The bytecode usage
+            int bytecodeIDsP = packed == null ? Round.createBytecodeIDsVector(builder, bytecodeIDs.toArray()) : 0;
+            int bytecodesUsedP = packed == null ? Round.createBytecodesUsedVector(builder, bytecodesUsed.toArray()) : 0;
+
+            int logsP = builder.createString(ByteBuffer.wrap(logs));
+
+            Round.startRound(builder);
+            Round.addTeamIDs(builder, teamIDsP);
+            Round.addTeamVotes(builder, teamVotesP);
+            Round.addTeamBidderIDs(builder, teamBidderIDsP);
+            Round.addTeamNumBuffs(builder, teamNumBuffsP);
+            Round.addMovedIDs(builder, movedIDsP);
+            Round.addMovedLocs(builder, movedLocsP);
+            Round.addSpawnedBodies(builder, spawnedBodiesP);
+            Round.addDiedIDs(builder, diedIDsP);
+            Round.addActionIDs(builder, actionIDsP);
+            Round.addActions(builder, actionsP);
+            Round.addActionTargets(builder, actionTargetsP);
+            Round.addIndicatorDotIDs(builder, indicatorDotIDsP);
+            Round.addIndicatorDotLocs(builder, indicatorDotLocsP);
+            Round.addIndicatorDotRGBs(builder, indicatorDotRGBsP);
+            Round.addIndicatorLineIDs(builder, indicatorLineIDsP);
+            Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsP);
+            Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsP);
+            Round.addIndicatorLineRGBs(builder, indicatorLineRGBsP);
+            Round.addRoundID(builder, roundNum);
+            Round.addBytecodeIDs(builder, bytecodeIDsP);
+            Round.addBytecodesUsed(builder, bytecodesUsedP);
+            Round.addLogs(builder, logsP);
+            if (packed != null) {
+                packed.addTo(builder);
+            }
+            int round = Round.endRound(builder);
+            return EventWrapper.createEventWrapper(builder, Event.Round, round);
+        }
+    }
+
+    /**
+     * The state of a match at the end of a round, for MatchMaker to write
+     * as a Keyframe.
+     */
+    private static class KeyframeData {
+        int roundNum;
+
+        // SpawnedBodyTable for the bodies
+        final TIntArrayList robotIDs = new TIntArrayList();
+        final TByteArrayList teamIDs = new TByteArrayList();
+        final TByteArrayList types = new TByteArrayList();
+        final TIntArrayList locsXs = new TIntArrayList();
+        final TIntArrayList locsYs = new TIntArrayList();
+        final TIntArrayList influences = new TIntArrayList();
+
+        final TIntArrayList convictions = new TIntArrayList();
+        final TIntArrayList flags = new TIntArrayList();
+
+        // Team statistics
+        final TIntArrayList teamTeamIDs = new TIntArrayList();
+        final TIntArrayList teamVotes = new TIntArrayList();
+        final TIntArrayList teamNumBuffs = new TIntArrayList();
+
+        /**
+         * @return the offset of an EventWrapper holding the Keyframe
+         */
+        int serialize(FlatBufferBuilder builder) {
+            int locsP = createVecTable(builder, locsXs, locsYs);
+            int robotIDsP = SpawnedBodyTable.createRobotIDsVector(builder, robotIDs.toArray());
+            int teamIDsP = SpawnedBodyTable.createTeamIDsVector(builder, teamIDs.toArray());
+            int typesP = SpawnedBodyTable.createTypesVector(builder, types.toArray());
+            int influencesP = SpawnedBodyTable.createInfluencesVector(builder, influences.toArray());
+            SpawnedBodyTable.startSpawnedBodyTable(builder);
+            SpawnedBodyTable.addLocs(builder, locsP);
+            SpawnedBodyTable.addRobotIDs(builder, robotIDsP);
+            SpawnedBodyTable.addTeamIDs(builder, teamIDsP);
+            SpawnedBodyTable.addTypes(builder, typesP);
+            SpawnedBodyTable.addInfluences(builder, influencesP);
+            int bodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+
+            int keyframe = Keyframe.createKeyframe(builder, roundNum, bodiesP,
+                    Keyframe.createConvictionsVector(builder, convictions.toArray()),
+                    Keyframe.createFlagsVector(builder, flags.toArray()),
+                    Keyframe.createTeamIDsVector(builder, teamTeamIDs.toArray()),
+                    Keyframe.createTeamVotesVector(builder, teamVotes.toArray()),
+                    Keyframe.createTeamNumBuffsVector(builder, teamNumBuffs.toArray()));
+            return EventWrapper.createEventWrapper(builder, Event.Keyframe, keyframe);
+        }
+    }
+
+    /**
+     * The MatchSink that writes a match to the replay, as flatbuffers.
+     *
+     * One of the rare cases where we want a non-static inner class in Java:
+     * this basically just provides a restricted interface to GameMaker.
+     *
+     * There is only one of these per GameMaker.
+     */
+    public class MatchMaker implements MatchSink {
+        /**
+         * The round being played. At the end of the round it's swapped for
+         * a spare, and written while the next round is played.
+         */
+        private RoundData round;
+
+        /**
+         * The Keyframe being filled in, if one is due.
+         */
+        private KeyframeData keyframe;
 
         // Used to write logs.
         private final ByteArrayOutputStream logger;
 
         public MatchMaker() {
-            this.movedIDs = new TIntArrayList();
-            this.movedLocsXs = new TIntArrayList();
-            this.movedLocsYs = new TIntArrayList();
-            this.spawnedBodiesRobotIDs = new TIntArrayList();
-            this.spawnedBodiesTeamIDs = new TByteArrayList();
-            this.spawnedBodiesTypes = new TByteArrayList();
-            this.spawnedBodiesLocsXs = new TIntArrayList();
-            this.spawnedBodiesLocsYs = new TIntArrayList();
-            this.spawnedBodiesInfluences = new TIntArrayList();
-            this.diedIDs = new TIntArrayList();
-            this.actionIDs = new TIntArrayList();
-            this.actions = new TByteArrayList();
-            this.actionTargets = new TIntArrayList();
-            this.teamIDs = new TIntArrayList();
-            this.teamVotes = new TIntArrayList();
-            this.teamBidderIDs = new TIntArrayList();
-            this.teamNumBuffs = new TIntArrayList();
-            this.indicatorDotIDs = new TIntArrayList();
-            this.indicatorDotLocsX = new TIntArrayList();
-            this.indicatorDotLocsY = new TIntArrayList();
-            this.indicatorDotRGBsRed = new TIntArrayList();
-            this.indicatorDotRGBsBlue = new TIntArrayList();
-            this.indicatorDotRGBsGreen = new TIntArrayList();
-            this.indicatorLineIDs = new TIntArrayList();
-            this.indicatorLineStartLocsX = new TIntArrayList();
-            this.indicatorLineStartLocsY = new TIntArrayList();
-            this.indicatorLineEndLocsX = new TIntArrayList();
-            this.indicatorLineEndLocsY = new TIntArrayList();
-            this.indicatorLineRGBsRed = new TIntArrayList();
-            this.indicatorLineRGBsBlue = new TIntArrayList();
-            this.indicatorLineRGBsGreen = new TIntArrayList();
-            this.bytecodeIDs = new TIntArrayList();
-            this.bytecodesUsed = new TIntArrayList();
+            this.round = new RoundData();
+            this.keyframe = new KeyframeData();
             this.logger = new ByteArrayOutputStream();
         }
 
+        @Override
         public void makeMatchHeader(LiveMap gameMap) {
             changeState(State.IN_GAME, State.IN_MATCH);
 
             createEvent((builder) -> {
                 int map = GameMapIO.Serial.serialize(builder, gameMap);
+                if (roundCodec != null) {
+                    // The last match's rounds are written, so it's safe here
+                    roundCodec.startMatch();
+                    for (RobotInfo body : gameMap.getInitialBodies()) {
+                        roundCodec.addBody(body.ID, body.location.x, body.location.y);
+                    }
+                }
 
                 return EventWrapper.createEventWrapper(builder, Event.MatchHeader,
                         MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
             });
 
-            matchHeaders.add(events.size() - 1);
-
-            clearData();
+            round.clear();
         }
 
+        @Override
         public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
             changeState(State.IN_MATCH, State.IN_GAME);
 
@@ -465,10 +846,9 @@ public strictfp class GameMaker {
                 return EventWrapper.createEventWrapper(builder, Event.MatchFooter,
                     MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam), totalRounds, profilerFilesOffset));
             });
-
-            matchFooters.add(events.size() - 1);
         }
 
+        @Override
         public void makeRound(int roundNum) {
             assertState(State.IN_MATCH);
 
@@ -477,193 +857,134 @@ public strictfp class GameMaker {
             } catch (IOException e) {
                 throw new RuntimeException("Can't flush byte[]outputstream?", e);
             }
-            byte[] logs = this.logger.toByteArray();
+            final RoundData data = this.round;
+            data.roundNum = roundNum;
+            data.logs = this.logger.toByteArray();
             this.logger.reset();
 
-            createEvent((builder) -> {
-                // The bodies that spawned
-                int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
-                int spawnedBodiesRobotIDsP = SpawnedBodyTable.createRobotIDsVector(builder, spawnedBodiesRobotIDs.toArray());
-                int spawnedBodiesTeamIDsP = SpawnedBodyTable.createTeamIDsVector(builder, spawnedBodiesTeamIDs.toArray());
-                int spawnedBodiesTypesP = SpawnedBodyTable.createTypesVector(builder, spawnedBodiesTypes.toArray());
-                int spawnedBodiesInfluencesP = SpawnedBodyTable.createInfluencesVector(builder, spawnedBodiesInfluences.toArray());
-                SpawnedBodyTable.startSpawnedBodyTable(builder);
-                SpawnedBodyTable.addLocs(builder, spawnedBodiesLocsP);
-                SpawnedBodyTable.addRobotIDs(builder, spawnedBodiesRobotIDsP);
-                SpawnedBodyTable.addTeamIDs(builder, spawnedBodiesTeamIDsP);
-                SpawnedBodyTable.addTypes(builder, spawnedBodiesTypesP);
-                SpawnedBodyTable.addInfluences(builder, spawnedBodiesInfluencesP);
-                int spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
-
-                // Round statistics
-                int teamIDsP = Round.createTeamIDsVector(builder, teamIDs.toArray());
-                int teamVotesP = Round.createTeamVotesVector(builder, teamVotes.toArray());
-                int teamBidderIDsP = Round.createTeamBidderIDsVector(builder, teamBidderIDs.toArray());
-                int teamNumBuffsP = Round.createTeamNumBuffsVector(builder, teamNumBuffs.toArray());
-
-                // The bodies that moved
-                int movedIDsP = Round.createMovedIDsVector(builder, movedIDs.toArray());
-                int movedLocsP = createVecTable(builder, movedLocsXs, movedLocsYs);
-
-                // The bodies that died
-                int diedIDsP = Round.createDiedIDsVector(builder, diedIDs.toArray());
-
-                // The actions that happened
-                int actionIDsP = Round.createActionIDsVector(builder, actionIDs.toArray());
-                int actionsP = Round.createActionsVector(builder, actions.toArray());
-                int actionTargetsP = Round.createActionTargetsVector(builder, actionTargets.toArray());
-
-                // The indicator dots that were set
-                int indicatorDotIDsP = Round.createIndicatorDotIDsVector(builder, indicatorDotIDs.toArray());
-                int indicatorDotLocsP = createVecTable(builder, indicatorDotLocsX, indicatorDotLocsY);
-                int indicatorDotRGBsP = createRGBTable(builder, indicatorDotRGBsRed, indicatorDotRGBsGreen, indicatorDotRGBsBlue);
-
-                // The indicator lines that were set
-                int indicatorLineIDsP = Round.createIndicatorLineIDsVector(builder, indicatorLineIDs.toArray());
-                int indicatorLineStartLocsP = createVecTable(builder, indicatorLineStartLocsX, indicatorLineStartLocsY);
-                int indicatorLineEndLocsP = createVecTable(builder, indicatorLineEndLocsX, indicatorLineEndLocsY);
-                int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
-
-                // The bytecode usage
-                int bytecodeIDsP = Round.createBytecodeIDsVector(builder, bytecodeIDs.toArray());
-                int bytecodesUsedP = Round.createBytecodesUsedVector(builder, bytecodesUsed.toArray());
-
-                int logsP = builder.createString(ByteBuffer.wrap(logs));
-
-                Round.startRound(builder);
-                Round.addTeamIDs(builder, teamIDsP);
-                Round.addTeamVotes(builder, teamVotesP);
-                Round.addTeamBidderIDs(builder, teamBidderIDsP);
-                Round.addTeamNumBuffs(builder, teamNumBuffsP);
-                Round.addMovedIDs(builder, movedIDsP);
-                Round.addMovedLocs(builder, movedLocsP);
-                Round.addSpawnedBodies(builder, spawnedBodiesP);
-                Round.addDiedIDs(builder, diedIDsP);
-                Round.addActionIDs(builder, actionIDsP);
-                Round.addActions(builder, actionsP);
-                Round.addActionTargets(builder, actionTargetsP);
-                Round.addIndicatorDotIDs(builder, indicatorDotIDsP);
-                Round.addIndicatorDotLocs(builder, indicatorDotLocsP);
-                Round.addIndicatorDotRGBs(builder, indicatorDotRGBsP);
-                Round.addIndicatorLineIDs(builder, indicatorLineIDsP);
-                Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsP);
-                Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsP);
-                Round.addIndicatorLineRGBs(builder, indicatorLineRGBsP);
-                Round.addRoundID(builder, roundNum);
-                Round.addBytecodeIDs(builder, bytecodeIDsP);
-                Round.addBytecodesUsed(builder, bytecodesUsedP);
-                Round.addLogs(builder, logsP);
-                int round = Round.endRound(builder);
-                return EventWrapper.createEventWrapper(builder, Event.Round, round);
-            });
+            this.round = spareRound();
+            serializeRound(builder -> data.serialize(builder, roundCodec), () -> recycleRound(data));
+        }
 
-            clearData();
+        /**
+         * @return whether the world should make a Keyframe after the round
+         */
+        @Override
+        public boolean isKeyframeRound(int roundNum) {
+            return keyframeInterval > 0 && roundNum % keyframeInterval == 0;
+        }
+
+        /**
+         * Write a Keyframe after the Round just made, from the robots and
+         * teams added with addKeyframeRobot and addKeyframeTeamInfo.
+         */
+        @Override
+        public void makeKeyframe(int roundNum) {
+            assertState(State.IN_MATCH);
+
+            final KeyframeData data = this.keyframe;
+            data.roundNum = roundNum;
+            this.keyframe = new KeyframeData();
+            serializeRound(data::serialize, null);
+        }
+
+        @Override
+        public void addKeyframeRobot(InternalRobot robot) {
+            keyframe.robotIDs.add(robot.getID());
+            keyframe.teamIDs.add(TeamMapping.id(robot.getTeam()));
+            keyframe.types.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+            keyframe.locsXs.add(robot.getLocation().x);
+            keyframe.locsYs.add(robot.getLocation().y);
+            keyframe.influences.add(robot.getInfluence());
+            keyframe.convictions.add(robot.getConviction());
+            keyframe.flags.add(robot.getFlag());
+        }
+
+        @Override
+        public void addKeyframeTeamInfo(Team team, int votes, int numBuffs) {
+            keyframe.teamTeamIDs.add(TeamMapping.id(team));
+            keyframe.teamVotes.add(votes);
+            keyframe.teamNumBuffs.add(numBuffs);
         }
 
         /**
          * @return an outputstream that will be baked into the output file
          */
+        @Override
         public OutputStream getOut() {
             return logger;
         }
 
+        @Override
         public void addMoved(int id, MapLocation newLocation) {
-            movedIDs.add(id);
-            movedLocsXs.add(newLocation.x);
-            movedLocsYs.add(newLocation.y);
+            round.movedIDs.add(id);
+            round.movedLocsXs.add(newLocation.x);
+            round.movedLocsYs.add(newLocation.y);
         }
 
+        @Override
         public void addDied(int id) {
-            diedIDs.add(id);
+            round.diedIDs.add(id);
         }
 
+        @Override
         public void addAction(int userID, byte action, int targetID) {
-            actionIDs.add(userID);
-            actions.add(action);
-            actionTargets.add(targetID);
+            round.actionIDs.add(userID);
+            round.actions.add(action);
+            round.actionTargets.add(targetID);
         }
 
+        @Override
         public void addTeamInfo(Team team, int vote, int bidderID, int numBuffs) {
-            teamIDs.add(TeamMapping.id(team));
-            teamVotes.add(vote);
-            teamBidderIDs.add(bidderID);
-            teamNumBuffs.add(numBuffs);
+            round.teamIDs.add(TeamMapping.id(team));
+            round.teamVotes.add(vote);
+            round.teamBidderIDs.add(bidderID);
+            round.teamNumBuffs.add(numBuffs);
         }
 
+        @Override
         public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
             if (!showIndicators) {
                 return;
             }
-            indicatorDotIDs.add(id);
-            indicatorDotLocsX.add(loc.x);
-            indicatorDotLocsY.add(loc.y);
-            indicatorDotRGBsRed.add(red);
-            indicatorDotRGBsGreen.add(green);
-            indicatorDotRGBsBlue.add(blue);
+            round.indicatorDotIDs.add(id);
+            round.indicatorDotLocsX.add(loc.x);
+            round.indicatorDotLocsY.add(loc.y);
+            round.indicatorDotRGBsRed.add(red);
+            round.indicatorDotRGBsGreen.add(green);
+            round.indicatorDotRGBsBlue.add(blue);
         }
 
+        @Override
         public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
             if (!showIndicators) {
                 return;
             }
-            indicatorLineIDs.add(id);
-            indicatorLineStartLocsX.add(startLoc.x);
-            indicatorLineStartLocsY.add(startLoc.y);
-            indicatorLineEndLocsX.add(endLoc.x);
-            indicatorLineEndLocsY.add(endLoc.y);
-            indicatorLineRGBsRed.add(red);
-            indicatorLineRGBsGreen.add(green);
-            indicatorLineRGBsBlue.add(blue);
+            round.indicatorLineIDs.add(id);
+            round.indicatorLineStartLocsX.add(startLoc.x);
+            round.indicatorLineStartLocsY.add(startLoc.y);
+            round.indicatorLineEndLocsX.add(endLoc.x);
+            round.indicatorLineEndLocsY.add(endLoc.y);
+            round.indicatorLineRGBsRed.add(red);
+            round.indicatorLineRGBsGreen.add(green);
+            round.indicatorLineRGBsBlue.add(blue);
         }
 
+        @Override
         public void addBytecodes(int id, int bytecodes) {
-            bytecodeIDs.add(id);
-            bytecodesUsed.add(bytecodes);
+            round.bytecodeIDs.add(id);
+            round.bytecodesUsed.add(bytecodes);
         }
 
+        @Override
         public void addSpawnedRobot(InternalRobot robot) {
-            spawnedBodiesRobotIDs.add(robot.getID());
-            spawnedBodiesLocsXs.add(robot.getLocation().x);
-            spawnedBodiesLocsYs.add(robot.getLocation().y);
-            spawnedBodiesTeamIDs.add(TeamMapping.id(robot.getTeam()));
-            spawnedBodiesTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
-            spawnedBodiesInfluences.add(robot.getInfluence());
+            round.spawnedBodiesRobotIDs.add(robot.getID());
+            round.spawnedBodiesLocsXs.add(robot.getLocation().x);
+            round.spawnedBodiesLocsYs.add(robot.getLocation().y);
+            round.spawnedBodiesTeamIDs.add(TeamMapping.id(robot.getTeam()));
+            round.spawnedBodiesTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+            round.spawnedBodiesInfluences.add(robot.getInfluence());
         }
 
-        private void clearData() {
-            movedIDs.clear();
-            movedLocsXs.clear();
-            movedLocsYs.clear();
-            spawnedBodiesRobotIDs.clear();
-            spawnedBodiesTeamIDs.clear();
-            spawnedBodiesTypes.clear();
-            spawnedBodiesLocsXs.clear();
-            spawnedBodiesLocsYs.clear();
-            spawnedBodiesInfluences.clear();
-            diedIDs.clear();
-            actionIDs.clear();
-            actions.clear();
-            actionTargets.clear();
-            teamIDs.clear();
-            teamVotes.clear();
-            teamBidderIDs.clear();
-            teamNumBuffs.clear();
-            indicatorDotIDs.clear();
-            indicatorDotLocsX.clear();
-            indicatorDotLocsY.clear();
-            indicatorDotRGBsRed.clear();
-            indicatorDotRGBsBlue.clear();
-            indicatorDotRGBsGreen.clear();
-            indicatorLineIDs.clear();
-            indicatorLineStartLocsX.clear();
-            indicatorLineStartLocsY.clear();
-            indicatorLineEndLocsX.clear();
-            indicatorLineEndLocsY.clear();
-            indicatorLineRGBsRed.clear();
-            indicatorLineRGBsBlue.clear();
-            indicatorLineRGBsGreen.clear();
-            bytecodeIDs.clear();
-            bytecodesUsed.clear();
-        }
     }
 }
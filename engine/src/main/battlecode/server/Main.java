@@ -58,7 +58,9 @@ public class Main {
             final String[] maps = mapsCommaSep.split(",");
 
             File saveFile;
-            if (options.get("bc.server.save-file") != null) {
+            if (options.getBoolean("bc.server.no-replay")) {
+                saveFile = null;
+            } else if (options.get("bc.server.save-file") != null) {
                 saveFile = new File(options.get("bc.server.save-file"));
             } else {
                 System.err.println("Can't run match without bc.server.save-file set!");
@@ -107,6 +109,8 @@ public class Main {
         switch (mode) {
             case HEADLESS:
                 return runHeadless(options);
+            case DAEMON:
+                return MatchDaemon.run(options);
             default:
                 return false;
         }
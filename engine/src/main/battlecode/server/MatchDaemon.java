@@ -0,0 +1,362 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+/**
+ * Runs matches for clients connecting over a local socket, so that a
+ * worker playing many matches pays for JVM startup, loading the engine and
+ * instrumenting each team only once. Started by Main with
+ * bc.server.mode=daemon.
+ *
+ * Messages in both directions are frames: a 4-byte big-endian length, then
+ * that many bytes of properties (key=value lines, as read by
+ * java.util.Properties) in UTF-8. A client may send any number of requests
+ * on a connection without waiting; each gets one response, carrying the
+ * request's id, when it's done. Responses to run requests may come back
+ * in any order. A client that has sent all its requests may shut down its
+ * side of the connection; the daemon closes its side once it has answered
+ * them all.
+ *
+ * Requests:
+ * <ul>
+ *     <li>command=run (the default): plays a match. Takes team-a, team-a.url,
+ *         team-b, team-b.url and map, and optionally team-a.package,
+ *         team-b.package, seed, save-file and engine options (bc.engine.*
+ *         and bc.cache.bypass). Answered with status=ok and winner (A or
+ *         B), winner-name, reason, rounds, cached and, if saved, save-file;
+ *         or status=error and message.</li>
+ *     <li>command=status: answered with status=ok, running, queued,
+ *         max-concurrency and max-queued.</li>
+ *     <li>command=shutdown: stops accepting connections, finishes the
+ *         matches already accepted, and exits.</li>
+ * </ul>
+ * At most bc.daemon.max-concurrency matches are played at once, and at
+ * most bc.daemon.max-queued more wait for a turn. Run requests beyond
+ * that are answered straight away with status=busy, so that a client can
+ * back off instead of piling up work.
+ *
+ * The daemon only listens on the loopback interface, on bc.daemon.port.
+ * Results are cached in bc.cache.dir if it is set; see ResultCache.
+ */
+public class MatchDaemon implements Closeable {
+
+    /**
+     * The largest frame accepted, so that a confused client can't make the
+     * daemon allocate arbitrary amounts of memory.
+     */
+    static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private final Config options;
+    private final MatchRunner runner;
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrency;
+    private final int maxQueued;
+
+    /**
+     * @param options the daemon's options; see the class comment
+     * @param runner the runner to play matches with
+     * @throws IOException if the socket can't be opened
+     */
+    public MatchDaemon(Config options, MatchRunner runner) throws IOException {
+        this.options = options;
+        this.runner = runner;
+        this.maxConcurrency = options.get("bc.daemon.max-concurrency") != null
+                ? options.getInt("bc.daemon.max-concurrency")
+                : Runtime.getRuntime().availableProcessors();
+        this.maxQueued = options.getInt("bc.daemon.max-queued");
+        if (maxConcurrency < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("Need bc.daemon.max-concurrency >= 1 and bc.daemon.max-queued >= 0");
+        }
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>());
+        this.serverSocket = new ServerSocket(options.getInt("bc.daemon.port"), 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @return the port the daemon listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the daemon is closed or asked to shut down,
+     * then waits for the matches already accepted to finish.
+     */
+    public void serve() throws InterruptedException {
+        Server.say("Match daemon listening on " + serverSocket.getInetAddress().getHostAddress() + ":" + getPort()
+                + ", playing up to " + maxConcurrency + " matches at once");
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    Server.warn("Couldn't accept connection: " + e.getMessage());
+                }
+                continue;
+            }
+            final Thread thread = new Thread(() -> handle(socket), "daemon-connection-" + socket.getPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops accepting connections and requests. Matches already accepted
+     * are still played.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdown();
+    }
+
+    /**
+     * Reads requests from a connection until the client closes its side of
+     * it, then waits for the requests still running or queued to be
+     * answered before closing the socket.
+     */
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            final Connection connection = new Connection(
+                    new DataOutputStream(new BufferedOutputStream(s.getOutputStream())));
+            Properties request;
+            while ((request = readFrame(in)) != null) {
+                handleRequest(request, connection);
+            }
+            connection.awaitAnswered();
+        } catch (SocketException | EOFException e) {
+            // The client went away
+        } catch (IOException e) {
+            Server.warn("Dropping connection: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A client's connection, and the number of its run requests that
+     * haven't been answered yet.
+     */
+    private static class Connection {
+        final DataOutputStream out;
+        private int pending;
+
+        Connection(DataOutputStream out) {
+            this.out = out;
+        }
+
+        synchronized void started() {
+            pending++;
+        }
+
+        synchronized void finished() {
+            pending--;
+            notifyAll();
+        }
+
+        synchronized void awaitAnswered() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+    }
+
+    private void handleRequest(Properties request, Connection connection) throws IOException {
+        final DataOutputStream out = connection.out;
+        final String command = request.getProperty("command", "run");
+        switch (command) {
+            case "run":
+                try {
+                    final MatchSpec spec = spec(request);
+                    connection.started();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                respond(out, play(request, spec));
+                            } finally {
+                                connection.finished();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        connection.finished();
+                        throw e;
+                    }
+                } catch (IllegalArgumentException e) {
+                    respond(out, response(request, "error").apply("message", e.getMessage()));
+                } catch (RejectedExecutionException e) {
+                    respond(out, response(request, "busy").apply("message",
+                            executor.isShutdown() ? "shutting down" : "too many matches waiting"));
+                }
+                break;
+            case "status":
+                respond(out, response(request, "ok")
+                        .apply("running", Integer.toString(executor.getActiveCount()))
+                        .apply("queued", Integer.toString(executor.getQueue().size()))
+                        .apply("max-concurrency", Integer.toString(maxConcurrency))
+                        .apply("max-queued", Integer.toString(maxQueued)));
+                break;
+            case "shutdown":
+                Server.say("Match daemon shutting down");
+                respond(out, response(request, "ok"));
+                close();
+                break;
+            default:
+                respond(out, response(request, "error").apply("message", "Unknown command: " + command));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request is missing something
+     */
+    private MatchSpec spec(Properties request) {
+        final MatchSpec spec = new MatchSpec(
+                required(request, "team-a"), required(request, "team-a.url"),
+                required(request, "team-b"), required(request, "team-b.url"),
+                required(request, "map"))
+                .setMapPath(new File(options.get("bc.game.map-path")));
+        if (request.getProperty("team-a.package") != null) {
+            spec.setTeamAPackage(request.getProperty("team-a.package"));
+        }
+        if (request.getProperty("team-b.package") != null) {
+            spec.setTeamBPackage(request.getProperty("team-b.package"));
+        }
+        if (request.getProperty("seed") != null) {
+            spec.setSeed(Integer.parseInt(request.getProperty("seed")));
+        }
+        if (request.getProperty("save-file") != null) {
+            spec.setReplayFile(new File(request.getProperty("save-file")));
+        }
+        for (String key : request.stringPropertyNames()) {
+            if (key.startsWith("bc.engine.") || key.equals("bc.cache.bypass")) {
+                spec.setOption(key, request.getProperty(key));
+            }
+        }
+        return spec;
+    }
+
+    private static String required(Properties request, String key) {
+        final String value = request.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value;
+    }
+
+    private Response play(Properties request, MatchSpec spec) {
+        final MatchResult result;
+        try {
+            result = runner.run(spec);
+        } catch (Exception e) {
+            Server.warn("Couldn't run " + spec + ": " + e.getMessage());
+            return response(request, "error").apply("message", String.valueOf(e.getMessage()));
+        }
+        Server.say(result.toString());
+        final Response response = response(request, "ok")
+                .apply("winner", result.getWinner().name())
+                .apply("winner-name", result.getWinner() == Team.A
+                        ? spec.getTeamAName() : spec.getTeamBName())
+                .apply("reason", result.getReason().name())
+                .apply("rounds", Integer.toString(result.getRounds()))
+                .apply("cached", Boolean.toString(result.isCached()));
+        if (spec.getReplayFile() != null) {
+            response.apply("save-file", spec.getReplayFile().getPath());
+        }
+        return response;
+    }
+
+    /**
+     * A response being put together.
+     */
+    private static class Response {
+        final Properties properties = new Properties();
+
+        Response apply(String key, String value) {
+            properties.setProperty(key, value);
+            return this;
+        }
+    }
+
+    private static Response response(Properties request, String status) {
+        final Response response = new Response().apply("status", status);
+        if (request.getProperty("id") != null) {
+            response.apply("id", request.getProperty("id"));
+        }
+        return response;
+    }
+
+    private static void respond(DataOutputStream out, Response response) {
+        try {
+            synchronized (out) {
+                writeFrame(out, response.properties);
+            }
+        } catch (IOException e) {
+            // The client went away; the connection's reader notices
+        }
+    }
+
+    /**
+     * Reads a frame.
+     *
+     * @return the frame's properties, or null at the end of the stream
+     * @throws IOException if the stream ends mid-frame or the frame is too big
+     */
+    static Properties readFrame(DataInputStream in) throws IOException {
+        final int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        final int length = (first << 24) | (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Bad frame length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        final Properties properties = new Properties();
+        properties.load(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+        return properties;
+    }
+
+    /**
+     * Writes and flushes a frame.
+     */
+    static void writeFrame(DataOutputStream out, Properties properties) throws IOException {
+        final StringWriter text = new StringWriter();
+        properties.store(text, null);
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Runs a daemon until it's asked to shut down.
+     *
+     * @return whether it started
+     */
+    public static boolean run(Config options) {
+        try (MatchDaemon daemon = new MatchDaemon(options, Batch.createRunner(options))) {
+            daemon.serve();
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Can't start match daemon: " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package battlecode.server;
+
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.world.DominationFactor;
+import battlecode.world.GameWorld;
+import battlecode.world.ObjectInfo;
+import battlecode.world.TeamInfo;
+
+import java.util.List;
+
+/**
+ * The outcome of a match run by MatchRunner.
+ */
+public class MatchResult {
+
+    private final MatchSpec spec;
+    private final Team winner;
+    private final DominationFactor reason;
+    private final int rounds;
+    private final List<RoundStats> roundStats;
+    private final boolean cached;
+
+    public MatchResult(MatchSpec spec, Team winner, DominationFactor reason, int rounds,
+                       List<RoundStats> roundStats) {
+        this(spec, winner, reason, rounds, roundStats, false);
+    }
+
+    public MatchResult(MatchSpec spec, Team winner, DominationFactor reason, int rounds,
+                       List<RoundStats> roundStats, boolean cached) {
+        this.spec = spec;
+        this.winner = winner;
+        this.reason = reason;
+        this.rounds = rounds;
+        this.roundStats = roundStats;
+        this.cached = cached;
+    }
+
+    public MatchSpec getSpec() {
+        return spec;
+    }
+
+    public Team getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return how the winner won
+     */
+    public DominationFactor getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the number of rounds played
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return statistics for every round played, in order, or null if they
+     *         weren't requested
+     */
+    public List<RoundStats> getRoundStats() {
+        return roundStats;
+    }
+
+    /**
+     * @return whether the result came from a ResultCache rather than
+     *         playing the match
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        return spec + ": " + winner + " wins (" + reason + ", round " + rounds + ")"
+                + (cached ? " [cached]" : "");
+    }
+
+    /**
+     * Team totals at the end of a round. Arrays are indexed by team ordinal
+     * (A, then B).
+     */
+    public static class RoundStats {
+        public final int round;
+        public final int[] robots = new int[2];
+        public final int[] enlightenmentCenters = new int[2];
+        public final int[] influence = new int[2];
+        public final int[] conviction = new int[2];
+        public final int[] votes = new int[2];
+
+        public RoundStats(GameWorld world) {
+            this.round = world.getCurrentRound();
+            ObjectInfo objectInfo = world.getObjectInfo();
+            TeamInfo teamInfo = world.getTeamInfo();
+            for (int i = 0; i < 2; i++) {
+                Team team = i == 0 ? Team.A : Team.B;
+                this.robots[i] = objectInfo.getRobotCount(team);
+                this.enlightenmentCenters[i] = objectInfo.getRobotTypeCount(team, RobotType.ENLIGHTENMENT_CENTER);
+                this.influence[i] = objectInfo.getTotalInfluence(team);
+                this.conviction[i] = objectInfo.getTotalConviction(team);
+                this.votes[i] = teamInfo.getVotes(team);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.FanOutMatchSink;
+import battlecode.world.GameMapIO;
+import battlecode.world.GameWorld;
+import battlecode.world.LiveMap;
+import battlecode.world.MatchSink;
+import battlecode.world.NullMatchSink;
+import battlecode.world.StatsMatchSink;
+import battlecode.world.control.NullControlProvider;
+import battlecode.world.control.PlayerControlProvider;
+import battlecode.world.control.RobotControlProvider;
+import battlecode.world.control.TeamControlProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs matches in-process, for code that wants to drive the engine as a
+ * library rather than through Main and Server.
+ *
+ * Each match is configured entirely by its MatchSpec: the global Config,
+ * system properties and bc.conf are not consulted, nothing is printed
+ * besides error reports, and a replay is only saved if the spec asks for
+ * one. A match without a replay isn't recorded at all: the world is given
+ * a NullMatchSink, so no time is spent building a replay to throw away.
+ * If the spec sets bc.server.stats-file, totals for each round are written
+ * there by a StatsMatchSink, with or without a replay.
+ * Robot output is not echoed to System.out unless the spec sets
+ * bc.server.robot-player-to-system-out.
+ *
+ * A runner may be given a ResultCache, in which case matches that have
+ * been played before return their cached results straight away, unless
+ * bc.cache.bypass is set. Results are only taken from the cache if the
+ * spec doesn't ask for round statistics or a bc.server.stats-file, and,
+ * if it asks for a replay, the cache has one.
+ *
+ * A runner keeps the instrumented classes of every team it has loaded, so
+ * running many matches with the same runner is much cheaper than running
+ * them separately. If a team's files change between matches, its classes
+ * are loaded afresh. A runner may run matches on several threads at once.
+ */
+public class MatchRunner {
+
+    /**
+     * The teams' class loader factories.
+     */
+    private final TeamFactories factories;
+
+    /**
+     * Where to look up and store results, or null.
+     */
+    private final ResultCache cache;
+
+    public MatchRunner() {
+        this(null);
+    }
+
+    /**
+     * @param cache where to look up and store results, or null
+     */
+    public MatchRunner(ResultCache cache) {
+        this.factories = new TeamFactories();
+        this.cache = cache;
+    }
+
+    /**
+     * Runs a match to completion.
+     *
+     * @param spec the match to run
+     * @return the result of the match
+     * @throws IOException if the map can't be loaded or the replay can't be saved
+     */
+    public MatchResult run(MatchSpec spec) throws IOException {
+        Config options = createOptions(spec);
+
+        LiveMap map = spec.getMap() != null
+                ? spec.getMap()
+                : GameMapIO.loadMap(spec.getMapName(), spec.getMapPath());
+        // The world rewrites the initial bodies of its map, so always give it a copy
+        map = spec.getSeed() != null ? new LiveMap(map, spec.getSeed()) : new LiveMap(map);
+
+        String cacheKey = null;
+        if (cache != null) {
+            try {
+                cacheKey = ResultCache.key(spec, map, options);
+            } catch (IOException e) {
+                Server.warn("Can't cache " + spec + ": " + e.getMessage());
+            }
+        }
+        final String statsFile = options.get("bc.server.stats-file");
+        if (cacheKey != null && !options.getBoolean("bc.cache.bypass") && !spec.isCollectRoundStats()
+                && statsFile == null) {
+            MatchResult cached = getCached(spec, cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final GameMaker gameMaker;
+        final MatchSink replaySink;
+        if (spec.getReplayFile() != null) {
+            GameInfo gameInfo = new GameInfo(
+                    spec.getTeamAName(), spec.getTeamAPackage(), spec.getTeamAURL(),
+                    spec.getTeamBName(), spec.getTeamBPackage(), spec.getTeamBURL(),
+                    new String[] {map.getMapName()},
+                    spec.getReplayFile(),
+                    false
+            );
+            gameMaker = new GameMaker(gameInfo, null, options);
+            gameMaker.makeGameHeader();
+            replaySink = gameMaker.getMatchMaker();
+        } else {
+            gameMaker = null;
+            replaySink = NullMatchSink.INSTANCE;
+        }
+
+        final StatsMatchSink statsSink;
+        final MatchSink sink;
+        if (statsFile != null) {
+            statsSink = new StatsMatchSink(new File(statsFile));
+            sink = gameMaker != null ? new FanOutMatchSink(replaySink, statsSink) : statsSink;
+        } else {
+            statsSink = null;
+            sink = replaySink;
+        }
+
+        RobotControlProvider prov = createControlProvider(spec, sink, options);
+        GameWorld world = new GameWorld(map, prov, sink);
+
+        List<MatchResult.RoundStats> roundStats = spec.isCollectRoundStats() ? new ArrayList<>() : null;
+        Team winner;
+        try {
+            while (world.runRound() == GameState.RUNNING) {
+                if (roundStats != null) {
+                    roundStats.add(new MatchResult.RoundStats(world));
+                }
+            }
+
+            winner = world.getWinner();
+            if (winner == null) {
+                throw new IllegalStateException("Match " + spec + " stopped without a winner; see the error report");
+            }
+        } catch (RuntimeException e) {
+            if (gameMaker != null) {
+                gameMaker.discard();
+            }
+            throw e;
+        } finally {
+            if (statsSink != null) {
+                statsSink.close();
+            }
+        }
+
+        if (gameMaker != null) {
+            gameMaker.makeGameFooter(winner);
+            gameMaker.writeGame(spec.getReplayFile());
+        }
+
+        MatchResult result = new MatchResult(spec, winner, world.getGameStats().getDominationFactor(),
+                world.getCurrentRound(), roundStats);
+        if (cacheKey != null) {
+            try {
+                cache.put(cacheKey, result, spec.getReplayFile());
+            } catch (IOException e) {
+                Server.warn("Couldn't cache result of " + spec + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the cached result of a match, with its replay copied where
+     *         the spec wants it, or null if it can't be served from the cache
+     */
+    private MatchResult getCached(MatchSpec spec, String cacheKey) {
+        ResultCache.Entry entry = cache.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (spec.getReplayFile() != null) {
+            if (entry.replay == null || !entry.replay.isFile()) {
+                return null;
+            }
+            try {
+                Files.copy(entry.replay.toPath(), spec.getReplayFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Server.warn("Couldn't copy cached replay of " + spec + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return new MatchResult(spec, entry.winner, entry.reason, entry.rounds, null, true);
+    }
+
+    private static Config createOptions(MatchSpec spec) {
+        Properties properties = new Properties();
+        properties.setProperty("bc.server.robot-player-to-system-out", "false");
+        properties.putAll(spec.getOptions());
+        return new Config(properties);
+    }
+
+    private RobotControlProvider createControlProvider(MatchSpec spec, MatchSink sink, Config options) {
+        final TeamControlProvider teamProvider = new TeamControlProvider();
+
+        teamProvider.registerControlProvider(
+                Team.A,
+                new PlayerControlProvider(
+                    Team.A,
+                    spec.getTeamAPackage(),
+                    factories.get(spec.getTeamAURL(), options),
+                    sink.getOut(),
+                    spec.isProfilingEnabled(),
+                    options
+                )
+        );
+        teamProvider.registerControlProvider(
+                Team.B,
+                new PlayerControlProvider(
+                    Team.B,
+                    spec.getTeamBPackage(),
+                    factories.get(spec.getTeamBURL(), options),
+                    sink.getOut(),
+                    spec.isProfilingEnabled(),
+                    options
+                )
+        );
+        teamProvider.registerControlProvider(
+            Team.NEUTRAL,
+            new NullControlProvider()
+        );
+        return teamProvider;
+    }
+}
@@ -0,0 +1,232 @@
+package battlecode.server;
+
+import battlecode.world.LiveMap;
+
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * Describes a single match for MatchRunner: two teams, one map, and
+ * optionally a seed, engine options and a replay file.
+ *
+ * Teams are given as a name and the location of their classes - a
+ * directory or jar. The package defaults to the name.
+ */
+public class MatchSpec {
+
+    private final String teamAName;
+    private final String teamAURL;
+    private String teamAPackage;
+    private final String teamBName;
+    private final String teamBURL;
+    private String teamBPackage;
+
+    /**
+     * Either the map itself, or the name of a map to load from mapPath.
+     */
+    private final LiveMap map;
+    private final String mapName;
+    private File mapPath;
+
+    private Integer seed;
+    private final Properties options;
+    private File replayFile;
+    private boolean collectRoundStats;
+    private boolean profilingEnabled;
+
+    /**
+     * Create a spec for a match on a map loaded by name, from the built-in
+     * maps or the map path.
+     *
+     * @param teamAName the name (and by default package) of team A
+     * @param teamAURL the location of team A's classes
+     * @param teamBName the name (and by default package) of team B
+     * @param teamBURL the location of team B's classes
+     * @param mapName the name of the map to play on
+     */
+    public MatchSpec(String teamAName, String teamAURL,
+                     String teamBName, String teamBURL,
+                     String mapName) {
+        this(teamAName, teamAURL, teamBName, teamBURL, null, mapName);
+    }
+
+    /**
+     * Create a spec for a match on an already loaded map.
+     *
+     * @param teamAName the name (and by default package) of team A
+     * @param teamAURL the location of team A's classes
+     * @param teamBName the name (and by default package) of team B
+     * @param teamBURL the location of team B's classes
+     * @param map the map to play on; it is copied, not modified
+     */
+    public MatchSpec(String teamAName, String teamAURL,
+                     String teamBName, String teamBURL,
+                     LiveMap map) {
+        this(teamAName, teamAURL, teamBName, teamBURL, map, map.getMapName());
+    }
+
+    private MatchSpec(String teamAName, String teamAURL,
+                      String teamBName, String teamBURL,
+                      LiveMap map, String mapName) {
+        this.teamAName = teamAName;
+        this.teamAURL = teamAURL;
+        this.teamAPackage = teamAName;
+        this.teamBName = teamBName;
+        this.teamBURL = teamBURL;
+        this.teamBPackage = teamBName;
+        this.map = map;
+        this.mapName = mapName;
+        this.mapPath = new File("maps");
+        this.seed = null;
+        this.options = new Properties();
+        this.replayFile = null;
+        this.collectRoundStats = false;
+        this.profilingEnabled = false;
+    }
+
+    // *********************************
+    // ***** SETTER METHODS ************
+    // *********************************
+
+    public MatchSpec setTeamAPackage(String teamAPackage) {
+        this.teamAPackage = teamAPackage;
+        return this;
+    }
+
+    public MatchSpec setTeamBPackage(String teamBPackage) {
+        this.teamBPackage = teamBPackage;
+        return this;
+    }
+
+    /**
+     * @param mapPath the directory to look for maps in, besides the built-in ones
+     */
+    public MatchSpec setMapPath(File mapPath) {
+        this.mapPath = mapPath;
+        return this;
+    }
+
+    /**
+     * @param seed the seed to play with instead of the map's own
+     */
+    public MatchSpec setSeed(int seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets an engine option, as would be given to the server with -D.
+     * Only bc.engine and bc.server robot output options have an effect.
+     */
+    public MatchSpec setOption(String key, String value) {
+        this.options.setProperty(key, value);
+        return this;
+    }
+
+    /**
+     * @param replayFile the file to save a replay of the match to, or null
+     *                   (the default) for no replay
+     */
+    public MatchSpec setReplayFile(File replayFile) {
+        this.replayFile = replayFile;
+        return this;
+    }
+
+    /**
+     * @param collectRoundStats whether the result should include per-round
+     *                          statistics
+     */
+    public MatchSpec setCollectRoundStats(boolean collectRoundStats) {
+        this.collectRoundStats = collectRoundStats;
+        return this;
+    }
+
+    public MatchSpec setProfilingEnabled(boolean profilingEnabled) {
+        this.profilingEnabled = profilingEnabled;
+        return this;
+    }
+
+    /**
+     * @param bypassCache whether to play the match even if a runner's
+     *                    ResultCache has its result; the new result is
+     *                    still cached. Same as setting bc.cache.bypass.
+     */
+    public MatchSpec setBypassCache(boolean bypassCache) {
+        return setOption("bc.cache.bypass", Boolean.toString(bypassCache));
+    }
+
+    // *********************************
+    // ***** GETTER METHODS ************
+    // *********************************
+
+    public String getTeamAName() {
+        return teamAName;
+    }
+
+    public String getTeamAURL() {
+        return teamAURL;
+    }
+
+    public String getTeamAPackage() {
+        return teamAPackage;
+    }
+
+    public String getTeamBName() {
+        return teamBName;
+    }
+
+    public String getTeamBURL() {
+        return teamBURL;
+    }
+
+    public String getTeamBPackage() {
+        return teamBPackage;
+    }
+
+    /**
+     * @return the map to play on, or null if it should be loaded by name
+     */
+    public LiveMap getMap() {
+        return map;
+    }
+
+    public String getMapName() {
+        return mapName;
+    }
+
+    public File getMapPath() {
+        return mapPath;
+    }
+
+    /**
+     * @return the seed to play with, or null to use the map's
+     */
+    public Integer getSeed() {
+        return seed;
+    }
+
+    public Properties getOptions() {
+        return options;
+    }
+
+    /**
+     * @return the file to save a replay to, or null
+     */
+    public File getReplayFile() {
+        return replayFile;
+    }
+
+    public boolean isCollectRoundStats() {
+        return collectRoundStats;
+    }
+
+    public boolean isProfilingEnabled() {
+        return profilingEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return teamAName + " vs. " + teamBName + " on " + mapName
+                + (seed != null ? " (seed " + seed + ")" : "");
+    }
+}
@@ -0,0 +1,260 @@
+package battlecode.server;
+
+import battlecode.common.GameConstants;
+import battlecode.schema.*;
+import battlecode.util.RoundCodec;
+import com.google.flatbuffers.FlatBufferBuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rewrites an event stream replay (see ReplayWriter) with its Rounds
+ * packed, spec version RoundCodec.SPEC_VERSION, or unpacked, the spec
+ * version of this engine. Other events are copied as they are.
+ *
+ * Usage: ReplayConverter &lt;in&gt; &lt;out&gt; &lt;spec version&gt;
+ *
+ * Exits with 0 once the replay is converted, 2 on error.
+ */
+public class ReplayConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: ReplayConverter <in> <out> <spec version>");
+            System.exit(2);
+        }
+        try {
+            convert(new File(args[0]), new File(args[1]), args[2]);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Can't convert " + args[0] + ": " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * @param specVersion RoundCodec.SPEC_VERSION to pack the Rounds, or
+     *                    GameConstants.SPEC_VERSION to unpack them
+     * @throws IOException if the replay can't be read or written, or isn't
+     *                     an event stream
+     */
+    public static void convert(File in, File out, String specVersion) throws IOException {
+        final boolean pack;
+        if (specVersion.equals(RoundCodec.SPEC_VERSION)) {
+            pack = true;
+        } else if (specVersion.equals(GameConstants.SPEC_VERSION)) {
+            pack = false;
+        } else {
+            throw new IllegalArgumentException("Unknown spec version " + specVersion);
+        }
+
+        try (DataInputStream events = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(in), 1 << 16)))) {
+            byte[] magic = new byte[ReplayWriter.STREAM_MAGIC.length];
+            events.readFully(magic);
+            if (!Arrays.equals(magic, ReplayWriter.STREAM_MAGIC)) {
+                throw new IOException("Not an event stream replay");
+            }
+            int version = Integer.reverseBytes(events.readInt());
+            if (version < 1 || version > ReplayWriter.STREAM_VERSION) {
+                throw new IOException("Unknown event stream version " + version);
+            }
+
+            ReplayWriter replay = new ReplayWriter(out, Deflater.DEFAULT_COMPRESSION, 0);
+            try {
+                RoundCodec codec = new RoundCodec();
+                FlatBufferBuilder builder = new FlatBufferBuilder(1 << 16);
+                byte[] bytes = new byte[0];
+                for (int size = Integer.reverseBytes(events.readInt()); size != 0;
+                     size = Integer.reverseBytes(events.readInt())) {
+                    if (bytes.length < size) {
+                        bytes = new byte[Math.max(size, bytes.length * 2)];
+                    }
+                    events.readFully(bytes, 0, size);
+                    EventWrapper event = EventWrapper.getRootAsEventWrapper(
+                            ByteBuffer.wrap(bytes, 0, size).slice().order(ByteOrder.LITTLE_ENDIAN));
+
+                    int converted;
+                    switch (event.eType()) {
+                        case Event.GameHeader:
+                            converted = convertGameHeader(builder, (GameHeader) event.e(new GameHeader()),
+                                    specVersion);
+                            break;
+                        case Event.MatchHeader:
+                            codec.startMatch(((MatchHeader) event.e(new MatchHeader())).map());
+                            replay.writeEvent(bytes, 0, size);
+                            continue;
+                        case Event.Round:
+                            converted = convertRound(builder, (Round) event.e(new Round()), codec, pack);
+                            break;
+                        default:
+                            replay.writeEvent(bytes, 0, size);
+                            continue;
+                    }
+                    builder.finish(converted);
+                    ByteBuffer buffer = builder.dataBuffer();
+                    replay.writeEvent(buffer.array(), buffer.position(), buffer.remaining());
+                    builder = new FlatBufferBuilder(buffer);
+                }
+                replay.save(out);
+            } catch (IOException | RuntimeException e) {
+                replay.discard();
+                throw e;
+            }
+        }
+    }
+
+    private static int convertGameHeader(FlatBufferBuilder builder, GameHeader header, String specVersion) {
+        int specVersionP = builder.createString(specVersion);
+        int[] teams = new int[header.teamsLength()];
+        for (int i = 0; i < teams.length; i++) {
+            TeamData team = header.teams(i);
+            teams[i] = TeamData.createTeamData(builder, builder.createString(team.name()),
+                    builder.createString(team.packageName()), team.teamID());
+        }
+        int[] metadata = new int[header.bodyTypeMetadataLength()];
+        for (int i = 0; i < metadata.length; i++) {
+            BodyTypeMetadata body = header.bodyTypeMetadata(i);
+            metadata[i] = BodyTypeMetadata.createBodyTypeMetadata(builder, body.type(), body.spawnSource(),
+                    body.convictionRatio(), body.actionCooldown(), body.actionRadiusSquared(),
+                    body.sensorRadiusSquared(), body.detectionRadiusSquared(), body.bytecodeLimit());
+        }
+        int gameHeader = GameHeader.createGameHeader(builder, specVersionP,
+                GameHeader.createTeamsVector(builder, teams),
+                GameHeader.createBodyTypeMetadataVector(builder, metadata));
+        return EventWrapper.createEventWrapper(builder, Event.GameHeader, gameHeader);
+    }
+
+    private static int convertRound(FlatBufferBuilder builder, Round round, RoundCodec codec, boolean pack) {
+        RoundCodec.Plain plain = codec.unpack(round);
+
+        SpawnedBodyTable spawned = round.spawnedBodies();
+        int spawnedBodiesP = 0;
+        if (spawned != null) {
+            int locsP = copyVecTable(builder, spawned.locs());
+            int robotIDsP = SpawnedBodyTable.createRobotIDsVector(builder, ints(spawned.robotIDsAsByteBuffer()));
+            int teamIDsP = SpawnedBodyTable.createTeamIDsVector(builder, bytes(spawned.teamIDsAsByteBuffer()));
+            int typesP = SpawnedBodyTable.createTypesVector(builder, bytes(spawned.typesAsByteBuffer()));
+            int influencesP = SpawnedBodyTable.createInfluencesVector(builder, ints(spawned.influencesAsByteBuffer()));
+            SpawnedBodyTable.startSpawnedBodyTable(builder);
+            SpawnedBodyTable.addLocs(builder, locsP);
+            SpawnedBodyTable.addRobotIDs(builder, robotIDsP);
+            SpawnedBodyTable.addTeamIDs(builder, teamIDsP);
+            SpawnedBodyTable.addTypes(builder, typesP);
+            SpawnedBodyTable.addInfluences(builder, influencesP);
+            spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+        }
+
+        int teamIDsP = Round.createTeamIDsVector(builder, ints(round.teamIDsAsByteBuffer()));
+        int teamVotesP = Round.createTeamVotesVector(builder, ints(round.teamVotesAsByteBuffer()));
+        int teamBidderIDsP = Round.createTeamBidderIDsVector(builder, ints(round.teamBidderIDsAsByteBuffer()));
+        int teamNumBuffsP = Round.createTeamNumBuffsVector(builder, ints(round.teamNumBuffsAsByteBuffer()));
+
+        // Built in the order GameMaker builds them, so converting a replay
+        // back gives the Rounds it started with
+        RoundCodec.Packed packed = null;
+        int movedIDsP = 0, movedLocsP = 0, diedIDsP = 0;
+        if (pack) {
+            packed = codec.pack(plain);
+            packed.createVectors(builder);
+        } else {
+            movedIDsP = Round.createMovedIDsVector(builder, plain.movedIDs);
+            movedLocsP = VecTable.createVecTable(builder,
+                    VecTable.createXsVector(builder, plain.movedXs),
+                    VecTable.createYsVector(builder, plain.movedYs));
+            diedIDsP = Round.createDiedIDsVector(builder, plain.diedIDs);
+        }
+        int actionIDsP = pack ? 0 : Round.createActionIDsVector(builder, plain.actionIDs);
+        int actionsP = Round.createActionsVector(builder, bytes(round.actionsAsByteBuffer()));
+        int actionTargetsP = pack ? 0 : Round.createActionTargetsVector(builder, plain.actionTargets);
+
+        int indicatorDotIDsP = Round.createIndicatorDotIDsVector(builder, ints(round.indicatorDotIDsAsByteBuffer()));
+        int indicatorDotLocsP = copyVecTable(builder, round.indicatorDotLocs());
+        int indicatorDotRGBsP = copyRGBTable(builder, round.indicatorDotRGBs());
+        int indicatorLineIDsP = Round.createIndicatorLineIDsVector(builder, ints(round.indicatorLineIDsAsByteBuffer()));
+        int indicatorLineStartLocsP = copyVecTable(builder, round.indicatorLineStartLocs());
+        int indicatorLineEndLocsP = copyVecTable(builder, round.indicatorLineEndLocs());
+        int indicatorLineRGBsP = copyRGBTable(builder, round.indicatorLineRGBs());
+
+        int bytecodeIDsP = pack ? 0 : Round.createBytecodeIDsVector(builder, plain.bytecodeIDs);
+        int bytecodesUsedP = pack ? 0 : Round.createBytecodesUsedVector(builder, plain.bytecodesUsed);
+
+        ByteBuffer logs = round.logsAsByteBuffer();
+        int logsP = logs != null ? builder.createString(logs) : 0;
+
+        Round.startRound(builder);
+        Round.addTeamIDs(builder, teamIDsP);
+        Round.addTeamVotes(builder, teamVotesP);
+        Round.addTeamBidderIDs(builder, teamBidderIDsP);
+        Round.addTeamNumBuffs(builder, teamNumBuffsP);
+        Round.addMovedIDs(builder, movedIDsP);
+        Round.addMovedLocs(builder, movedLocsP);
+        Round.addSpawnedBodies(builder, spawnedBodiesP);
+        Round.addDiedIDs(builder, diedIDsP);
+        Round.addActionIDs(builder, actionIDsP);
+        Round.addActions(builder, actionsP);
+        Round.addActionTargets(builder, actionTargetsP);
+        Round.addIndicatorDotIDs(builder, indicatorDotIDsP);
+        Round.addIndicatorDotLocs(builder, indicatorDotLocsP);
+        Round.addIndicatorDotRGBs(builder, indicatorDotRGBsP);
+        Round.addIndicatorLineIDs(builder, indicatorLineIDsP);
+        Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsP);
+        Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsP);
+        Round.addIndicatorLineRGBs(builder, indicatorLineRGBsP);
+        Round.addRoundID(builder, round.roundID());
+        Round.addBytecodeIDs(builder, bytecodeIDsP);
+        Round.addBytecodesUsed(builder, bytecodesUsedP);
+        Round.addLogs(builder, logsP);
+        if (packed != null) {
+            packed.addTo(builder);
+        }
+        return EventWrapper.createEventWrapper(builder, Event.Round, Round.endRound(builder));
+    }
+
+    private static int copyVecTable(FlatBufferBuilder builder, VecTable table) {
+        if (table == null) {
+            return 0;
+        }
+        return VecTable.createVecTable(builder,
+                VecTable.createXsVector(builder, ints(table.xsAsByteBuffer())),
+                VecTable.createYsVector(builder, ints(table.ysAsByteBuffer())));
+    }
+
+    private static int copyRGBTable(FlatBufferBuilder builder, RGBTable table) {
+        if (table == null) {
+            return 0;
+        }
+        return RGBTable.createRGBTable(builder,
+                RGBTable.createRedVector(builder, ints(table.redAsByteBuffer())),
+                RGBTable.createGreenVector(builder, ints(table.greenAsByteBuffer())),
+                RGBTable.createBlueVector(builder, ints(table.blueAsByteBuffer())));
+    }
+
+    /**
+     * @return the ints in a vector, or none if it's missing
+     */
+    private static int[] ints(ByteBuffer vector) {
+        if (vector == null) {
+            return new int[0];
+        }
+        int[] ints = new int[vector.remaining() / 4];
+        vector.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(ints);
+        return ints;
+    }
+
+    /**
+     * @return the bytes in a vector, or none if it's missing
+     */
+    private static byte[] bytes(ByteBuffer vector) {
+        if (vector == null) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[vector.remaining()];
+        vector.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,428 @@
+package battlecode.server;
+
+import battlecode.schema.*;
+import battlecode.util.RoundCodec;
+import battlecode.util.TeamMapping;
+
+import java.io.*;
+
+/**
+ * Prints events from a replay, or totals over its matches. The replay is
+ * read with a ReplayReader, so it's never all in memory.
+ *
+ * Usage: ReplayQuery &lt;replay&gt; dump|summary [--match=&lt;n&gt;]
+ * [--rounds=&lt;first&gt;[-&lt;last&gt;]] [--types=&lt;type&gt;,...] [--robot=&lt;id&gt;]
+ *
+ * "dump" prints each event that passes the filters (see ReplayReader);
+ * with --robot, only the parts of each Round and Keyframe about that robot.
+ * "summary" prints, for each match, its result and what happened in the
+ * events that pass the filters. Types are named as in battlecode.schema.Event,
+ * such as Round or MatchFooter. --rounds=5 is the same as --rounds=5-5.
+ *
+ * Exits with 0 once it's done, 2 on error.
+ */
+public class ReplayQuery {
+
+    private static final String USAGE = "Usage: ReplayQuery <replay> dump|summary [--match=<n>] "
+            + "[--rounds=<first>[-<last>]] [--types=<type>,...] [--robot=<id>]";
+
+    /**
+     * Totals over the events of a match.
+     */
+    private static class MatchTotals {
+        String map;
+        byte winner = -1;
+        int rounds;
+        int events;
+        long bytes;
+        int keyframes;
+        int spawned;
+        int moved;
+        int died;
+        long bytecodes;
+        final int[] actions = new int[Action.names.length];
+    }
+
+    private final ReplayReader reader;
+    private final PrintStream out;
+    private final int robot;
+
+    /**
+     * The names of the teams, by team ID, once the GameHeader is read.
+     */
+    private final String[] teamNames = {"neutral", "A", "B"};
+
+    // Reused accessors
+    private final VecTable locs = new VecTable();
+    private final SpawnedBodyTable bodies = new SpawnedBodyTable();
+
+    /**
+     * @param robot the robot to dump or total the parts of Rounds and
+     *              Keyframes about, or -1 for all of them
+     */
+    public ReplayQuery(ReplayReader reader, PrintStream out, int robot) {
+        this.reader = reader;
+        this.out = out;
+        this.robot = robot;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[1].equals("dump") || args[1].equals("summary"))) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        int match = -1;
+        int[] rounds = null;
+        byte[] types = null;
+        int robot = -1;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                String arg = args[i];
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.startsWith("--match=")) {
+                    match = parseNumber(value);
+                } else if (arg.startsWith("--rounds=")) {
+                    rounds = parseRounds(value);
+                } else if (arg.startsWith("--types=")) {
+                    String[] names = value.split(",");
+                    types = new byte[names.length];
+                    for (int j = 0; j < names.length; j++) {
+                        types[j] = eventType(names[j]);
+                    }
+                } else if (arg.startsWith("--robot=")) {
+                    robot = parseNumber(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown argument " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try (ReplayReader reader = new ReplayReader(new File(args[0]))) {
+            if (match >= 0) {
+                reader.setMatch(match);
+            }
+            if (rounds != null) {
+                reader.setRounds(rounds[0], rounds[1]);
+            }
+            if (types != null) {
+                reader.setTypes(types);
+            }
+            if (robot >= 0) {
+                reader.setRobot(robot);
+            }
+
+            ReplayQuery query = new ReplayQuery(reader, System.out, robot);
+            if (args[1].equals("dump")) {
+                query.dump();
+            } else {
+                query.summarize();
+            }
+            System.out.flush();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Can't query " + args[0] + ": " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * @param value a round, or a range of rounds such as 5-10
+     * @return the first and last rounds of the range
+     * @throws IllegalArgumentException if the range is malformed or empty
+     */
+    static int[] parseRounds(String value) {
+        String[] range = value.split("-", -1);
+        try {
+            int first = parseNumber(range[0]);
+            int last = range.length == 2 ? parseNumber(range[1]) : first;
+            if (range.length <= 2 && first <= last) {
+                return new int[] {first, last};
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Bad round range " + value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value isn't a number at least 0
+     */
+    private static int parseNumber(String value) {
+        final int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number " + value);
+        }
+        if (number < 0) {
+            throw new IllegalArgumentException("Bad number " + value);
+        }
+        return number;
+    }
+
+    private static byte eventType(String name) {
+        for (byte type = 1; type < Event.names.length; type++) {
+            if (Event.names[type].equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown event type " + name);
+    }
+
+    private boolean about(int id) {
+        return robot < 0 || id == robot;
+    }
+
+    private String team(byte id) {
+        return id >= 0 && id < teamNames.length ? teamNames[id] : "#" + id;
+    }
+
+    private void readTeamNames(GameHeader header) {
+        TeamData team = new TeamData();
+        for (int i = 0; i < header.teamsLength(); i++) {
+            header.teams(team, i);
+            if (team.teamID() > 0 && team.teamID() < teamNames.length) {
+                teamNames[team.teamID()] = team.name() + " (" + TeamMapping.team(team.teamID()) + ")";
+            }
+        }
+    }
+
+    /**
+     * Print each event that passes the reader's filters.
+     */
+    public void dump() throws IOException {
+        while (reader.next()) {
+            int match = reader.getMatchIndex();
+            switch (reader.getType()) {
+                case Event.GameHeader: {
+                    GameHeader header = reader.getGameHeader();
+                    readTeamNames(header);
+                    out.printf("game, spec version %s: %s vs %s%n",
+                            header.specVersion(), team((byte) 1), team((byte) 2));
+                    break;
+                }
+                case Event.MatchHeader: {
+                    MatchHeader header = reader.getMatchHeader();
+                    GameMap map = header.map();
+                    SpawnedBodyTable bodies = map.bodies(this.bodies);
+                    out.printf("match %d: %s, %d bodies, up to %d rounds%n", match, map.name(),
+                            bodies != null ? bodies.robotIDsLength() : 0, header.maxRounds());
+                    break;
+                }
+                case Event.Round:
+                    dumpRound(match);
+                    break;
+                case Event.Keyframe: {
+                    Keyframe keyframe = reader.getKeyframe();
+                    SpawnedBodyTable bodies = keyframe.bodies(this.bodies);
+                    int count = bodies != null ? bodies.robotIDsLength() : 0;
+                    out.printf("match %d keyframe at round %d: %d bodies%n", match, keyframe.roundID(), count);
+                    if (robot >= 0 && count > 0) {
+                        VecTable locs = bodies.locs(this.locs);
+                        for (int i = 0; i < count; i++) {
+                            if (bodies.robotIDs(i) == robot) {
+                                out.printf("  %d %s of %s at (%d, %d), influence %d, conviction %d, flag %d%n",
+                                        robot, BodyType.name(bodies.types(i)), team(bodies.teamIDs(i)),
+                                        locs.xs(i), locs.ys(i), bodies.influences(i),
+                                        keyframe.convictions(i), keyframe.flags(i));
+                            }
+                        }
+                    }
+                    break;
+                }
+                case Event.MatchFooter: {
+                    MatchFooter footer = reader.getMatchFooter();
+                    out.printf("match %d: %s won after %d rounds%n", match, team(footer.winner()),
+                            footer.totalRounds());
+                    break;
+                }
+                case Event.GameFooter:
+                    out.printf("game: %s won%n", team(reader.getGameFooter().winner()));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void dumpRound(int match) {
+        Round round = reader.getRound();
+        out.printf("match %d round %d%n", match, round.roundID());
+        if (robot < 0) {
+            for (int i = 0; i < round.teamIDsLength(); i++) {
+                out.printf("  %s: %d votes, bidder %d%n", team((byte) round.teamIDs(i)),
+                        round.teamVotes(i), round.teamBidderIDs(i));
+            }
+        }
+
+        SpawnedBodyTable spawned = round.spawnedBodies(bodies);
+        if (spawned != null) {
+            VecTable locs = spawned.locs(this.locs);
+            for (int i = 0; i < spawned.robotIDsLength(); i++) {
+                if (about(spawned.robotIDs(i))) {
+                    out.printf("  spawned %d %s of %s at (%d, %d), influence %d%n", spawned.robotIDs(i),
+                            BodyType.name(spawned.types(i)), team(spawned.teamIDs(i)),
+                            locs.xs(i), locs.ys(i), spawned.influences(i));
+                }
+            }
+        }
+
+        RoundCodec.Plain plain = reader.getPlain();
+        for (int i = 0; i < plain.movedIDs.length; i++) {
+            if (about(plain.movedIDs[i])) {
+                out.printf("  moved %d to (%d, %d)%n", plain.movedIDs[i], plain.movedXs[i], plain.movedYs[i]);
+            }
+        }
+        for (int i = 0; i < plain.actionIDs.length; i++) {
+            if (about(plain.actionIDs[i])) {
+                out.printf("  %s by %d, target %d%n", Action.name(round.actions(i)),
+                        plain.actionIDs[i], plain.actionTargets[i]);
+            }
+        }
+        for (int id : plain.diedIDs) {
+            if (about(id)) {
+                out.printf("  died %d%n", id);
+            }
+        }
+        for (int i = 0; i < plain.bytecodeIDs.length; i++) {
+            if (about(plain.bytecodeIDs[i])) {
+                out.printf("  %d used %d bytecodes%n", plain.bytecodeIDs[i], plain.bytecodesUsed[i]);
+            }
+        }
+        for (int i = 0; i < round.indicatorDotIDsLength(); i++) {
+            if (about(round.indicatorDotIDs(i))) {
+                VecTable locs = round.indicatorDotLocs(this.locs);
+                out.printf("  %d drew a dot at (%d, %d)%n", round.indicatorDotIDs(i), locs.xs(i), locs.ys(i));
+            }
+        }
+        for (int i = 0; i < round.indicatorLineIDsLength(); i++) {
+            if (about(round.indicatorLineIDs(i))) {
+                VecTable start = round.indicatorLineStartLocs(this.locs);
+                int x = start.xs(i), y = start.ys(i);
+                VecTable end = round.indicatorLineEndLocs(this.locs);
+                out.printf("  %d drew a line from (%d, %d) to (%d, %d)%n", round.indicatorLineIDs(i),
+                        x, y, end.xs(i), end.ys(i));
+            }
+        }
+    }
+
+    /**
+     * Print totals over the events of each match that pass the reader's
+     * filters.
+     */
+    public void summarize() throws IOException {
+        MatchTotals totals = null;
+        int match = -1;
+        byte winner = -1;
+        while (reader.next()) {
+            byte type = reader.getType();
+            if (type == Event.GameHeader) {
+                GameHeader header = reader.getGameHeader();
+                readTeamNames(header);
+                out.printf("game, spec version %s: %s vs %s%n",
+                        header.specVersion(), team((byte) 1), team((byte) 2));
+                continue;
+            }
+            if (type == Event.GameFooter) {
+                winner = reader.getGameFooter().winner();
+                break;
+            }
+            if (reader.getMatchIndex() != match) {
+                print(match, totals);
+                match = reader.getMatchIndex();
+                totals = new MatchTotals();
+            }
+
+            totals.events++;
+            totals.bytes += reader.getSize();
+            switch (type) {
+                case Event.MatchHeader:
+                    totals.map = reader.getMatchHeader().map().name();
+                    break;
+                case Event.Round:
+                    addRound(totals);
+                    break;
+                case Event.Keyframe:
+                    totals.keyframes++;
+                    break;
+                case Event.MatchFooter:
+                    totals.winner = reader.getMatchFooter().winner();
+                    totals.rounds = reader.getMatchFooter().totalRounds();
+                    break;
+                default:
+                    break;
+            }
+        }
+        print(match, totals);
+        if (winner >= 0) {
+            out.printf("game: %s won%n", team(winner));
+        }
+    }
+
+    private void addRound(MatchTotals totals) {
+        Round round = reader.getRound();
+        SpawnedBodyTable spawned = round.spawnedBodies(bodies);
+        if (spawned != null) {
+            for (int i = 0; i < spawned.robotIDsLength(); i++) {
+                if (about(spawned.robotIDs(i))) {
+                    totals.spawned++;
+                }
+            }
+        }
+        RoundCodec.Plain plain = reader.getPlain();
+        for (int id : plain.movedIDs) {
+            if (about(id)) {
+                totals.moved++;
+            }
+        }
+        for (int id : plain.diedIDs) {
+            if (about(id)) {
+                totals.died++;
+            }
+        }
+        for (int i = 0; i < plain.actionIDs.length; i++) {
+            if (about(plain.actionIDs[i])) {
+                totals.actions[round.actions(i)]++;
+            }
+        }
+        for (int i = 0; i < plain.bytecodeIDs.length; i++) {
+            if (about(plain.bytecodeIDs[i])) {
+                totals.bytecodes += plain.bytecodesUsed[i];
+            }
+        }
+    }
+
+    private void print(int match, MatchTotals totals) {
+        if (totals == null) {
+            return;
+        }
+        out.printf("match %d", match);
+        if (totals.map != null) {
+            out.printf(" on %s", totals.map);
+        }
+        if (totals.winner >= 0) {
+            out.printf(": %s won after %d rounds", team(totals.winner), totals.rounds);
+        }
+        out.println();
+        out.printf("  %d events", totals.events);
+        if (totals.bytes > 0) {
+            out.printf(", %d bytes", totals.bytes);
+        }
+        out.printf(", %d keyframes%n", totals.keyframes);
+        out.printf("  spawned %d, moved %d, died %d, used %d bytecodes%n",
+                totals.spawned, totals.moved, totals.died, totals.bytecodes);
+        StringBuilder actions = new StringBuilder();
+        for (int i = 0; i < totals.actions.length; i++) {
+            if (totals.actions[i] > 0) {
+                actions.append(actions.length() == 0 ? "" : ", ")
+                        .append(Action.name(i)).append(' ').append(totals.actions[i]);
+            }
+        }
+        if (actions.length() > 0) {
+            out.printf("  actions: %s%n", actions);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package battlecode.server;
+
+import battlecode.schema.*;
+import battlecode.util.RoundCodec;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a replay an event at a time, un-gzipping it as it goes, so the
+ * memory it takes doesn't depend on the length of the game: only the
+ * current event is held, and the accessors for it are reused from event to
+ * event. Anything taken from the reader, including what RoundCodec unpacks,
+ * is only valid until the next call to next().
+ *
+ * Reads event stream replays of either version (see ReplayWriter), with
+ * Rounds packed or not. Older replays, a single GameWrapper, can't be read
+ * without holding the whole of them, so they are read into memory.
+ *
+ * Events can be filtered by match, round, type and robot; next() skips the
+ * ones that don't pass. Events that belong to no match, the GameHeader and
+ * GameFooter, don't pass a match filter. The round filter applies to
+ * Rounds and Keyframes, and the robot filter to Rounds the robot spawned,
+ * moved, died, acted, used bytecodes or drew an indicator in, and to
+ * Keyframes it's in; other events pass them.
+ */
+public class ReplayReader implements Closeable {
+
+    /**
+     * The un-gzipped events, if it's an event stream replay.
+     */
+    private final DataInputStream in;
+
+    /**
+     * The game, if it's a GameWrapper.
+     */
+    private final GameWrapper wrapper;
+
+    /**
+     * The index of the next event of the GameWrapper.
+     */
+    private int wrapperIndex;
+
+    /**
+     * The event stream format version, or 0 for a GameWrapper.
+     */
+    private final int streamVersion;
+
+    /**
+     * Holds the current event of an event stream replay.
+     */
+    private byte[] bytes;
+    private ByteBuffer buffer;
+
+    private int eventSize;
+
+    private final EventWrapper event = new EventWrapper();
+    private final GameHeader gameHeader = new GameHeader();
+    private final MatchHeader matchHeader = new MatchHeader();
+    private final Round round = new Round();
+    private final Keyframe keyframe = new Keyframe();
+    private final MatchFooter matchFooter = new MatchFooter();
+    private final GameFooter gameFooter = new GameFooter();
+    private final SpawnedBodyTable bodies = new SpawnedBodyTable();
+
+    private final RoundCodec codec = new RoundCodec();
+
+    /**
+     * Whether the game's Rounds are packed.
+     */
+    private boolean packed;
+
+    /**
+     * The fields of the current Round that may be packed, or null if they
+     * haven't been read yet.
+     */
+    private RoundCodec.Plain plain;
+
+    /**
+     * The index of the current match, or -1 before the first.
+     */
+    private int matchIndex = -1;
+
+    /**
+     * The current round: that of the last Round or Keyframe, or 0 at the
+     * start of a match.
+     */
+    private int roundNum;
+
+    // Filters; a negative match or robot passes all of them
+    private int matchFilter = -1;
+    private int firstRound = 0;
+    private int lastRound = Integer.MAX_VALUE;
+    private boolean[] typeFilter;
+    private int robotFilter = -1;
+
+    public ReplayReader(File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * @param gzipped the replay; it's closed with the reader
+     * @throws IOException if the replay can't be read or isn't in a known
+     *                     format
+     */
+    public ReplayReader(InputStream gzipped) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(gzipped, 1 << 16), 1 << 16));
+        try {
+            byte[] magic = new byte[ReplayWriter.STREAM_MAGIC.length];
+            in.readFully(magic);
+            if (Arrays.equals(magic, ReplayWriter.STREAM_MAGIC)) {
+                this.streamVersion = Integer.reverseBytes(in.readInt());
+                if (streamVersion < 1 || streamVersion > ReplayWriter.STREAM_VERSION) {
+                    throw new IOException("Unknown event stream version " + streamVersion);
+                }
+                this.in = in;
+                this.wrapper = null;
+                this.bytes = new byte[1 << 16];
+                this.buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            } else {
+                byte[] rest = IOUtils.toByteArray(in);
+                in.close();
+                byte[] game = Arrays.copyOf(magic, magic.length + rest.length);
+                System.arraycopy(rest, 0, game, magic.length, rest.length);
+                this.streamVersion = 0;
+                this.in = null;
+                this.wrapper = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(game));
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Only pass events in a match.
+     *
+     * @param matchIndex the index of the match, counting from 0
+     */
+    public ReplayReader setMatch(int matchIndex) {
+        this.matchFilter = matchIndex;
+        return this;
+    }
+
+    /**
+     * Only pass Rounds and Keyframes in a range of rounds.
+     */
+    public ReplayReader setRounds(int first, int last) {
+        this.firstRound = first;
+        this.lastRound = last;
+        return this;
+    }
+
+    /**
+     * Only pass events of some types.
+     *
+     * @param types some of battlecode.schema.Event
+     */
+    public ReplayReader setTypes(byte... types) {
+        this.typeFilter = new boolean[Event.names.length];
+        for (byte type : types) {
+            typeFilter[type] = true;
+        }
+        return this;
+    }
+
+    /**
+     * Only pass Rounds and Keyframes that a robot is in.
+     */
+    public ReplayReader setRobot(int id) {
+        this.robotFilter = id;
+        return this;
+    }
+
+    /**
+     * Move to the next event that passes the filters.
+     *
+     * @return false at the end of the replay, or of the match filtered for
+     */
+    public boolean next() throws IOException {
+        while (readEvent()) {
+            plain = null;
+            byte type = event.eType();
+            switch (type) {
+                case Event.GameHeader:
+                    packed = RoundCodec.SPEC_VERSION.equals(getGameHeader().specVersion());
+                    break;
+                case Event.MatchHeader:
+                    matchIndex++;
+                    roundNum = 0;
+                    if (wantsMatch()) {
+                        codec.startMatch(getMatchHeader().map());
+                    }
+                    break;
+                case Event.Round:
+                    roundNum = getRound().roundID();
+                    // Packed IDs depend on every Round before, so unpack
+                    // each one that a later one passing the filters needs
+                    if (packed && wantsMatch() && roundNum <= lastRound) {
+                        plain = codec.unpack(round);
+                    }
+                    break;
+                case Event.Keyframe:
+                    roundNum = getKeyframe().roundID();
+                    break;
+                default:
+                    break;
+            }
+
+            if (matchFilter >= 0 && matchIndex > matchFilter) {
+                return false;
+            }
+            if (!wantsMatch() || (typeFilter != null && !typeFilter[type])) {
+                continue;
+            }
+            if (type == Event.Round || type == Event.Keyframe) {
+                if (roundNum < firstRound || roundNum > lastRound) {
+                    continue;
+                }
+                if (robotFilter >= 0 && !hasRobot(robotFilter)) {
+                    continue;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean wantsMatch() {
+        return matchFilter < 0 || matchIndex == matchFilter;
+    }
+
+    /**
+     * Read the next event into the accessors.
+     *
+     * @return false at the end of the replay
+     */
+    private boolean readEvent() throws IOException {
+        if (wrapper != null) {
+            if (wrapperIndex == wrapper.eventsLength()) {
+                return false;
+            }
+            wrapper.events(event, wrapperIndex++);
+            return true;
+        }
+        int size;
+        try {
+            size = Integer.reverseBytes(in.readInt());
+        } catch (EOFException e) {
+            throw new IOException("Replay ends before its last event");
+        }
+        if (size == 0) {
+            return false;
+        }
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, bytes.length * 2)];
+            buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        in.readFully(bytes, 0, size);
+        eventSize = size;
+        buffer.clear();
+        buffer.limit(size);
+        EventWrapper.getRootAsEventWrapper(buffer, event);
+        return true;
+    }
+
+    /**
+     * @return whether the current Round or Keyframe has a robot in it
+     */
+    private boolean hasRobot(int id) {
+        if (event.eType() == Event.Keyframe) {
+            SpawnedBodyTable bodies = keyframe.bodies(this.bodies);
+            return bodies != null && contains(bodies.robotIDsAsByteBuffer(), id);
+        }
+        RoundCodec.Plain plain = getPlain();
+        SpawnedBodyTable spawned = round.spawnedBodies(bodies);
+        return contains(plain.movedIDs, id) || contains(plain.diedIDs, id)
+                || contains(plain.actionIDs, id) || contains(plain.bytecodeIDs, id)
+                || (spawned != null && contains(spawned.robotIDsAsByteBuffer(), id))
+                || contains(round.indicatorDotIDsAsByteBuffer(), id)
+                || contains(round.indicatorLineIDsAsByteBuffer(), id);
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int each : ids) {
+            if (each == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(ByteBuffer ids, int id) {
+        if (ids == null) {
+            return false;
+        }
+        ids.order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = ids.position(); i < ids.limit(); i += 4) {
+            if (ids.getInt(i) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the event stream format version, or 0 for a GameWrapper
+     */
+    public int getStreamVersion() {
+        return streamVersion;
+    }
+
+    /**
+     * @return the index of the current match, counting from 0, or -1
+     *         before the first
+     */
+    public int getMatchIndex() {
+        return matchIndex;
+    }
+
+    /**
+     * @return the round of the last Round or Keyframe in the current
+     *         match, or 0 before the first
+     */
+    public int getRoundNum() {
+        return roundNum;
+    }
+
+    /**
+     * @return the type of the current event, one of battlecode.schema.Event
+     */
+    public byte getType() {
+        return event.eType();
+    }
+
+    /**
+     * @return the size of the current event in bytes, or 0 for a
+     *         GameWrapper's
+     */
+    public int getSize() {
+        return wrapper != null ? 0 : eventSize;
+    }
+
+    public EventWrapper getEvent() {
+        return event;
+    }
+
+    public GameHeader getGameHeader() {
+        return (GameHeader) event.e(gameHeader);
+    }
+
+    public MatchHeader getMatchHeader() {
+        return (MatchHeader) event.e(matchHeader);
+    }
+
+    public Round getRound() {
+        return (Round) event.e(round);
+    }
+
+    public Keyframe getKeyframe() {
+        return (Keyframe) event.e(keyframe);
+    }
+
+    public MatchFooter getMatchFooter() {
+        return (MatchFooter) event.e(matchFooter);
+    }
+
+    public GameFooter getGameFooter() {
+        return (GameFooter) event.e(gameFooter);
+    }
+
+    /**
+     * @return the bodies that moved, died, acted and used bytecodes in the
+     *         current Round, whether or not the game packs them
+     */
+    public RoundCodec.Plain getPlain() {
+        if (plain == null) {
+            plain = codec.unpack(getRound());
+        }
+        return plain;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import battlecode.util.ParallelGzipOutputStream;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a replay: a gzipped stream of events. After un-gzipping, a replay
+ * is:
+ * <ul>
+ *     <li>the 4 bytes "BCES" (STREAM_MAGIC);</li>
+ *     <li>the format version (STREAM_VERSION), as a little-endian int32;</li>
+ *     <li>each event, as a little-endian int32 length followed by that many
+ *         bytes of flatbuffer with an EventWrapper at its root;</li>
+ *     <li>a zero length, ending the events;</li>
+ *     <li>an index: the number of events, as an int32; the offset of each
+ *         event's length from the start of the stream, as an int64; the
+ *         type of each event, as a byte; and the round of each Round and
+ *         Keyframe event, or 0 for other events, as an int32;</li>
+ *     <li>the offset of the index's zero length, as an int64, then the 4
+ *         bytes "BCEI" (INDEX_MAGIC), so the index can be found from the
+ *         end.</li>
+ * </ul>
+ * With the index, a reader can seek to a round without reading the events
+ * before it: every so often a Round is followed by a Keyframe holding the
+ * state of the match, so reaching any round takes a Keyframe and the Rounds
+ * after it. Version 1 replays are the same, but have no Keyframes and no
+ * rounds in the index.
+ *
+ * A replay with a save file is streamed to a partial file next to it as
+ * it's written, so memory use doesn't grow with the length of the game,
+ * and moved into place once it's finished. It may be compressed on other
+ * threads; see ParallelGzipOutputStream.
+ *
+ * Older replays are a single GameWrapper flatbuffer. No GameWrapper starts
+ * with STREAM_MAGIC, whose bytes would put its root table a gigabyte in,
+ * so readers can tell the two apart by the first four bytes.
+ */
+public class ReplayWriter {
+
+    /**
+     * The first bytes of an un-gzipped replay in the event stream format.
+     */
+    public static final byte[] STREAM_MAGIC = {'B', 'C', 'E', 'S'};
+
+    /**
+     * The version of the event stream format written.
+     */
+    public static final int STREAM_VERSION = 2;
+
+    /**
+     * The last bytes of an un-gzipped replay in the event stream format.
+     */
+    public static final byte[] INDEX_MAGIC = {'B', 'C', 'E', 'I'};
+
+    /**
+     * Threads for compressing replays, by pool size, shared by all replays.
+     */
+    private static final Map<Integer, ExecutorService> compressionPools = new HashMap<>();
+
+    /**
+     * The replay, gzipped as it's written.
+     */
+    private final OutputStream fileStream;
+
+    /**
+     * Where the replay is being or has been written; null if it's in memory.
+     */
+    private File replayFile;
+
+    /**
+     * The gzipped replay, if it's kept in memory.
+     */
+    private final ByteArrayOutputStream replayBytes;
+
+    /**
+     * Whether the index has been written and fileStream closed.
+     */
+    private boolean finished;
+
+    /**
+     * Whether a partial replay file has been moved to its save file.
+     */
+    private boolean saved;
+
+    /**
+     * The number of un-gzipped bytes written so far.
+     */
+    private long fileOffset;
+
+    /**
+     * The offset, type and round of each event, for the index.
+     */
+    private final TLongArrayList eventOffsets;
+    private final TByteArrayList eventTypes;
+    private final TIntArrayList eventRounds;
+
+    /**
+     * Scratch space for writing little-endian numbers.
+     */
+    private final byte[] numberBytes = new byte[8];
+
+    /**
+     * @param saveFile the file the replay will be saved to, or null to keep
+     *                 it in memory
+     * @param compressionLevel the gzip level of the replay, 0-9
+     * @param compressionThreads how many threads to compress the replay on,
+     *                           or 0 to compress it on the calling thread
+     * @throws IOException if the partial file can't be created
+     */
+    public ReplayWriter(File saveFile, int compressionLevel, int compressionThreads) throws IOException {
+        this.eventOffsets = new TLongArrayList();
+        this.eventTypes = new TByteArrayList();
+        this.eventRounds = new TIntArrayList();
+
+        final OutputStream sink;
+        if (saveFile != null) {
+            saveFile = saveFile.getAbsoluteFile();
+            Files.createDirectories(saveFile.getParentFile().toPath());
+            this.replayFile = new File(saveFile.getParentFile(), saveFile.getName() + ".part");
+            this.replayBytes = null;
+            sink = Channels.newOutputStream(FileChannel.open(replayFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        } else {
+            this.replayFile = null;
+            this.replayBytes = new ByteArrayOutputStream();
+            sink = replayBytes;
+        }
+        this.fileStream = compressionThreads > 0
+                ? new ParallelGzipOutputStream(new BufferedOutputStream(sink, 1 << 16),
+                        compressionPool(compressionThreads), compressionThreads, compressionLevel)
+                : new GZIPOutputStream(new BufferedOutputStream(sink, 1 << 16), 1 << 16) {
+                    {
+                        def.setLevel(compressionLevel);
+                    }
+                };
+        write(STREAM_MAGIC, 0, STREAM_MAGIC.length);
+        writeIntLE(STREAM_VERSION);
+    }
+
+    private static synchronized ExecutorService compressionPool(int threads) {
+        return compressionPools.computeIfAbsent(threads, n -> Executors.newFixedThreadPool(n, r -> {
+            Thread thread = new Thread(r, "replay-compression");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Append an event.
+     *
+     * @param bytes holds a flatbuffer with an EventWrapper at its root
+     * @param offset where the flatbuffer starts
+     * @param length the size of the flatbuffer
+     */
+    public void writeEvent(byte[] bytes, int offset, int length) throws IOException {
+        EventWrapper event = EventWrapper.getRootAsEventWrapper(
+                ByteBuffer.wrap(bytes, offset, length).slice().order(ByteOrder.LITTLE_ENDIAN));
+        eventOffsets.add(fileOffset);
+        eventTypes.add(event.eType());
+        switch (event.eType()) {
+            case Event.Round:
+                eventRounds.add(((Round) event.e(new Round())).roundID());
+                break;
+            case Event.Keyframe:
+                eventRounds.add(((Keyframe) event.e(new Keyframe())).roundID());
+                break;
+            default:
+                eventRounds.add(0);
+        }
+        writeIntLE(length);
+        write(bytes, offset, length);
+    }
+
+    /**
+     * Write the index and close the replay. Does nothing if it's already
+     * finished.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        long indexOffset = fileOffset;
+        writeIntLE(0);
+        writeIntLE(eventOffsets.size());
+        for (int i = 0; i < eventOffsets.size(); i++) {
+            writeLongLE(eventOffsets.get(i));
+        }
+        write(eventTypes.toArray(), 0, eventTypes.size());
+        for (int i = 0; i < eventRounds.size(); i++) {
+            writeIntLE(eventRounds.get(i));
+        }
+        writeLongLE(indexOffset);
+        write(INDEX_MAGIC, 0, INDEX_MAGIC.length);
+        fileStream.close();
+        finished = true;
+    }
+
+    /**
+     * @return the finished replay
+     */
+    public byte[] toBytes() throws IOException {
+        finish();
+        if (replayBytes != null) {
+            return replayBytes.toByteArray();
+        }
+        return Files.readAllBytes(replayFile.toPath());
+    }
+
+    /**
+     * Finish the replay and save it.
+     *
+     * @param saveFile the file to save to
+     */
+    public void save(File saveFile) throws IOException {
+        finish();
+        if (replayBytes != null) {
+            FileUtils.writeByteArrayToFile(saveFile, replayBytes.toByteArray());
+        } else {
+            Files.move(replayFile.toPath(), saveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            replayFile = saveFile;
+            saved = true;
+        }
+    }
+
+    /**
+     * Give up on a replay that can't be finished, deleting its partial
+     * file.
+     */
+    public void discard() {
+        if (!finished) {
+            finished = true;
+            try {
+                fileStream.close();
+            } catch (IOException e) {
+                // we're throwing it away anyway
+            }
+        }
+        if (replayFile != null && !saved) {
+            replayFile.delete();
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        fileStream.write(bytes, offset, length);
+        fileOffset += length;
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            numberBytes[i] = (byte) (value >>> (8 * i));
+        }
+        write(numberBytes, 0, 4);
+    }
+
+    private void writeLongLE(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            numberBytes[i] = (byte) (value >>> (8 * i));
+        }
+        write(numberBytes, 0, 8);
+    }
+}
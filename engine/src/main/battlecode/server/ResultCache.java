@@ -0,0 +1,251 @@
+package battlecode.server;
+
+import battlecode.common.GameConstants;
+import battlecode.common.Team;
+import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import battlecode.world.DominationFactor;
+import battlecode.world.GameMapIO;
+import battlecode.world.LiveMap;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the results of matches, so that a match that has been played
+ * before doesn't need to be played again. The engine is deterministic, so
+ * a match is identified by everything that goes into it: the bytes of
+ * each team's classes, the map (including its seed), the engine and the
+ * match options. The team names and whether profiling is on are part of
+ * the key too, as they are written into the cached replay. The engine is identified by its spec version and the
+ * bytes of its own jar or class directory, so rebuilding it with changes
+ * invalidates the cache.
+ *
+ * Each result is a small properties file in the cache directory, named by
+ * the match's key. If the match saved a replay, a copy is kept next to it.
+ * Entries are written atomically, so several processes may share a cache.
+ */
+public class ResultCache {
+
+    /**
+     * Options that don't affect the outcome of a match, and are left out
+     * of keys.
+     */
+    private static final Set<String> IGNORED_OPTIONS = new HashSet<>(Arrays.asList(
+            "bc.cache.bypass",
+            "bc.server.keyframe-interval",
+            "bc.server.replay-compression-level",
+            "bc.server.replay-compression-threads",
+            "bc.server.replay-round-queue",
+            "bc.server.robot-player-to-system-out",
+            "bc.server.stats-file"
+    ));
+
+    /**
+     * A cached result.
+     */
+    public static class Entry {
+        public final Team winner;
+        public final DominationFactor reason;
+        public final int rounds;
+
+        /**
+         * The cached replay, or null if the match wasn't saved.
+         */
+        public final File replay;
+
+        public Entry(Team winner, DominationFactor reason, int rounds, File replay) {
+            this.winner = winner;
+            this.reason = reason;
+            this.rounds = rounds;
+            this.replay = replay;
+        }
+    }
+
+    /**
+     * A hash of the engine's code, computed on first use.
+     */
+    private static byte[] engineHash;
+
+    private final File dir;
+
+    /**
+     * @param dir the directory to keep results in; created if needed
+     */
+    public ResultCache(File dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir.toPath());
+    }
+
+    /**
+     * Computes the key of a match.
+     *
+     * @param spec the match
+     * @param map the map the match is played on, with the spec's seed applied
+     * @param options the options the match is played with
+     * @return the key
+     * @throws IOException if a team's classes can't be read
+     */
+    public static String key(MatchSpec spec, LiveMap map, Config options) throws IOException {
+        final MessageDigest digest = newDigest();
+        update(digest, "engine " + GameConstants.SPEC_VERSION);
+        digest.update(engineHash());
+        update(digest, "team A " + spec.getTeamAName() + " " + spec.getTeamAPackage());
+        digest.update(hashTeam(spec.getTeamAURL()));
+        update(digest, "team B " + spec.getTeamBName() + " " + spec.getTeamBPackage());
+        digest.update(hashTeam(spec.getTeamBURL()));
+        update(digest, "profiling " + spec.isProfilingEnabled());
+        update(digest, "map " + map.getSeed());
+        digest.update(GameMapIO.Serial.serialize(map));
+        final String[] keys = options.getKeys();
+        Arrays.sort(keys);
+        for (String key : keys) {
+            if (!IGNORED_OPTIONS.contains(key)) {
+                update(digest, "option " + key + "=" + options.get(key));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @return the cached result of a match, or null if there is none
+     */
+    public Entry get(String key) {
+        final File file = new File(dir, key + ".properties");
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Server.warn("Couldn't read cached result " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        try {
+            final String replay = properties.getProperty("replay");
+            return new Entry(
+                    Team.valueOf(properties.getProperty("winner")),
+                    DominationFactor.valueOf(properties.getProperty("reason")),
+                    Integer.parseInt(properties.getProperty("rounds")),
+                    replay != null ? new File(dir, replay) : null);
+        } catch (RuntimeException e) {
+            Server.warn("Ignoring malformed cached result " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a match.
+     *
+     * @param key the key of the match
+     * @param result the result
+     * @param replay the replay the match saved, or null
+     */
+    public void put(String key, MatchResult result, File replay) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("match", result.getSpec().toString());
+        properties.setProperty("winner", result.getWinner().name());
+        properties.setProperty("reason", result.getReason().name());
+        properties.setProperty("rounds", Integer.toString(result.getRounds()));
+        if (replay != null) {
+            final String replayName = key + ".bc21";
+            writeAtomically(new File(dir, replayName), Files.readAllBytes(replay.toPath()));
+            properties.setProperty("replay", replayName);
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        properties.store(bytes, null);
+        writeAtomically(new File(dir, key + ".properties"), bytes.toByteArray());
+    }
+
+    private void writeAtomically(File file, byte[] contents) throws IOException {
+        final Path temp = Files.createTempFile(dir.toPath(), file.getName(), ".tmp");
+        try {
+            Files.write(temp, contents);
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static synchronized byte[] engineHash() throws IOException {
+        if (engineHash == null) {
+            try {
+                engineHash = hashFiles(Paths.get(
+                        ResultCache.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+            } catch (URISyntaxException | RuntimeException e) {
+                throw new IOException("Can't find the engine's classes", e);
+            }
+        }
+        return engineHash;
+    }
+
+    /**
+     * Hashes the contents of a team's jar or class directory.
+     */
+    private static byte[] hashTeam(String teamURL) throws IOException {
+        try {
+            return hashFiles(Paths.get(TeamClassLoaderFactory.getFilesystemURL(teamURL).toURI()));
+        } catch (InstrumentationException | URISyntaxException e) {
+            throw new IOException("Can't find team classes at " + teamURL, e);
+        }
+    }
+
+    /**
+     * Hashes the contents of a jar, or of every file in a directory along
+     * with their paths.
+     */
+    private static byte[] hashFiles(Path root) throws IOException {
+        final MessageDigest digest = newDigest();
+        if (Files.isDirectory(root)) {
+            final List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                update(digest, root.relativize(file).toString().replace(File.separatorChar, '/'));
+                digest.update(Files.readAllBytes(file));
+            }
+        } else {
+            digest.update(Files.readAllBytes(root));
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 isn't supported on this system??", e);
+        }
+    }
+
+    /**
+     * Adds a string to a digest, length-prefixed so that consecutive
+     * strings can't run together.
+     */
+    private static void update(MessageDigest digest, String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
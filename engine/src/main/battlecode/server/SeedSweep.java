@@ -0,0 +1,255 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.LiveMap;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Tests whether a candidate team beats a baseline team, by playing them
+ * on every map with seed after seed until a sequential probability ratio
+ * test (see Sprt) is decided, or the seeds run out.
+ *
+ * Games are played on several threads at once, but their results are fed
+ * to the test in a fixed order - by seed, then map - so the outcome
+ * doesn't depend on timing. The candidate plays as team A on even seeds
+ * and as team B on odd ones, so neither side is favoured.
+ *
+ * Options, set with -D as for the server:
+ * <ul>
+ *     <li>bc.sweep.candidate, bc.sweep.baseline: the teams, each given as
+ *         name=url or name=package@url</li>
+ *     <li>bc.sweep.maps: comma-separated maps; all available maps if unset</li>
+ *     <li>bc.sweep.seeds: the most seeds to try per map</li>
+ *     <li>bc.sweep.first-seed: the first seed</li>
+ *     <li>bc.sweep.p0, bc.sweep.p1: the candidate's win rate under H0 (it
+ *         isn't better) and H1 (it is)</li>
+ *     <li>bc.sweep.alpha, bc.sweep.beta: the chances of wrongly accepting
+ *         H1 and H0</li>
+ *     <li>bc.sweep.confidence: the confidence level of reported intervals</li>
+ *     <li>bc.sweep.threads: how many games to play at once; the number of
+ *         processors by default</li>
+ * </ul>
+ * Results are cached in bc.cache.dir if it is set; see ResultCache.
+ */
+public class SeedSweep {
+
+    /**
+     * One game of the sweep.
+     */
+    private static class Game {
+        final int seed;
+        final LiveMap map;
+        final boolean candidateIsA;
+
+        Game(int seed, LiveMap map) {
+            this.seed = seed;
+            this.map = map;
+            this.candidateIsA = seed % 2 == 0;
+        }
+    }
+
+    private final Batch.Entrant candidate;
+    private final Batch.Entrant baseline;
+    private final List<LiveMap> maps;
+    private final int firstSeed;
+    private final int seeds;
+    private final Sprt sprt;
+    private final double confidence;
+    private final int threads;
+    private final Properties matchOptions;
+    private final MatchRunner runner;
+
+    /**
+     * Wins and games of the candidate, by map.
+     */
+    private final Map<String, int[]> mapResults;
+
+    public SeedSweep(Batch.Entrant candidate, Batch.Entrant baseline, List<LiveMap> maps,
+                     int firstSeed, int seeds, Sprt sprt, double confidence,
+                     int threads, Properties matchOptions, MatchRunner runner) {
+        this.candidate = candidate;
+        this.baseline = baseline;
+        this.maps = maps;
+        this.firstSeed = firstSeed;
+        this.seeds = seeds;
+        this.sprt = sprt;
+        this.confidence = confidence;
+        this.threads = threads;
+        this.matchOptions = matchOptions;
+        this.runner = runner;
+        this.mapResults = new LinkedHashMap<>();
+        for (LiveMap map : maps) {
+            mapResults.put(map.getMapName(), new int[2]);
+        }
+    }
+
+    /**
+     * Plays games until the test is decided or every seed has been played
+     * on every map.
+     *
+     * @return the decision; CONTINUE if the seeds ran out first
+     */
+    public Sprt.Decision run() throws InterruptedException {
+        final List<Game> games = new ArrayList<>();
+        for (int seed = firstSeed; seed < firstSeed + seeds; seed++) {
+            for (LiveMap map : maps) {
+                games.add(new Game(seed, map));
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<MatchResult>> results = new ArrayList<>(games.size());
+
+        // Keep only a few games queued past those running, so that little
+        // is wasted once the test is decided
+        final Semaphore queued = new Semaphore(2 * threads);
+        int next = 0;
+        try {
+            for (Game game : games) {
+                queued.acquire();
+                results.add(executor.submit(() -> {
+                    try {
+                        return runner.run(spec(game));
+                    } finally {
+                        queued.release();
+                    }
+                }));
+
+                // Feed in results that are ready, in order
+                while (next < results.size() && results.get(next).isDone()) {
+                    if (record(games.get(next), results.get(next)) != Sprt.Decision.CONTINUE) {
+                        return sprt.getDecision();
+                    }
+                    next++;
+                }
+            }
+            while (next < results.size()) {
+                if (record(games.get(next), results.get(next)) != Sprt.Decision.CONTINUE) {
+                    return sprt.getDecision();
+                }
+                next++;
+            }
+            return sprt.getDecision();
+        } finally {
+            // Drop the games that haven't started; interrupting running
+            // ones would only make their robots report errors
+            for (Future<MatchResult> result : results) {
+                result.cancel(false);
+            }
+            executor.shutdown();
+        }
+    }
+
+    private MatchSpec spec(Game game) {
+        final Batch.Entrant a = game.candidateIsA ? candidate : baseline;
+        final Batch.Entrant b = game.candidateIsA ? baseline : candidate;
+        final MatchSpec spec = new MatchSpec(a.name, a.url, b.name, b.url, game.map)
+                .setTeamAPackage(a.teamPackage)
+                .setTeamBPackage(b.teamPackage)
+                .setSeed(game.seed);
+        for (String key : matchOptions.stringPropertyNames()) {
+            spec.setOption(key, matchOptions.getProperty(key));
+        }
+        return spec;
+    }
+
+    /**
+     * Feeds a game's result to the test. Games that fail to run are
+     * reported and left out.
+     */
+    private Sprt.Decision record(Game game, Future<MatchResult> future) throws InterruptedException {
+        final MatchResult result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            Server.warn("Couldn't run " + spec(game) + ": " + e.getCause().getMessage());
+            return sprt.getDecision();
+        }
+        final boolean won = result.getWinner() == (game.candidateIsA ? Team.A : Team.B);
+        final int[] mapResult = mapResults.get(game.map.getMapName());
+        mapResult[0] += won ? 1 : 0;
+        mapResult[1]++;
+        Server.debug(result.toString());
+        return sprt.add(won);
+    }
+
+    /**
+     * @return a report of the games played so far and the decision
+     */
+    public String report() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s vs. %s: %s%n", candidate.name, baseline.name, describe(sprt.getDecision())));
+        sb.append(String.format("LLR %.3f (bounds %.3f, %.3f)%n",
+                sprt.getLogLikelihoodRatio(), sprt.getLowerBound(), sprt.getUpperBound()));
+        sb.append(line("overall", sprt.getWins(), sprt.getGames()));
+        for (Map.Entry<String, int[]> entry : mapResults.entrySet()) {
+            sb.append(line(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        return sb.toString();
+    }
+
+    private String describe(Sprt.Decision decision) {
+        switch (decision) {
+            case ACCEPT_H1:
+                return candidate.name + " is better";
+            case ACCEPT_H0:
+                return candidate.name + " is not better";
+            default:
+                return "undecided after all seeds";
+        }
+    }
+
+    private String line(String name, int wins, int games) {
+        final double[] interval = Sprt.wilsonInterval(wins, games, confidence);
+        return String.format("%-20s %5d / %-5d win rate %.3f, %.0f%% interval [%.3f, %.3f]%n",
+                name, wins, games, games == 0 ? 0 : (double) wins / games,
+                confidence * 100, interval[0], interval[1]);
+    }
+
+    public static void main(String[] args) {
+        final Config options = Main.setupConfig(args);
+
+        if (options.get("bc.sweep.candidate") == null || options.get("bc.sweep.baseline") == null) {
+            System.err.println("Usage: -Dbc.sweep.candidate=name[=package@]url -Dbc.sweep.baseline=name[=package@]url "
+                    + "[-Dbc.sweep.maps=map,map,...] [-Dbc.sweep.seeds=n] [-Dbc.sweep.p0=p] [-Dbc.sweep.p1=p] ...");
+            System.exit(64);
+        }
+
+        try {
+            final Sprt sprt = new Sprt(
+                    Double.parseDouble(options.get("bc.sweep.p0")),
+                    Double.parseDouble(options.get("bc.sweep.p1")),
+                    Double.parseDouble(options.get("bc.sweep.alpha")),
+                    Double.parseDouble(options.get("bc.sweep.beta")));
+            final int threads = options.get("bc.sweep.threads") != null
+                    ? options.getInt("bc.sweep.threads")
+                    : Runtime.getRuntime().availableProcessors();
+
+            final SeedSweep sweep = new SeedSweep(
+                    Batch.Entrant.parse(options.get("bc.sweep.candidate")),
+                    Batch.Entrant.parse(options.get("bc.sweep.baseline")),
+                    Batch.loadMaps(options, options.get("bc.sweep.maps")),
+                    options.getInt("bc.sweep.first-seed"),
+                    options.getInt("bc.sweep.seeds"),
+                    sprt,
+                    Double.parseDouble(options.get("bc.sweep.confidence")),
+                    threads,
+                    Batch.matchOptions(options),
+                    Batch.createRunner(options));
+            final Sprt.Decision decision = sweep.run();
+            System.out.print(sweep.report());
+            System.exit(decision == Sprt.Decision.ACCEPT_H1 ? 0 : decision == Sprt.Decision.ACCEPT_H0 ? 1 : 2);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(64);
+        } catch (IOException e) {
+            System.err.println("Sweep failed: " + e.getMessage());
+            System.exit(3);
+        } catch (InterruptedException e) {
+            System.exit(3);
+        }
+    }
+}
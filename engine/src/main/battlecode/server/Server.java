@@ -7,8 +7,10 @@ import battlecode.world.control.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
 
 /**
  * Runs matches. Specifically, this class forms a pipeline connecting match and
@@ -19,7 +21,7 @@ public strictfp class Server implements Runnable {
     /**
      * The GameInfo that signals the server to terminate when it is encountered on the game queue.
      */
-    private static final GameInfo POISON = new GameInfo(null, null, null, null, null, null, null, null, false) {};
+    private static final GameInfo POISON = new GameInfo(null, null, null, null, null, null, null, null, false);
 
     /**
      * The queue of games to run.
@@ -44,9 +46,22 @@ public strictfp class Server implements Runnable {
     private final boolean interactive;
 
     /**
-     * The GameWorld the server is currently operating on.
+     * The GameWorld the server is currently operating on (the latest one
+     * started, when running games in parallel).
      */
-    private GameWorld currentWorld;
+    private volatile GameWorld currentWorld;
+
+    /**
+     * Class loader factories shared by all the games the server runs, so
+     * each team is only instrumented once unless its files change.
+     */
+    private final TeamFactories teamFactories;
+
+    /**
+     * Where every round of every game is published, or null; only used
+     * when running games one at a time.
+     */
+    private ObservationExport observationExport;
 
 
     /**
@@ -56,6 +71,10 @@ public strictfp class Server implements Runnable {
      */
     public enum Mode {
         HEADLESS,
+        /**
+         * Stay up and run matches sent over a socket; see MatchDaemon.
+         */
+        DAEMON,
     }
 
     /**
@@ -67,6 +86,7 @@ public strictfp class Server implements Runnable {
      */
     public Server(Config options, boolean interactive) {
         this.gameQueue = new LinkedBlockingQueue<>();
+        this.teamFactories = new TeamFactories();
 
         this.interactive = interactive;
 
@@ -114,6 +134,9 @@ public strictfp class Server implements Runnable {
      * Runs the server. The server will wait for some game info (which
      * specifies the teams and set of maps to run) and then begin running
      * matches.
+     *
+     * If bc.server.parallel-matches is more than 1, that many games are run
+     * at once; see runParallel.
      */
     public void run() {
         final NetServer netServer;
@@ -125,74 +148,274 @@ public strictfp class Server implements Runnable {
             netServer = null;
         }
 
-        while (true) {
-            final GameInfo currentGame;
-            debug("Awaiting match");
-            try {
-                currentGame = gameQueue.take();
-            } catch (InterruptedException e) {
-                warn("Interrupted while waiting for next game!");
-                e.printStackTrace();
-                Thread.currentThread().interrupt();
+        final int parallelMatches = options.getInt("bc.server.parallel-matches");
+        if (parallelMatches > 1) {
+            if (interactive || netServer != null) {
+                warn("Can't run matches in parallel in interactive mode or with a client, running them one at a time");
+            } else if (options.get("bc.server.state-hash-file") != null
+                    || options.get("bc.server.observation-file") != null
+                    || options.get("bc.server.stats-file") != null) {
+                warn("Can't record state hashes, observations or stats of parallel matches, running them one at a time");
+            } else {
+                runParallel(parallelMatches);
                 return;
             }
+        }
 
-            // Note: ==, not .equals()
-            if (currentGame == POISON) {
-                debug("Shutting down server");
-                if (netServer != null) {
-                    netServer.finish();
+        // Optionally publish every round, for consumers like trainers. The
+        // file stays mapped across games, so consumers can keep it mapped too.
+        this.observationExport = createObservationExport();
+        try {
+            while (true) {
+                final GameInfo currentGame;
+                debug("Awaiting match");
+                try {
+                    currentGame = gameQueue.take();
+                } catch (InterruptedException e) {
+                    warn("Interrupted while waiting for next game!");
+                    e.printStackTrace();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                // Note: ==, not .equals()
+                if (currentGame == POISON) {
+                    debug("Shutting down server");
+                    if (netServer != null) {
+                        netServer.finish();
+                    }
+                    return;
+                }
+
+                if (!runGame(currentGame, netServer)) {
+                    return;
                 }
-                return;
             }
+        } finally {
+            closeObservationExport(observationExport);
+        }
+    }
 
-            GameMaker gameMaker = new GameMaker(currentGame, netServer, options.getBoolean("bc.engine.show-indicators"));
-            gameMaker.makeGameHeader();
+    /**
+     * Runs games from the queue on a pool of threads, at most
+     * parallelMatches at a time. Each game gets its own world, game maker,
+     * control providers and console; only the team class loader factories
+     * are shared. The first game in the queue writes its console output
+     * straight through; the others hold theirs until the games before them
+     * are done, so it is the same as when running games one at a time, as
+     * are the replays.
+     *
+     * As when running one game at a time, the server stops taking games
+     * once one fails, but games already running are finished.
+     *
+     * @param parallelMatches the maximum number of games to run at once
+     */
+    private void runParallel(int parallelMatches) {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelMatches, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "match-runner-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final Semaphore slots = new Semaphore(parallelMatches);
+
+        // Games that are running or whose output hasn't been printed, in queue order
+        final Deque<RunningGame> running = new ArrayDeque<>();
+        boolean failed = false;
+
+        try {
+            while (!failed) {
+                failed = !printFinishedGames(running);
+
+                final GameInfo currentGame;
+                try {
+                    currentGame = gameQueue.poll(250, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    warn("Interrupted while waiting for next game!");
+                    Thread.currentThread().interrupt();
+                    failed = true;
+                    break;
+                }
+                if (currentGame == null) {
+                    continue;
+                }
+                if (currentGame == POISON) {
+                    debug("Shutting down server");
+                    break;
+                }
 
-            debug("Running: "+currentGame);
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed = true;
+                    break;
+                }
+                final ServerConsole console = ServerConsole.buffered(options);
+                running.add(new RunningGame(console, executor.submit(() -> {
+                    ServerConsole.setCurrent(console);
+                    try {
+                        return runGame(currentGame, null);
+                    } finally {
+                        ServerConsole.setCurrent(null);
+                        slots.release();
+                    }
+                })));
+                running.peek().console.stream();
+            }
 
-            // Set up our control provider
-            final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler");
-            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled);
+            // Finish the games we've started
+            while (!running.isEmpty()) {
+                running.peek().console.stream();
+                failed |= !running.poll().await();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.state = failed ? ServerState.ERROR : ServerState.FINISHED;
+    }
+
+    /**
+     * Streams the output of the game at the head of the queue, and drops
+     * the games there that are done.
+     *
+     * @return false if any of them failed
+     */
+    private static boolean printFinishedGames(Deque<RunningGame> running) {
+        boolean ok = true;
+        while (!running.isEmpty()) {
+            running.peek().console.stream();
+            if (!running.peek().result.isDone()) {
+                break;
+            }
+            ok &= running.poll().await();
+        }
+        return ok;
+    }
 
-            // Count wins
-            int aWins = 0, bWins = 0;
+    /**
+     * A game submitted by runParallel.
+     */
+    private static class RunningGame {
+        final ServerConsole console;
+        final Future<Boolean> result;
 
-            // Loop through the maps in the current game
-            for (int matchIndex = 0; matchIndex < currentGame.getMaps().length; matchIndex++) {
+        RunningGame(ServerConsole console, Future<Boolean> result) {
+            this.console = console;
+            this.result = result;
+        }
 
-                Team winner;
+        /**
+         * @return whether the game ran successfully
+         */
+        boolean await() {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                ServerConsole.setCurrent(console);
                 try {
-                    winner = runMatch(currentGame, matchIndex, prov, gameMaker);
-                } catch (Exception e) {
-                    ErrorReporter.report(e);
-                    this.state = ServerState.ERROR;
-                    return;
+                    ErrorReporter.report(e.getCause());
+                } finally {
+                    ServerConsole.setCurrent(null);
                 }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Runs all the matches of a game, and saves its replay unless
+     * bc.server.no-replay is set and there's no client to send it to.
+     *
+     * @param currentGame the game to run
+     * @param netServer the client to send the game to, or null
+     * @return whether the game ran successfully
+     */
+    private boolean runGame(GameInfo currentGame, NetServer netServer) {
+        final GameMaker gameMaker = netServer == null && options.getBoolean("bc.server.no-replay")
+                ? null
+                : new GameMaker(currentGame, netServer, options);
+        if (gameMaker != null) {
+            gameMaker.makeGameHeader();
+        }
+
+        debug("Running: "+currentGame);
+
+        // Optionally record state hashes, to compare against other runs
+        final StateHashLog stateHashLog = createStateHashLog();
 
-                switch (winner) {
-                    case A:
-                        aWins++;
-                        break;
-                    case B:
-                        bWins++;
-                        break;
-                    default:
-                        warn("Team "+winner+" won???");
+        // Optionally total up each round, alongside the replay
+        final StatsMatchSink statsSink = createStatsSink();
+        final MatchSink matchSink;
+        if (gameMaker == null) {
+            matchSink = statsSink == null ? NullMatchSink.INSTANCE : statsSink;
+        } else if (statsSink == null) {
+            matchSink = gameMaker.getMatchMaker();
+        } else {
+            matchSink = new FanOutMatchSink(gameMaker.getMatchMaker(), statsSink);
+        }
+
+        // Set up our control provider
+        final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler");
+        final RobotControlProvider prov = createControlProvider(currentGame, matchSink, profilingEnabled);
+
+        // Count wins
+        int aWins = 0, bWins = 0;
+
+        // Loop through the maps in the current game
+        for (int matchIndex = 0; matchIndex < currentGame.getMaps().length; matchIndex++) {
+
+            Team winner;
+            try {
+                winner = runMatch(currentGame, matchIndex, prov, matchSink, stateHashLog, observationExport);
+            } catch (Exception e) {
+                ErrorReporter.report(e);
+                this.state = ServerState.ERROR;
+                if (gameMaker != null) {
+                    gameMaker.discard();
                 }
+                closeStateHashLog(stateHashLog);
+                closeStatsSink(statsSink);
+                return false;
+            }
 
-                currentWorld = null;
+            switch (winner) {
+                case A:
+                    aWins++;
+                    break;
+                case B:
+                    bWins++;
+                    break;
+                default:
+                    warn("Team "+winner+" won???");
+            }
 
-                if (currentGame.isBestOfThree()) {
-                    if (aWins == 2 || bWins == 2) {
-                        break;
-                    }
+            currentWorld = null;
+
+            if (currentGame.isBestOfThree()) {
+                if (aWins == 2 || bWins == 2) {
+                    break;
                 }
             }
-            Team winner = aWins >= bWins ? Team.A : Team.B;
+        }
+        Team winner = aWins >= bWins ? Team.A : Team.B;
+        if (gameMaker != null) {
             gameMaker.makeGameFooter(winner);
-            gameMaker.writeGame(currentGame.getSaveFile());
+            if (currentGame.getSaveFile() != null) {
+                gameMaker.writeGame(currentGame.getSaveFile());
+            }
         }
+        closeStateHashLog(stateHashLog);
+        closeStatsSink(statsSink);
+        return true;
     }
 
 
@@ -203,7 +426,9 @@ public strictfp class Server implements Runnable {
     private Team runMatch(GameInfo currentGame,
                           int matchIndex,
                           RobotControlProvider prov,
-                          GameMaker gameMaker) throws Exception {
+                          MatchSink matchSink,
+                          StateHashLog stateHashLog,
+                          ObservationExport observationExport) throws Exception {
 
         final String mapName = currentGame.getMaps()[matchIndex];
         final LiveMap loadedMap;
@@ -217,7 +442,20 @@ public strictfp class Server implements Runnable {
         }
 
         // Create the game world!
-        currentWorld = new GameWorld(loadedMap, prov, gameMaker.getMatchMaker());
+        if (stateHashLog != null) {
+            stateHashLog.startMatch(matchIndex, mapName);
+        }
+        if (observationExport != null) {
+            observationExport.startMatch(matchIndex);
+        }
+        final GameWorld world = new GameWorld(loadedMap, prov, matchSink);
+        currentWorld = world;
+        if (stateHashLog != null) {
+            world.setStateHashLog(stateHashLog);
+        }
+        if (observationExport != null) {
+            world.setObservationExport(observationExport);
+        }
 
         // Get started
         if (interactive) {
@@ -239,50 +477,128 @@ public strictfp class Server implements Runnable {
 
         // If there are more rounds to be run, run them and
         // and send the round (and optionally stats) bytes to
-        // recipients.
-        while (this.state != ServerState.FINISHED) {
-
-            // If not paused/stopped:
-            switch (this.state) {
-
-                case RUNNING:
-                    GameState state = currentWorld.runRound();
-
-                    if (GameState.DONE.equals(state)) {
-                        this.state = ServerState.FINISHED;
-                        break;
-                    }
-
-                    break;
+        // recipients. Only interactive matches can be paused; other
+        // matches may be running alongside this one, so they don't
+        // consult the shared state.
+        while (true) {
+            if (interactive && this.state != ServerState.RUNNING) {
+                Thread.sleep(250);
+                continue;
+            }
 
-                case PAUSED:
-                    Thread.sleep(250);
-                    break;
+            if (GameState.DONE.equals(world.runRound())) {
+                this.state = ServerState.FINISHED;
+                break;
             }
         }
 
-        say(getWinnerString(currentGame, currentWorld.getWinner(), currentWorld.getCurrentRound()));
+        say(getWinnerString(currentGame, world, world.getWinner(), world.getCurrentRound()));
         say("-------------------- Match Finished --------------------");
 
         double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
         debug(String.format("match completed in %.4g seconds", timeDiff));
-        return currentWorld.getWinner();
+        return world.getWinner();
     }
 
     // ******************************
     // ***** CREATOR METHODS ********
     // ******************************
 
+    /**
+     * @return a log for the file named by bc.server.state-hash-file, or null
+     *         if it isn't set or can't be opened
+     */
+    private StateHashLog createStateHashLog() {
+        final String stateHashFile = options.get("bc.server.state-hash-file");
+        if (stateHashFile == null) {
+            return null;
+        }
+        try {
+            return new StateHashLog(new File(stateHashFile));
+        } catch (IOException e) {
+            warn("Couldn't open state hash file " + stateHashFile + ", not recording state hashes");
+            return null;
+        }
+    }
+
+    private void closeStateHashLog(StateHashLog stateHashLog) {
+        if (stateHashLog == null) {
+            return;
+        }
+        try {
+            stateHashLog.close();
+        } catch (IOException e) {
+            warn("Couldn't write state hash file");
+        }
+    }
+
+    /**
+     * @return an export to the file named by bc.server.observation-file, or
+     *         null if it isn't set or can't be created
+     */
+    private ObservationExport createObservationExport() {
+        final String observationFile = options.get("bc.server.observation-file");
+        if (observationFile == null) {
+            return null;
+        }
+        try {
+            return new ObservationExport(new File(observationFile),
+                    Integer.parseInt(options.get("bc.server.observation-slots")));
+        } catch (IOException e) {
+            warn("Couldn't create observation file " + observationFile + ", not exporting observations");
+            return null;
+        }
+    }
+
+    private void closeObservationExport(ObservationExport observationExport) {
+        if (observationExport == null) {
+            return;
+        }
+        try {
+            observationExport.close();
+        } catch (IOException e) {
+            warn("Couldn't close observation file");
+        }
+    }
+
+    /**
+     * @return a sink for the file named by bc.server.stats-file, or null if
+     *         it isn't set or can't be opened
+     */
+    private StatsMatchSink createStatsSink() {
+        final String statsFile = options.get("bc.server.stats-file");
+        if (statsFile == null) {
+            return null;
+        }
+        try {
+            return new StatsMatchSink(new File(statsFile));
+        } catch (IOException e) {
+            warn("Couldn't open stats file " + statsFile + ", not recording stats");
+            return null;
+        }
+    }
+
+    private void closeStatsSink(StatsMatchSink statsSink) {
+        if (statsSink == null) {
+            return;
+        }
+        try {
+            statsSink.close();
+        } catch (IOException e) {
+            warn("Couldn't write stats file");
+        }
+    }
+
     /**
      * Create a RobotControlProvider for a game.
      *
      * @param game             the game to provide control for
-     * @param gameMaker        the game maker containing the output streams for robot logs
+     * @param sink             the sink whose output stream takes robot logs
      * @param profilingEnabled whether profiling is enabled or not
      * @return a fresh control provider for the game
      */
     private RobotControlProvider createControlProvider(GameInfo game,
-                                                       GameMaker gameMaker,
+                                                       MatchSink sink,
                                                        boolean profilingEnabled) {
         // Strictly speaking, this should probably be somewhere in battlecode.world
         // Whatever
@@ -294,9 +610,10 @@ public strictfp class Server implements Runnable {
                 new PlayerControlProvider(
                     Team.A,
                     game.getTeamAPackage(),
-                    game.getTeamAURL(),
-                    gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    teamFactories.get(game.getTeamAURL(), options),
+                    sink.getOut(),
+                    profilingEnabled,
+                    options
                 )
         );
         teamProvider.registerControlProvider(
@@ -304,9 +621,10 @@ public strictfp class Server implements Runnable {
                 new PlayerControlProvider(
                     Team.B,
                     game.getTeamBPackage(),
-                    game.getTeamBURL(),
-                    gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    teamFactories.get(game.getTeamBURL(), options),
+                    sink.getOut(),
+                    profilingEnabled,
+                    options
                 )
         );
         teamProvider.registerControlProvider(
@@ -333,6 +651,10 @@ public strictfp class Server implements Runnable {
      * @return A string representing the match's winner.
      */
     public String getWinnerString(GameInfo game, Team winner, int roundNumber) {
+        return getWinnerString(game, currentWorld, winner, roundNumber);
+    }
+
+    private static String getWinnerString(GameInfo game, GameWorld world, Team winner, int roundNumber) {
 
         String teamName;
 
@@ -356,7 +678,7 @@ public strictfp class Server implements Runnable {
         sb.append(" wins (round ").append(roundNumber).append(")");
 
         sb.append("\nReason: ");
-        GameStats stats = currentWorld.getGameStats();
+        GameStats stats = world.getGameStats();
         DominationFactor dom = stats.getDominationFactor();
 
         switch (dom) {
@@ -399,8 +721,9 @@ public strictfp class Server implements Runnable {
      * @param msg the warning message to display
      */
     public static void warn(String msg) {
+        final PrintStream out = ServerConsole.current().getOut();
         for (String line : msg.split("\n")) {
-            System.out.printf("[server:warning] %s\n", line);
+            out.printf("[server:warning] %s\n", line);
         }
     }
 
@@ -411,8 +734,9 @@ public strictfp class Server implements Runnable {
      * @param msg the message to display
      */
     public static void say(String msg) {
+        final PrintStream out = ServerConsole.current().getOut();
         for (String line : msg.split("\n")) {
-            System.out.printf("[server] %s\n", line);
+            out.printf("[server] %s\n", line);
         }
     }
 
@@ -422,9 +746,10 @@ public strictfp class Server implements Runnable {
      * @param msg the debug message to display
      */
     public static void debug(String msg) {
-        if (Config.getGlobalConfig().getBoolean("bc.server.debug")) {
+        final ServerConsole console = ServerConsole.current();
+        if (console.isDebug()) {
             for (String line : msg.split("\n")) {
-                System.out.printf("[server:debug] %s\n", line);
+                console.getOut().printf("[server:debug] %s\n", line);
             }
         }
     }
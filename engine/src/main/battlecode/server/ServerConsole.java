@@ -0,0 +1,206 @@
+package battlecode.server;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Where the server, the error reporter and robots echoing to standard
+ * output write their messages.
+ *
+ * By default that is System.out and System.err. When the server runs
+ * several games at once, each game gets a buffered console instead. The
+ * console of the game that was queued first writes straight through; the
+ * others hold their output, spilling it to a temporary file once it
+ * outgrows memory, until the games before them are done. So the output is
+ * the same as if they had run one after another.
+ *
+ * The console is set per thread, and inherited by the threads a thread
+ * starts, so the robot threads of a match write to its console too.
+ */
+public class ServerConsole {
+
+    /**
+     * How many bytes of each stream a buffered console holds in memory
+     * before it spills to a temporary file.
+     */
+    static final int MEMORY_LIMIT = 1 << 20;
+
+    /**
+     * The console of threads that haven't been given one.
+     */
+    private static final ServerConsole SYSTEM = new ServerConsole(null, null, null);
+
+    private static final InheritableThreadLocal<ServerConsole> current = new InheritableThreadLocal<ServerConsole>() {
+        @Override
+        protected ServerConsole initialValue() {
+            return SYSTEM;
+        }
+    };
+
+    /**
+     * The streams to write to, or null for System.out and System.err.
+     */
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * The buffers behind out and err, if this console is buffered.
+     */
+    private final Buffer outBuffer;
+    private final Buffer errBuffer;
+
+    /**
+     * The options deciding whether to print debug messages, or null to use
+     * the global config.
+     */
+    private final Config options;
+
+    private ServerConsole(Buffer outBuffer, Buffer errBuffer, Config options) {
+        this.outBuffer = outBuffer;
+        this.errBuffer = errBuffer;
+        this.out = outBuffer != null ? printStream(outBuffer) : null;
+        this.err = errBuffer != null ? printStream(errBuffer) : null;
+        this.options = options;
+    }
+
+    private static PrintStream printStream(OutputStream buffer) {
+        try {
+            return new PrintStream(buffer, true, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("UTF-8 isn't supported on this system??", e);
+        }
+    }
+
+    /**
+     * @param options the options deciding whether to print debug messages
+     * @return a console that holds everything written to it until stream()
+     */
+    public static ServerConsole buffered(Config options) {
+        return new ServerConsole(new Buffer(), new Buffer(), options);
+    }
+
+    /**
+     * @return the console of the current thread
+     */
+    public static ServerConsole current() {
+        return current.get();
+    }
+
+    /**
+     * Sets the console of the current thread, and of threads it starts
+     * from now on.
+     *
+     * @param console the console to use, or null for System.out and System.err
+     */
+    public static void setCurrent(ServerConsole console) {
+        if (console == null) {
+            current.remove();
+        } else {
+            current.set(console);
+        }
+    }
+
+    public PrintStream getOut() {
+        return out != null ? out : System.out;
+    }
+
+    public PrintStream getErr() {
+        return err != null ? err : System.err;
+    }
+
+    /**
+     * @return whether debug messages should be printed
+     */
+    public boolean isDebug() {
+        return (options != null ? options : Config.getGlobalConfig()).getBoolean("bc.server.debug");
+    }
+
+    /**
+     * Prints everything written to a buffered console to System.out and
+     * System.err, and writes straight through to them from now on.
+     */
+    public void stream() {
+        if (outBuffer == null) {
+            return;
+        }
+        outBuffer.stream(System.out);
+        errBuffer.stream(System.err);
+    }
+
+    /**
+     * Holds what's written to it in memory, then in a temporary file, until
+     * it's told to stream to its target; from then on it writes straight
+     * to the target.
+     */
+    private static class Buffer extends OutputStream {
+        private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+        /**
+         * Where output past MEMORY_LIMIT goes, or null until there is some.
+         */
+        private File spillFile;
+        private OutputStream spill;
+
+        /**
+         * The stream written straight to, or null while buffering.
+         */
+        private PrintStream target;
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+            } else if (spill == null && memory.size() + len <= MEMORY_LIMIT) {
+                memory.write(b, off, len);
+            } else {
+                if (spill == null) {
+                    spillFile = File.createTempFile("battlecode-console", ".txt");
+                    spillFile.deleteOnExit();
+                    spill = new BufferedOutputStream(new FileOutputStream(spillFile));
+                }
+                spill.write(b, off, len);
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        synchronized void stream(PrintStream target) {
+            if (this.target != null) {
+                return;
+            }
+            target.write(memory.toByteArray(), 0, memory.size());
+            memory.reset();
+            if (spill != null) {
+                try {
+                    spill.close();
+                    FileUtils.copyFile(spillFile, target);
+                } catch (IOException e) {
+                    target.println("[server] Lost console output: " + e);
+                }
+                FileUtils.deleteQuietly(spillFile);
+                spill = null;
+                spillFile = null;
+            }
+            target.flush();
+            this.target = target;
+        }
+    }
+}
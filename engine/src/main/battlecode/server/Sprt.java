@@ -0,0 +1,155 @@
+package battlecode.server;
+
+/**
+ * A sequential probability ratio test on a win rate: after each game,
+ * decides whether the games so far show the win rate is p1 or more (H1),
+ * p0 or less (H0), or that more games are needed.
+ *
+ * The test is wrong about H1 with probability at most alpha, and about H0
+ * with probability at most beta.
+ */
+public class Sprt {
+
+    public enum Decision {
+        /**
+         * The win rate is at most p0.
+         */
+        ACCEPT_H0,
+        /**
+         * The win rate is at least p1.
+         */
+        ACCEPT_H1,
+        /**
+         * More games are needed.
+         */
+        CONTINUE
+    }
+
+    private final double winStep;
+    private final double lossStep;
+    private final double lowerBound;
+    private final double upperBound;
+
+    private int wins;
+    private int losses;
+    private double llr;
+
+    /**
+     * @param p0 the win rate under H0
+     * @param p1 the win rate under H1; more than p0
+     * @param alpha the chance of accepting H1 when H0 holds
+     * @param beta the chance of accepting H0 when H1 holds
+     */
+    public Sprt(double p0, double p1, double alpha, double beta) {
+        if (!(0 < p0 && p0 < p1 && p1 < 1)) {
+            throw new IllegalArgumentException("Need 0 < p0 < p1 < 1, not p0 = " + p0 + ", p1 = " + p1);
+        }
+        if (!(0 < alpha && alpha < 1 && 0 < beta && beta < 1)) {
+            throw new IllegalArgumentException("Error rates must be between 0 and 1, not " + alpha + " and " + beta);
+        }
+        this.winStep = Math.log(p1 / p0);
+        this.lossStep = Math.log((1 - p1) / (1 - p0));
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Records the outcome of a game.
+     *
+     * @param won whether the game was won
+     * @return the decision after this game
+     */
+    public Decision add(boolean won) {
+        if (won) {
+            wins++;
+            llr += winStep;
+        } else {
+            losses++;
+            llr += lossStep;
+        }
+        return getDecision();
+    }
+
+    public Decision getDecision() {
+        if (llr >= upperBound) {
+            return Decision.ACCEPT_H1;
+        } else if (llr <= lowerBound) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getGames() {
+        return wins + losses;
+    }
+
+    /**
+     * @return the log-likelihood ratio of H1 to H0
+     */
+    public double getLogLikelihoodRatio() {
+        return llr;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * The Wilson score interval for a win rate.
+     *
+     * @param wins the number of wins
+     * @param games the number of games
+     * @param confidence the confidence level, e.g. 0.95
+     * @return the lower and upper ends of the interval
+     */
+    public static double[] wilsonInterval(int wins, int games, double confidence) {
+        if (games == 0) {
+            return new double[] {0, 1};
+        }
+        final double z = normalQuantile(1 - (1 - confidence) / 2);
+        final double p = (double) wins / games;
+        final double z2 = z * z / games;
+        final double center = (p + z2 / 2) / (1 + z2);
+        final double halfWidth = z * Math.sqrt(p * (1 - p) / games + z2 / (4 * games)) / (1 + z2);
+        return new double[] {Math.max(0, center - halfWidth), Math.min(1, center + halfWidth)};
+    }
+
+    /**
+     * The quantile function of the standard normal distribution, by
+     * Acklam's rational approximation (relative error below 1.2e-9).
+     */
+    static double normalQuantile(double p) {
+        if (!(0 < p && p < 1)) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1, not " + p);
+        }
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            final double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        } else if (p > 1 - low) {
+            return -normalQuantile(1 - p);
+        }
+        final double q = p - 0.5;
+        final double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
@@ -0,0 +1,96 @@
+package battlecode.server;
+
+import battlecode.instrumenter.TeamClassLoaderFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Team class loader factories, shared between matches so that a team's
+ * classes are instrumented once. If a team's files change between matches,
+ * or its factory ran into an error, its classes are loaded afresh. May be
+ * used from several threads at once.
+ */
+class TeamFactories {
+
+    /**
+     * A team's class loader factory, which caches its instrumented classes,
+     * and the state of the team's files when it was made.
+     */
+    private static class LoadedTeam {
+        final String fingerprint;
+        final TeamClassLoaderFactory factory;
+
+        LoadedTeam(String fingerprint, TeamClassLoaderFactory factory) {
+            this.fingerprint = fingerprint;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Loaded teams, by team URL.
+     */
+    private final Map<String, LoadedTeam> factories = new ConcurrentHashMap<>();
+
+    /**
+     * Instrumented classes depend on bc.engine.debug-methods, so factories
+     * are only shared between matches that agree on it.
+     *
+     * @param teamURL the location of a team's classes
+     * @param options the options the match is played with
+     * @return a factory loading the team's current classes
+     */
+    TeamClassLoaderFactory get(String teamURL, Config options) {
+        boolean debugMethods = options.getBoolean("bc.engine.debug-methods");
+        String key = teamURL + (debugMethods ? "#debug" : "");
+        Config factoryOptions = new Config(new Properties());
+        factoryOptions.setBoolean("bc.engine.debug-methods", debugMethods);
+        String fingerprint = fingerprint(teamURL);
+        return factories.compute(key, (k, loaded) ->
+                loaded != null && loaded.fingerprint.equals(fingerprint) && !loaded.factory.getError()
+                        ? loaded
+                        : new LoadedTeam(fingerprint, new TeamClassLoaderFactory(teamURL, factoryOptions))
+        ).factory;
+    }
+
+    /**
+     * Summarizes the sizes and modification times of a team's files, so
+     * that replacing them can be noticed cheaply.
+     *
+     * @return the fingerprint, or "" if the files can't be found; the
+     *         factory reports that when the team is loaded
+     */
+    private static String fingerprint(String teamURL) {
+        final Path root;
+        try {
+            root = Paths.get(TeamClassLoaderFactory.getFilesystemURL(teamURL).toURI());
+        } catch (URISyntaxException | RuntimeException e) {
+            return "";
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            long[] summary = new long[3];
+            walk.forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    summary[0]++;
+                    summary[1] += attributes.size();
+                    summary[2] = Math.max(summary[2], attributes.lastModifiedTime().toMillis());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return summary[0] + "/" + summary[1] + "/" + summary[2];
+        } catch (IOException | UncheckedIOException e) {
+            return "";
+        }
+    }
+}
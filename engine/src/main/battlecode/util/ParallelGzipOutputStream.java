@@ -0,0 +1,229 @@
+package battlecode.util;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip, compressing on several threads at once, the way pigz does.
+ *
+ * The data is cut into blocks, and each block is deflated by a task of its
+ * own, primed with the 32KiB before it as a dictionary so that compression
+ * hardly suffers. Every block but the last ends with a sync flush, which
+ * leaves its output on a byte boundary, so the compressed blocks can just
+ * be written one after another: the result is a single ordinary gzip
+ * member that any reader can decompress.
+ *
+ * Blocks are written in order as they finish. At most two blocks per
+ * thread are in flight, so a writer that outpaces compression waits
+ * rather than buffering without bound. flush() writes the blocks that are
+ * done, but doesn't cut the current block short.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * The gzip header GZIPOutputStream writes: deflate, no flags, no mtime.
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int level;
+    private final int blockSize;
+    private final int maxInFlight;
+
+    /**
+     * The compressed blocks, in order, that haven't been written yet.
+     */
+    private final ArrayDeque<Future<byte[]>> pending;
+
+    private final CRC32 crc;
+    private long size;
+
+    private byte[] block;
+    private int blockLength;
+
+    /**
+     * The end of the last block submitted, or null before the first.
+     */
+    private byte[] dictionary;
+
+    private boolean closed;
+
+    /**
+     * @param out the stream to write gzip to
+     * @param executor the threads to compress on
+     * @param threads how many threads the executor has
+     * @param level the compression level, 0-9, or Deflater.DEFAULT_COMPRESSION
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int threads, int level)
+            throws IOException {
+        this(out, executor, threads, level, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize how many bytes to compress in each task; at least 32KiB
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int threads, int level,
+                                    int blockSize) throws IOException {
+        if (blockSize < DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Blocks must be at least " + DICTIONARY_SIZE + " bytes");
+        }
+        this.out = out;
+        this.executor = executor;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxInFlight = 2 * Math.max(threads, 1);
+        this.pending = new ArrayDeque<>();
+        this.crc = new CRC32();
+        this.block = new byte[blockSize];
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submit(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    /**
+     * Compresses what's left, writes the gzip trailer and closes the
+     * underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submit(true);
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writeIntLE((int) crc.getValue());
+            writeIntLE((int) size);
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Hands the current block to the executor, then waits for old blocks
+     * if too many are in flight.
+     */
+    private void submit(boolean last) throws IOException {
+        final byte[] input = block;
+        final int length = blockLength;
+        final byte[] priming = dictionary;
+        crc.update(input, 0, length);
+        size += length;
+        if (!last) {
+            // Only the last block can be short of a full dictionary
+            dictionary = Arrays.copyOfRange(input, length - DICTIONARY_SIZE, length);
+            block = new byte[blockSize];
+            blockLength = 0;
+        }
+
+        pending.add(executor.submit(() -> deflate(input, length, priming, level, last)));
+        while (pending.size() > maxInFlight) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Compression failed", e.getCause());
+        }
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    /**
+     * Deflates one block as raw deflate data.
+     *
+     * @param priming the data before the block, or null
+     * @param last whether to end the deflate stream, rather than sync flush
+     */
+    private static byte[] deflate(byte[] input, int length, byte[] priming, int level, boolean last) {
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            if (priming != null) {
+                deflater.setDictionary(priming);
+            }
+            deflater.setInput(input, 0, length);
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            final byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
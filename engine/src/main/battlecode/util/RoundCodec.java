@@ -0,0 +1,325 @@
+package battlecode.util;
+
+import battlecode.common.Direction;
+import battlecode.schema.GameMap;
+import battlecode.schema.Round;
+import battlecode.schema.SpawnedBodyTable;
+import battlecode.schema.VecTable;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the fields of Rounds that spec version 2.0 packs - the bodies
+ * that moved, died, acted and used bytecodes - between plain int arrays and
+ * their packed form. See the Round table in battlecode.fbs for the format.
+ *
+ * Packed IDs are indices into the bodies of the match, so a codec keeps
+ * track of the bodies as rounds go by, and of their locations, so that
+ * moves can be stored as directions. Use one codec per game, and pass it
+ * every match and round in order.
+ */
+public class RoundCodec {
+
+    /**
+     * The spec version of games whose Rounds are packed.
+     */
+    public static final String SPEC_VERSION = "2.0";
+
+    /**
+     * The directions moves are stored as, by number.
+     */
+    private static final Direction[] DIRECTIONS = {
+            Direction.NORTH, Direction.NORTHEAST, Direction.EAST, Direction.SOUTHEAST,
+            Direction.SOUTH, Direction.SOUTHWEST, Direction.WEST, Direction.NORTHWEST
+    };
+
+    /**
+     * The fields of a Round that spec version 2.0 packs, unpacked.
+     */
+    public static class Plain {
+        public int[] movedIDs;
+        public int[] movedXs;
+        public int[] movedYs;
+        public int[] diedIDs;
+        public int[] actionIDs;
+        public int[] actionTargets;
+        public int[] bytecodeIDs;
+        public int[] bytecodesUsed;
+    }
+
+    /**
+     * The fields of a Round that spec version 2.0 packs, packed.
+     */
+    public static class Packed {
+        public byte[] movedIDs;
+        public byte[] movedDirections;
+        public byte[] diedIDs;
+        public byte[] actionIDs;
+        public byte[] actionTargets;
+        public byte[] bytecodeIDs;
+        public byte[] bytecodesUsed;
+
+        private int[] offsets;
+
+        /**
+         * Create the vectors; call before Round.startRound.
+         */
+        public void createVectors(FlatBufferBuilder builder) {
+            offsets = new int[] {
+                    Round.createMovedIDsPackedVector(builder, movedIDs),
+                    Round.createMovedDirectionsVector(builder, movedDirections),
+                    Round.createDiedIDsPackedVector(builder, diedIDs),
+                    Round.createActionIDsPackedVector(builder, actionIDs),
+                    Round.createActionTargetsPackedVector(builder, actionTargets),
+                    Round.createBytecodeIDsPackedVector(builder, bytecodeIDs),
+                    Round.createBytecodesUsedPackedVector(builder, bytecodesUsed)
+            };
+        }
+
+        /**
+         * Add the vectors made by createVectors to the Round being built.
+         */
+        public void addTo(FlatBufferBuilder builder) {
+            Round.addMovedIDsPacked(builder, offsets[0]);
+            Round.addMovedDirections(builder, offsets[1]);
+            Round.addDiedIDsPacked(builder, offsets[2]);
+            Round.addActionIDsPacked(builder, offsets[3]);
+            Round.addActionTargetsPacked(builder, offsets[4]);
+            Round.addBytecodeIDsPacked(builder, offsets[5]);
+            Round.addBytecodesUsedPacked(builder, offsets[6]);
+        }
+    }
+
+    /**
+     * The index of each body in the match, by ID.
+     */
+    private final TIntIntHashMap indices = new TIntIntHashMap();
+
+    /**
+     * The ID and location of each body in the match, by index.
+     */
+    private final TIntArrayList ids = new TIntArrayList();
+    private final TIntArrayList xs = new TIntArrayList();
+    private final TIntArrayList ys = new TIntArrayList();
+
+    /**
+     * Forget the bodies of the last match.
+     */
+    public void startMatch() {
+        indices.clear();
+        ids.clear();
+        xs.clear();
+        ys.clear();
+    }
+
+    /**
+     * Start a match on a map from a MatchHeader.
+     */
+    public void startMatch(GameMap map) {
+        startMatch();
+        addBodies(map.bodies());
+    }
+
+    /**
+     * Count a new body; it gets the next index.
+     */
+    public void addBody(int id, int x, int y) {
+        if (indices.containsKey(id)) {
+            throw new IllegalArgumentException("Body " + id + " is already in the match");
+        }
+        indices.put(id, ids.size());
+        ids.add(id);
+        xs.add(x);
+        ys.add(y);
+    }
+
+    private void addBodies(SpawnedBodyTable bodies) {
+        if (bodies == null) {
+            return;
+        }
+        VecTable locs = bodies.locs();
+        for (int i = 0; i < bodies.robotIDsLength(); i++) {
+            addBody(bodies.robotIDs(i), locs.xs(i), locs.ys(i));
+        }
+    }
+
+    /**
+     * Pack a round. The bodies it spawned must have been added already.
+     *
+     * @throws IllegalArgumentException if the round has a body that isn't
+     *                                  in the match, or a move that isn't
+     *                                  to an adjacent square
+     */
+    public Packed pack(Plain plain) {
+        Packed packed = new Packed();
+        packed.movedIDs = packIDs(plain.movedIDs);
+        packed.movedDirections = new byte[plain.movedIDs.length];
+        for (int i = 0; i < plain.movedIDs.length; i++) {
+            int index = index(plain.movedIDs[i]);
+            int dx = plain.movedXs[i] - xs.get(index);
+            int dy = plain.movedYs[i] - ys.get(index);
+            packed.movedDirections[i] = (byte) direction(dx, dy);
+            xs.set(index, plain.movedXs[i]);
+            ys.set(index, plain.movedYs[i]);
+        }
+        packed.diedIDs = packIDs(plain.diedIDs);
+        packed.actionIDs = packIDs(plain.actionIDs);
+        TByteArrayList targets = new TByteArrayList(plain.actionTargets.length * 2);
+        for (int target : plain.actionTargets) {
+            writeVarint(targets, zigzag(target));
+        }
+        packed.actionTargets = targets.toArray();
+        packed.bytecodeIDs = packIDs(plain.bytecodeIDs);
+        TByteArrayList used = new TByteArrayList(plain.bytecodesUsed.length * 2);
+        for (int bytecodes : plain.bytecodesUsed) {
+            writeVarint(used, bytecodes);
+        }
+        packed.bytecodesUsed = used.toArray();
+        return packed;
+    }
+
+    /**
+     * Read the packed fields of a round, or if it isn't packed, the plain
+     * ones. Counts the bodies the round spawned. A plain round leaves the
+     * locations to pack, so it can be packed next.
+     */
+    public Plain unpack(Round round) {
+        addBodies(round.spawnedBodies());
+        Plain plain = new Plain();
+        // Packed rounds leave the plain fields empty
+        if (round.movedIDsLength() > 0 || round.diedIDsLength() > 0
+                || round.actionIDsLength() > 0 || round.bytecodeIDsLength() > 0) {
+            readPlain(round, plain);
+            return plain;
+        }
+
+        plain.movedIDs = unpackIDs(round.movedIDsPackedAsByteBuffer());
+        plain.movedXs = new int[plain.movedIDs.length];
+        plain.movedYs = new int[plain.movedIDs.length];
+        ByteBuffer directions = round.movedDirectionsAsByteBuffer();
+        for (int i = 0; i < plain.movedIDs.length; i++) {
+            int index = indices.get(plain.movedIDs[i]);
+            Direction direction = DIRECTIONS[directions.get()];
+            xs.set(index, xs.get(index) + direction.dx);
+            ys.set(index, ys.get(index) + direction.dy);
+            plain.movedXs[i] = xs.get(index);
+            plain.movedYs[i] = ys.get(index);
+        }
+        plain.diedIDs = unpackIDs(round.diedIDsPackedAsByteBuffer());
+        plain.actionIDs = unpackIDs(round.actionIDsPackedAsByteBuffer());
+        plain.actionTargets = readVarints(round.actionTargetsPackedAsByteBuffer(), plain.actionIDs.length);
+        for (int i = 0; i < plain.actionTargets.length; i++) {
+            plain.actionTargets[i] = unzigzag(plain.actionTargets[i]);
+        }
+        plain.bytecodeIDs = unpackIDs(round.bytecodeIDsPackedAsByteBuffer());
+        plain.bytecodesUsed = readVarints(round.bytecodesUsedPackedAsByteBuffer(), plain.bytecodeIDs.length);
+        return plain;
+    }
+
+    private void readPlain(Round round, Plain plain) {
+        plain.movedIDs = new int[round.movedIDsLength()];
+        plain.movedXs = new int[plain.movedIDs.length];
+        plain.movedYs = new int[plain.movedIDs.length];
+        VecTable movedLocs = round.movedLocs();
+        for (int i = 0; i < plain.movedIDs.length; i++) {
+            plain.movedIDs[i] = round.movedIDs(i);
+            plain.movedXs[i] = movedLocs.xs(i);
+            plain.movedYs[i] = movedLocs.ys(i);
+        }
+        plain.diedIDs = new int[round.diedIDsLength()];
+        for (int i = 0; i < plain.diedIDs.length; i++) {
+            plain.diedIDs[i] = round.diedIDs(i);
+        }
+        plain.actionIDs = new int[round.actionIDsLength()];
+        plain.actionTargets = new int[plain.actionIDs.length];
+        for (int i = 0; i < plain.actionIDs.length; i++) {
+            plain.actionIDs[i] = round.actionIDs(i);
+            plain.actionTargets[i] = round.actionTargets(i);
+        }
+        plain.bytecodeIDs = new int[round.bytecodeIDsLength()];
+        plain.bytecodesUsed = new int[plain.bytecodeIDs.length];
+        for (int i = 0; i < plain.bytecodeIDs.length; i++) {
+            plain.bytecodeIDs[i] = round.bytecodeIDs(i);
+            plain.bytecodesUsed[i] = round.bytecodesUsed(i);
+        }
+    }
+
+    private int index(int id) {
+        if (!indices.containsKey(id)) {
+            throw new IllegalArgumentException("Body " + id + " isn't in the match");
+        }
+        return indices.get(id);
+    }
+
+    private static int direction(int dx, int dy) {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i].dx == dx && DIRECTIONS[i].dy == dy) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Can't pack a move by (" + dx + ", " + dy + ")");
+    }
+
+    private byte[] packIDs(int[] ids) {
+        TByteArrayList packed = new TByteArrayList(ids.length * 2);
+        int last = 0;
+        for (int id : ids) {
+            int index = index(id);
+            writeVarint(packed, zigzag(index - last));
+            last = index;
+        }
+        return packed.toArray();
+    }
+
+    private int[] unpackIDs(ByteBuffer packed) {
+        if (packed == null) {
+            return new int[0];
+        }
+        TIntArrayList unpacked = new TIntArrayList();
+        int index = 0;
+        while (packed.hasRemaining()) {
+            index += unzigzag(readVarint(packed));
+            unpacked.add(ids.get(index));
+        }
+        return unpacked.toArray();
+    }
+
+    private static int[] readVarints(ByteBuffer packed, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readVarint(packed);
+        }
+        return values;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarint(TByteArrayList out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
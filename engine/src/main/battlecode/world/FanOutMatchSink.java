@@ -0,0 +1,157 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.instrumenter.profiler.ProfilerCollection;
+import org.apache.commons.io.output.TeeOutputStream;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A MatchSink that passes everything on to several sinks, in order.
+ * Keyframes only go to the sinks that asked for them.
+ */
+public class FanOutMatchSink implements MatchSink {
+
+    private final MatchSink[] sinks;
+
+    /**
+     * Which sinks asked for a keyframe after the last round.
+     */
+    private final boolean[] wantsKeyframe;
+
+    private final OutputStream out;
+
+    public FanOutMatchSink(MatchSink... sinks) {
+        this.sinks = sinks.clone();
+        this.wantsKeyframe = new boolean[sinks.length];
+        OutputStream out = sinks.length > 0 ? sinks[0].getOut() : NullMatchSink.INSTANCE.getOut();
+        for (int i = 1; i < sinks.length; i++) {
+            out = new TeeOutputStream(out, sinks[i].getOut());
+        }
+        this.out = out;
+    }
+
+    @Override
+    public void makeMatchHeader(LiveMap gameMap) {
+        for (MatchSink sink : sinks) {
+            sink.makeMatchHeader(gameMap);
+        }
+    }
+
+    @Override
+    public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
+        for (MatchSink sink : sinks) {
+            sink.makeMatchFooter(winTeam, totalRounds, profilerCollections);
+        }
+    }
+
+    @Override
+    public void makeRound(int roundNum) {
+        for (MatchSink sink : sinks) {
+            sink.makeRound(roundNum);
+        }
+    }
+
+    @Override
+    public boolean isKeyframeRound(int roundNum) {
+        boolean any = false;
+        for (int i = 0; i < sinks.length; i++) {
+            wantsKeyframe[i] = sinks[i].isKeyframeRound(roundNum);
+            any |= wantsKeyframe[i];
+        }
+        return any;
+    }
+
+    @Override
+    public void makeKeyframe(int roundNum) {
+        for (int i = 0; i < sinks.length; i++) {
+            if (wantsKeyframe[i]) {
+                sinks[i].makeKeyframe(roundNum);
+            }
+        }
+    }
+
+    @Override
+    public void addKeyframeRobot(InternalRobot robot) {
+        for (int i = 0; i < sinks.length; i++) {
+            if (wantsKeyframe[i]) {
+                sinks[i].addKeyframeRobot(robot);
+            }
+        }
+    }
+
+    @Override
+    public void addKeyframeTeamInfo(Team team, int votes, int numBuffs) {
+        for (int i = 0; i < sinks.length; i++) {
+            if (wantsKeyframe[i]) {
+                sinks[i].addKeyframeTeamInfo(team, votes, numBuffs);
+            }
+        }
+    }
+
+    /**
+     * @return a stream that writes to every sink's stream
+     */
+    @Override
+    public OutputStream getOut() {
+        return out;
+    }
+
+    @Override
+    public void addMoved(int id, MapLocation newLocation) {
+        for (MatchSink sink : sinks) {
+            sink.addMoved(id, newLocation);
+        }
+    }
+
+    @Override
+    public void addDied(int id) {
+        for (MatchSink sink : sinks) {
+            sink.addDied(id);
+        }
+    }
+
+    @Override
+    public void addAction(int userID, byte action, int targetID) {
+        for (MatchSink sink : sinks) {
+            sink.addAction(userID, action, targetID);
+        }
+    }
+
+    @Override
+    public void addTeamInfo(Team team, int vote, int bidderID, int numBuffs) {
+        for (MatchSink sink : sinks) {
+            sink.addTeamInfo(team, vote, bidderID, numBuffs);
+        }
+    }
+
+    @Override
+    public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
+        for (MatchSink sink : sinks) {
+            sink.addIndicatorDot(id, loc, red, green, blue);
+        }
+    }
+
+    @Override
+    public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
+        for (MatchSink sink : sinks) {
+            sink.addIndicatorLine(id, startLoc, endLoc, red, green, blue);
+        }
+    }
+
+    @Override
+    public void addBytecodes(int id, int bytecodes) {
+        for (MatchSink sink : sinks) {
+            sink.addBytecodes(id, bytecodes);
+        }
+    }
+
+    @Override
+    public void addSpawnedRobot(InternalRobot robot) {
+        for (MatchSink sink : sinks) {
+            sink.addSpawnedRobot(robot);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package battlecode.world;
+
+import java.util.Random;
+
+/**
+ * A java.util.Random whose current state can be copied.
+ *
+ * It implements the generator documented for java.util.Random itself, so for
+ * the same seed it produces exactly the same sequence. Copies do not carry
+ * over a pending nextGaussian() value, which the engine never uses.
+ */
+final strictfp class ForkableRandom extends Random {
+
+    private static final long serialVersionUID = -3349406719525722474L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Set by setSeed, which Random's constructor calls; so this must not
+     * have an initializer.
+     */
+    private long state;
+
+    ForkableRandom(long seed) {
+        super(seed);
+    }
+
+    /**
+     * @return a generator that continues with the same sequence as this one
+     */
+    ForkableRandom copy() {
+        ForkableRandom copy = new ForkableRandom(0);
+        copy.state = this.state;
+        return copy;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (this.state >>> (48 - bits));
+    }
+}
@@ -16,6 +16,11 @@ public class GameStats {
         this.dominationFactor = null;
     }
 
+    public GameStats(GameStats base) {
+        this.winner = base.winner;
+        this.dominationFactor = base.dominationFactor;
+    }
+
     public void setWinner(Team t) {
         winner = t;
     }
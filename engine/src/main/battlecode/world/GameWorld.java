@@ -4,9 +4,9 @@ import battlecode.common.*;
 import battlecode.instrumenter.profiler.ProfilerCollection;
 import battlecode.schema.Action;
 import battlecode.server.ErrorReporter;
-import battlecode.server.GameMaker;
 import battlecode.server.GameState;
 import battlecode.world.control.RobotControlProvider;
+import gnu.trove.list.array.TIntArrayList;
 
 import java.util.*;
 
@@ -28,37 +28,79 @@ public strictfp class GameWorld {
     protected final IDGenerator idGenerator;
     protected final GameStats gameStats;
     
+    /**
+     * The side length, in cells, of the square regions used to version the map.
+     */
+    private static final int REGION_SIZE = 8;
+
+    private static final byte ENLIGHTENMENT_CENTER_ORDINAL = (byte) RobotType.ENLIGHTENMENT_CENTER.ordinal();
+
     private double[] passability;
     private InternalRobot[][] robots;
+
+    /**
+     * Version stamps used to tell whether anything sensable in an area of the
+     * map has changed. Whenever a robot enters, leaves or changes in a cell,
+     * the region containing that cell is stamped with the next world version.
+     */
+    private final int regionsWide;
+    private final int[] regionVersions;
+    private int worldVersion;
     private final LiveMap gameMap;
+    private final LocationTable locations;
     private final TeamInfo teamInfo;
     private final ObjectInfo objectInfo;
 
     private Map<Team, ProfilerCollection> profilerCollections;
 
     private final RobotControlProvider controlProvider;
-    private Random rand;
-    private final GameMaker.MatchMaker matchMaker;
+    private ForkableRandom rand;
+    private final MatchSink matchSink;
 
     private int[] buffsToAdd;
 
+    /**
+     * The sum of the state hashes of all robots in the world, kept up to
+     * date as robots change. See getStateHash().
+     */
+    private long robotsStateHash;
+
+    /**
+     * Where to record state hashes each round, or null.
+     */
+    private StateHashLog stateHashLog;
+
+    /**
+     * Where to publish the state of the world each round, or null.
+     */
+    private ObservationExport observationExport;
+
+    /**
+     * Reused by processEndOfRound to list robot state slots.
+     */
+    private final TIntArrayList robotSlots = new TIntArrayList();
+
     @SuppressWarnings("unchecked")
-    public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker) {
+    public GameWorld(LiveMap gm, RobotControlProvider cp, MatchSink matchSink) {
         this.passability = gm.getPassabilityArray();
         this.robots = new InternalRobot[gm.getWidth()][gm.getHeight()]; // if represented in cartesian, should be height-width, but this should allow us to index x-y
+        this.regionsWide = (gm.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+        this.regionVersions = new int[this.regionsWide * ((gm.getHeight() + REGION_SIZE - 1) / REGION_SIZE)];
+        this.worldVersion = 0;
         this.currentRound = 0;
         this.idGenerator = new IDGenerator(gm.getSeed());
         this.gameStats = new GameStats();
 
         this.gameMap = gm;
+        this.locations = new LocationTable(gm);
         this.objectInfo = new ObjectInfo(gm);
         this.teamInfo = new TeamInfo(this);
 
         this.profilerCollections = new HashMap<>();
 
         this.controlProvider = cp;
-        this.rand = new Random(this.gameMap.getSeed());
-        this.matchMaker = matchMaker;
+        this.rand = new ForkableRandom(this.gameMap.getSeed());
+        this.matchSink = matchSink;
 
         this.buffsToAdd = new int[2];
 
@@ -68,13 +110,79 @@ public strictfp class GameWorld {
         RobotInfo[] initialBodies = this.gameMap.getInitialBodies();
         for (int i = 0; i < initialBodies.length; i++) {
             RobotInfo robot = initialBodies[i];
-            MapLocation newLocation = robot.location.translate(gm.getOrigin().x, gm.getOrigin().y);
+            MapLocation newLocation = this.locations.translate(robot.location, gm.getOrigin().x, gm.getOrigin().y);
             int newID = spawnRobot(null, robot.type, newLocation, robot.team, robot.influence);
             initialBodies[i] = new RobotInfo(newID, robot.team, robot.type, robot.influence, robot.conviction, newLocation); // update with non-deterministic ID and offset location
         }
 
         // Write match header at beginning of match
-        this.matchMaker.makeMatchHeader(this.gameMap);
+        this.matchSink.makeMatchHeader(this.gameMap);
+    }
+
+    /**
+     * Creates a copy of another world, for fork().
+     */
+    private GameWorld(GameWorld base, RobotControlProvider cp, MatchSink matchSink) {
+        this.passability = base.passability;
+        this.robots = new InternalRobot[base.robots.length][base.gameMap.getHeight()];
+        this.regionsWide = base.regionsWide;
+        this.regionVersions = base.regionVersions.clone();
+        this.worldVersion = base.worldVersion;
+        this.currentRound = base.currentRound;
+        this.running = base.running;
+        this.idGenerator = new IDGenerator(base.idGenerator);
+        this.gameStats = new GameStats(base.gameStats);
+
+        this.gameMap = base.gameMap;
+        this.locations = base.locations;
+        this.objectInfo = new ObjectInfo(base.objectInfo);
+        this.teamInfo = new TeamInfo(this, base.teamInfo);
+
+        this.profilerCollections = new HashMap<>();
+
+        this.controlProvider = cp;
+        this.rand = base.rand.copy();
+        this.matchSink = matchSink;
+
+        this.buffsToAdd = base.buffsToAdd.clone();
+        this.robotsStateHash = base.robotsStateHash;
+
+        controlProvider.matchStarted(this);
+
+        // Copy the robots in spawn order, so that living parents are copied
+        // before their children. Dead parents are shared; nothing changes them.
+        base.objectInfo.eachDynamicBodyByExecOrder(baseRobot -> {
+            InternalRobot parent = baseRobot.getParent();
+            if (parent != null && base.objectInfo.getRobotByID(parent.getID()) == parent)
+                parent = this.objectInfo.getRobotByID(parent.getID());
+            InternalRobot robot = new InternalRobot(this, baseRobot, parent);
+            this.objectInfo.putForkedRobot(robot);
+            MapLocation loc = robot.getLocation();
+            this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y] = robot;
+            controlProvider.robotSpawned(robot);
+            return true;
+        });
+    }
+
+    /**
+     * Creates an independent copy of this world as it is now. Running either
+     * world afterwards does not affect the other, and as long as both are
+     * given the same robot behavior they proceed identically.
+     *
+     * A world that is forked but never run serves as a snapshot to branch
+     * from repeatedly. Robots' player code and sandboxes cannot be copied,
+     * so forks are meant for providers such as NullControlProvider or
+     * scripted ones; cp is told about the match and every robot as if they
+     * had just spawned. No match header is written to matchSink.
+     *
+     * Must be called between rounds.
+     *
+     * @param cp the control provider for the copy
+     * @param matchSink where the copy records what happens in it
+     * @return the copy
+     */
+    public GameWorld fork(RobotControlProvider cp, MatchSink matchSink) {
+        return new GameWorld(this, cp, matchSink);
     }
 
     /**
@@ -91,7 +199,7 @@ public strictfp class GameWorld {
             }
 
             // Write match footer if game is done
-            matchMaker.makeMatchFooter(gameStats.getWinner(), currentRound, profilers);
+            matchSink.makeMatchFooter(gameStats.getWinner(), currentRound, profilers);
             return GameState.DONE;
         }
 
@@ -104,6 +212,11 @@ public strictfp class GameWorld {
             this.controlProvider.roundEnded();
             this.processEndOfRound();
 
+            if (this.stateHashLog != null)
+                this.stateHashLog.endRound(currentRound, getStateHash());
+            if (this.observationExport != null)
+                this.observationExport.endRound(this);
+
             if (!this.isRunning()) {
                 this.controlProvider.matchEnded();
             }
@@ -114,11 +227,31 @@ public strictfp class GameWorld {
             return GameState.DONE;
         }
         // Write out round data
-        matchMaker.makeRound(currentRound);
+        matchSink.makeRound(currentRound);
+        if (matchSink.isKeyframeRound(currentRound))
+            makeKeyframe();
         return GameState.RUNNING;
     }
 
+    /**
+     * Writes a snapshot of every robot and team, so that a replay can be
+     * read from this round on.
+     */
+    private void makeKeyframe() {
+        objectInfo.eachRobot(robot -> {
+            matchSink.addKeyframeRobot(robot);
+            return true;
+        });
+        for (Team team : new Team[] {Team.A, Team.B})
+            matchSink.addKeyframeTeamInfo(team, teamInfo.getVotes(team), teamInfo.getNumBuffs(team, currentRound + 1));
+        matchSink.makeKeyframe(currentRound);
+    }
+
     private void updateDynamicBodies(){
+        // Turns run strictly one after another. A turn resumes the robot's
+        // player thread where it last yielded and mutates that robot's
+        // private heap, neither of which can be rolled back, so turns cannot
+        // be run speculatively and re-executed. See SandboxedRobotPlayer.
         objectInfo.eachDynamicBodyByExecOrder((body) -> {
             if (body instanceof InternalRobot) {
                 return updateRobot((InternalRobot) body);
@@ -167,8 +300,8 @@ public strictfp class GameWorld {
         return this.objectInfo;
     }
 
-    public GameMaker.MatchMaker getMatchMaker() {
-        return this.matchMaker;
+    public MatchSink getMatchSink() {
+        return this.matchSink;
     }
 
     public Team getWinner() {
@@ -202,8 +335,99 @@ public strictfp class GameWorld {
      * @param idx the index
      */
     public MapLocation indexToLocation(int idx) {
-        return new MapLocation(idx % this.gameMap.getWidth() + this.gameMap.getOrigin().x,
-                               idx / this.gameMap.getWidth() + this.gameMap.getOrigin().y);
+        return this.locations.get(idx);
+    }
+
+    /**
+     * Returns the location with the given coordinates. Prefer this to
+     * allocating a new MapLocation: on-map locations are shared instances.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public MapLocation getLocation(int x, int y) {
+        return this.locations.get(x, y);
+    }
+
+    /**
+     * Equivalent to loc.add(dir), but returns a shared instance when the
+     * result is on the map.
+     *
+     * @param loc the starting location
+     * @param dir the direction to move in
+     */
+    public MapLocation adjacentLocation(MapLocation loc, Direction dir) {
+        return this.locations.add(loc, dir);
+    }
+
+    // ***********************************
+    // ****** STATE HASHING **************
+    // ***********************************
+
+    /**
+     * Returns a hash of the state of the world: every robot's location,
+     * team, type, influence, conviction, cooldown and flag, and each
+     * team's votes and buffs. Two runs of a match that have the same hash
+     * after a round are, barring collisions, in the same state.
+     *
+     * The robot part is maintained incrementally, so this is cheap.
+     */
+    public long getStateHash() {
+        return withTeamsStateHash(this.robotsStateHash);
+    }
+
+    /**
+     * Recomputes the state hash from scratch, to check the incremental one.
+     */
+    long computeStateHash() {
+        long[] robots = {0};
+        this.objectInfo.eachRobot(robot -> {
+            robots[0] += robot.computeStateHash();
+            return true;
+        });
+        return withTeamsStateHash(robots[0]);
+    }
+
+    private long withTeamsStateHash(long robotsHash) {
+        long h = robotsHash;
+        for (int i = 0; i < 2; i++) {
+            Team t = Team.values()[i];
+            h = StateHashLog.mix(h ^ this.teamInfo.getVotes(t));
+            h = StateHashLog.mix(h ^ this.teamInfo.getNumBuffs(t, this.currentRound));
+        }
+        return h;
+    }
+
+    /**
+     * Called by robots whenever their state hash changes.
+     */
+    void changeStateHash(int id, long oldHash, long newHash) {
+        this.robotsStateHash += newHash - oldHash;
+        if (this.stateHashLog != null)
+            this.stateHashLog.robotChanged(id, newHash);
+    }
+
+    /**
+     * Starts recording the state hash of this world, and of each robot that
+     * changed, at the end of every round.
+     *
+     * @param log where to record hashes
+     */
+    public void setStateHashLog(StateHashLog log) {
+        this.stateHashLog = log;
+        this.objectInfo.eachRobot(robot -> {
+            log.robotChanged(robot.getID(), robot.getStateHash());
+            return true;
+        });
+    }
+
+    /**
+     * Starts publishing the state of this world at the end of every round.
+     *
+     * @param export where to publish it
+     */
+    public void setObservationExport(ObservationExport export) {
+        this.observationExport = export;
     }
 
     // ***********************************
@@ -221,10 +445,58 @@ public strictfp class GameWorld {
 
     public void addRobot(MapLocation loc, InternalRobot robot) {
         this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y] = robot;
+        markLocationChanged(loc);
     }
 
     public void removeRobot(MapLocation loc) {
         this.robots[loc.x - this.gameMap.getOrigin().x][loc.y - this.gameMap.getOrigin().y] = null;
+        markLocationChanged(loc);
+    }
+
+    /**
+     * Records that something sensable at the given location has changed,
+     * invalidating any sensing results computed over it.
+     *
+     * @param loc the location that changed
+     */
+    public void markLocationChanged(MapLocation loc) {
+        int regionX = (loc.x - this.gameMap.getOrigin().x) / REGION_SIZE;
+        int regionY = (loc.y - this.gameMap.getOrigin().y) / REGION_SIZE;
+        this.regionVersions[regionX + regionY * this.regionsWide] = ++this.worldVersion;
+    }
+
+    /**
+     * @return the version of the world, which increases whenever any location changes
+     */
+    public int getWorldVersion() {
+        return this.worldVersion;
+    }
+
+    /**
+     * Returns whether no location within the given radius of the center has
+     * changed since the world was at the given version.
+     *
+     * @param center the center of the area
+     * @param radiusSquared the radius squared of the area
+     * @param version the world version to compare against
+     */
+    public boolean isAreaUnchangedSince(MapLocation center, int radiusSquared, int version) {
+        int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1; // same bounds as getAllLocationsWithinRadiusSquared
+        int minX = Math.max(center.x - ceiledRadius, this.gameMap.getOrigin().x);
+        int minY = Math.max(center.y - ceiledRadius, this.gameMap.getOrigin().y);
+        int maxX = Math.min(center.x + ceiledRadius, this.gameMap.getOrigin().x + this.gameMap.getWidth() - 1);
+        int maxY = Math.min(center.y + ceiledRadius, this.gameMap.getOrigin().y + this.gameMap.getHeight() - 1);
+        if (minX > maxX || minY > maxY)
+            return true;
+        int minRegionX = (minX - this.gameMap.getOrigin().x) / REGION_SIZE;
+        int minRegionY = (minY - this.gameMap.getOrigin().y) / REGION_SIZE;
+        int maxRegionX = (maxX - this.gameMap.getOrigin().x) / REGION_SIZE;
+        int maxRegionY = (maxY - this.gameMap.getOrigin().y) / REGION_SIZE;
+        for (int regionY = minRegionY; regionY <= maxRegionY; regionY++)
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++)
+                if (this.regionVersions[regionX + regionY * this.regionsWide] > version)
+                    return false;
+        return true;
     }
 
     public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared) {
@@ -244,7 +516,7 @@ public strictfp class GameWorld {
         int maxY = Math.min(center.y + ceiledRadius, this.gameMap.getOrigin().y + this.gameMap.getHeight() - 1);
         for (int x = minX; x <= maxX; x++) {
             for (int y = minY; y <= maxY; y++) {
-                MapLocation newLocation = new MapLocation(x, y);
+                MapLocation newLocation = this.locations.get(x, y);
                 if (center.isWithinDistanceSquared(newLocation, radiusSquared))
                     returnLocations.add(newLocation);
             }
@@ -264,12 +536,6 @@ public strictfp class GameWorld {
         // Increment round counter
         currentRound++;
         this.teamInfo.updateNumBuffs(currentRound);
-
-        // Process beginning of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            robot.processBeginningOfRound();
-            return true;
-        });
     }
 
     public void setWinner(Team t, DominationFactor d)  {
@@ -319,16 +585,12 @@ public strictfp class GameWorld {
      * @return whether or not a winner was set
      */
     public boolean setWinnerIfMoreEnlightenmentCenters() {
-        int[] numEnlightenmentCenters = new int[2];
-        for (InternalRobot robot : objectInfo.robotsArray()) {
-            if (robot.getType() != RobotType.ENLIGHTENMENT_CENTER) continue;
-            if (robot.getTeam() == Team.NEUTRAL) continue;
-            numEnlightenmentCenters[robot.getTeam().ordinal()]++;
-        }
-        if (numEnlightenmentCenters[0] > numEnlightenmentCenters[1]) {
+        int numEnlightenmentCentersA = objectInfo.getEnlightenmentCenterCount(Team.A);
+        int numEnlightenmentCentersB = objectInfo.getEnlightenmentCenterCount(Team.B);
+        if (numEnlightenmentCentersA > numEnlightenmentCentersB) {
             setWinner(Team.A, DominationFactor.MORE_ENLIGHTENMENT_CENTERS);
             return true;
-        } else if (numEnlightenmentCenters[1] > numEnlightenmentCenters[0]) {
+        } else if (numEnlightenmentCentersB > numEnlightenmentCentersA) {
             setWinner(Team.B, DominationFactor.MORE_ENLIGHTENMENT_CENTERS);
             return true;
         }
@@ -341,15 +603,12 @@ public strictfp class GameWorld {
      * @return whether or not a winner was set
      */
     public boolean setWinnerIfMoreInfluence() {
-        int[] totalInfluences = new int[2];
-        for (InternalRobot robot : objectInfo.robotsArray()) {
-            if (robot.getTeam() == Team.NEUTRAL) continue;
-            totalInfluences[robot.getTeam().ordinal()] += robot.getInfluence();
-        }
-        if (totalInfluences[0] > totalInfluences[1]) {
+        int totalInfluenceA = objectInfo.getTotalInfluence(Team.A);
+        int totalInfluenceB = objectInfo.getTotalInfluence(Team.B);
+        if (totalInfluenceA > totalInfluenceB) {
             setWinner(Team.A, DominationFactor.MORE_INFLUENCE);
             return true;
-        } else if (totalInfluences[1] > totalInfluences[0]) {
+        } else if (totalInfluenceB > totalInfluenceA) {
             setWinner(Team.B, DominationFactor.MORE_INFLUENCE);
             return true;
         }
@@ -371,21 +630,53 @@ public strictfp class GameWorld {
         int[] highestBids = new int[2];
         InternalRobot[] highestBidders = new InternalRobot[2];
 
-        // Process end of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            if (robot.getTeam().isPlayer() && robot.getType().canBid()) {
-                int bid = robot.getBid();
-                int teamIdx = robot.getTeam().ordinal();
-                if (bid > highestBids[teamIdx] || highestBidders[teamIdx] == null ||
-                    (bid == highestBids[teamIdx] && robot.compareTo(highestBidders[teamIdx]) < 0)) {
+        // Process end of each robot's round. This walks the state store
+        // directly, but in eachRobot() order, since the order of the
+        // actions recorded here is part of the replay.
+        RobotStateStore states = objectInfo.getRobotStates();
+        objectInfo.robotSlots(robotSlots);
+        int round = this.currentRound;
+        for (int i = 0; i < robotSlots.size(); i++) {
+            int slot = robotSlots.getQuick(i);
+            InternalRobot robot = states.robots[slot];
+            int teamIdx = states.teams[slot];
+            RobotType type = RobotStateStore.TYPES[states.types[slot]];
+            boolean isPlayer = RobotStateStore.TEAMS[teamIdx].isPlayer();
+
+            if (isPlayer && type.canBid()) {
+                int bid = states.bids[slot];
+                InternalRobot best = highestBidders[teamIdx];
+                if (bid > highestBids[teamIdx] || best == null ||
+                    (bid == highestBids[teamIdx] && robot.compareTo(best) < 0)) {
                     highestBids[teamIdx] = bid;
                     highestBidders[teamIdx] = robot;
                 }
                 robot.resetBid();
             }
-            robot.processEndOfRound();
-            return true;
-        });
+
+            // Generate passive influence
+            int targetSlot = states.parentSlots[slot];
+            if (targetSlot == RobotStateStore.NO_PARENT) {
+                targetSlot = slot;
+            } else if (!states.isParentAlive(slot)) {
+                targetSlot = -1;
+            }
+            if (targetSlot >= 0 && states.types[targetSlot] != ENLIGHTENMENT_CENTER_ORDINAL) {
+                throw new IllegalStateException("The robot's parent is not an Enlightenment Center");
+            }
+            int passiveInfluence = type.getPassiveInfluence(states.influences[slot], states.roundsAlive[slot], round);
+            if (passiveInfluence > 0 && isPlayer && targetSlot >= 0) {
+                states.robots[targetSlot].addInfluenceAndConviction(passiveInfluence);
+                if (type == RobotType.SLANDERER) {
+                    matchSink.addAction(states.ids[slot], Action.EMBEZZLE, states.ids[targetSlot]);
+                }
+            }
+
+            // Slanderers turn into Politicians
+            if (type == RobotType.SLANDERER && states.roundsAlive[slot] == GameConstants.CAMOUFLAGE_NUM_ROUNDS) {
+                robot.camouflage();
+            }
+        }
 
         // Process bidding
         int[] teamVotes = new int[2];
@@ -422,7 +713,7 @@ public strictfp class GameWorld {
 
         // Send team info (votes, bidder IDs, and num buffs) to matchmaker
         for (int i = 0; i < 2; i++)
-            this.matchMaker.addTeamInfo(Team.values()[i], teamVotes[i], teamBidderIDs[i], this.teamInfo.getNumBuffs(Team.values()[i], nextRound));
+            this.matchSink.addTeamInfo(Team.values()[i], teamVotes[i], teamBidderIDs[i], this.teamInfo.getNumBuffs(Team.values()[i], nextRound));
 
         // Check for end of match
         setWinnerIfAnnihilated();
@@ -444,9 +735,10 @@ public strictfp class GameWorld {
         InternalRobot robot = new InternalRobot(this, parent, ID, type, location, team, influence);
         objectInfo.spawnRobot(robot);
         addRobot(location, robot);
+        robot.addToStateHash();
 
         controlProvider.robotSpawned(robot);
-        matchMaker.addSpawnedRobot(robot);
+        matchSink.addSpawnedRobot(robot);
         return ID;
     }
 
@@ -467,8 +759,10 @@ public strictfp class GameWorld {
 
         controlProvider.robotKilled(robot);
         objectInfo.destroyRobot(id);
+        robot.removeFromStateHash();
+        robot.detachState();
 
-        matchMaker.addDied(id);
+        matchSink.addDied(id);
     }
 
     // *********************************
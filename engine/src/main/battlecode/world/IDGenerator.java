@@ -1,7 +1,5 @@
 package battlecode.world;
 
-import java.util.Random;
-
 /**
  * Class that generates a sequence of unique pseudorandom
  * positive integer IDs for robots.
@@ -28,7 +26,7 @@ public class IDGenerator {
     /**
      * The random generator used to shuffle blocks.
      */
-    private final Random random;
+    private final ForkableRandom random;
 
     /**
      * Where we are in the current block.
@@ -46,12 +44,24 @@ public class IDGenerator {
      * @param seed the random seed to use.
      */
     public IDGenerator(int seed) {
-        this.random = new Random(seed);
+        this.random = new ForkableRandom(seed);
         this.reservedIDs = new int[ID_BLOCK_SIZE];
 
         setStart(MIN_ID);
     }
 
+    /**
+     * Creates a generator that will hand out the same IDs as another one.
+     *
+     * @param base the generator to copy
+     */
+    public IDGenerator(IDGenerator base) {
+        this.random = base.random.copy();
+        this.reservedIDs = base.reservedIDs.clone();
+        this.cursor = base.cursor;
+        this.nextIDBlock = base.nextIDBlock;
+    }
+
     /**
      * @return a new ID
      */
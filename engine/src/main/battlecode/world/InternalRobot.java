@@ -23,14 +23,17 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     private final InternalRobot parent;
 
     private final int ID;
-    private Team team;
-    private RobotType type;
     private MapLocation location;
-    private int influence;
-    private int conviction;
     private int convictionCap;
     private int flag;
-    private int bid;
+
+    /**
+     * Where the robot's team, type, influence, conviction, bid, rounds alive
+     * and cooldown live. This is the world's store while the robot is alive,
+     * and a private copy of its final state after it dies.
+     */
+    private RobotStateStore states;
+    private int slot;
 
     private ArrayList<RobotInfo> toCreate;
     private ArrayList<InternalRobot> toCreateParents;
@@ -39,14 +42,25 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     private int currentBytecodeLimit;
     private int bytecodesUsed;
 
-    private int roundsAlive;
-    private double cooldownTurns;
+    /**
+     * Incremented whenever anything visible through a RobotInfo changes.
+     */
+    private int version;
 
     /**
      * Used to avoid recreating the same RobotInfo object over and over.
+     * Each cached RobotInfo is valid as long as its version matches the robot's.
      */
     private RobotInfo cachedRobotInfoTrue; // true RobotType included
     private RobotInfo cachedRobotInfoFake; // slanderers appear as politicians, null for all other robot types
+    private int cachedRobotInfoTrueVersion;
+    private int cachedRobotInfoFakeVersion;
+
+    /**
+     * This robot's contribution to the world's state hash, or 0 if it has
+     * not been added to the world yet.
+     */
+    private long stateHash;
 
     /**
      * Create a new internal representation of a robot
@@ -61,14 +75,13 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     public InternalRobot(GameWorld gw, InternalRobot parent, int id, RobotType type, MapLocation loc, Team team, int influence) {
         this.parent = parent;
         this.ID = id;
-        this.team = team;
-        this.type = type;
         this.location = loc;
-        this.influence = influence;
-        this.conviction = (int) Math.ceil(this.type.convictionRatio * this.influence);
-        this.convictionCap = type == RobotType.ENLIGHTENMENT_CENTER ? GameConstants.ROBOT_INFLUENCE_LIMIT : this.conviction;
+        int conviction = (int) Math.ceil(type.convictionRatio * influence);
+        this.convictionCap = type == RobotType.ENLIGHTENMENT_CENTER ? GameConstants.ROBOT_INFLUENCE_LIMIT : conviction;
         this.flag = 0;
-        this.bid = 0;
+
+        this.states = gw.getObjectInfo().getRobotStates();
+        this.slot = this.states.allocate(this, parent, team, type, influence, conviction);
 
         this.toCreate = new ArrayList<>();
         this.toCreateParents = new ArrayList<>();
@@ -77,8 +90,44 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
         this.currentBytecodeLimit = type.bytecodeLimit;
         this.bytecodesUsed = 0;
 
-        this.roundsAlive = 0;
-        this.cooldownTurns = 0;
+        this.gameWorld = gw;
+        this.controller = new RobotControllerImpl(gameWorld, this);
+    }
+
+    /**
+     * Creates a copy of a robot for a forked world. The copy takes over the
+     * robot's slot in the forked world's state store.
+     *
+     * @param gw the forked world
+     * @param base the robot to copy
+     * @param parent the copy of the robot's parent if it is alive, otherwise
+     *               the same parent as the original
+     */
+    InternalRobot(GameWorld gw, InternalRobot base, InternalRobot parent) {
+        this.parent = parent;
+        this.ID = base.ID;
+        this.location = base.location;
+        this.convictionCap = base.convictionCap;
+        this.flag = base.flag;
+
+        this.states = gw.getObjectInfo().getRobotStates();
+        this.slot = base.slot;
+        this.states.robots[this.slot] = this;
+
+        // Only used within a single turn, so empty between rounds
+        this.toCreate = new ArrayList<>();
+        this.toCreateParents = new ArrayList<>();
+
+        this.controlBits = base.controlBits;
+        this.currentBytecodeLimit = base.currentBytecodeLimit;
+        this.bytecodesUsed = base.bytecodesUsed;
+
+        this.version = base.version;
+        this.cachedRobotInfoTrue = base.cachedRobotInfoTrue;
+        this.cachedRobotInfoFake = base.cachedRobotInfoFake;
+        this.cachedRobotInfoTrueVersion = base.cachedRobotInfoTrueVersion;
+        this.cachedRobotInfoFakeVersion = base.cachedRobotInfoFakeVersion;
+        this.stateHash = base.stateHash;
 
         this.gameWorld = gw;
         this.controller = new RobotControllerImpl(gameWorld, this);
@@ -105,11 +154,11 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     }
 
     public Team getTeam() {
-        return team;
+        return RobotStateStore.TEAMS[states.teams[slot]];
     }
 
     public RobotType getType() {
-        return type;
+        return RobotStateStore.TYPES[states.types[slot]];
     }
 
     public MapLocation getLocation() {
@@ -117,11 +166,11 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     }
 
     public int getInfluence() {
-        return influence;
+        return states.influences[slot];
     }
 
     public int getConviction() {
-        return conviction;
+        return states.convictions[slot];
     }
 
     public int getFlag() {
@@ -129,7 +178,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     }
 
     public int getBid() {
-        return bid;
+        return states.bids[slot];
     }
 
     public long getControlBits() {
@@ -141,38 +190,43 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     }
 
     public int getRoundsAlive() {
-        return roundsAlive;
+        return states.roundsAlive[slot];
     }
 
     public double getCooldownTurns() {
-        return cooldownTurns;
+        return states.cooldownTurns[slot];
     }
 
-    public RobotInfo getRobotInfo(boolean trueSense) {
-        RobotInfo cachedRobotInfo = this.cachedRobotInfoTrue;
-        RobotType infoType = type;
-        if (!trueSense && type == RobotType.SLANDERER) {
-            cachedRobotInfo = this.cachedRobotInfoFake;
-            infoType = RobotType.POLITICIAN;
-        }
+    public RobotStateStore getStateStore() {
+        return states;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    public int getVersion() {
+        return version;
+    }
 
-        if (cachedRobotInfo != null
-                && cachedRobotInfo.ID == ID
-                && cachedRobotInfo.team == team
-                && cachedRobotInfo.type == infoType
-                && cachedRobotInfo.influence == influence
-                && cachedRobotInfo.conviction == conviction
-                && cachedRobotInfo.location.equals(location)) {
-            return cachedRobotInfo;
+    public RobotInfo getRobotInfo(boolean trueSense) {
+        if (!trueSense && getType() == RobotType.SLANDERER) {
+            if (this.cachedRobotInfoFake == null || this.cachedRobotInfoFakeVersion != version) {
+                this.cachedRobotInfoFake = new RobotInfo(ID, getTeam(), RobotType.POLITICIAN, getInfluence(), getConviction(), location);
+                this.cachedRobotInfoFakeVersion = version;
+            }
+            return this.cachedRobotInfoFake;
         }
 
-        RobotInfo newRobotInfo = new RobotInfo(ID, team, infoType, influence, conviction, location);
-        if (!trueSense && type == RobotType.SLANDERER) {
-            this.cachedRobotInfoFake = newRobotInfo;
-        } else {
-            this.cachedRobotInfoTrue = newRobotInfo;
+        if (this.cachedRobotInfoTrue == null || this.cachedRobotInfoTrueVersion != version) {
+            this.cachedRobotInfoTrue = new RobotInfo(ID, getTeam(), getType(), getInfluence(), getConviction(), location);
+            this.cachedRobotInfoTrueVersion = version;
         }
-        return newRobotInfo;
+        return this.cachedRobotInfoTrue;
     }
 
     // **********************************
@@ -183,21 +237,21 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * Returns the robot's action radius squared.
      */
     public int getActionRadiusSquared() {
-        return this.type.actionRadiusSquared;
+        return getType().actionRadiusSquared;
     }
 
     /**
      * Returns the robot's sensor radius squared.
      */
     public int getSensorRadiusSquared() {
-        return this.type.sensorRadiusSquared;
+        return getType().sensorRadiusSquared;
     }
 
     /**
      * Returns the robot's detection radius squared.
      */
     public int getDetectionRadiusSquared() {
-        return this.type.detectionRadiusSquared;
+        return getType().detectionRadiusSquared;
     }
 
     /**
@@ -266,6 +320,59 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     public void setLocation(MapLocation loc) {
         this.gameWorld.getObjectInfo().moveRobot(this, loc);
         this.location = loc;
+        this.version++;
+        updateStateHash();
+    }
+
+    /**
+     * Records that something visible about this robot has changed, so that
+     * cached RobotInfos and sensing results covering it are recomputed.
+     */
+    private void markChanged() {
+        this.version++;
+        this.gameWorld.markLocationChanged(this.location);
+        updateStateHash();
+    }
+
+    /**
+     * Recomputes this robot's state hash from its location, team, type,
+     * influence, conviction, cooldown and flag, and passes the change on to
+     * the world. Must be called whenever any of those change; does nothing
+     * while the robot is not in the world.
+     */
+    void updateStateHash() {
+        if (this.stateHash != 0)
+            setStateHash(computeStateHash());
+    }
+
+    /**
+     * Adds this robot to the world's state hash, once it has been added to
+     * the world.
+     */
+    void addToStateHash() {
+        setStateHash(computeStateHash());
+    }
+
+    /**
+     * Removes this robot from the world's state hash, when it leaves the world.
+     */
+    void removeFromStateHash() {
+        setStateHash(0);
+    }
+
+    private void setStateHash(long newHash) {
+        this.gameWorld.changeStateHash(this.ID, this.stateHash, newHash);
+        this.stateHash = newHash;
+    }
+
+    long computeStateHash() {
+        long h = StateHashLog.mix(this.ID);
+        h = StateHashLog.mix(h ^ (this.states.teams[slot] << 8 | this.states.types[slot]));
+        h = StateHashLog.mix(h ^ ((long) this.location.x << 32 | (this.location.y & 0xFFFFFFFFL)));
+        h = StateHashLog.mix(h ^ ((long) this.states.influences[slot] << 32 | (this.states.convictions[slot] & 0xFFFFFFFFL)));
+        h = StateHashLog.mix(h ^ Double.doubleToLongBits(this.states.cooldownTurns[slot]));
+        h = StateHashLog.mix(h ^ this.flag);
+        return h == 0 ? 1 : h; // 0 means not in the world
     }
 
     /**
@@ -273,8 +380,8 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      */
     public void addCooldownTurns() {
         double passability = this.gameWorld.getPassability(this.location);
-        double newCooldownTurns = this.type.actionCooldown / passability;
-        setCooldownTurns(this.cooldownTurns + newCooldownTurns);
+        double newCooldownTurns = getType().actionCooldown / passability;
+        setCooldownTurns(getCooldownTurns() + newCooldownTurns);
     }
 
     /**
@@ -287,15 +394,21 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * @param influenceAmount the amount to change influence by (can be negative)
      */
     public void addInfluenceAndConviction(int influenceAmount) {
-        int oldInfluence = this.influence;
-        this.influence += influenceAmount;
-        if (this.influence > GameConstants.ROBOT_INFLUENCE_LIMIT) {
-            this.influence = GameConstants.ROBOT_INFLUENCE_LIMIT;
+        int oldInfluence = getInfluence();
+        int oldConviction = getConviction();
+        int influence = oldInfluence + influenceAmount;
+        if (influence > GameConstants.ROBOT_INFLUENCE_LIMIT) {
+            influence = GameConstants.ROBOT_INFLUENCE_LIMIT;
         }
-        this.conviction = this.influence;
-        if (this.influence != oldInfluence) {
-            this.gameWorld.getMatchMaker().addAction(getID(), Action.CHANGE_INFLUENCE, this.influence - oldInfluence);
-            this.gameWorld.getMatchMaker().addAction(getID(), Action.CHANGE_CONVICTION, this.influence - oldInfluence);
+        this.states.influences[slot] = influence;
+        this.states.convictions[slot] = influence;
+        this.gameWorld.getObjectInfo().addInfluence(getTeam(), influence - oldInfluence);
+        this.gameWorld.getObjectInfo().addConviction(getTeam(), influence - oldConviction);
+        if (influence != oldInfluence || influence != oldConviction)
+            markChanged();
+        if (influence != oldInfluence) {
+            this.gameWorld.getMatchSink().addAction(getID(), Action.CHANGE_INFLUENCE, influence - oldInfluence);
+            this.gameWorld.getMatchSink().addAction(getID(), Action.CHANGE_CONVICTION, influence - oldInfluence);
         }
     }
 
@@ -305,7 +418,8 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * @param newTurns the number of cooldown turns
      */
     public void setCooldownTurns(double newTurns) {
-        this.cooldownTurns = newTurns;
+        this.states.cooldownTurns[slot] = newTurns;
+        updateStateHash();
     }
 
     /**
@@ -316,12 +430,16 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * @param convictionAmount the amount to change conviction by (can be negative)
      */
     public void addConviction(int convictionAmount) {
-        int oldConviction = this.conviction;
-        this.conviction += convictionAmount;
-        if (this.conviction > this.convictionCap)
-            this.conviction = this.convictionCap;
-        if (this.conviction != oldConviction)
-            this.gameWorld.getMatchMaker().addAction(getID(), Action.CHANGE_CONVICTION, this.conviction - oldConviction);
+        int oldConviction = getConviction();
+        int conviction = oldConviction + convictionAmount;
+        if (conviction > this.convictionCap)
+            conviction = this.convictionCap;
+        this.states.convictions[slot] = conviction;
+        this.gameWorld.getObjectInfo().addConviction(getTeam(), conviction - oldConviction);
+        if (conviction != oldConviction) {
+            markChanged();
+            this.gameWorld.getMatchSink().addAction(getID(), Action.CHANGE_CONVICTION, conviction - oldConviction);
+        }
     }
 
     /**
@@ -331,6 +449,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      */
     public void setFlag(int newFlag) {
         this.flag = newFlag;
+        updateStateHash();
     }
 
     /**
@@ -341,18 +460,18 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      */
     public void setBid(int newBid) {
         resetBid();
-        this.bid = newBid;
-        addInfluenceAndConviction(-this.bid);
+        this.states.bids[slot] = newBid;
+        addInfluenceAndConviction(-newBid);
     }
 
     public void resetBid() {
-        addInfluenceAndConviction(this.bid);
-        this.bid = 0;
+        addInfluenceAndConviction(getBid());
+        this.states.bids[slot] = 0;
     }
 
     public void addToCreate(InternalRobot parent, int ID, RobotType type, int influence, int conviction, MapLocation location) {
         this.toCreateParents.add(parent);
-        this.toCreate.add(new RobotInfo(ID, this.team, type, influence, conviction, location));
+        this.toCreate.add(new RobotInfo(ID, getTeam(), type, influence, conviction, location));
     }
 
     /**
@@ -366,7 +485,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
         if (numBots == 0)
             return;
         
-        long convictionToGive = (long) (((long) this.conviction) * this.gameWorld.getTeamInfo().getBuff(this.team));
+        long convictionToGive = (long) (((long) getConviction()) * this.gameWorld.getTeamInfo().getBuff(getTeam()));
         convictionToGive -= GameConstants.EMPOWER_TAX;
         if (convictionToGive <= 0)
             return;
@@ -386,15 +505,15 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
             }
             // HACK[jerry]: this is the maximum amount the unit can be affected by
             conv = Math.min(conv, GameConstants.ROBOT_INFLUENCE_LIMIT * 2);
-            bot.empowered(this, (int) conv, this.team);
+            bot.empowered(this, (int) conv, getTeam());
         }
 
         // create new bots
         for (int i = 0; i < toCreate.size(); i++) {
             RobotInfo info = toCreate.get(i);
-            int id = this.gameWorld.spawnRobot(toCreateParents.get(i), info.getType(), info.getLocation(), this.team, info.getInfluence());
+            int id = this.gameWorld.spawnRobot(toCreateParents.get(i), info.getType(), info.getLocation(), getTeam(), info.getInfluence());
             InternalRobot newBot = this.gameWorld.getObjectInfo().getRobotByID(id);
-            if (newBot.type != RobotType.ENLIGHTENMENT_CENTER) {
+            if (newBot.getType() != RobotType.ENLIGHTENMENT_CENTER) {
                 // Shouldn't be called on an enlightenment center, because if spawned center's influence exceeds limit this would send a redundant change conviction action.
                 newBot.addConviction(info.getConviction() - newBot.getConviction());
             }
@@ -402,7 +521,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
                 // Resets influence and conviction to cap for enlightenment centers. Already done by reset bid, but nicer to do it here.
                 newBot.addInfluenceAndConviction(0);
             }
-            this.gameWorld.getMatchMaker().addAction(info.getID(), Action.CHANGE_TEAM, id);
+            this.gameWorld.getMatchSink().addAction(info.getID(), Action.CHANGE_TEAM, id);
         }
     }
 
@@ -416,19 +535,19 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * @param newTeam the team of the robot that empowered
      */
     public void empowered(InternalRobot caller, int amount, Team newTeam) {
-        if (this.team != newTeam)
+        if (getTeam() != newTeam)
             amount = -amount;
 
-        if (type == RobotType.ENLIGHTENMENT_CENTER)
+        if (getType() == RobotType.ENLIGHTENMENT_CENTER)
             addInfluenceAndConviction(amount);
         else
             addConviction(amount);
 
-        if (this.conviction < 0) {
-            if (this.type.canBeConverted()) {
-                int newInfluence = Math.abs(this.influence);
-                int newConviction = -this.conviction;
-                caller.addToCreate(this.parent, this.ID, this.type, newInfluence, newConviction, this.location);
+        if (getConviction() < 0) {
+            if (getType().canBeConverted()) {
+                int newInfluence = Math.abs(getInfluence());
+                int newConviction = -getConviction();
+                caller.addToCreate(this.parent, this.ID, getType(), newInfluence, newConviction, this.location);
             }
             this.gameWorld.destroyRobot(getID());
         }
@@ -440,7 +559,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
      * @param radiusSquared the empower range
      */
     public void expose(InternalRobot bot) {
-        this.gameWorld.addBuffs(this.team, bot.influence);
+        this.gameWorld.addBuffs(getTeam(), bot.getInfluence());
         this.gameWorld.destroyRobot(bot.ID);
     }
 
@@ -449,41 +568,37 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     // *********************************
 
     // should be called at the beginning of every round
-    public void processBeginningOfRound() {
-        // anything
-    }
-
     public void processBeginningOfTurn() {
-        if (this.cooldownTurns > 0)
-            this.cooldownTurns = Math.max(0, this.cooldownTurns - 1);
+        double cooldownTurns = getCooldownTurns();
+        if (cooldownTurns > 0)
+            setCooldownTurns(Math.max(0, cooldownTurns - 1));
         this.currentBytecodeLimit = getType().bytecodeLimit;
     }
 
     public void processEndOfTurn() {
         // bytecode stuff!
-        this.gameWorld.getMatchMaker().addBytecodes(this.ID, this.bytecodesUsed);
-        this.roundsAlive++;
+        this.gameWorld.getMatchSink().addBytecodes(this.ID, this.bytecodesUsed);
+        this.states.roundsAlive[slot]++;
     }
 
-    public void processEndOfRound() {
-        // generate passive influence
-        InternalRobot target = (parent == null) ? this : parent;
-        if (target.getType() != RobotType.ENLIGHTENMENT_CENTER) {
-            throw new IllegalStateException("The robot's parent is not an Enlightenment Center");
-        }
-        int passiveInfluence = this.type.getPassiveInfluence(this.influence, this.roundsAlive, this.gameWorld.getCurrentRound());
-        if (passiveInfluence > 0 && this.team.isPlayer() && this.gameWorld.getObjectInfo().existsRobot(target.ID)) {
-            target.addInfluenceAndConviction(passiveInfluence);
-            if (this.type == RobotType.SLANDERER) {
-                this.gameWorld.getMatchMaker().addAction(this.ID, Action.EMBEZZLE, target.ID);
-            }
-        }
+    /**
+     * Turns this Slanderer into a Politician. Passive influence and bidding
+     * are handled for all robots at once in GameWorld.processEndOfRound.
+     */
+    public void camouflage() {
+        this.gameWorld.getObjectInfo().changeRobotType(getTeam(), RobotType.SLANDERER, RobotType.POLITICIAN);
+        this.states.types[slot] = (byte) RobotType.POLITICIAN.ordinal();
+        markChanged();
+        this.gameWorld.getMatchSink().addAction(this.ID, Action.CAMOUFLAGE, -1);
+    }
 
-        // Slanderers turn into Politicians
-        if (this.type == RobotType.SLANDERER && this.roundsAlive == GameConstants.CAMOUFLAGE_NUM_ROUNDS) {
-            this.type = RobotType.POLITICIAN;
-            this.gameWorld.getMatchMaker().addAction(this.ID, Action.CAMOUFLAGE, -1);
-        }
+    /**
+     * Moves this robot's state out of the world's store, so that its slot can
+     * be reused. Called once the robot has been removed from the world.
+     */
+    public void detachState() {
+        this.states = this.states.detach(slot);
+        this.slot = 0;
     }
 
     // *********************************
@@ -508,7 +623,7 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
     // *********************************
 
     public void die_exception() {
-        this.gameWorld.getMatchMaker().addAction(getID(), Action.DIE_EXCEPTION, -1);
+        this.gameWorld.getMatchSink().addAction(getID(), Action.DIE_EXCEPTION, -1);
         this.gameWorld.destroyRobot(getID());
     }
 
@@ -534,8 +649,8 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
 
     @Override
     public int compareTo(InternalRobot o) {
-        if (this.roundsAlive != o.roundsAlive)
-            return this.roundsAlive - o.roundsAlive;
+        if (getRoundsAlive() != o.getRoundsAlive())
+            return getRoundsAlive() - o.getRoundsAlive();
         return this.ID - o.ID;
     }
 }
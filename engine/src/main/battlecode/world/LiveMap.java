@@ -107,6 +107,17 @@ public strictfp class LiveMap {
              gm.passabilityArray);
     }
 
+    /**
+     * Creates a deep copy of the input LiveMap with a different seed.
+     *
+     * @param gm the LiveMap to copy.
+     * @param seed the seed of the copy.
+     */
+    public LiveMap(LiveMap gm, int seed) {
+        this(gm.width, gm.height, gm.origin, seed, gm.rounds, gm.mapName, gm.initialBodies,
+             gm.passabilityArray);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof LiveMap)) return false;
@@ -205,10 +216,10 @@ public strictfp class LiveMap {
      *         false if it's not
      */
     public boolean onTheMap(MapLocation loc, int radius){
-        return (onTheMap(loc.translate(-radius, 0)) &&
-                onTheMap(loc.translate(radius, 0)) &&
-                onTheMap(loc.translate(0, -radius)) &&
-                onTheMap(loc.translate(0, radius)));
+        return (onTheMap(loc.x - radius, loc.y) &&
+                onTheMap(loc.x + radius, loc.y) &&
+                onTheMap(loc.x, loc.y - radius) &&
+                onTheMap(loc.x, loc.y + radius));
     }
 
     /**
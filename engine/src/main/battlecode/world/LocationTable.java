@@ -0,0 +1,68 @@
+package battlecode.world;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+
+/**
+ * One shared MapLocation instance for every cell of a map.
+ *
+ * MapLocations are immutable, so the engine can hand out the same instance
+ * for a cell every time instead of allocating a new one. Coordinates off the
+ * map still get a fresh instance. Equality is unaffected either way.
+ */
+final strictfp class LocationTable {
+
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+
+    /**
+     * Indexed like GameWorld.locationToIndex.
+     */
+    private final MapLocation[] locations;
+
+    LocationTable(LiveMap map) {
+        this.originX = map.getOrigin().x;
+        this.originY = map.getOrigin().y;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.locations = new MapLocation[this.width * this.height];
+        for (int y = 0; y < this.height; y++)
+            for (int x = 0; x < this.width; x++)
+                this.locations[x + y * this.width] = new MapLocation(x + this.originX, y + this.originY);
+    }
+
+    /**
+     * @param idx the index of a cell on the map
+     * @return the location of the cell
+     */
+    MapLocation get(int idx) {
+        return this.locations[idx];
+    }
+
+    /**
+     * @return the location with the given coordinates, shared if it is on the map
+     */
+    MapLocation get(int x, int y) {
+        int dx = x - this.originX;
+        int dy = y - this.originY;
+        if (dx < 0 || dy < 0 || dx >= this.width || dy >= this.height)
+            return new MapLocation(x, y);
+        return this.locations[dx + dy * this.width];
+    }
+
+    /**
+     * Equivalent to loc.add(dir).
+     */
+    MapLocation add(MapLocation loc, Direction dir) {
+        return get(loc.x + dir.dx, loc.y + dir.dy);
+    }
+
+    /**
+     * Equivalent to loc.translate(dx, dy).
+     */
+    MapLocation translate(MapLocation loc, int dx, int dy) {
+        return get(loc.x + dx, loc.y + dy);
+    }
+}
@@ -0,0 +1,77 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.instrumenter.profiler.ProfilerCollection;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Receives everything that happens in a match, as the world plays it. The
+ * world tells its sink about each change as it's made, then ends each
+ * round with makeRound, and the match with makeMatchFooter.
+ *
+ * GameMaker.MatchMaker writes what it receives to a replay. NullMatchSink
+ * ignores it, for matches whose replay would be thrown away, and
+ * FanOutMatchSink passes it on to several sinks.
+ */
+public interface MatchSink {
+
+    /**
+     * Start a match. The bodies already on the map have been passed to
+     * addSpawnedRobot, and should be taken from the map instead.
+     */
+    void makeMatchHeader(LiveMap gameMap);
+
+    /**
+     * End the match.
+     */
+    void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections);
+
+    /**
+     * End a round: everything received since the last round happened in it.
+     */
+    void makeRound(int roundNum);
+
+    /**
+     * @return whether the world should pass the state of the match to
+     *         addKeyframeRobot, addKeyframeTeamInfo and makeKeyframe after
+     *         the round
+     */
+    boolean isKeyframeRound(int roundNum);
+
+    /**
+     * Record the state of the match after a round, from the robots and
+     * teams passed to addKeyframeRobot and addKeyframeTeamInfo.
+     */
+    void makeKeyframe(int roundNum);
+
+    void addKeyframeRobot(InternalRobot robot);
+
+    void addKeyframeTeamInfo(Team team, int votes, int numBuffs);
+
+    /**
+     * @return where robots' output goes
+     */
+    OutputStream getOut();
+
+    void addMoved(int id, MapLocation newLocation);
+
+    void addDied(int id);
+
+    /**
+     * @param action one of battlecode.schema.Action
+     */
+    void addAction(int userID, byte action, int targetID);
+
+    void addTeamInfo(Team team, int vote, int bidderID, int numBuffs);
+
+    void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue);
+
+    void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue);
+
+    void addBytecodes(int id, int bytecodes);
+
+    void addSpawnedRobot(InternalRobot robot);
+}
@@ -0,0 +1,92 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.instrumenter.profiler.ProfilerCollection;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A MatchSink that records nothing, for matches played only for their
+ * result. When it's the only sink a world is given, every call to it is
+ * empty and final, so the JIT inlines them away; and since it never asks
+ * for keyframes, the world never builds them.
+ */
+public final class NullMatchSink implements MatchSink {
+
+    public static final NullMatchSink INSTANCE = new NullMatchSink();
+
+    private NullMatchSink() {
+    }
+
+    @Override
+    public void makeMatchHeader(LiveMap gameMap) {
+    }
+
+    @Override
+    public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
+    }
+
+    @Override
+    public void makeRound(int roundNum) {
+    }
+
+    @Override
+    public boolean isKeyframeRound(int roundNum) {
+        return false;
+    }
+
+    @Override
+    public void makeKeyframe(int roundNum) {
+    }
+
+    @Override
+    public void addKeyframeRobot(InternalRobot robot) {
+    }
+
+    @Override
+    public void addKeyframeTeamInfo(Team team, int votes, int numBuffs) {
+    }
+
+    /**
+     * @return a stream that throws robots' output away
+     */
+    @Override
+    public OutputStream getOut() {
+        return NullOutputStream.NULL_OUTPUT_STREAM;
+    }
+
+    @Override
+    public void addMoved(int id, MapLocation newLocation) {
+    }
+
+    @Override
+    public void addDied(int id) {
+    }
+
+    @Override
+    public void addAction(int userID, byte action, int targetID) {
+    }
+
+    @Override
+    public void addTeamInfo(Team team, int vote, int bidderID, int numBuffs) {
+    }
+
+    @Override
+    public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
+    }
+
+    @Override
+    public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
+    }
+
+    @Override
+    public void addBytecodes(int id, int bytecodes) {
+    }
+
+    @Override
+    public void addSpawnedRobot(InternalRobot robot) {
+    }
+}
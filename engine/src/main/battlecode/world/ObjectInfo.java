@@ -16,10 +16,7 @@ import net.sf.jsi.rtree.RTree;
 import net.sf.jsi.Rectangle;
 import net.sf.jsi.Point;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.EnumMap;
-import java.util.Map;
 
 
 /**
@@ -31,43 +28,90 @@ public strictfp class ObjectInfo {
     private final int mapHeight;
     private final MapLocation mapTopLeft;
 
-    private final TIntObjectHashMap<InternalRobot> gameRobotsByID;
+    private final CopyableIntObjectMap<InternalRobot> gameRobotsByID;
 
     private final SpatialIndex robotIndex;
 
     private final TIntArrayList dynamicBodyExecOrder;
 
-    private Map<Team, Map<RobotType, Integer>> robotTypeCount = new EnumMap<>(
-            Team.class);
-    private int[] robotCount = new int[3];
+    private final RobotStateStore robotStates;
+
+    /**
+     * Per-team aggregates, indexed by team ordinal (and robot type ordinal).
+     * These are kept up to date as robots spawn, die, change type, or
+     * gain and lose influence or conviction, so that they never need to
+     * be recomputed by scanning every robot.
+     */
+    private final int[] robotCount = new int[3];
+    private final int[][] robotTypeCount = new int[3][RobotType.values().length];
+    private final int[] totalInfluence = new int[3];
+    private final int[] totalConviction = new int[3];
 
     public ObjectInfo(LiveMap gm){
         this.mapWidth = gm.getWidth();
         this.mapHeight = gm.getHeight();
         this.mapTopLeft = gm.getOrigin();
 
-        this.gameRobotsByID = new TIntObjectHashMap<>();
+        this.gameRobotsByID = new CopyableIntObjectMap<>();
 
         robotIndex = new RTree();
 
         dynamicBodyExecOrder = new TIntArrayList();
 
+        robotStates = new RobotStateStore();
+
+        robotIndex.init(null);
+    }
+
+    /**
+     * Creates a copy of another world's object info. The copy still refers to
+     * the original robots; each must be replaced with its own copy through
+     * putForkedRobot() before the copy is used.
+     *
+     * @param base the object info to copy
+     */
+    public ObjectInfo(ObjectInfo base) {
+        this.mapWidth = base.mapWidth;
+        this.mapHeight = base.mapHeight;
+        this.mapTopLeft = base.mapTopLeft;
+
+        this.gameRobotsByID = base.gameRobotsByID.copy();
+
+        robotIndex = new RTree();
+
+        dynamicBodyExecOrder = new TIntArrayList(base.dynamicBodyExecOrder);
+
+        robotStates = new RobotStateStore(base.robotStates);
+
         robotIndex.init(null);
 
-        robotTypeCount.put(Team.A, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.B, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.NEUTRAL, new EnumMap<>(
-                RobotType.class));
+        System.arraycopy(base.robotCount, 0, robotCount, 0, robotCount.length);
+        for (int i = 0; i < robotTypeCount.length; i++)
+            System.arraycopy(base.robotTypeCount[i], 0, robotTypeCount[i], 0, robotTypeCount[i].length);
+        System.arraycopy(base.totalInfluence, 0, totalInfluence, 0, totalInfluence.length);
+        System.arraycopy(base.totalConviction, 0, totalConviction, 0, totalConviction.length);
     }
 
     public int getRobotTypeCount(Team team, RobotType type) {
-        if (robotTypeCount.get(team).containsKey(type)) {
-            return robotTypeCount.get(team).get(type);
-        } else {
-            return 0;
-        }
+        return robotTypeCount[team.ordinal()][type.ordinal()];
+    }
+
+    public int getEnlightenmentCenterCount(Team team) {
+        return getRobotTypeCount(team, RobotType.ENLIGHTENMENT_CENTER);
+    }
+
+    /**
+     * @return the sum of the influence of every robot on the given team
+     */
+    public int getTotalInfluence(Team team) {
+        return totalInfluence[team.ordinal()];
+    }
+
+    /**
+     * @return the sum of the conviction of every robot on the given team
+     */
+    public int getTotalConviction(Team team) {
+        return totalConviction[team.ordinal()];
     }
 
     /**
@@ -83,6 +127,20 @@ public strictfp class ObjectInfo {
         //eachRobotBySpawnOrder(op);
     }
 
+    /**
+     * Lists the state store slots of every robot, in the same order as
+     * eachRobot().
+     *
+     * @param slots the list to fill; it is cleared first
+     */
+    public void robotSlots(TIntArrayList slots) {
+        slots.resetQuick();
+        gameRobotsByID.forEachValue(robot -> {
+            slots.add(robot.getSlot());
+            return true;
+        });
+    }
+
     /**
      * Apply an operation for every Robot, in the order the
      * bodies should be updated. Robots update in spawn order.
@@ -124,6 +182,13 @@ public strictfp class ObjectInfo {
         return gameRobotsByID.values(new InternalRobot[gameRobotsByID.size()]);
     }
 
+    /**
+     * @return the store holding the state of every robot in the world
+     */
+    public RobotStateStore getRobotStates() {
+        return robotStates;
+    }
+
     public int getRobotCount(Team team) {
         return robotCount[team.ordinal()];
     }
@@ -146,6 +211,8 @@ public strictfp class ObjectInfo {
     public void spawnRobot(InternalRobot robot) {
         incrementRobotCount(robot.getTeam());
         incrementRobotTypeCount(robot.getTeam(), robot.getType());
+        addInfluence(robot.getTeam(), robot.getInfluence());
+        addConviction(robot.getTeam(), robot.getConviction());
 
         int id = robot.getID();
         gameRobotsByID.put(id, robot);
@@ -156,6 +223,17 @@ public strictfp class ObjectInfo {
         robotIndex.add(fromPoint(loc),robot.getID());
     }
 
+    /**
+     * Replaces an original robot with its copy, in an object info created
+     * as a copy of another.
+     */
+    public void putForkedRobot(InternalRobot robot) {
+        gameRobotsByID.put(robot.getID(), robot);
+
+        MapLocation loc = robot.getLocation();
+        robotIndex.add(fromPoint(loc),robot.getID());
+    }
+
     // ****************************
     // *** EXISTS CHECKS **********
     // ****************************
@@ -173,6 +251,8 @@ public strictfp class ObjectInfo {
 
         decrementRobotCount(robot.getTeam());
         decrementRobotTypeCount(robot.getTeam(), robot.getType());
+        addInfluence(robot.getTeam(), -robot.getInfluence());
+        addConviction(robot.getTeam(), -robot.getConviction());
 
         MapLocation loc = robot.getLocation();
         gameRobotsByID.remove(id);
@@ -180,6 +260,33 @@ public strictfp class ObjectInfo {
         robotIndex.delete(fromPoint(loc),id);
     }
     
+    // ****************************
+    // *** UPDATING OBJECTS *******
+    // ****************************
+
+    /**
+     * Must be called whenever the influence of a living robot changes.
+     */
+    public void addInfluence(Team team, int amount) {
+        totalInfluence[team.ordinal()] += amount;
+    }
+
+    /**
+     * Must be called whenever the conviction of a living robot changes.
+     */
+    public void addConviction(Team team, int amount) {
+        totalConviction[team.ordinal()] += amount;
+    }
+
+    /**
+     * Must be called whenever a living robot changes type in place
+     * (e.g. a slanderer camouflaging as a politician).
+     */
+    public void changeRobotType(Team team, RobotType oldType, RobotType newType) {
+        decrementRobotTypeCount(team, oldType);
+        incrementRobotTypeCount(team, newType);
+    }
+
     // ****************************
     // *** PLAYER METHODS *********
     // ****************************
@@ -209,18 +316,39 @@ public strictfp class ObjectInfo {
     }
 
     private void incrementRobotTypeCount(Team team, RobotType type) {
-        robotTypeCount.get(team);
-        if (robotTypeCount.get(team).containsKey(type)) {
-            robotTypeCount.get(team).put(type,
-                    robotTypeCount.get(team).get(type) + 1);
-        } else {
-            robotTypeCount.get(team).put(type, 1);
-        }
+        robotTypeCount[team.ordinal()][type.ordinal()]++;
     }
 
     private void decrementRobotTypeCount(Team team, RobotType type) {
-        Integer currentCount = getRobotTypeCount(team, type);
-        robotTypeCount.get(team).put(type,currentCount - 1);
+        robotTypeCount[team.ordinal()][type.ordinal()]--;
+    }
+
+    /**
+     * eachRobot() visits robots in hash table order, and that order ends up
+     * in replays. This map can be copied along with its exact internal
+     * layout, so that a copy visits robots in the same order as the original.
+     */
+    private static final class CopyableIntObjectMap<V> extends TIntObjectHashMap<V> {
+
+        private static final long serialVersionUID = 5108412369307761258L;
+
+        CopyableIntObjectMap<V> copy() {
+            CopyableIntObjectMap<V> copy = new CopyableIntObjectMap<>();
+            copy._set = _set.clone();
+            copy._states = _states.clone();
+            copy._values = _values.clone();
+            copy._size = _size;
+            copy._free = _free;
+            copy._loadFactor = _loadFactor;
+            copy._maxSize = _maxSize;
+            copy._autoCompactRemovesRemaining = _autoCompactRemovesRemaining;
+            copy._autoCompactionFactor = _autoCompactionFactor;
+            copy._autoCompactTemporaryDisable = _autoCompactTemporaryDisable;
+            copy.no_entry_key = no_entry_key;
+            copy.no_entry_value = no_entry_value;
+            copy.consumeFreeSlot = consumeFreeSlot;
+            return copy;
+        }
     }
 
 }
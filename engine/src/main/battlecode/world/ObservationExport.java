@@ -0,0 +1,245 @@
+package battlecode.world;
+
+import battlecode.common.GameConstants;
+import battlecode.common.Team;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Publishes the state of the world at the end of every round as dense
+ * per-cell planes, in a memory-mapped file used as a ring buffer. A
+ * process on the same machine can map the file too and read rounds as
+ * they are played, without parsing replays.
+ *
+ * <h3>Layout, version 1</h3>
+ *
+ * All values are little-endian. The file starts with a header of
+ * HEADER_SIZE bytes:
+ *
+ * <pre>
+ * offset  type   field
+ *  0      int32  magic, MAGIC ("BCOB")
+ *  4      int32  version, VERSION
+ *  8      int32  number of slots
+ * 12      int32  size of a slot, in bytes
+ * 16      int32  maximum map width
+ * 20      int32  maximum map height
+ * 24      int64  number of rounds published so far
+ * </pre>
+ *
+ * followed by the slots. Round number n (counting from 1 over the
+ * lifetime of the file, across matches) goes in slot (n - 1) % slots, at
+ * offset HEADER_SIZE + slot * slotSize. A slot starts with a header of
+ * SLOT_HEADER_SIZE bytes:
+ *
+ * <pre>
+ * offset  type   field
+ *  0      int64  sequence: n once the slot holds round n, -1 while being written
+ *  8      int32  match index
+ * 12      int32  round within the match
+ * 16      int32  map width (w)
+ * 20      int32  map height (h)
+ * 24      int32  team A votes
+ * 28      int32  team B votes
+ * </pre>
+ *
+ * followed by six planes of w * h cells each, indexed x + y * w relative
+ * to the map origin. Planes are laid out for the maximum map size, so
+ * their offsets within a slot are fixed:
+ *
+ * <pre>
+ * plane        type     empty cell
+ * influence    int32    0
+ * conviction   int32    0
+ * flag         int32    0
+ * passability  float32  (always set)
+ * team         int8     0; otherwise 1 + Team.ordinal()
+ * type         int8     0; otherwise 1 + RobotType.ordinal()
+ * </pre>
+ *
+ * <h3>Reading</h3>
+ *
+ * A consumer polls the round count in the header. To read round n, it
+ * reads the slot's sequence, copies the slot, then reads the sequence
+ * again; the copy is good if both equal n. Otherwise the writer has lapped
+ * the consumer, which should skip ahead.
+ *
+ * The writer orders its stores: the -1 marker is visible before any of
+ * the slot's other fields, those before the sequence, and the sequence
+ * before the round count. The consumer must likewise order its loads
+ * (e.g. std::atomic_thread_fence(std::memory_order_acquire) between
+ * reading a sequence and copying the slot, and between copying it and
+ * reading the sequence again).
+ */
+public class ObservationExport implements Closeable {
+
+    public static final int MAGIC = 0x424F4342;
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 32;
+    public static final int SLOT_HEADER_SIZE = 32;
+
+    private static final int MAX_CELLS = GameConstants.MAP_MAX_WIDTH * GameConstants.MAP_MAX_HEIGHT;
+
+    public static final int INFLUENCE_OFFSET = SLOT_HEADER_SIZE;
+    public static final int CONVICTION_OFFSET = INFLUENCE_OFFSET + 4 * MAX_CELLS;
+    public static final int FLAG_OFFSET = CONVICTION_OFFSET + 4 * MAX_CELLS;
+    public static final int PASSABILITY_OFFSET = FLAG_OFFSET + 4 * MAX_CELLS;
+    public static final int TEAM_OFFSET = PASSABILITY_OFFSET + 4 * MAX_CELLS;
+    public static final int TYPE_OFFSET = TEAM_OFFSET + MAX_CELLS;
+    public static final int SLOT_SIZE = TYPE_OFFSET + MAX_CELLS;
+
+    private static final int ROUNDS_PUBLISHED_OFFSET = 24;
+
+    /**
+     * Written, and never read, to fence the stores to the mapped file; see
+     * fence().
+     */
+    private volatile long published;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+
+    private long roundsPublished;
+    private int matchIndex;
+
+    /**
+     * Zeroes, for clearing planes.
+     */
+    private final byte[] zeroes = new byte[4 * MAX_CELLS];
+
+    /**
+     * Maps the file, creating it if need be. A file left by an earlier
+     * export with the same layout is reused as it is, and round numbers
+     * carry on from where it stopped, so that a consumer that has it
+     * mapped keeps working; any other file is truncated.
+     *
+     * @param file the file to write to
+     * @param slots the number of rounds the ring buffer holds
+     */
+    public ObservationExport(File file, int slots) throws IOException {
+        if (slots < 1)
+            throw new IllegalArgumentException("An observation export needs at least one slot, not " + slots);
+        final long size = HEADER_SIZE + (long) slots * SLOT_SIZE;
+        this.file = new RandomAccessFile(file, "rw");
+        final boolean sameSize = this.file.length() == size;
+        if (!sameSize)
+            this.file.setLength(0);
+        this.buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.slots = slots;
+
+        if (sameSize && hasHeader(slots)) {
+            this.roundsPublished = this.buffer.getLong(ROUNDS_PUBLISHED_OFFSET);
+            return;
+        }
+        this.roundsPublished = 0;
+        this.buffer.putInt(0, MAGIC);
+        this.buffer.putInt(4, VERSION);
+        this.buffer.putInt(8, slots);
+        this.buffer.putInt(12, SLOT_SIZE);
+        this.buffer.putInt(16, GameConstants.MAP_MAX_WIDTH);
+        this.buffer.putInt(20, GameConstants.MAP_MAX_HEIGHT);
+        this.buffer.putLong(ROUNDS_PUBLISHED_OFFSET, 0);
+    }
+
+    /**
+     * @return whether the file already has the header this export would write
+     */
+    private boolean hasHeader(int slots) {
+        return this.buffer.getInt(0) == MAGIC
+                && this.buffer.getInt(4) == VERSION
+                && this.buffer.getInt(8) == slots
+                && this.buffer.getInt(12) == SLOT_SIZE
+                && this.buffer.getInt(16) == GameConstants.MAP_MAX_WIDTH
+                && this.buffer.getInt(20) == GameConstants.MAP_MAX_HEIGHT
+                && this.buffer.getLong(ROUNDS_PUBLISHED_OFFSET) >= 0;
+    }
+
+    /**
+     * Must be called before each match's world is created.
+     */
+    public void startMatch(int matchIndex) {
+        this.matchIndex = matchIndex;
+    }
+
+    /**
+     * Writes the world as it is at the end of a round.
+     */
+    void endRound(GameWorld world) {
+        long sequence = this.roundsPublished + 1;
+        int base = HEADER_SIZE + (int) ((sequence - 1) % this.slots) * SLOT_SIZE;
+        ByteBuffer buf = this.buffer;
+
+        LiveMap map = world.getGameMap();
+        int width = map.getWidth();
+        int height = map.getHeight();
+        int cells = width * height;
+        int originX = map.getOrigin().x;
+        int originY = map.getOrigin().y;
+
+        buf.putLong(base, -1);
+        fence();
+        buf.putInt(base + 8, this.matchIndex);
+        buf.putInt(base + 12, world.getCurrentRound());
+        buf.putInt(base + 16, width);
+        buf.putInt(base + 20, height);
+        buf.putInt(base + 24, world.getTeamInfo().getVotes(Team.A));
+        buf.putInt(base + 28, world.getTeamInfo().getVotes(Team.B));
+
+        clear(base + INFLUENCE_OFFSET, 4 * cells);
+        clear(base + CONVICTION_OFFSET, 4 * cells);
+        clear(base + FLAG_OFFSET, 4 * cells);
+        clear(base + TEAM_OFFSET, cells);
+        clear(base + TYPE_OFFSET, cells);
+
+        double[] passability = map.getPassabilityArray();
+        for (int i = 0; i < cells; i++)
+            buf.putFloat(base + PASSABILITY_OFFSET + 4 * i, (float) passability[i]);
+
+        world.getObjectInfo().eachRobot(robot -> {
+            int i = (robot.getLocation().x - originX) + (robot.getLocation().y - originY) * width;
+            buf.putInt(base + INFLUENCE_OFFSET + 4 * i, robot.getInfluence());
+            buf.putInt(base + CONVICTION_OFFSET + 4 * i, robot.getConviction());
+            buf.putInt(base + FLAG_OFFSET + 4 * i, robot.getFlag());
+            buf.put(base + TEAM_OFFSET + i, (byte) (1 + robot.getTeam().ordinal()));
+            buf.put(base + TYPE_OFFSET + i, (byte) (1 + robot.getType().ordinal()));
+            return true;
+        });
+
+        fence();
+        buf.putLong(base, sequence);
+        this.roundsPublished = sequence;
+        fence();
+        buf.putLong(ROUNDS_PUBLISHED_OFFSET, sequence);
+    }
+
+    /**
+     * Keeps the stores to the mapped file before this in order before
+     * those after it. Stores to a mapped file are plain stores, which the
+     * JIT may reorder; the memory model only orders them around volatile
+     * accesses, and HotSpot compiles a volatile write to a full fence.
+     */
+    private void fence() {
+        this.published = this.roundsPublished;
+    }
+
+    private void clear(int offset, int length) {
+        ByteBuffer dup = this.buffer.duplicate();
+        dup.position(offset);
+        dup.put(this.zeroes, 0, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+}
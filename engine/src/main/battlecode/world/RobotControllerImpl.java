@@ -35,6 +35,12 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     private static Random random;
 
+    /**
+     * Recent results of senseNearbyRobots and detectNearbyRobots.
+     */
+    private final SensingCache<RobotInfo> senseCache;
+    private final SensingCache<MapLocation> detectCache;
+
     /**
      * Create a new RobotControllerImpl
      *
@@ -46,6 +52,9 @@ public final strictfp class RobotControllerImpl implements RobotController {
         this.robot = robot;
 
         this.random = new Random(gameWorld.getMapSeed());
+
+        this.senseCache = new SensingCache<>();
+        this.detectCache = new SensingCache<>();
     }
 
     // *********************************
@@ -63,6 +72,129 @@ public final strictfp class RobotControllerImpl implements RobotController {
         }
     }
 
+    /**
+     * The outcome of a validation check.
+     *
+     * Checks return a Status rather than throwing, so that the can* methods
+     * never allocate an exception; only the assert* methods turn a failed
+     * Status into a GameActionException, building its message on demand.
+     */
+    private enum Status {
+        OK(null),
+        NOT_IN_SENSOR_RANGE(CANT_SENSE_THAT),
+        NOT_IN_DETECTION_RANGE(CANT_SENSE_THAT),
+        NOT_ON_THE_MAP(CANT_SENSE_THAT),
+        NOT_READY(IS_NOT_READY),
+        STILL_COOLING_DOWN(IS_NOT_READY),
+        CANT_MOVE_TYPE(CANT_DO_THAT),
+        MOVE_OFF_THE_MAP(OUT_OF_RANGE),
+        MOVE_OCCUPIED(CANT_MOVE_THERE),
+        CANT_BUILD_TYPE(CANT_DO_THAT),
+        NONPOSITIVE_INFLUENCE(CANT_DO_THAT),
+        NOT_ENOUGH_INFLUENCE(CANT_DO_THAT),
+        SPAWN_OFF_THE_MAP(OUT_OF_RANGE),
+        SPAWN_OCCUPIED(CANT_MOVE_THERE),
+        CANT_EMPOWER_TYPE(CANT_DO_THAT),
+        EMPOWER_RADIUS_TOO_LARGE(CANT_DO_THAT),
+        CANT_EXPOSE_TYPE(CANT_DO_THAT),
+        EXPOSE_LOCATION_OFF_THE_MAP(OUT_OF_RANGE),
+        EXPOSE_LOCATION_OUT_OF_RANGE(CANT_DO_THAT),
+        EXPOSE_LOCATION_EMPTY(CANT_DO_THAT),
+        EXPOSE_LOCATION_NOT_EXPOSABLE(CANT_DO_THAT),
+        EXPOSE_LOCATION_NOT_ENEMY(CANT_DO_THAT),
+        EXPOSE_ROBOT_NOT_SENSED(OUT_OF_RANGE),
+        EXPOSE_ROBOT_OUT_OF_RANGE(OUT_OF_RANGE),
+        EXPOSE_ROBOT_NOT_EXPOSABLE(CANT_DO_THAT),
+        EXPOSE_ROBOT_NOT_ENEMY(CANT_DO_THAT),
+        CANT_BID_TYPE(CANT_DO_THAT),
+        NONPOSITIVE_BID(CANT_DO_THAT),
+        NOT_ENOUGH_INFLUENCE_TO_BID(CANT_DO_THAT),
+        FLAG_OUT_OF_RANGE(CANT_DO_THAT),
+        FLAG_ROBOT_DOES_NOT_EXIST(CANT_DO_THAT),
+        FLAG_ROBOT_NOT_SENSED(CANT_SENSE_THAT);
+
+        final GameActionExceptionType type;
+
+        Status(GameActionExceptionType type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Builds the message of the GameActionException for a failed check.
+     *
+     * @param status the failed check
+     * @param subject the location or robot type the check was about, if any
+     */
+    private String getMessage(Status status, Object subject) {
+        switch (status) {
+            case NOT_IN_SENSOR_RANGE:
+                return "Target location not within sensor range";
+            case NOT_IN_DETECTION_RANGE:
+                return "Target location not within detection range";
+            case NOT_ON_THE_MAP:
+                return "Target location is not on the map";
+            case NOT_READY:
+                return "This robot's action cooldown has not expired.";
+            case STILL_COOLING_DOWN:
+                return "Robot is still cooling down! You need to wait before you can perform another action.";
+            case CANT_MOVE_TYPE:
+                return "Robot is of type " + getType() + " which cannot move.";
+            case MOVE_OFF_THE_MAP:
+                return "Can only move to locations on the map; " + subject + " is not on the map.";
+            case MOVE_OCCUPIED:
+                return "Cannot move to an occupied location; " + subject + " is occupied.";
+            case CANT_BUILD_TYPE:
+                return "Robot is of type " + getType() + " which cannot build robots of type" + subject + ".";
+            case NONPOSITIVE_INFLUENCE:
+                return "Cannot spend nonpositive amount of influence.";
+            case NOT_ENOUGH_INFLUENCE:
+                return "Cannot spend more influence than you have.";
+            case SPAWN_OFF_THE_MAP:
+                return "Can only spawn to locations on the map; " + subject + " is not on the map.";
+            case SPAWN_OCCUPIED:
+                return "Cannot spawn to an occupied location; " + subject + " is occupied.";
+            case CANT_EMPOWER_TYPE:
+                return "Robot is of type " + getType() + " which cannot empower.";
+            case EMPOWER_RADIUS_TOO_LARGE:
+                return "Robot's empower radius is smaller than radius specified";
+            case CANT_EXPOSE_TYPE:
+                return "Robot is of type " + getType() + " which cannot expose.";
+            case EXPOSE_LOCATION_OFF_THE_MAP:
+                return "Location is not on the map.";
+            case EXPOSE_LOCATION_OUT_OF_RANGE:
+                return "Location can't be exposed because it is out of range.";
+            case EXPOSE_LOCATION_EMPTY:
+                return "There is no robot at specified location.";
+            case EXPOSE_LOCATION_NOT_EXPOSABLE:
+                return "Robot at target location is not of a type that can be exposed.";
+            case EXPOSE_LOCATION_NOT_ENEMY:
+                return "Robot at target location is not on the enemy team.";
+            case EXPOSE_ROBOT_NOT_SENSED:
+                return "The targeted robot cannot be sensed.";
+            case EXPOSE_ROBOT_OUT_OF_RANGE:
+                return "Robot can't be exposed because it is out of range.";
+            case EXPOSE_ROBOT_NOT_EXPOSABLE:
+                return "Robot is not of a type that can be exposed.";
+            case EXPOSE_ROBOT_NOT_ENEMY:
+                return "Robot is not on the enemy team.";
+            case CANT_BID_TYPE:
+                return "Robot is of type " + getType() + " which cannot bid.";
+            case NONPOSITIVE_BID:
+                return "Can only bid non-negative amounts of influence.";
+            case NOT_ENOUGH_INFLUENCE_TO_BID:
+                return "Not possible to bid influence you don't have.";
+            case FLAG_OUT_OF_RANGE:
+                return "Flag value out of range";
+            case FLAG_ROBOT_DOES_NOT_EXIST:
+                return "Robot of given ID does not exist.";
+            case FLAG_ROBOT_NOT_SENSED:
+                return "Robot at location is out of sensor range and not an Enlightenment Center.";
+            default:
+                throw new IllegalArgumentException("No message for status " + status);
+        }
+    }
+
     @Override
     public int hashCode() {
         return robot.getID();
@@ -140,26 +272,28 @@ public final strictfp class RobotControllerImpl implements RobotController {
         assertNotNull(loc);
         if (!this.robot.canSenseLocation(loc))
             throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location not within sensor range");
+                    getMessage(Status.NOT_IN_SENSOR_RANGE, loc));
         return gameWorld.getGameMap().onTheMap(loc);
     }
 
-    private void assertCanSenseLocation(MapLocation loc) throws GameActionException {
+    private Status checkCanSenseLocation(MapLocation loc) {
         assertNotNull(loc);
         if (!this.robot.canSenseLocation(loc))
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location not within sensor range");
+            return Status.NOT_IN_SENSOR_RANGE;
         if (!gameWorld.getGameMap().onTheMap(loc))
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location is not on the map");
+            return Status.NOT_ON_THE_MAP;
+        return Status.OK;
+    }
+
+    private void assertCanSenseLocation(MapLocation loc) throws GameActionException {
+        Status status = checkCanSenseLocation(loc);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, loc));
     }
 
     @Override
     public boolean canSenseLocation(MapLocation loc) {
-        try {
-            assertCanSenseLocation(loc);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanSenseLocation(loc) == Status.OK;
     }
 
     @Override
@@ -167,22 +301,24 @@ public final strictfp class RobotControllerImpl implements RobotController {
         return this.robot.canSenseRadiusSquared(radiusSquared);
     }
 
-    private void assertCanDetectLocation(MapLocation loc) throws GameActionException {
+    private Status checkCanDetectLocation(MapLocation loc) {
         assertNotNull(loc);
         if (!this.robot.canDetectLocation(loc))
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location not within detection range");
+            return Status.NOT_IN_DETECTION_RANGE;
         if (!gameWorld.getGameMap().onTheMap(loc))
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location is not on the map");
+            return Status.NOT_ON_THE_MAP;
+        return Status.OK;
+    }
+
+    private void assertCanDetectLocation(MapLocation loc) throws GameActionException {
+        Status status = checkCanDetectLocation(loc);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, loc));
     }
 
     @Override
     public boolean canDetectLocation(MapLocation loc) {
-        try {
-            assertCanDetectLocation(loc);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanDetectLocation(loc) == Status.OK;
     }
 
     @Override
@@ -238,6 +374,9 @@ public final strictfp class RobotControllerImpl implements RobotController {
     public RobotInfo[] senseNearbyRobots(MapLocation center, int radiusSquared, Team team) {
         assertNotNull(center);
         int actualRadiusSquared = radiusSquared == -1 ? getType().sensorRadiusSquared : Math.min(radiusSquared, getType().sensorRadiusSquared);
+        RobotInfo[] cached = senseCache.get(gameWorld, this.robot, center, actualRadiusSquared, team);
+        if (cached != null)
+            return cached.clone();
         InternalRobot[] allSensedRobots = gameWorld.getAllRobotsWithinRadiusSquared(center, actualRadiusSquared);
         List<RobotInfo> validSensedRobots = new ArrayList<>();
         for (InternalRobot sensedRobot : allSensedRobots) {
@@ -252,7 +391,9 @@ public final strictfp class RobotControllerImpl implements RobotController {
                 continue;
             validSensedRobots.add(sensedRobot.getRobotInfo(getType().canTrueSense()));
         }
-        return validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+        RobotInfo[] result = validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+        senseCache.put(gameWorld, this.robot, center, actualRadiusSquared, team, result);
+        return result.clone();
     }
 
     @Override
@@ -269,6 +410,9 @@ public final strictfp class RobotControllerImpl implements RobotController {
     public MapLocation[] detectNearbyRobots(MapLocation center, int radiusSquared) {
         assertNotNull(center);
         int actualRadiusSquared = radiusSquared == -1 ? getType().detectionRadiusSquared : Math.min(radiusSquared, getType().detectionRadiusSquared);
+        MapLocation[] cached = detectCache.get(gameWorld, this.robot, center, actualRadiusSquared, null);
+        if (cached != null)
+            return cached.clone();
         InternalRobot[] allDetectedRobots = gameWorld.getAllRobotsWithinRadiusSquared(center, actualRadiusSquared);
         List<MapLocation> validDetectedRobots = new ArrayList<>();
         for (InternalRobot detectedRobot : allDetectedRobots) {
@@ -280,7 +424,9 @@ public final strictfp class RobotControllerImpl implements RobotController {
                 continue;
             validDetectedRobots.add(detectedRobot.getLocation());
         }
-        return validDetectedRobots.toArray(new MapLocation[validDetectedRobots.size()]);
+        MapLocation[] result = validDetectedRobots.toArray(new MapLocation[validDetectedRobots.size()]);
+        detectCache.put(gameWorld, this.robot, center, actualRadiusSquared, null, result);
+        return result.clone();
     }
 
     @Override 
@@ -291,17 +437,17 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
     @Override
     public MapLocation adjacentLocation(Direction dir) {
-        return getLocation().add(dir);
+        return gameWorld.adjacentLocation(getLocation(), dir);
     }
 
     // ***********************************
     // ****** READINESS METHODS **********
     // ***********************************
 
-    private void assertIsReady() throws GameActionException {
+    private Status checkIsReady() {
         if (getCooldownTurns() >= 1)
-            throw new GameActionException(IS_NOT_READY,
-                    "This robot's action cooldown has not expired.");
+            return Status.NOT_READY;
+        return Status.OK;
     }
 
     /**
@@ -312,10 +458,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean isReady() {
-        try {
-            assertIsReady();
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkIsReady() == Status.OK;
     }
 
     /**
@@ -335,29 +478,34 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ****** MOVEMENT METHODS ***********
     // ***********************************
 
-    private void assertCanMove(Direction dir) throws GameActionException {
+    private Status checkCanMove(Direction dir) {
         assertNotNull(dir);
         if (!getType().canMove())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot move.");
+            return Status.CANT_MOVE_TYPE;
         MapLocation loc = adjacentLocation(dir);
-        if (!onTheMap(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only move to locations on the map; " + loc + " is not on the map.");
-        if (isLocationOccupied(loc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot move to an occupied location; " + loc + " is occupied.");
+        if (!this.robot.canSenseLocation(loc))
+            return Status.NOT_IN_SENSOR_RANGE;
+        if (!gameWorld.getGameMap().onTheMap(loc))
+            return Status.MOVE_OFF_THE_MAP;
+        Status status = checkCanDetectLocation(loc);
+        if (status != Status.OK)
+            return status;
+        if (this.gameWorld.getRobot(loc) != null)
+            return Status.MOVE_OCCUPIED;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return Status.STILL_COOLING_DOWN;
+        return Status.OK;
+    }
+
+    private void assertCanMove(Direction dir) throws GameActionException {
+        Status status = checkCanMove(dir);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, adjacentLocation(dir)));
     }
 
     @Override
     public boolean canMove(Direction dir) {
-        try {
-            assertCanMove(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanMove(dir) == Status.OK;
     }
 
     @Override
@@ -369,43 +517,48 @@ public final strictfp class RobotControllerImpl implements RobotController {
         this.gameWorld.moveRobot(getLocation(), center);
         this.robot.setLocation(center);
 
-        gameWorld.getMatchMaker().addMoved(getID(), getLocation());
+        gameWorld.getMatchSink().addMoved(getID(), getLocation());
     }
 
     // ***********************************
     // ****** BUILDING/SPAWNING **********
     // ***********************************
 
-    private void assertCanBuildRobot(RobotType type, Direction dir, int influence) throws GameActionException {
+    private Status checkCanBuildRobot(RobotType type, Direction dir, int influence) {
         assertNotNull(type);
         assertNotNull(dir);
         if (!getType().canBuild(type))
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot build robots of type" + type + ".");
+            return Status.CANT_BUILD_TYPE;
         if (influence <= 0)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Cannot spend nonpositive amount of influence.");
+            return Status.NONPOSITIVE_INFLUENCE;
         if (influence > getInfluence())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Cannot spend more influence than you have.");
+            return Status.NOT_ENOUGH_INFLUENCE;
         MapLocation spawnLoc = adjacentLocation(dir);
-        if (!onTheMap(spawnLoc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only spawn to locations on the map; " + spawnLoc + " is not on the map.");
-        if (isLocationOccupied(spawnLoc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot spawn to an occupied location; " + spawnLoc + " is occupied.");
+        if (!this.robot.canSenseLocation(spawnLoc))
+            return Status.NOT_IN_SENSOR_RANGE;
+        if (!gameWorld.getGameMap().onTheMap(spawnLoc))
+            return Status.SPAWN_OFF_THE_MAP;
+        Status status = checkCanDetectLocation(spawnLoc);
+        if (status != Status.OK)
+            return status;
+        if (this.gameWorld.getRobot(spawnLoc) != null)
+            return Status.SPAWN_OCCUPIED;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return Status.STILL_COOLING_DOWN;
+        return Status.OK;
+    }
+
+    private void assertCanBuildRobot(RobotType type, Direction dir, int influence) throws GameActionException {
+        Status status = checkCanBuildRobot(type, dir, influence);
+        if (status == Status.CANT_BUILD_TYPE)
+            throw new GameActionException(status.type, getMessage(status, type));
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, adjacentLocation(dir)));
     }
 
     @Override
     public boolean canBuildRobot(RobotType type, Direction dir, int influence) {
-        try {
-            assertCanBuildRobot(type, dir, influence);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanBuildRobot(type, dir, influence) == Status.OK;
     }
 
     @Override
@@ -421,29 +574,32 @@ public final strictfp class RobotControllerImpl implements RobotController {
         InternalRobot newBot = getRobotByID(robotID);
         newBot.setCooldownTurns(type.initialCooldown);
 
-        gameWorld.getMatchMaker().addAction(getID(), Action.SPAWN_UNIT, robotID);
+        gameWorld.getMatchSink().addAction(getID(), Action.SPAWN_UNIT, robotID);
     }
     
     // ***********************************
     // ****** POLITICIAN METHODS ********* 
     // ***********************************
 
-    private void assertCanEmpower(int radiusSquared) throws GameActionException {
-        assertIsReady();
+    private Status checkCanEmpower(int radiusSquared) {
+        if (!isReady())
+            return Status.NOT_READY;
         if (!getType().canEmpower())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot empower.");
+            return Status.CANT_EMPOWER_TYPE;
         if (radiusSquared > getType().actionRadiusSquared)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot's empower radius is smaller than radius specified");
+            return Status.EMPOWER_RADIUS_TOO_LARGE;
+        return Status.OK;
+    }
+
+    private void assertCanEmpower(int radiusSquared) throws GameActionException {
+        Status status = checkCanEmpower(radiusSquared);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, null));
     }
 
     @Override
     public boolean canEmpower(int radiusSquared) {
-        try {
-            assertCanEmpower(radiusSquared);
-            return true;
-        } catch (GameActionException e) { return false; } 
+        return checkCanEmpower(radiusSquared) == Status.OK;
     }
     
     @Override
@@ -452,7 +608,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
         this.robot.addCooldownTurns(); // not needed but here for the sake of consistency
         this.robot.empower(radiusSquared);
-        gameWorld.getMatchMaker().addAction(getID(), Action.EMPOWER, radiusSquared);
+        gameWorld.getMatchSink().addAction(getID(), Action.EMPOWER, radiusSquared);
 
         // self-destruct
         gameWorld.destroyRobot(this.robot.getID());
@@ -463,63 +619,65 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ****** MUCKRAKER METHODS ********** 
     // *********************************** 
     
-    private void assertCanExpose(MapLocation loc) throws GameActionException {
-        assertIsReady();
+    private Status checkCanExpose(MapLocation loc) {
+        if (!isReady())
+            return Status.NOT_READY;
         if (!getType().canExpose())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot expose.");
-        if (!onTheMap(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Location is not on the map.");
+            return Status.CANT_EXPOSE_TYPE;
+        assertNotNull(loc);
+        if (!this.robot.canSenseLocation(loc))
+            return Status.NOT_IN_SENSOR_RANGE;
+        if (!gameWorld.getGameMap().onTheMap(loc))
+            return Status.EXPOSE_LOCATION_OFF_THE_MAP;
         if (!this.robot.canActLocation(loc))
-            throw new GameActionException(CANT_DO_THAT,
-                    "Location can't be exposed because it is out of range.");
+            return Status.EXPOSE_LOCATION_OUT_OF_RANGE;
         InternalRobot bot = gameWorld.getRobot(loc);
         if (bot == null)
-            throw new GameActionException(CANT_DO_THAT,
-                    "There is no robot at specified location.");
+            return Status.EXPOSE_LOCATION_EMPTY;
         if (!(bot.getType().canBeExposed()))
-            throw new GameActionException(CANT_DO_THAT, 
-                    "Robot at target location is not of a type that can be exposed.");
+            return Status.EXPOSE_LOCATION_NOT_EXPOSABLE;
         if (bot.getTeam() == getTeam())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot at target location is not on the enemy team.");
+            return Status.EXPOSE_LOCATION_NOT_ENEMY;
+        return Status.OK;
     }
 
-    private void assertCanExpose(int id) throws GameActionException {
-        assertIsReady();
+    private Status checkCanExpose(int id) {
+        if (!isReady())
+            return Status.NOT_READY;
         if (!getType().canExpose())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot expose.");
+            return Status.CANT_EXPOSE_TYPE;
         if (!canSenseRobot(id))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "The targeted robot cannot be sensed.");
+            return Status.EXPOSE_ROBOT_NOT_SENSED;
         InternalRobot bot = getRobotByID(id);
         if (!this.robot.canActLocation(bot.getLocation()))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Robot can't be exposed because it is out of range.");
+            return Status.EXPOSE_ROBOT_OUT_OF_RANGE;
         if (!(bot.getType().canBeExposed()))
-            throw new GameActionException(CANT_DO_THAT, 
-                    "Robot is not of a type that can be exposed.");
+            return Status.EXPOSE_ROBOT_NOT_EXPOSABLE;
         if (bot.getTeam() == getTeam())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is not on the enemy team.");
+            return Status.EXPOSE_ROBOT_NOT_ENEMY;
+        return Status.OK;
+    }
+
+    private void assertCanExpose(MapLocation loc) throws GameActionException {
+        Status status = checkCanExpose(loc);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, loc));
+    }
+
+    private void assertCanExpose(int id) throws GameActionException {
+        Status status = checkCanExpose(id);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, null));
     }
 
     @Override
     public boolean canExpose(MapLocation loc) {
-        try {
-            assertCanExpose(loc);
-            return true;
-        } catch (GameActionException e) { return false; }  
+        return checkCanExpose(loc) == Status.OK;
     }
 
     @Override
     public boolean canExpose(int id) {
-        try {
-            assertCanExpose(id);
-            return true;
-        } catch (GameActionException e) { return false; }  
+        return checkCanExpose(id) == Status.OK;
     }
     
     @Override
@@ -530,7 +688,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
         InternalRobot bot = gameWorld.getRobot(loc);
         int exposedID = bot.getID();
         this.robot.expose(bot);
-        gameWorld.getMatchMaker().addAction(getID(), Action.EXPOSE, exposedID);
+        gameWorld.getMatchSink().addAction(getID(), Action.EXPOSE, exposedID);
     }
 
     @Override
@@ -540,32 +698,33 @@ public final strictfp class RobotControllerImpl implements RobotController {
         this.robot.addCooldownTurns();
         InternalRobot bot = getRobotByID(id);
         this.robot.expose(bot);
-        gameWorld.getMatchMaker().addAction(getID(), Action.EXPOSE, id);
+        gameWorld.getMatchSink().addAction(getID(), Action.EXPOSE, id);
     }
 
     // ***********************************
     // *** ENLIGHTENMENT CENTER METHODS **
     // ***********************************
 
-    private void assertCanBid(int influence) throws GameActionException {
+    private Status checkCanBid(int influence) {
         if (!getType().canBid()) {
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot bid.");
+            return Status.CANT_BID_TYPE;
         } else if (influence <= 0) {
-            throw new GameActionException(CANT_DO_THAT,
-                    "Can only bid non-negative amounts of influence.");
+            return Status.NONPOSITIVE_BID;
         } else if (influence > getInfluence()) {
-            throw new GameActionException(CANT_DO_THAT,
-                    "Not possible to bid influence you don't have.");
+            return Status.NOT_ENOUGH_INFLUENCE_TO_BID;
         }
+        return Status.OK;
+    }
+
+    private void assertCanBid(int influence) throws GameActionException {
+        Status status = checkCanBid(influence);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, null));
     }
 
     @Override
     public boolean canBid(int influence) {
-        try {
-            assertCanBid(influence);
-            return true;
-        } catch (GameActionException e) { return false; }  
+        return checkCanBid(influence) == Status.OK;
     }
 
     @Override
@@ -573,52 +732,58 @@ public final strictfp class RobotControllerImpl implements RobotController {
         assertCanBid(influence);
 
         this.robot.setBid(influence);
-        gameWorld.getMatchMaker().addAction(getID(), Action.PLACE_BID, influence);
+        gameWorld.getMatchSink().addAction(getID(), Action.PLACE_BID, influence);
     }
 
     // ***********************************
     // ****** COMMUNICATION METHODS ****** 
     // ***********************************
 
-    private void assertCanSetFlag(int flag) throws GameActionException {
+    private Status checkCanSetFlag(int flag) {
         if (flag < GameConstants.MIN_FLAG_VALUE || flag > GameConstants.MAX_FLAG_VALUE) {
-            throw new GameActionException(CANT_DO_THAT, "Flag value out of range");
+            return Status.FLAG_OUT_OF_RANGE;
         }
+        return Status.OK;
+    }
+
+    private void assertCanSetFlag(int flag) throws GameActionException {
+        Status status = checkCanSetFlag(flag);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, null));
     }
 
     @Override
     public boolean canSetFlag(int flag) {
-        try {
-            assertCanSetFlag(flag);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanSetFlag(flag) == Status.OK;
     }
 
     @Override
     public void setFlag(int flag) throws GameActionException {
         assertCanSetFlag(flag);
         this.robot.setFlag(flag);
-        gameWorld.getMatchMaker().addAction(getID(), Action.SET_FLAG, flag);
+        gameWorld.getMatchSink().addAction(getID(), Action.SET_FLAG, flag);
     }
 
-    private void assertCanGetFlag(int id) throws GameActionException {
+    private Status checkCanGetFlag(int id) {
         InternalRobot bot = getRobotByID(id);
         if (bot == null)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot of given ID does not exist.");
+            return Status.FLAG_ROBOT_DOES_NOT_EXIST;
         if (getType() != RobotType.ENLIGHTENMENT_CENTER &&
             bot.getType() != RobotType.ENLIGHTENMENT_CENTER &&
             !canSenseLocation(bot.getLocation()))
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Robot at location is out of sensor range and not an Enlightenment Center.");
+            return Status.FLAG_ROBOT_NOT_SENSED;
+        return Status.OK;
+    }
+
+    private void assertCanGetFlag(int id) throws GameActionException {
+        Status status = checkCanGetFlag(id);
+        if (status != Status.OK)
+            throw new GameActionException(status.type, getMessage(status, null));
     }
 
     @Override
     public boolean canGetFlag(int id) {
-        try {
-            assertCanGetFlag(id);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanGetFlag(id) == Status.OK;
     }
 
     @Override
@@ -657,14 +822,14 @@ public final strictfp class RobotControllerImpl implements RobotController {
     @Override
     public void setIndicatorDot(MapLocation loc, int red, int green, int blue) {
         assertNotNull(loc);
-        gameWorld.getMatchMaker().addIndicatorDot(getID(), loc, red, green, blue);
+        gameWorld.getMatchSink().addIndicatorDot(getID(), loc, red, green, blue);
     }
 
     @Override
     public void setIndicatorLine(MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
         assertNotNull(startLoc);
         assertNotNull(endLoc);
-        gameWorld.getMatchMaker().addIndicatorLine(getID(), startLoc, endLoc, red, green, blue);
+        gameWorld.getMatchSink().addIndicatorLine(getID(), startLoc, endLoc, red, green, blue);
     }
 
 }
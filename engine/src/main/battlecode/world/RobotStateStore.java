@@ -0,0 +1,202 @@
+package battlecode.world;
+
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Holds the frequently updated numeric state of every robot in a world as
+ * parallel primitive arrays ("columns") indexed by a slot number.
+ *
+ * Each InternalRobot is a view onto one slot. This lets the round-wide
+ * passes in GameWorld (bidding, passive influence, camouflage) run as tight
+ * loops over a few arrays instead of visiting every robot object.
+ *
+ * Slots of dead robots are reused by later spawns. A robot that dies keeps
+ * its last state in a private single-slot store (see {@link #detach(int)}),
+ * since the engine may still read it, e.g. as a dead robot's parent.
+ * Generations tell whether a slot still holds the robot it was recorded for.
+ */
+public strictfp class RobotStateStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Values of parentSlots for robots without a live parent.
+     */
+    static final int NO_PARENT = -1;
+    static final int DEAD_PARENT = -2;
+
+    static final Team[] TEAMS = Team.values();
+    static final RobotType[] TYPES = RobotType.values();
+
+    /**
+     * Not final, because they grow. Package-private so that GameWorld can loop
+     * over them directly; everything else should go through InternalRobot.
+     */
+    InternalRobot[] robots;
+    int[] ids;
+    byte[] teams;
+    byte[] types;
+    int[] influences;
+    int[] convictions;
+    int[] bids;
+    int[] roundsAlive;
+    double[] cooldownTurns;
+    int[] parentSlots;
+    int[] parentGenerations;
+    int[] generations;
+
+    /**
+     * One more than the highest slot ever allocated.
+     */
+    private int size;
+
+    /**
+     * Slots below size that are not currently in use.
+     */
+    private final TIntArrayList freeSlots;
+
+    public RobotStateStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private RobotStateStore(int capacity) {
+        this.robots = new InternalRobot[capacity];
+        this.ids = new int[capacity];
+        this.teams = new byte[capacity];
+        this.types = new byte[capacity];
+        this.influences = new int[capacity];
+        this.convictions = new int[capacity];
+        this.bids = new int[capacity];
+        this.roundsAlive = new int[capacity];
+        this.cooldownTurns = new double[capacity];
+        this.parentSlots = new int[capacity];
+        this.parentGenerations = new int[capacity];
+        this.generations = new int[capacity];
+        this.size = 0;
+        this.freeSlots = new TIntArrayList();
+    }
+
+    /**
+     * Creates a copy of another store. The robots in the copy are still the
+     * robots of the original, until replaced with their own copies.
+     *
+     * @param base the store to copy
+     */
+    public RobotStateStore(RobotStateStore base) {
+        this.robots = base.robots.clone();
+        this.ids = base.ids.clone();
+        this.teams = base.teams.clone();
+        this.types = base.types.clone();
+        this.influences = base.influences.clone();
+        this.convictions = base.convictions.clone();
+        this.bids = base.bids.clone();
+        this.roundsAlive = base.roundsAlive.clone();
+        this.cooldownTurns = base.cooldownTurns.clone();
+        this.parentSlots = base.parentSlots.clone();
+        this.parentGenerations = base.parentGenerations.clone();
+        this.generations = base.generations.clone();
+        this.size = base.size;
+        this.freeSlots = new TIntArrayList(base.freeSlots);
+    }
+
+    /**
+     * @return one more than the highest slot that may be in use
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Allocates a slot for a new robot.
+     *
+     * @param robot the robot the slot belongs to
+     * @param parent the robot's parent, or null
+     * @return the slot
+     */
+    public int allocate(InternalRobot robot, InternalRobot parent, Team team, RobotType type,
+                        int influence, int conviction) {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.removeAt(freeSlots.size() - 1);
+        } else {
+            if (size == robots.length)
+                grow();
+            slot = size++;
+        }
+
+        robots[slot] = robot;
+        ids[slot] = robot.getID();
+        teams[slot] = (byte) team.ordinal();
+        types[slot] = (byte) type.ordinal();
+        influences[slot] = influence;
+        convictions[slot] = conviction;
+        bids[slot] = 0;
+        roundsAlive[slot] = 0;
+        cooldownTurns[slot] = 0;
+        if (parent == null) {
+            parentSlots[slot] = NO_PARENT;
+        } else if (parent.getStateStore() == this) {
+            parentSlots[slot] = parent.getSlot();
+            parentGenerations[slot] = generations[parent.getSlot()];
+        } else {
+            // the parent has already left the world
+            parentSlots[slot] = DEAD_PARENT;
+        }
+        return slot;
+    }
+
+    /**
+     * Copies the state in a slot into a new single-slot store and frees the
+     * slot for reuse.
+     *
+     * @param slot the slot of a robot that is leaving the world
+     * @return a store holding the robot's final state in slot 0
+     */
+    public RobotStateStore detach(int slot) {
+        RobotStateStore detached = new RobotStateStore(1);
+        detached.robots[0] = robots[slot];
+        detached.ids[0] = ids[slot];
+        detached.teams[0] = teams[slot];
+        detached.types[0] = types[slot];
+        detached.influences[0] = influences[slot];
+        detached.convictions[0] = convictions[slot];
+        detached.bids[0] = bids[slot];
+        detached.roundsAlive[0] = roundsAlive[slot];
+        detached.cooldownTurns[0] = cooldownTurns[slot];
+        detached.parentSlots[0] = parentSlots[slot] == NO_PARENT ? NO_PARENT : DEAD_PARENT;
+        detached.size = 1;
+
+        robots[slot] = null;
+        generations[slot]++;
+        freeSlots.add(slot);
+        return detached;
+    }
+
+    /**
+     * @return whether the parent recorded for the robot in the slot is still alive
+     */
+    public boolean isParentAlive(int slot) {
+        int parentSlot = parentSlots[slot];
+        return parentSlot >= 0 && generations[parentSlot] == parentGenerations[slot];
+    }
+
+    private void grow() {
+        int capacity = robots.length * 2;
+        robots = Arrays.copyOf(robots, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+        types = Arrays.copyOf(types, capacity);
+        influences = Arrays.copyOf(influences, capacity);
+        convictions = Arrays.copyOf(convictions, capacity);
+        bids = Arrays.copyOf(bids, capacity);
+        roundsAlive = Arrays.copyOf(roundsAlive, capacity);
+        cooldownTurns = Arrays.copyOf(cooldownTurns, capacity);
+        parentSlots = Arrays.copyOf(parentSlots, capacity);
+        parentGenerations = Arrays.copyOf(parentGenerations, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+    }
+}
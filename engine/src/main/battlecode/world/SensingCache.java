@@ -0,0 +1,86 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+
+/**
+ * Remembers a robot's most recent sensing results, so that repeating the
+ * same query is cheap as long as nothing in the queried area has changed.
+ *
+ * A result is reused only if the query matches, the sensing robot itself is
+ * unchanged (its location and type affect what it can sense), and no region
+ * of the map overlapping the query has been stamped with a newer world
+ * version than the result.
+ *
+ * Results are returned as-is; callers must copy them before handing them to
+ * players.
+ *
+ * @param <T> the element type of the cached results
+ */
+final strictfp class SensingCache<T> {
+
+    /**
+     * The number of results remembered at once.
+     */
+    private static final int SIZE = 4;
+
+    private final MapLocation[] centers;
+    private final int[] radiiSquared;
+    private final Team[] teams;
+    private final int[] observerVersions;
+    private final int[] worldVersions;
+    private final Object[][] results;
+
+    /**
+     * The entry to overwrite next.
+     */
+    private int next;
+
+    SensingCache() {
+        this.centers = new MapLocation[SIZE];
+        this.radiiSquared = new int[SIZE];
+        this.teams = new Team[SIZE];
+        this.observerVersions = new int[SIZE];
+        this.worldVersions = new int[SIZE];
+        this.results = new Object[SIZE][];
+        this.next = 0;
+    }
+
+    /**
+     * @param world the world being sensed
+     * @param observer the robot sensing
+     * @param center the center of the query
+     * @param radiusSquared the radius squared of the query
+     * @param team the team filter of the query, or null
+     * @return the cached result of the query, or null if there is no valid one
+     */
+    @SuppressWarnings("unchecked")
+    T[] get(GameWorld world, InternalRobot observer, MapLocation center, int radiusSquared, Team team) {
+        for (int i = 0; i < SIZE; i++) {
+            if (results[i] != null
+                    && radiiSquared[i] == radiusSquared
+                    && teams[i] == team
+                    && observerVersions[i] == observer.getVersion()
+                    && centers[i].equals(center)) {
+                if (world.isAreaUnchangedSince(center, radiusSquared, worldVersions[i]))
+                    return (T[]) results[i];
+                results[i] = null;
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers the result of a query, computed at the world's current version.
+     */
+    void put(GameWorld world, InternalRobot observer, MapLocation center, int radiusSquared, Team team, T[] result) {
+        centers[next] = center;
+        radiiSquared[next] = radiusSquared;
+        teams[next] = team;
+        observerVersions[next] = observer.getVersion();
+        worldVersions[next] = world.getWorldVersion();
+        results[next] = result;
+        next = (next + 1) % SIZE;
+    }
+}
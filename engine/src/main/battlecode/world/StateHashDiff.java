@@ -0,0 +1,162 @@
+package battlecode.world;
+
+import gnu.trove.map.hash.TIntLongHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Compares two state hash logs written by StateHashLog, and reports the
+ * first round at which the runs diverged and the robots whose state
+ * differed then.
+ *
+ * Usage: StateHashDiff &lt;log A&gt; &lt;log B&gt;
+ *
+ * Exits with 0 if the runs match, 1 if they diverge, 2 on error.
+ */
+public class StateHashDiff {
+
+    /**
+     * A "match" or "round" line of a log, with the robot lines under it.
+     */
+    private static class Block {
+        final String header;
+        final TIntLongHashMap robots = new TIntLongHashMap();
+
+        Block(String header) {
+            this.header = header;
+        }
+
+        boolean isMatch() {
+            return header.startsWith("match ");
+        }
+    }
+
+    /**
+     * One of the two logs being compared.
+     */
+    private static class Run {
+        final String name;
+        final BufferedReader in;
+        String nextLine;
+
+        /**
+         * The current hash of every robot in the current match.
+         */
+        final TIntLongHashMap robots = new TIntLongHashMap();
+
+        Run(String name, File file) throws IOException {
+            this.name = name;
+            this.in = new BufferedReader(new FileReader(file));
+            this.nextLine = in.readLine();
+        }
+
+        /**
+         * @return the next block, or null at the end of the log
+         */
+        Block next() throws IOException {
+            if (nextLine == null)
+                return null;
+            Block block = new Block(nextLine);
+            while ((nextLine = in.readLine()) != null && nextLine.startsWith(" ")) {
+                String[] parts = nextLine.trim().split(" ");
+                block.robots.put(Integer.parseInt(parts[0]), Long.parseUnsignedLong(parts[1], 16));
+            }
+            if (block.isMatch())
+                robots.clear();
+            else
+                robots.putAll(block.robots);
+            return block;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: StateHashDiff <log A> <log B>");
+            System.exit(2);
+        }
+        try {
+            System.exit(compare(new File(args[0]), new File(args[1]), System.out) ? 0 : 1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Can't compare state hashes: " + e);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Compares two logs, printing a report.
+     *
+     * @return whether the logs match
+     */
+    public static boolean compare(File fileA, File fileB, PrintStream out) throws IOException {
+        Run a = new Run("A", fileA);
+        Run b = new Run("B", fileB);
+        String match = null;
+        int rounds = 0;
+        try {
+            while (true) {
+                Block blockA = a.next();
+                Block blockB = b.next();
+                if (blockA == null && blockB == null) {
+                    out.println("No divergence in " + rounds + " rounds");
+                    return true;
+                }
+                if (blockA == null || blockB == null) {
+                    Run shorter = blockA == null ? a : b;
+                    out.println("Run " + shorter.name + " ends early, in " + match);
+                    return false;
+                }
+                if (blockA.isMatch() || blockB.isMatch()) {
+                    if (!blockA.header.equals(blockB.header)) {
+                        out.println("Runs differ in structure: \"" + blockA.header + "\" vs \"" + blockB.header + "\"");
+                        return false;
+                    }
+                    match = blockA.header;
+                    continue;
+                }
+
+                String[] headerA = blockA.header.split(" ");
+                String[] headerB = blockB.header.split(" ");
+                if (!headerA[1].equals(headerB[1])) {
+                    out.println("Runs differ in structure, in " + match + ": \"" + blockA.header + "\" vs \"" + blockB.header + "\"");
+                    return false;
+                }
+                if (!headerA[2].equals(headerB[2])) {
+                    reportDivergence(out, match, headerA[1], a, b, blockA, blockB);
+                    return false;
+                }
+                rounds++;
+            }
+        } finally {
+            a.in.close();
+            b.in.close();
+        }
+    }
+
+    private static void reportDivergence(PrintStream out, String match, String round,
+                                         Run a, Run b, Block blockA, Block blockB) {
+        out.println("First divergence: " + match + ", round " + round);
+
+        // Robots matched before this round, so only ones that changed in it can differ
+        TIntHashSet candidates = new TIntHashSet(blockA.robots.keySet());
+        candidates.addAll(blockB.robots.keySet());
+        int[] ids = candidates.toArray();
+        Arrays.sort(ids);
+        int differing = 0;
+        for (int id : ids) {
+            long hashA = a.robots.get(id);
+            long hashB = b.robots.get(id);
+            if (hashA != hashB) {
+                out.println("  robot " + id + ": " + describe(a, hashA) + ", " + describe(b, hashB));
+                differing++;
+            }
+        }
+        if (differing == 0)
+            out.println("  no robot differs; team votes or buffs do");
+    }
+
+    private static String describe(Run run, long hash) {
+        return run.name + " " + (hash == 0 ? "absent" : Long.toHexString(hash));
+    }
+}
@@ -0,0 +1,91 @@
+package battlecode.world;
+
+import gnu.trove.map.hash.TIntLongHashMap;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Records world state hashes round by round, so that two runs of the same
+ * game can be compared with StateHashDiff to find where they diverged.
+ *
+ * The log is a text file. Each match starts with a line
+ *
+ * <pre>match &lt;index&gt; &lt;map&gt;</pre>
+ *
+ * followed, for every round, by
+ *
+ * <pre>round &lt;round&gt; &lt;world hash&gt;</pre>
+ *
+ * and one indented line per robot whose state hash changed during the
+ * round, in increasing ID order:
+ *
+ * <pre> &lt;robot id&gt; &lt;robot hash&gt;</pre>
+ *
+ * Hashes are written in hex. A robot hash of 0 means the robot left the
+ * world. Changes made before the first round are listed under it.
+ */
+public class StateHashLog implements Closeable {
+
+    private final Writer out;
+
+    /**
+     * The latest hash of each robot that changed this round.
+     */
+    private final TIntLongHashMap changed;
+
+    public StateHashLog(File file) throws IOException {
+        this(new BufferedWriter(new FileWriter(file)));
+    }
+
+    public StateHashLog(Writer out) {
+        this.out = out;
+        this.changed = new TIntLongHashMap();
+    }
+
+    /**
+     * Must be called before each match's world is created.
+     */
+    public void startMatch(int matchIndex, String mapName) {
+        this.changed.clear();
+        write("match " + matchIndex + " " + mapName + "\n");
+    }
+
+    void robotChanged(int id, long hash) {
+        this.changed.put(id, hash);
+    }
+
+    void endRound(int round, long worldHash) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("round ").append(round).append(' ').append(Long.toHexString(worldHash)).append('\n');
+        int[] ids = this.changed.keys();
+        Arrays.sort(ids);
+        for (int id : ids)
+            sb.append(' ').append(id).append(' ').append(Long.toHexString(this.changed.get(id))).append('\n');
+        this.changed.clear();
+        write(sb.toString());
+    }
+
+    private void write(String s) {
+        try {
+            this.out.write(s);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write state hashes", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    /**
+     * Mixes the bits of a value; the finalizer of the SplitMix64 generator.
+     * Used to build state hashes.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
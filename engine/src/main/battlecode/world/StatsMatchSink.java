@@ -0,0 +1,292 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.schema.Action;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A MatchSink that keeps only totals for each round, for analysis that
+ * doesn't need a whole replay. The totals are kept in a column per
+ * statistic while the match is played, and written out as CSV when it
+ * ends, gzipped if the file name ends in ".gz".
+ *
+ * There is a row per round, with columns "match" (counting from 0) and
+ * "round", then for each of teams A and B, prefixed "a_" or "b_":
+ * <ul>
+ *     <li>the number of robots of each type, such as "a_politician", at
+ *         the end of the round;</li>
+ *     <li>"a_influence" and "a_conviction", the totals over the team's
+ *         robots at the end of the round;</li>
+ *     <li>"a_votes" and "a_buffs", the team's votes and buffs after the
+ *         round;</li>
+ *     <li>"a_bids", the influence the team bid during the round;</li>
+ *     <li>"a_spawned" and "a_died", the robots that appeared and went
+ *         during the round, counting robots converted from the other team
+ *         as spawned, and converted away as died;</li>
+ *     <li>"a_empowers" and "a_exposes", the actions taken during the
+ *         round;</li>
+ *     <li>"a_bytecodes", the bytecodes used during the round.</li>
+ * </ul>
+ *
+ * The state at the end of each round comes from the world through the
+ * keyframe methods, which this sink asks for every round. It doesn't
+ * record robot output.
+ */
+public class StatsMatchSink implements MatchSink, Closeable {
+
+    private static final Team[] TEAMS = {Team.A, Team.B};
+
+    private static final RobotType[] TYPES = RobotType.values();
+
+    // The columns of each team, after its robot counts
+    private static final int INFLUENCE = 0;
+    private static final int CONVICTION = 1;
+    private static final int VOTES = 2;
+    private static final int BUFFS = 3;
+    private static final int BIDS = 4;
+    private static final int SPAWNED = 5;
+    private static final int DIED = 6;
+    private static final int EMPOWERS = 7;
+    private static final int EXPOSES = 8;
+    private static final int BYTECODES = 9;
+    private static final String[] TEAM_COLUMNS = {
+            "influence", "conviction", "votes", "buffs", "bids",
+            "spawned", "died", "empowers", "exposes", "bytecodes"
+    };
+
+    private static final int TEAM_WIDTH = TYPES.length + TEAM_COLUMNS.length;
+
+    private final Writer out;
+
+    /**
+     * The statistics of each round of the current match, by column: the
+     * round, then each team's columns.
+     */
+    private final TLongArrayList[] columns;
+
+    /**
+     * The row being filled in.
+     */
+    private final long[] row;
+
+    /**
+     * The team of each robot in the match, by ID, as Team ordinals.
+     */
+    private final TIntIntHashMap teams;
+
+    /**
+     * The robots that died this round. They're kept in teams until the
+     * round ends, since a robot that dies on its turn still reports the
+     * bytecodes it used.
+     */
+    private final TIntArrayList died;
+
+    private int matchIndex;
+
+    public StatsMatchSink(File file) throws IOException {
+        this(file.getName().endsWith(".gz")
+                ? new GZIPOutputStream(new FileOutputStream(file), 1 << 16)
+                : new FileOutputStream(file));
+    }
+
+    public StatsMatchSink(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.columns = new TLongArrayList[1 + TEAMS.length * TEAM_WIDTH];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new TLongArrayList();
+        }
+        this.row = new long[columns.length];
+        this.teams = new TIntIntHashMap();
+        this.died = new TIntArrayList();
+
+        List<String> names = new ArrayList<>();
+        names.add("match");
+        names.add("round");
+        for (Team team : TEAMS) {
+            String prefix = team.name().toLowerCase() + "_";
+            for (RobotType type : TYPES) {
+                names.add(prefix + type.name().toLowerCase());
+            }
+            for (String name : TEAM_COLUMNS) {
+                names.add(prefix + name);
+            }
+        }
+        this.out.write(String.join(",", names));
+        this.out.write('\n');
+    }
+
+    /**
+     * @return the index in row of a team's column
+     */
+    private static int column(int team, int column) {
+        return 1 + team * TEAM_WIDTH + TYPES.length + column;
+    }
+
+    /**
+     * Add to a team's column of the current row, if it's team A or B.
+     */
+    private void add(int team, int column, long amount) {
+        if (team < TEAMS.length) {
+            row[column(team, column)] += amount;
+        }
+    }
+
+    /**
+     * Add to the column of the team of a robot.
+     */
+    private void addForRobot(int id, int column, long amount) {
+        if (teams.containsKey(id)) {
+            add(teams.get(id), column, amount);
+        }
+    }
+
+    @Override
+    public void makeMatchHeader(LiveMap gameMap) {
+        // The bodies on the map aren't counted as spawned in the first round,
+        // but their teams are kept
+        Arrays.fill(row, 0);
+        for (TLongArrayList column : columns) {
+            column.resetQuick();
+        }
+    }
+
+    @Override
+    public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
+        try {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < columns[0].size(); i++) {
+                line.setLength(0);
+                line.append(matchIndex);
+                for (TLongArrayList column : columns) {
+                    line.append(',').append(column.get(i));
+                }
+                line.append('\n');
+                out.write(line.toString());
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write match statistics", e);
+        }
+        matchIndex++;
+        teams.clear();
+        died.clear();
+    }
+
+    /**
+     * Start a row: the events of the round are in; the state at its end
+     * comes with the keyframe.
+     */
+    @Override
+    public void makeRound(int roundNum) {
+        row[0] = roundNum;
+    }
+
+    @Override
+    public boolean isKeyframeRound(int roundNum) {
+        return true;
+    }
+
+    @Override
+    public void makeKeyframe(int roundNum) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(row[i]);
+        }
+        Arrays.fill(row, 0);
+        for (int i = 0; i < died.size(); i++) {
+            teams.remove(died.get(i));
+        }
+        died.clear();
+    }
+
+    @Override
+    public void addKeyframeRobot(InternalRobot robot) {
+        int team = robot.getTeam().ordinal();
+        if (team < TEAMS.length) {
+            row[1 + team * TEAM_WIDTH + robot.getType().ordinal()]++;
+            add(team, INFLUENCE, robot.getInfluence());
+            add(team, CONVICTION, robot.getConviction());
+        }
+    }
+
+    @Override
+    public void addKeyframeTeamInfo(Team team, int votes, int numBuffs) {
+        add(team.ordinal(), VOTES, votes);
+        add(team.ordinal(), BUFFS, numBuffs);
+    }
+
+    /**
+     * @return a stream that throws robots' output away
+     */
+    @Override
+    public OutputStream getOut() {
+        return NullOutputStream.NULL_OUTPUT_STREAM;
+    }
+
+    @Override
+    public void addMoved(int id, MapLocation newLocation) {
+    }
+
+    @Override
+    public void addDied(int id) {
+        addForRobot(id, DIED, 1);
+        died.add(id);
+    }
+
+    @Override
+    public void addAction(int userID, byte action, int targetID) {
+        switch (action) {
+            case Action.EMPOWER:
+                addForRobot(userID, EMPOWERS, 1);
+                break;
+            case Action.EXPOSE:
+                addForRobot(userID, EXPOSES, 1);
+                break;
+            case Action.PLACE_BID:
+                addForRobot(userID, BIDS, targetID);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void addTeamInfo(Team team, int vote, int bidderID, int numBuffs) {
+    }
+
+    @Override
+    public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
+    }
+
+    @Override
+    public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
+    }
+
+    @Override
+    public void addBytecodes(int id, int bytecodes) {
+        addForRobot(id, BYTECODES, bytecodes);
+    }
+
+    @Override
+    public void addSpawnedRobot(InternalRobot robot) {
+        teams.put(robot.getID(), robot.getTeam().ordinal());
+        add(robot.getTeam().ordinal(), SPAWNED, 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
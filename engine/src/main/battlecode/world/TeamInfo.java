@@ -10,18 +10,66 @@ import java.util.*;
  */
 public class TeamInfo {
 
+    /**
+     * Buffs are added at the end of a round and expire EXPOSE_BUFF_NUM_ROUNDS
+     * rounds after the next one, so at any time they expire at one of this
+     * many upcoming rounds.
+     */
+    private static final int BUFF_WINDOW = GameConstants.EXPOSE_BUFF_NUM_ROUNDS + 1;
+
+    /**
+     * EXPOSE_BUFF_FACTOR raised to small powers, computed with Math.pow so that
+     * lookups give exactly the same result as computing them directly.
+     */
+    private static final double[] BUFF_POWERS = new double[4096];
+    static {
+        for (int i = 0; i < BUFF_POWERS.length; i++)
+            BUFF_POWERS[i] = Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, i);
+    }
+
     private GameWorld gameWorld;
     private int[] teamVotes;
     private int[] numBuffs;
-    private Map<Integer, TreeMap<Integer, Integer>> buffExpirations; // team -> round number, number of buffs expiring at the beginning of that round
+
+    /**
+     * The round numBuffs was last brought up to date for. Buffs still in
+     * effect expire at the beginning of a round in
+     * (lastUpdatedRound, lastUpdatedRound + BUFF_WINDOW].
+     */
+    private int lastUpdatedRound;
+
+    /**
+     * expiredBy[team][r % BUFF_WINDOW] is the number of buffs ever added to the
+     * team that expire at the beginning of round r or earlier, for each round r
+     * in the window above; expiredByLastUpdate[team] is the same for
+     * lastUpdatedRound. Their difference is the number of buffs in effect now
+     * but gone by round r.
+     */
+    private long[][] expiredBy;
+    private long[] expiredByLastUpdate;
 
     public TeamInfo(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
         this.teamVotes = new int[2];
         this.numBuffs = new int[2];
-        this.buffExpirations = new HashMap<>();
-        for (int i = 0; i < 2; i++)
-            this.buffExpirations.put(i, new TreeMap<>());
+        this.lastUpdatedRound = 0;
+        this.expiredBy = new long[2][BUFF_WINDOW];
+        this.expiredByLastUpdate = new long[2];
+    }
+
+    /**
+     * Creates a copy of another world's team info.
+     *
+     * @param gameWorld the world the copy belongs to
+     * @param base the team info to copy
+     */
+    public TeamInfo(GameWorld gameWorld, TeamInfo base) {
+        this.gameWorld = gameWorld;
+        this.teamVotes = base.teamVotes.clone();
+        this.numBuffs = base.numBuffs.clone();
+        this.lastUpdatedRound = base.lastUpdatedRound;
+        this.expiredBy = new long[][] {base.expiredBy[0].clone(), base.expiredBy[1].clone()};
+        this.expiredByLastUpdate = base.expiredByLastUpdate.clone();
     }
 
     // *********************************
@@ -35,28 +83,28 @@ public class TeamInfo {
 
     // returns current buff
     public double getBuff(Team t) {
-        return Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, this.numBuffs[t.ordinal()]);
+        return buffForNumBuffs(this.numBuffs[t.ordinal()]);
     }
 
     // returns the buff at specified round
     public double getBuff(Team t, int roundNumber) {
-        int buffs = getNumBuffs(t, roundNumber);
-        return Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, buffs);
+        return buffForNumBuffs(getNumBuffs(t, roundNumber));
     }
 
     // returns the number of buffs at specified round
     public int getNumBuffs(Team t, int roundNumber) {
         int teamIdx = t.ordinal();
-        int buffs = numBuffs[teamIdx];
-        TreeMap<Integer, Integer> map = this.buffExpirations.get(teamIdx);
-        for (int round : map.keySet()) {
-            if (round <= roundNumber) {
-                buffs -= map.get(round);
-            } else {
-                break; // treemaps are in increasing order
-            }
-        }
-        return buffs;
+        if (roundNumber <= this.lastUpdatedRound)
+            return this.numBuffs[teamIdx];
+        int lastRound = Math.min(roundNumber, this.lastUpdatedRound + BUFF_WINDOW);
+        long expiring = this.expiredBy[teamIdx][lastRound % BUFF_WINDOW] - this.expiredByLastUpdate[teamIdx];
+        return this.numBuffs[teamIdx] - (int) expiring;
+    }
+
+    private static double buffForNumBuffs(int buffs) {
+        if (buffs >= 0 && buffs < BUFF_POWERS.length)
+            return BUFF_POWERS[buffs];
+        return Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, buffs);
     }
 
     // *********************************
@@ -70,30 +118,38 @@ public class TeamInfo {
     // called at the end of every round
     public void addBuffs(int nextRound, Team t, int buffs) {
         int teamIdx = t.ordinal();
-        this.numBuffs[teamIdx] += buffs;
-        TreeMap<Integer, Integer> map = this.buffExpirations.get(teamIdx);
         int expirationRound = nextRound + GameConstants.EXPOSE_BUFF_NUM_ROUNDS;
-        map.put(expirationRound, map.getOrDefault(expirationRound, 0) + buffs);
+        int lastRound = this.lastUpdatedRound + BUFF_WINDOW;
+        if (expirationRound <= this.lastUpdatedRound || expirationRound > lastRound)
+            throw new IllegalArgumentException("Buffs must be added for the round after round " + this.lastUpdatedRound);
+        this.numBuffs[teamIdx] += buffs;
+        // Normally expirationRound == lastRound, so this touches one entry
+        long[] teamExpiredBy = this.expiredBy[teamIdx];
+        for (int round = expirationRound; round <= lastRound; round++)
+            teamExpiredBy[round % BUFF_WINDOW] += buffs;
     }
 
     // called at the beginning of every round
     public void updateNumBuffs(int currentRound) {
+        if (currentRound <= this.lastUpdatedRound)
+            return;
         updateNumBuffs(currentRound, Team.A);
         updateNumBuffs(currentRound, Team.B);
+        this.lastUpdatedRound = currentRound;
     }
 
     private void updateNumBuffs(int currentRound, Team t) {
         int teamIdx = t.ordinal();
-        TreeMap<Integer, Integer> map = this.buffExpirations.get(teamIdx);
-        Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<Integer, Integer> item = it.next();
-            if (item.getKey() <= currentRound) {
-                this.numBuffs[teamIdx] -= item.getValue();
-                it.remove();
-            } else {
-                break; // treemaps are in increasing order
-            }
-        }
+        long[] teamExpiredBy = this.expiredBy[teamIdx];
+        int oldLastRound = this.lastUpdatedRound + BUFF_WINDOW;
+        long expiredByOldLastRound = teamExpiredBy[oldLastRound % BUFF_WINDOW];
+        long expiredByNow = teamExpiredBy[Math.min(currentRound, oldLastRound) % BUFF_WINDOW];
+        this.numBuffs[teamIdx] -= (int) (expiredByNow - this.expiredByLastUpdate[teamIdx]);
+        this.expiredByLastUpdate[teamIdx] = expiredByNow;
+
+        // Rounds newly entering the window have nothing expiring at them yet
+        int newLastRound = currentRound + BUFF_WINDOW;
+        for (int round = Math.max(oldLastRound + 1, newLastRound - BUFF_WINDOW + 1); round <= newLastRound; round++)
+            teamExpiredBy[round % BUFF_WINDOW] = expiredByOldLastRound;
     }
 }
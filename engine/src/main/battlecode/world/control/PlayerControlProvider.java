@@ -6,6 +6,7 @@ import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.instrumenter.profiler.Profiler;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
@@ -70,6 +71,11 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private int matchId = -1;
 
+    /**
+     * The options robots are run with.
+     */
+    private final Config options;
+
     /**
      * Create a new PlayerControlProvider.
      *
@@ -84,9 +90,32 @@ public class PlayerControlProvider implements RobotControlProvider {
                                  String teamURL,
                                  OutputStream robotOut,
                                  boolean profilingEnabled) {
+        this(team, teamPackage, new TeamClassLoaderFactory(teamURL), robotOut, profilingEnabled,
+                Config.getGlobalConfig());
+    }
+
+    /**
+     * Create a new PlayerControlProvider that loads classes through an
+     * existing factory, which may be shared with other providers, and runs
+     * robots with the given options rather than the global config.
+     *
+     * @param team             the team we're loading
+     * @param teamPackage      the name / package of the team we're loading
+     * @param factory          the factory to load the team's classes with
+     * @param robotOut         the output that robots should write to
+     * @param profilingEnabled whether profiling is enabled or not
+     * @param options          the options to run robots with
+     */
+    public PlayerControlProvider(Team team,
+                                 String teamPackage,
+                                 TeamClassLoaderFactory factory,
+                                 OutputStream robotOut,
+                                 boolean profilingEnabled,
+                                 Config options) {
         this.teamPackage = teamPackage;
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
-        this.factory = new TeamClassLoaderFactory(teamURL);
+        this.factory = factory;
+        this.options = options;
         this.robotOut = robotOut;
         this.team = team;
 
@@ -132,7 +161,8 @@ public class PlayerControlProvider implements RobotControlProvider {
                     robot.getID(),
                     factory.createLoader(profiler != null),
                     robotOut,
-                    profiler
+                    profiler,
+                    options
             );
             this.sandboxes.put(robot.getID(), player);
         } catch (InstrumentationException e) {
@@ -0,0 +1,132 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.world.DominationFactor;
+import battlecode.world.LiveMap;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BatchTest {
+
+    /**
+     * Records the matches it's asked to run instead of running them; team
+     * A always wins.
+     */
+    private static class RecordingRunner extends MatchRunner {
+        final List<String> matches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public MatchResult run(MatchSpec spec) {
+            matches.add(spec.getTeamAName() + " " + spec.getTeamBName() + " " + spec.getMapName());
+            return new MatchResult(spec, Team.A, DominationFactor.MORE_VOTES, 1500, null);
+        }
+    }
+
+    private static final List<Batch.Entrant> TEAMS = Arrays.asList(
+            Batch.Entrant.parse("red=/red"),
+            Batch.Entrant.parse("green=/green"),
+            Batch.Entrant.parse("blue=/blue"));
+
+    private static final List<LiveMap> MAPS = Arrays.asList(
+            TestMapBuilder.twoCenters("small", 20), TestMapBuilder.twoCenters("big", 40));
+
+    private static File output(String suffix, String contents) throws IOException {
+        File file = File.createTempFile("batch", suffix);
+        file.deleteOnExit();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testParseEntrant() {
+        Batch.Entrant plain = Batch.Entrant.parse("red=/teams/red");
+        assertEquals("red", plain.name);
+        assertEquals("red", plain.teamPackage);
+        assertEquals("/teams/red", plain.url);
+
+        Batch.Entrant packaged = Batch.Entrant.parse("red=org.red@/teams/red=1.jar");
+        assertEquals("red", packaged.name);
+        assertEquals("org.red", packaged.teamPackage);
+        assertEquals("/teams/red=1.jar", packaged.url);
+
+        for (String bad : new String[] {"red", "=/teams/red"}) {
+            try {
+                Batch.Entrant.parse(bad);
+                fail(bad);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testPlaysEveryPairingBiggestMapFirst() throws IOException {
+        File output = output(".csv", "");
+        RecordingRunner runner = new RecordingRunner();
+        assertTrue(new Batch(TEAMS, MAPS, output, 1, new Properties(), runner).run());
+
+        assertEquals(Arrays.asList(
+                "red green big", "red blue big", "green blue big",
+                "red green small", "red blue small", "green blue small"), runner.matches);
+
+        List<String> lines = lines(output);
+        assertEquals(7, lines.size());
+        assertEquals("team_a,team_b,map,winner,winner_side,reason,rounds", lines.get(0));
+        assertEquals("red,green,big,red,A,MORE_VOTES,1500", lines.get(1));
+    }
+
+    @Test
+    public void testResumesCsv() throws IOException {
+        File output = output(".csv", "team_a,team_b,map,winner,winner_side,reason,rounds\n"
+                + "red,green,big,red,A,MORE_VOTES,1500\n"
+                + "green,blue,small,green,A,MORE_VOTES,1500\n"
+                + "red,blue,bi");
+        RecordingRunner runner = new RecordingRunner();
+        assertTrue(new Batch(TEAMS, MAPS, output, 1, new Properties(), runner).run());
+
+        // The truncated line's match is played again, and its remains dropped
+        assertEquals(Arrays.asList("red blue big", "green blue big", "red green small", "red blue small"),
+                runner.matches);
+        List<String> lines = lines(output);
+        assertEquals(7, lines.size());
+        assertEquals("green,blue,small,green,A,MORE_VOTES,1500", lines.get(2));
+        assertEquals("red,blue,big,red,A,MORE_VOTES,1500", lines.get(3));
+    }
+
+    @Test
+    public void testResumesJsonl() throws IOException {
+        File output = output(".jsonl",
+                "{\"teamA\":\"red\",\"teamB\":\"green\",\"map\":\"big\",\"winner\":\"red\","
+                        + "\"winnerSide\":\"A\",\"reason\":\"MORE_VOTES\",\"rounds\":1500}\n"
+                        + "{\"teamA\":\"red\",\"teamB\":\"blue\",\"map\":\"big\",\"win");
+        RecordingRunner runner = new RecordingRunner();
+        assertTrue(new Batch(TEAMS, MAPS, output, 1, new Properties(), runner).run());
+
+        assertEquals(5, runner.matches.size());
+        assertFalse(runner.matches.contains("red green big"));
+        assertTrue(runner.matches.contains("red blue big"));
+        List<String> lines = lines(output);
+        assertEquals(6, lines.size());
+        for (String line : lines) {
+            assertTrue(line, line.endsWith("\"rounds\":1500}"));
+        }
+
+        // Everything's done now
+        runner = new RecordingRunner();
+        assertTrue(new Batch(TEAMS, MAPS, output, 1, new Properties(), runner).run());
+        assertTrue(runner.matches.isEmpty());
+        assertEquals(6, lines(output).size());
+    }
+}
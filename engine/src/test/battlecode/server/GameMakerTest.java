@@ -4,22 +4,34 @@ import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
+import battlecode.schema.Action;
 import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
 import battlecode.schema.GameHeader;
 import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+import battlecode.util.RoundCodec;
 import battlecode.util.TeamMapping;
 import battlecode.world.TestMapBuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
@@ -37,6 +49,19 @@ public class GameMakerTest {
                     new String[] {"honolulu"}, null, false
     );
 
+    /**
+     * @return replay options, compressed on the calling thread and without
+     *         Keyframes unless given otherwise
+     */
+    static Config options(String... keysAndValues) {
+        Properties options = new Properties();
+        options.setProperty("bc.server.replay-compression-threads", "0");
+        options.setProperty("bc.server.keyframe-interval", "0");
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            options.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        return new Config(options);
+    }
+
     @Test(expected=RuntimeException.class)
     public void testStateExceptions() {
         GameMaker gm = new GameMaker(info, null, true);
@@ -51,6 +76,213 @@ public class GameMakerTest {
         gm.getMatchMaker().makeMatchFooter(Team.A, 23, new ArrayList<>());
     }
     
+    @Test
+    public void testEventStream() throws Exception {
+        NetServer mockServer = Mockito.mock(NetServer.class);
+        GameMaker gm = new GameMaker(info, mockServer, true);
+
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(2, -3))
+                .addEnlightenmentCenter(1, Team.B, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(7, 2))
+                .build());
+        mm.addMoved(0, new MapLocation(3, -2));
+        mm.makeRound(1);
+        mm.addDied(0);
+        mm.makeRound(2);
+        mm.makeMatchFooter(Team.B, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.B);
+
+        ByteBuffer file = ByteBuffer.wrap(ungzip(gm.toBytes())).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[4];
+        file.get(magic);
+        assertArrayEquals(ReplayWriter.STREAM_MAGIC, magic);
+        assertEquals(ReplayWriter.STREAM_VERSION, file.getInt());
+
+        List<byte[]> events = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        while (true) {
+            offsets.add(file.position());
+            int size = file.getInt();
+            if (size == 0)
+                break;
+            byte[] event = new byte[size];
+            file.get(event);
+            events.add(event);
+        }
+        int indexOffset = offsets.remove(offsets.size() - 1);
+
+        byte[] types = {Event.GameHeader, Event.MatchHeader, Event.Round, Event.Round, Event.MatchFooter, Event.GameFooter};
+        assertEquals(types.length, events.size());
+        for (int i = 0; i < types.length; i++) {
+            EventWrapper event = EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(events.get(i)));
+            assertEquals(types[i], event.eType());
+        }
+
+        // the index at the end points back at each event
+        assertEquals(types.length, file.getInt());
+        for (int i = 0; i < types.length; i++)
+            assertEquals((long) offsets.get(i), file.getLong());
+        for (int i = 0; i < types.length; i++)
+            assertEquals(types[i], file.get());
+        int[] rounds = {0, 0, 1, 2, 0, 0};
+        for (int i = 0; i < types.length; i++)
+            assertEquals(rounds[i], file.getInt());
+        assertEquals(indexOffset, file.getLong());
+        file.get(magic);
+        assertArrayEquals(ReplayWriter.INDEX_MAGIC, magic);
+        assertFalse(file.hasRemaining());
+
+        GameHeader h = (GameHeader) EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(events.get(0))).e(new GameHeader());
+        assertEquals(GameConstants.SPEC_VERSION, h.specVersion());
+        assertEquals("bananas", h.teams(0).name());
+        assertEquals("org.yellow", h.teams(1).packageName());
+
+        // the client gets exactly the events in the file
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        verify(mockServer, times(types.length)).addEvent(sent.capture());
+        for (int i = 0; i < types.length; i++) {
+            assertTrue(Arrays.equals(events.get(i), sent.getAllValues().get(i)));
+        }
+    }
+
+    private byte[] playRounds(GameMaker gm, int rounds) {
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 10, 10, 1337, rounds)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(0, 0))
+                .addEnlightenmentCenter(1, Team.B, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(9, 9))
+                .build());
+        for (int round = 1; round <= rounds; round++) {
+            mm.addMoved(round, new MapLocation(round % 10, round / 10 % 10));
+            mm.addAction(round, Action.SET_FLAG, round * 7);
+            mm.addBytecodes(round, round * 100);
+            new PrintStream(mm.getOut(), true).println("round " + round);
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, rounds, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+        return gm.toBytes();
+    }
+
+    @Test
+    public void testRoundQueue() throws Exception {
+        // Rounds written on their own thread come out as if written in turn
+        byte[] expected = ungzip(playRounds(new GameMaker(info, null, options("bc.server.replay-round-queue", "0")), 200));
+        byte[] queued = ungzip(playRounds(new GameMaker(info, null, options("bc.server.replay-round-queue", "2")), 200));
+        assertArrayEquals(expected, queued);
+    }
+
+    @Test
+    public void testKeyframes() throws Exception {
+        GameMaker gm = new GameMaker(info, null, options(
+                "bc.server.replay-round-queue", "2",
+                "bc.server.keyframe-interval", "2"));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 10, 10, 1337, 5)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(0, 0))
+                .build());
+        for (int round = 1; round <= 5; round++) {
+            mm.makeRound(round);
+            if (mm.isKeyframeRound(round)) {
+                mm.addKeyframeTeamInfo(Team.A, round, 7);
+                mm.addKeyframeTeamInfo(Team.B, 0, 0);
+                mm.makeKeyframe(round);
+            }
+        }
+        mm.makeMatchFooter(Team.A, 5, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        ByteBuffer file = ByteBuffer.wrap(ungzip(gm.toBytes())).order(ByteOrder.LITTLE_ENDIAN);
+        file.position(file.limit() - 12);
+        file.position((int) file.getLong() + 4);
+        int count = file.getInt();
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++)
+            offsets[i] = file.getLong();
+        byte[] types = new byte[count];
+        file.get(types);
+        int[] rounds = new int[count];
+        for (int i = 0; i < count; i++)
+            rounds[i] = file.getInt();
+
+        assertArrayEquals(new byte[] {Event.GameHeader, Event.MatchHeader, Event.Round, Event.Round, Event.Keyframe,
+                Event.Round, Event.Round, Event.Keyframe, Event.Round, Event.MatchFooter, Event.GameFooter}, types);
+        assertArrayEquals(new int[] {0, 0, 1, 2, 2, 3, 4, 4, 5, 0, 0}, rounds);
+
+        // the index leads straight to the keyframe
+        file.position((int) offsets[7]);
+        byte[] event = new byte[file.getInt()];
+        file.get(event);
+        Keyframe keyframe = (Keyframe) EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(event)).e(new Keyframe());
+        assertEquals(4, keyframe.roundID());
+        assertEquals(2, keyframe.teamIDsLength());
+        assertEquals(4, keyframe.teamVotes(0));
+        assertEquals(7, keyframe.teamNumBuffs(0));
+        assertEquals(0, keyframe.bodies().robotIDsLength());
+    }
+
+    @Test
+    public void testPackedRounds() throws Exception {
+        GameMaker gm = new GameMaker(info, null, options(
+                "bc.server.replay-round-queue", "2",
+                "bc.server.replay-pack-rounds", "true"));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50)
+                .setPassability()
+                .addEnlightenmentCenter(3, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(2, -3))
+                .addEnlightenmentCenter(9, Team.B, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(7, 2))
+                .build());
+        mm.addMoved(3, new MapLocation(3, -2));
+        mm.addAction(9, Action.SET_FLAG, -5);
+        mm.addBytecodes(9, 15000);
+        mm.addBytecodes(3, 12);
+        mm.makeRound(1);
+        mm.addMoved(3, new MapLocation(3, -3));
+        mm.addDied(9);
+        mm.makeRound(2);
+        mm.makeMatchFooter(Team.A, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        ByteBuffer file = ByteBuffer.wrap(ungzip(gm.toBytes())).order(ByteOrder.LITTLE_ENDIAN);
+        file.position(8);
+        List<EventWrapper> events = new ArrayList<>();
+        for (int size = file.getInt(); size != 0; size = file.getInt()) {
+            byte[] event = new byte[size];
+            file.get(event);
+            events.add(EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(event)));
+        }
+
+        GameHeader h = (GameHeader) events.get(0).e(new GameHeader());
+        assertEquals(RoundCodec.SPEC_VERSION, h.specVersion());
+        RoundCodec codec = new RoundCodec();
+        codec.startMatch(((MatchHeader) events.get(1).e(new MatchHeader())).map());
+
+        Round round = (Round) events.get(2).e(new Round());
+        assertEquals(0, round.movedIDsLength());
+        assertEquals(0, round.bytecodeIDsLength());
+        RoundCodec.Plain plain = codec.unpack(round);
+        assertArrayEquals(new int[] {3}, plain.movedIDs);
+        assertArrayEquals(new int[] {3}, plain.movedXs);
+        assertArrayEquals(new int[] {-2}, plain.movedYs);
+        assertArrayEquals(new int[] {9}, plain.actionIDs);
+        assertArrayEquals(new int[] {-5}, plain.actionTargets);
+        assertArrayEquals(new int[] {9, 3}, plain.bytecodeIDs);
+        assertArrayEquals(new int[] {15000, 12}, plain.bytecodesUsed);
+
+        plain = codec.unpack((Round) events.get(3).e(new Round()));
+        assertArrayEquals(new int[] {3}, plain.movedIDs);
+        assertArrayEquals(new int[] {-3}, plain.movedYs);
+        assertArrayEquals(new int[] {9}, plain.diedIDs);
+        assertArrayEquals(new int[0], plain.actionIDs);
+    }
+
     // @Test
     // public void fullReasonableGame() throws Exception {
     //     NetServer mockServer = Mockito.mock(NetServer.class);
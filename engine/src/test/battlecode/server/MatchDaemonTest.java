@@ -0,0 +1,198 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.instrumenter.URLUtils;
+import battlecode.world.GameMapIO;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class MatchDaemonTest {
+
+    private static Properties request(String... keysAndValues) {
+        Properties request = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            request.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        return request;
+    }
+
+    /**
+     * @return a directory with a small map, "daemon", in it
+     */
+    private static File mapPath() throws IOException {
+        File dir = Files.createTempDirectory("battlecode-maps").toFile();
+        dir.deleteOnExit();
+        GameMapIO.writeMap(TestMapBuilder.twoCenters("daemon", 12), dir);
+        new File(dir, "daemon" + GameMapIO.MAP_EXTENSION).deleteOnExit();
+        return dir;
+    }
+
+    private static Properties runRequest(String id, String teamURL) {
+        return request("id", id,
+                "team-a", "testplayerempty", "team-a.url", teamURL,
+                "team-b", "testplayerempty", "team-b.url", teamURL,
+                "map", "daemon");
+    }
+
+    private static Thread serve(MatchDaemon daemon) {
+        Thread serving = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (InterruptedException e) {
+                // The test is over
+            }
+        });
+        serving.start();
+        return serving;
+    }
+
+    @Test
+    public void testFrames() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MatchDaemon.writeFrame(out, request("id", "1", "map", "café = good"));
+        MatchDaemon.writeFrame(out, request());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(request("id", "1", "map", "café = good"), MatchDaemon.readFrame(in));
+        assertEquals(request(), MatchDaemon.readFrame(in));
+        assertNull(MatchDaemon.readFrame(in));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedFrame() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(MatchDaemon.MAX_FRAME_SIZE + 1);
+        MatchDaemon.readFrame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test(timeout = 10000)
+    public void testRequests() throws Exception {
+        Config options = new Config(request(
+                "bc.daemon.port", "0",
+                "bc.daemon.max-concurrency", "2",
+                "bc.daemon.max-queued", "3"));
+        MatchDaemon daemon = new MatchDaemon(options, new MatchRunner());
+        Thread serving = serve(daemon);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            MatchDaemon.writeFrame(out, request("id", "a", "command", "status"));
+            Properties response = MatchDaemon.readFrame(in);
+            assertEquals("a", response.getProperty("id"));
+            assertEquals("ok", response.getProperty("status"));
+            assertEquals("0", response.getProperty("running"));
+            assertEquals("2", response.getProperty("max-concurrency"));
+            assertEquals("3", response.getProperty("max-queued"));
+
+            MatchDaemon.writeFrame(out, request("id", "b", "team-a", "a", "team-a.url", "/nowhere"));
+            response = MatchDaemon.readFrame(in);
+            assertEquals("b", response.getProperty("id"));
+            assertEquals("error", response.getProperty("status"));
+            assertEquals("Missing team-b", response.getProperty("message"));
+
+            MatchDaemon.writeFrame(out, request("id", "c", "command", "dance"));
+            assertEquals("error", MatchDaemon.readFrame(in).getProperty("status"));
+
+            MatchDaemon.writeFrame(out, request("command", "shutdown"));
+            assertEquals("ok", MatchDaemon.readFrame(in).getProperty("status"));
+        }
+        serving.join();
+    }
+
+    @Test(timeout = 60000)
+    public void testPlaysMatchesAfterHalfClose() throws Exception {
+        Config options = new Config(request(
+                "bc.daemon.port", "0",
+                "bc.daemon.max-concurrency", "1",
+                "bc.daemon.max-queued", "2",
+                "bc.game.map-path", mapPath().getPath()));
+        String teamURL = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+        MatchDaemon daemon = new MatchDaemon(options, new MatchRunner());
+        Thread serving = serve(daemon);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            // Both are still queued or running when the client stops sending
+            MatchDaemon.writeFrame(out, runRequest("a", teamURL));
+            Properties seeded = runRequest("b", teamURL);
+            seeded.setProperty("seed", "7");
+            MatchDaemon.writeFrame(out, seeded);
+            socket.shutdownOutput();
+
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < 2; i++) {
+                Properties response = MatchDaemon.readFrame(in);
+                assertEquals(response.toString(), "ok", response.getProperty("status"));
+                assertNotNull(Team.valueOf(response.getProperty("winner")));
+                assertEquals("testplayerempty", response.getProperty("winner-name"));
+                assertTrue(Integer.parseInt(response.getProperty("rounds")) > 0);
+                assertEquals("false", response.getProperty("cached"));
+                ids.add(response.getProperty("id"));
+            }
+            assertEquals(2, ids.size());
+            assertNull(MatchDaemon.readFrame(in));
+        }
+        daemon.close();
+        serving.join();
+    }
+
+    @Test(timeout = 60000)
+    public void testBusy() throws Exception {
+        Config options = new Config(request(
+                "bc.daemon.port", "0",
+                "bc.daemon.max-concurrency", "1",
+                "bc.daemon.max-queued", "0",
+                "bc.game.map-path", mapPath().getPath()));
+        String teamURL = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+        CountDownLatch release = new CountDownLatch(1);
+        MatchDaemon daemon = new MatchDaemon(options, new MatchRunner() {
+            @Override
+            public MatchResult run(MatchSpec spec) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return super.run(spec);
+            }
+        });
+        Thread serving = serve(daemon);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            // The first holds the only thread, and nothing may wait for it
+            MatchDaemon.writeFrame(out, runRequest("a", teamURL));
+            MatchDaemon.writeFrame(out, runRequest("b", teamURL));
+            Properties response = MatchDaemon.readFrame(in);
+            assertEquals("b", response.getProperty("id"));
+            assertEquals("busy", response.getProperty("status"));
+            assertEquals("too many matches waiting", response.getProperty("message"));
+
+            release.countDown();
+            response = MatchDaemon.readFrame(in);
+            assertEquals("a", response.getProperty("id"));
+            assertEquals("ok", response.getProperty("status"));
+
+            MatchDaemon.writeFrame(out, request("command", "shutdown"));
+            assertEquals("ok", MatchDaemon.readFrame(in).getProperty("status"));
+        }
+        serving.join();
+    }
+}
@@ -0,0 +1,99 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.instrumenter.URLUtils;
+import battlecode.schema.Event;
+import battlecode.world.LiveMap;
+import battlecode.world.TestMapBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatchRunnerTest {
+
+    private static String teamURL;
+
+    @BeforeClass
+    public static void setUpTeam() throws IOException {
+        teamURL = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+    }
+
+    private static LiveMap map() {
+        return TestMapBuilder.twoCenters("runner", 12);
+    }
+
+    private static MatchSpec spec() {
+        return new MatchSpec("testplayerempty", teamURL, "testplayerempty", teamURL, map());
+    }
+
+    @Test
+    public void testRoundStats() throws IOException {
+        MatchResult result = new MatchRunner().run(spec().setCollectRoundStats(true));
+        assertFalse(result.isCached());
+        assertTrue(result.getRounds() > 0);
+
+        List<MatchResult.RoundStats> stats = result.getRoundStats();
+        assertEquals(result.getRounds(), stats.size());
+        for (int i = 0; i < stats.size(); i++) {
+            MatchResult.RoundStats round = stats.get(i);
+            assertEquals(i + 1, round.round);
+            for (int team = 0; team < 2; team++) {
+                assertEquals(1, round.robots[team]);
+                assertEquals(1, round.enlightenmentCenters[team]);
+                assertTrue(round.influence[team] >= 150);
+            }
+        }
+
+        assertNull(new MatchRunner().run(spec()).getRoundStats());
+    }
+
+    /**
+     * @return the random seed in the replay's match header
+     */
+    private static int replaySeed(File replay, MatchResult result) throws IOException {
+        int seed = 0;
+        try (ReplayReader reader = new ReplayReader(replay)) {
+            StringBuilder types = new StringBuilder();
+            while (reader.next()) {
+                if (reader.getType() != Event.Round) {
+                    types.append(Event.name(reader.getType())).append(' ');
+                }
+                switch (reader.getType()) {
+                    case Event.MatchHeader:
+                        assertEquals("runner", reader.getMatchHeader().map().name());
+                        seed = reader.getMatchHeader().map().randomSeed();
+                        break;
+                    case Event.MatchFooter:
+                        assertEquals(result.getRounds(), reader.getMatchFooter().totalRounds());
+                        break;
+                    case Event.GameFooter:
+                        assertEquals(result.getWinner() == Team.A ? 1 : 2, reader.getGameFooter().winner());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            assertTrue(types.toString(), types.toString().startsWith("GameHeader MatchHeader "));
+            assertTrue(types.toString(), types.toString().endsWith("MatchFooter GameFooter "));
+        }
+        return seed;
+    }
+
+    @Test
+    public void testReplayAndSeed() throws IOException {
+        File replay = File.createTempFile("runner", ".bc21");
+        replay.deleteOnExit();
+        MatchRunner runner = new MatchRunner();
+
+        MatchResult result = runner.run(spec().setReplayFile(replay));
+        assertEquals(1337, replaySeed(replay, result));
+
+        result = runner.run(spec().setReplayFile(replay).setSeed(7));
+        assertEquals(7, replaySeed(replay, result));
+    }
+}
@@ -0,0 +1,134 @@
+package battlecode.server;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.schema.Action;
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.GameHeader;
+import battlecode.util.RoundCodec;
+import battlecode.world.TestMapBuilder;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ReplayConverterTest {
+
+    private final GameInfo info = new GameInfo(
+            "bananas", "org.bananas", null,
+            "yellow", "org.yellow", null,
+            new String[] {"honolulu"}, null, false
+    );
+
+    /**
+     * Writes a game with a plain Round of each kind of body change, and a
+     * Keyframe.
+     */
+    private void writeGame(File file) {
+        GameMaker gm = new GameMaker(info, null, GameMakerTest.options("bc.server.keyframe-interval", "3"));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50)
+                .setPassability()
+                .addEnlightenmentCenter(3, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(2, -3))
+                .addEnlightenmentCenter(9, Team.B, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(7, 2))
+                .build());
+        for (int round = 1; round <= 6; round++) {
+            mm.addMoved(3, new MapLocation(2 + round, -3));
+            mm.addMoved(9, new MapLocation(7, 2 - round));
+            mm.addAction(9, Action.SET_FLAG, -round);
+            mm.addAction(3, Action.PLACE_BID, round * 10);
+            mm.addTeamInfo(Team.A, round, 3, 1);
+            mm.addTeamInfo(Team.B, 0, 9, 0);
+            mm.addIndicatorDot(3, new MapLocation(round, 0), 255, round, 0);
+            mm.addIndicatorLine(9, new MapLocation(0, 0), new MapLocation(round, 1), 0, 0, round);
+            mm.addBytecodes(9, 15000 - round);
+            mm.addBytecodes(3, round);
+            if (round == 6)
+                mm.addDied(9);
+            new PrintStream(mm.getOut(), true).println("round " + round);
+            mm.makeRound(round);
+            if (mm.isKeyframeRound(round)) {
+                mm.addKeyframeTeamInfo(Team.A, round, 1);
+                mm.addKeyframeTeamInfo(Team.B, 0, 0);
+                mm.makeKeyframe(round);
+            }
+        }
+        mm.makeMatchFooter(Team.A, 6, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+        gm.writeGame(file);
+    }
+
+    /**
+     * @return the events of an event stream replay
+     */
+    private static List<byte[]> events(File file) throws IOException {
+        ByteBuffer stream;
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            stream = ByteBuffer.wrap(IOUtils.toByteArray(in)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        stream.position(8);
+        List<byte[]> events = new ArrayList<>();
+        for (int size = stream.getInt(); size != 0; size = stream.getInt()) {
+            byte[] event = new byte[size];
+            stream.get(event);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static EventWrapper wrap(byte[] event) {
+        return EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(event));
+    }
+
+    private static String specVersion(List<byte[]> events) {
+        return ((GameHeader) wrap(events.get(0)).e(new GameHeader())).specVersion();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File plain = File.createTempFile("plain", ".bc21");
+        File packed = File.createTempFile("packed", ".bc21");
+        File unpacked = File.createTempFile("unpacked", ".bc21");
+        for (File file : new File[] {plain, packed, unpacked})
+            file.deleteOnExit();
+
+        writeGame(plain);
+        ReplayConverter.convert(plain, packed, RoundCodec.SPEC_VERSION);
+        ReplayConverter.convert(packed, unpacked, GameConstants.SPEC_VERSION);
+
+        List<byte[]> before = events(plain);
+        List<byte[]> packedEvents = events(packed);
+        List<byte[]> after = events(unpacked);
+        assertEquals(GameConstants.SPEC_VERSION, specVersion(before));
+        assertEquals(RoundCodec.SPEC_VERSION, specVersion(packedEvents));
+        assertEquals(GameConstants.SPEC_VERSION, specVersion(after));
+        assertEquals(before.size(), packedEvents.size());
+        assertEquals(before.size(), after.size());
+
+        int rounds = 0;
+        for (int i = 1; i < before.size(); i++) {
+            assertEquals(wrap(before.get(i)).eType(), wrap(after.get(i)).eType());
+            if (wrap(before.get(i)).eType() == Event.Round) {
+                assertFalse(Arrays.equals(before.get(i), packedEvents.get(i)));
+                rounds++;
+            }
+            assertArrayEquals("event " + i, before.get(i), after.get(i));
+        }
+        assertEquals(6, rounds);
+    }
+}
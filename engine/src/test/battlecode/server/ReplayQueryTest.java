@@ -0,0 +1,24 @@
+package battlecode.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReplayQueryTest {
+
+    @Test
+    public void testParseRounds() {
+        assertArrayEquals(new int[] {5, 10}, ReplayQuery.parseRounds("5-10"));
+        assertArrayEquals(new int[] {5, 5}, ReplayQuery.parseRounds("5"));
+        assertArrayEquals(new int[] {5, 5}, ReplayQuery.parseRounds("5-5"));
+
+        for (String bad : new String[] {"", "-", "5-", "-5", "10-5", "1-2-3", "a", "1-b"}) {
+            try {
+                ReplayQuery.parseRounds(bad);
+                fail(bad);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package battlecode.server;
+
+import battlecode.common.GameConstants;
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.schema.Action;
+import battlecode.schema.Event;
+import battlecode.world.LiveMap;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class ReplayReaderTest {
+
+    private final GameInfo info = new GameInfo(
+            "bananas", "org.bananas", null,
+            "yellow", "org.yellow", null,
+            new String[] {"honolulu", "honolulu"}, null, false
+    );
+
+    private static LiveMap map() {
+        return new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50)
+                .setPassability()
+                .addEnlightenmentCenter(3, Team.A, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(2, -3))
+                .addEnlightenmentCenter(9, Team.B, GameConstants.INITIAL_ENLIGHTENMENT_CENTER_INFLUENCE, new MapLocation(7, 2))
+                .build();
+    }
+
+    /**
+     * @return a game of two matches of three rounds, with Rounds packed or
+     *         not, and a Keyframe after round 2
+     */
+    private byte[] game(boolean packRounds) throws Exception {
+        GameMaker gm = new GameMaker(info, null, GameMakerTest.options(
+                "bc.server.replay-round-queue", "0",
+                "bc.server.keyframe-interval", "2",
+                "bc.server.replay-pack-rounds", Boolean.toString(packRounds)));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        for (int match = 0; match < 2; match++) {
+            mm.makeMatchHeader(map());
+            mm.addMoved(3, new MapLocation(3, -2));
+            mm.addBytecodes(9, 15000);
+            mm.makeRound(1);
+            mm.addMoved(3, new MapLocation(3, -3));
+            mm.addAction(9, Action.SET_FLAG, match);
+            mm.makeRound(2);
+            assertTrue(mm.isKeyframeRound(2));
+            mm.addKeyframeTeamInfo(Team.A, 1, 0);
+            mm.addKeyframeTeamInfo(Team.B, 0, 0);
+            mm.makeKeyframe(2);
+            mm.addDied(9);
+            mm.makeRound(3);
+            mm.makeMatchFooter(Team.A, 3, new ArrayList<>());
+        }
+        gm.makeGameFooter(Team.A);
+        return gm.toBytes();
+    }
+
+    @Test
+    public void testReadsEveryEvent() throws Exception {
+        for (boolean packRounds : new boolean[] {false, true}) {
+            try (ReplayReader reader = new ReplayReader(new ByteArrayInputStream(game(packRounds)))) {
+                assertEquals(ReplayWriter.STREAM_VERSION, reader.getStreamVersion());
+                StringBuilder types = new StringBuilder();
+                while (reader.next()) {
+                    types.append(Event.name(reader.getType())).append(' ');
+                    if (reader.getType() == Event.Round && reader.getRoundNum() == 2) {
+                        assertArrayEquals(new int[] {3}, reader.getPlain().movedIDs);
+                        assertArrayEquals(new int[] {-3}, reader.getPlain().movedYs);
+                        assertArrayEquals(new int[] {reader.getMatchIndex()}, reader.getPlain().actionTargets);
+                    }
+                }
+                assertEquals("GameHeader MatchHeader Round Round Keyframe Round MatchFooter "
+                        + "MatchHeader Round Round Keyframe Round MatchFooter GameFooter ", types.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testFilters() throws Exception {
+        try (ReplayReader reader = new ReplayReader(new ByteArrayInputStream(game(true)))) {
+            reader.setMatch(1).setRounds(2, 3).setTypes(Event.Round, Event.MatchFooter).setRobot(9);
+            assertTrue(reader.next());
+            assertEquals(Event.Round, reader.getType());
+            assertEquals(1, reader.getMatchIndex());
+            assertEquals(2, reader.getRoundNum());
+            assertArrayEquals(new int[] {9}, reader.getPlain().actionIDs);
+            assertArrayEquals(new int[] {1}, reader.getPlain().actionTargets);
+
+            assertTrue(reader.next());
+            assertEquals(3, reader.getRoundNum());
+            assertArrayEquals(new int[] {9}, reader.getPlain().diedIDs);
+
+            assertTrue(reader.next());
+            assertEquals(Event.MatchFooter, reader.getType());
+            assertEquals(3, reader.getMatchFooter().totalRounds());
+
+            // The GameFooter belongs to no match
+            assertFalse(reader.next());
+        }
+
+        // Robot 3 only moved in rounds 1 and 2
+        try (ReplayReader reader = new ReplayReader(new ByteArrayInputStream(game(true)))) {
+            reader.setTypes(Event.Round).setRobot(3);
+            int rounds = 0;
+            while (reader.next()) {
+                assertTrue(reader.getRoundNum() <= 2);
+                rounds++;
+            }
+            assertEquals(4, rounds);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package battlecode.server;
+
+import battlecode.common.Team;
+import battlecode.instrumenter.URLUtils;
+import battlecode.world.DominationFactor;
+import battlecode.world.LiveMap;
+import battlecode.world.TestMapBuilder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    private static LiveMap map() {
+        return TestMapBuilder.twoCenters("cached", 12);
+    }
+
+    private static Config options(String... keysAndValues) {
+        Properties options = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            options.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        return new Config(options);
+    }
+
+    private static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("battlecode-cache").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    @Test
+    public void testKey() throws IOException {
+        String teamA = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+        String teamB = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+        MatchSpec spec = new MatchSpec("a", teamA, "b", teamB, map())
+                .setTeamAPackage("testplayerempty")
+                .setTeamBPackage("testplayerempty");
+        LiveMap map = map();
+
+        String key = ResultCache.key(spec, map, options());
+        assertEquals(key, ResultCache.key(spec, new LiveMap(map), options()));
+
+        // Options that don't change how the match is played
+        assertEquals(key, ResultCache.key(spec, map, options(
+                "bc.server.keyframe-interval", "10",
+                "bc.server.replay-compression-level", "1",
+                "bc.server.stats-file", "stats.csv",
+                "bc.cache.bypass", "true")));
+
+        // Ones that do
+        assertNotEquals(key, ResultCache.key(spec, map, options("bc.engine.debug-methods", "true")));
+        assertNotEquals(key, ResultCache.key(spec, new LiveMap(map, 7), options()));
+        assertNotEquals(key, ResultCache.key(new MatchSpec("a", teamB, "b", teamB, map())
+                .setTeamAPackage("other")
+                .setTeamBPackage("testplayerempty"), map, options()));
+
+        // Ones written into the cached replay
+        assertNotEquals(key, ResultCache.key(new MatchSpec("c", teamA, "b", teamB, map())
+                .setTeamAPackage("testplayerempty")
+                .setTeamBPackage("testplayerempty"), map, options()));
+        assertNotEquals(key, ResultCache.key(new MatchSpec("a", teamA, "b", teamB, map())
+                .setTeamAPackage("testplayerempty")
+                .setTeamBPackage("testplayerempty")
+                .setProfilingEnabled(true), map, options()));
+
+        File classFile = new File(teamB, "testplayerempty/RobotPlayer.class");
+        classFile.deleteOnExit();
+        Files.write(classFile.toPath(), new byte[] {0}, StandardOpenOption.APPEND);
+        assertNotEquals(key, ResultCache.key(spec, map, options()));
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        File dir = tempDir();
+        ResultCache cache = new ResultCache(dir);
+        assertNull(cache.get("abc"));
+
+        File replay = File.createTempFile("cached", ".bc21");
+        replay.deleteOnExit();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        MatchSpec spec = new MatchSpec("a", "/a", "b", "/b", map());
+        cache.put("abc", new MatchResult(spec, Team.B, DominationFactor.MORE_VOTES, 1500, null), replay);
+        cache.put("def", new MatchResult(spec, Team.A, DominationFactor.ANNIHILATED, 300, null), null);
+
+        ResultCache.Entry entry = new ResultCache(dir).get("abc");
+        assertEquals(Team.B, entry.winner);
+        assertEquals(DominationFactor.MORE_VOTES, entry.reason);
+        assertEquals(1500, entry.rounds);
+        entry.replay.deleteOnExit();
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(entry.replay.toPath()));
+
+        entry = cache.get("def");
+        assertEquals(Team.A, entry.winner);
+        assertEquals(300, entry.rounds);
+        assertNull(entry.replay);
+
+        for (String name : dir.list())
+            new File(dir, name).deleteOnExit();
+    }
+
+    @Test
+    public void testMalformedEntry() throws IOException {
+        File dir = tempDir();
+        ResultCache cache = new ResultCache(dir);
+        File file = new File(dir, "abc.properties");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), "winner=C\nreason=MORE_VOTES\nrounds=1500\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.get("abc"));
+        Files.write(file.toPath(), "winner=A\nreason=MORE_VOTES\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.get("abc"));
+        Files.write(file.toPath(), "winner=A\nreason=MORE_VOTES\nrounds=15".getBytes(StandardCharsets.UTF_8));
+        assertEquals(15, cache.get("abc").rounds);
+    }
+}
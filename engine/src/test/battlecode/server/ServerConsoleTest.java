@@ -0,0 +1,43 @@
+package battlecode.server;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ServerConsoleTest {
+
+    @Test
+    public void testBuffersSpillsAndStreams() throws Exception {
+        ServerConsole console = ServerConsole.buffered(new Config(new Properties()));
+        char[] line = new char[1000];
+        Arrays.fill(line, 'x');
+        int lines = 2 * ServerConsole.MEMORY_LIMIT / line.length;
+
+        PrintStream systemOut = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, "UTF-8"));
+        try {
+            for (int i = 0; i < lines; i++) {
+                console.getOut().println(new String(line));
+            }
+            assertEquals(0, captured.size());
+
+            console.stream();
+            assertEquals(lines * (line.length + System.lineSeparator().length()), captured.size());
+
+            console.getOut().print("after");
+            assertTrue(captured.toString("UTF-8").endsWith("x" + System.lineSeparator() + "after"));
+
+            // Streaming again changes nothing
+            console.stream();
+            assertTrue(captured.toString("UTF-8").endsWith("after"));
+        } finally {
+            System.setOut(systemOut);
+        }
+    }
+}
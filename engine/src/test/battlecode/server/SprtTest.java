@@ -0,0 +1,47 @@
+package battlecode.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SprtTest {
+
+    @Test
+    public void testDecidesOnClearResults() {
+        Sprt sprt = new Sprt(0.5, 0.6, 0.05, 0.05);
+        Sprt.Decision decision = Sprt.Decision.CONTINUE;
+        while (decision == Sprt.Decision.CONTINUE)
+            decision = sprt.add(true);
+        assertEquals(Sprt.Decision.ACCEPT_H1, decision);
+        // ln(19) / ln(1.2), rounded up
+        assertEquals(17, sprt.getGames());
+
+        sprt = new Sprt(0.5, 0.6, 0.05, 0.05);
+        decision = Sprt.Decision.CONTINUE;
+        while (decision == Sprt.Decision.CONTINUE)
+            decision = sprt.add(false);
+        assertEquals(Sprt.Decision.ACCEPT_H0, decision);
+        assertEquals(0, sprt.getWins());
+    }
+
+    @Test
+    public void testContinuesOnEvenResults() {
+        Sprt sprt = new Sprt(0.4, 0.6, 0.05, 0.05);
+        for (int i = 0; i < 50; i++)
+            assertEquals(Sprt.Decision.CONTINUE, sprt.add(i % 2 == 0));
+    }
+
+    @Test
+    public void testWilsonInterval() {
+        assertEquals(1.959964, Sprt.normalQuantile(0.975), 1e-6);
+        assertEquals(-1.644854, Sprt.normalQuantile(0.05), 1e-6);
+
+        double[] interval = Sprt.wilsonInterval(60, 100, 0.95);
+        assertEquals(0.502, interval[0], 1e-3);
+        assertEquals(0.691, interval[1], 1e-3);
+
+        interval = Sprt.wilsonInterval(0, 10, 0.95);
+        assertEquals(0, interval[0], 1e-9);
+        assertEquals(0.278, interval[1], 1e-3);
+    }
+}
@@ -0,0 +1,44 @@
+package battlecode.server;
+
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import battlecode.instrumenter.URLUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class TeamFactoriesTest {
+
+    @Test
+    public void testReloadsChangedTeams() throws IOException {
+        String teamURL = URLUtils.toTempFolder("testplayerempty/RobotPlayer.class");
+        Config options = new Config(new Properties());
+        Config debug = new Config(new Properties());
+        debug.setBoolean("bc.engine.debug-methods", true);
+        TeamFactories factories = new TeamFactories();
+
+        TeamClassLoaderFactory factory = factories.get(teamURL, options);
+        assertSame(factory, factories.get(teamURL, options));
+        assertNotSame(factory, factories.get(teamURL, debug));
+
+        File classFile = new File(teamURL, "testplayerempty/RobotPlayer.class");
+        Files.write(classFile.toPath(), new byte[] {0}, StandardOpenOption.APPEND);
+        TeamClassLoaderFactory reloaded = factories.get(teamURL, options);
+        assertNotSame(factory, reloaded);
+        assertSame(reloaded, factories.get(teamURL, options));
+    }
+
+    @Test
+    public void testReloadsFailedTeams() {
+        TeamFactories factories = new TeamFactories();
+        Config options = new Config(new Properties());
+        TeamClassLoaderFactory missing = factories.get("/no/such/team", options);
+        assertTrue(missing.getError());
+        assertNotSame(missing, factories.get("/no/such/team", options));
+    }
+}
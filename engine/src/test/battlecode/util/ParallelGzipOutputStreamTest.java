@@ -0,0 +1,81 @@
+package battlecode.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipOutputStreamTest {
+    private static final int BLOCK = 32 * 1024;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    private static byte[] compress(byte[] data, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, executor, 3, 6, BLOCK);
+        for (int i = 0; i < data.length; i += chunk) {
+            if (chunk == 1)
+                gzip.write(data[i]);
+            else
+                gzip.write(data, i, Math.min(chunk, data.length - i));
+        }
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] gzipped) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+    }
+
+    /**
+     * Text-like data, which repeats itself across block boundaries.
+     */
+    private static byte[] data(int length) {
+        Random random = new Random(length);
+        String[] words = {"politician ", "slanderer ", "muckraker ", "enlightenment center ", "\n"};
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ) {
+            byte[] word = words[random.nextInt(words.length)].getBytes();
+            for (int j = 0; j < word.length && i < length; j++)
+                data[i++] = word[j];
+        }
+        return data;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (int length : new int[] {0, 1, BLOCK - 1, BLOCK, BLOCK + 1, 10 * BLOCK, 10 * BLOCK + 12345}) {
+            byte[] data = data(length);
+            assertArrayEquals(data, decompress(compress(data, 1000)));
+            assertArrayEquals(data, decompress(compress(data, 3 * BLOCK + 7)));
+        }
+        byte[] data = data(3 * BLOCK + 5);
+        assertArrayEquals(data, decompress(compress(data, 1)));
+    }
+
+    @Test
+    public void testCompressesLikeGzip() throws IOException {
+        byte[] data = data(40 * BLOCK);
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        try (java.util.zip.GZIPOutputStream gzip = new java.util.zip.GZIPOutputStream(serial)) {
+            gzip.write(data);
+        }
+        // Priming each block with the one before keeps the cost of splitting small
+        assertTrue(compress(data, 4096).length < serial.size() * 1.02);
+    }
+}
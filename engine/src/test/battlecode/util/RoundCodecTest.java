@@ -0,0 +1,159 @@
+package battlecode.util;
+
+import battlecode.schema.Round;
+import battlecode.schema.SpawnedBodyTable;
+import battlecode.schema.VecTable;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.array.TByteArrayList;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class RoundCodecTest {
+
+    private static RoundCodec.Plain plain(int[] movedIDs, int[] movedXs, int[] movedYs, int[] diedIDs,
+                                          int[] actionIDs, int[] actionTargets,
+                                          int[] bytecodeIDs, int[] bytecodesUsed) {
+        RoundCodec.Plain plain = new RoundCodec.Plain();
+        plain.movedIDs = movedIDs;
+        plain.movedXs = movedXs;
+        plain.movedYs = movedYs;
+        plain.diedIDs = diedIDs;
+        plain.actionIDs = actionIDs;
+        plain.actionTargets = actionTargets;
+        plain.bytecodeIDs = bytecodeIDs;
+        plain.bytecodesUsed = bytecodesUsed;
+        return plain;
+    }
+
+    /**
+     * A Round spawning one body, with the packed fields.
+     */
+    private static Round round(int spawnedID, int x, int y, RoundCodec.Packed packed) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        int locs = VecTable.createVecTable(builder,
+                VecTable.createXsVector(builder, new int[] {x}),
+                VecTable.createYsVector(builder, new int[] {y}));
+        int ids = SpawnedBodyTable.createRobotIDsVector(builder, new int[] {spawnedID});
+        SpawnedBodyTable.startSpawnedBodyTable(builder);
+        SpawnedBodyTable.addRobotIDs(builder, ids);
+        SpawnedBodyTable.addLocs(builder, locs);
+        int spawned = SpawnedBodyTable.endSpawnedBodyTable(builder);
+        packed.createVectors(builder);
+        Round.startRound(builder);
+        Round.addSpawnedBodies(builder, spawned);
+        packed.addTo(builder);
+        builder.finish(Round.endRound(builder));
+        return Round.getRootAsRound(builder.dataBuffer());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        RoundCodec encoder = new RoundCodec();
+        encoder.startMatch();
+        encoder.addBody(10001, 5, 5);
+        encoder.addBody(12345, 20, 30);
+        RoundCodec.Plain first = plain(
+                new int[] {12345, 10001}, new int[] {21, 4}, new int[] {31, 5}, new int[0],
+                new int[] {10001}, new int[] {-12345}, new int[] {12345, 10001}, new int[] {15000, 0});
+        RoundCodec.Packed firstPacked = encoder.pack(first);
+        encoder.addBody(10500, 21, 32);
+        RoundCodec.Plain second = plain(
+                new int[] {10500}, new int[] {20}, new int[] {33}, new int[] {12345},
+                new int[0], new int[0], new int[] {10500}, new int[] {1 << 30});
+        RoundCodec.Packed secondPacked = encoder.pack(second);
+
+        // IDs become small indices, moves single bytes
+        assertArrayEquals(new byte[] {2, 1}, firstPacked.movedIDs);
+        assertArrayEquals(new byte[] {1, 6}, firstPacked.movedDirections);
+
+        RoundCodec decoder = new RoundCodec();
+        decoder.startMatch();
+        decoder.addBody(10001, 5, 5);
+        decoder.addBody(12345, 20, 30);
+        assertPlainEquals(first, decoder.unpack(Round.getRootAsRound(packedOnly(firstPacked))));
+        assertPlainEquals(second, decoder.unpack(round(10500, 21, 32, secondPacked)));
+    }
+
+    /**
+     * A Round with the packed fields and no spawned bodies.
+     */
+    private static ByteBuffer packedOnly(RoundCodec.Packed packed) {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        packed.createVectors(builder);
+        Round.startRound(builder);
+        packed.addTo(builder);
+        builder.finish(Round.endRound(builder));
+        return builder.dataBuffer();
+    }
+
+    private static void assertPlainEquals(RoundCodec.Plain expected, RoundCodec.Plain actual) {
+        assertArrayEquals(expected.movedIDs, actual.movedIDs);
+        assertArrayEquals(expected.movedXs, actual.movedXs);
+        assertArrayEquals(expected.movedYs, actual.movedYs);
+        assertArrayEquals(expected.diedIDs, actual.diedIDs);
+        assertArrayEquals(expected.actionIDs, actual.actionIDs);
+        assertArrayEquals(expected.actionTargets, actual.actionTargets);
+        assertArrayEquals(expected.bytecodeIDs, actual.bytecodeIDs);
+        assertArrayEquals(expected.bytecodesUsed, actual.bytecodesUsed);
+    }
+
+    @Test
+    public void testPlainRound() {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        int moved = Round.createMovedIDsVector(builder, new int[] {7});
+        int locs = VecTable.createVecTable(builder,
+                VecTable.createXsVector(builder, new int[] {100}),
+                VecTable.createYsVector(builder, new int[] {-100}));
+        int died = Round.createDiedIDsVector(builder, new int[] {7});
+        Round.startRound(builder);
+        Round.addMovedIDs(builder, moved);
+        Round.addMovedLocs(builder, locs);
+        Round.addDiedIDs(builder, died);
+        builder.finish(Round.endRound(builder));
+
+        RoundCodec codec = new RoundCodec();
+        codec.startMatch();
+        codec.addBody(7, 0, 0);
+        RoundCodec.Plain plain = codec.unpack(Round.getRootAsRound(builder.dataBuffer()));
+        assertArrayEquals(new int[] {7}, plain.movedIDs);
+        assertArrayEquals(new int[] {100}, plain.movedXs);
+        assertArrayEquals(new int[] {-100}, plain.movedYs);
+        assertArrayEquals(new int[] {7}, plain.diedIDs);
+        assertArrayEquals(new int[0], plain.bytecodesUsed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBody() {
+        RoundCodec codec = new RoundCodec();
+        codec.startMatch();
+        codec.pack(plain(new int[0], new int[0], new int[0], new int[] {4},
+                new int[0], new int[0], new int[0], new int[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLongMove() {
+        RoundCodec codec = new RoundCodec();
+        codec.startMatch();
+        codec.addBody(4, 0, 0);
+        codec.pack(plain(new int[] {4}, new int[] {2}, new int[] {0}, new int[0],
+                new int[0], new int[0], new int[0], new int[0]));
+    }
+
+    @Test
+    public void testVarints() {
+        int[] values = {0, 1, -1, 63, -64, 64, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        TByteArrayList bytes = new TByteArrayList();
+        for (int value : values) {
+            RoundCodec.writeVarint(bytes, RoundCodec.zigzag(value));
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes.toArray());
+        for (int value : values) {
+            assertEquals(value, RoundCodec.unzigzag(RoundCodec.readVarint(in)));
+        }
+        assertEquals(0, in.remaining());
+    }
+}
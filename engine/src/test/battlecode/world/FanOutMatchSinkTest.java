@@ -0,0 +1,55 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class FanOutMatchSinkTest {
+
+    @Test
+    public void testFanOut() throws IOException {
+        MatchSink a = Mockito.mock(MatchSink.class);
+        MatchSink b = Mockito.mock(MatchSink.class);
+        ByteArrayOutputStream aOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        when(a.getOut()).thenReturn(aOut);
+        when(b.getOut()).thenReturn(bOut);
+        when(a.isKeyframeRound(anyInt())).thenReturn(false);
+        when(b.isKeyframeRound(anyInt())).thenReturn(true);
+
+        FanOutMatchSink sink = new FanOutMatchSink(a, b);
+        sink.addMoved(3, new MapLocation(1, 2));
+        sink.getOut().write("hi".getBytes());
+        sink.makeRound(1);
+        assertTrue(sink.isKeyframeRound(1));
+        sink.addKeyframeTeamInfo(Team.A, 5, 6);
+        sink.makeKeyframe(1);
+
+        for (MatchSink each : new MatchSink[] {a, b}) {
+            verify(each).addMoved(3, new MapLocation(1, 2));
+            verify(each).makeRound(1);
+        }
+        assertEquals("hi", aOut.toString());
+        assertEquals("hi", bOut.toString());
+
+        // Only the sink that asked for a keyframe gets one
+        verify(a, never()).addKeyframeTeamInfo(Team.A, 5, 6);
+        verify(a, never()).makeKeyframe(1);
+        verify(b).addKeyframeTeamInfo(Team.A, 5, 6);
+        verify(b).makeKeyframe(1);
+    }
+
+    @Test
+    public void testNullSink() {
+        assertFalse(NullMatchSink.INSTANCE.isKeyframeRound(250));
+        assertFalse(new FanOutMatchSink(NullMatchSink.INSTANCE).isKeyframeRound(250));
+    }
+}
@@ -0,0 +1,110 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.server.GameMaker;
+import battlecode.world.control.NullControlProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class GameWorldForkTest {
+
+    private static GameWorld newWorld() {
+        LiveMap map = new TestMapBuilder("fork", 0, 0, 20, 20, 1337, 3000)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 2))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(17, 17))
+                .addEnlightenmentCenter(2, Team.NEUTRAL, 200, new MapLocation(10, 10))
+                .build();
+        return new GameWorld(map, new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+    }
+
+    private static GameWorld fork(GameWorld world) {
+        return world.fork(new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+    }
+
+    /**
+     * Spawns a few units from every player Enlightenment Center, with IDs
+     * drawn from the world's ID generator.
+     */
+    private static void spawnUnits(GameWorld world, int round) {
+        List<InternalRobot> centers = new ArrayList<>();
+        world.getObjectInfo().eachRobot(robot -> {
+            if (robot.getType() == RobotType.ENLIGHTENMENT_CENTER && robot.getTeam().isPlayer())
+                centers.add(robot);
+            return true;
+        });
+        for (InternalRobot center : centers) {
+            RobotType type = round % 2 == 0 ? RobotType.SLANDERER : RobotType.MUCKRAKER;
+            for (Direction dir : Direction.allDirections()) {
+                MapLocation loc = center.getLocation().add(dir);
+                if (world.getGameMap().onTheMap(loc) && world.getRobot(loc) == null) {
+                    world.spawnRobot(center, type, loc, center.getTeam(), 20);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void runRounds(GameWorld world, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            spawnUnits(world, world.getCurrentRound());
+            world.runRound();
+        }
+    }
+
+    private static String describe(GameWorld world) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(world.getCurrentRound()).append(' ').append(world.getStateHash()).append('\n');
+        world.getObjectInfo().eachRobot(robot -> {
+            sb.append(robot.getID()).append(' ')
+                    .append(robot.getTeam()).append(' ')
+                    .append(robot.getType()).append(' ')
+                    .append(robot.getLocation()).append(' ')
+                    .append(robot.getInfluence()).append(' ')
+                    .append(robot.getConviction()).append(' ')
+                    .append(robot.getRoundsAlive()).append('\n');
+            return true;
+        });
+        for (Team team : new Team[] {Team.A, Team.B})
+            sb.append(world.getTeamInfo().getVotes(team)).append(' ')
+                    .append(world.getTeamInfo().getNumBuffs(team, world.getCurrentRound() + 10)).append('\n');
+        return sb.toString();
+    }
+
+    @Test
+    public void testForkProceedsLikeOriginal() {
+        GameWorld world = newWorld();
+        runRounds(world, 40);
+
+        GameWorld fork = fork(world);
+        assertEquals(describe(world), describe(fork));
+
+        // Long enough for slanderers to camouflage
+        runRounds(world, GameConstants.CAMOUFLAGE_NUM_ROUNDS + 10);
+        runRounds(fork, GameConstants.CAMOUFLAGE_NUM_ROUNDS + 10);
+        assertEquals(describe(world), describe(fork));
+    }
+
+    @Test
+    public void testForksAreIndependent() {
+        GameWorld world = newWorld();
+        runRounds(world, 20);
+        String before = describe(world);
+
+        GameWorld first = fork(world);
+        GameWorld second = fork(world);
+        runRounds(first, 30);
+        assertEquals(before, describe(world));
+        assertEquals(before, describe(second));
+
+        runRounds(second, 30);
+        assertEquals(describe(first), describe(second));
+        assertNotEquals(before, describe(second));
+    }
+}
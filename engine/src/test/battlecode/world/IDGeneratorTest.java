@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import java.util.BitSet;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 /**
@@ -23,4 +24,15 @@ public class IDGeneratorTest {
             seen.set(nextID, true);
         }
     }
+
+    @Test
+    public void testCopiedIDGeneratorContinuesSequence() {
+        IDGenerator gen = new IDGenerator(42);
+        for (int i = 0; i < IDGenerator.ID_BLOCK_SIZE + 100; i++)
+            gen.nextID();
+
+        IDGenerator copy = new IDGenerator(gen);
+        for (int i = 0; i < IDGenerator.ID_BLOCK_SIZE * 2; i++)
+            assertEquals(gen.nextID(), copy.nextID());
+    }
 }
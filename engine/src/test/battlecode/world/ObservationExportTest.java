@@ -0,0 +1,99 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.server.GameMaker;
+import battlecode.world.control.NullControlProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class ObservationExportTest {
+
+    @Test
+    public void testRoundsWrapAroundRing() throws Exception {
+        LiveMap map = new TestMapBuilder("observe", 0, 0, 10, 8, 1337, 3000)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 3))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(7, 5))
+                .build();
+        GameWorld world = new GameWorld(map, new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+
+        File file = File.createTempFile("observations", ".bin");
+        file.deleteOnExit();
+        try (ObservationExport export = new ObservationExport(file, 2)) {
+            export.startMatch(3);
+            world.setObservationExport(export);
+            for (int i = 0; i < 3; i++)
+                world.runRound();
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(ObservationExport.MAGIC, buf.getInt(0));
+        assertEquals(ObservationExport.VERSION, buf.getInt(4));
+        assertEquals(2, buf.getInt(8));
+        assertEquals(ObservationExport.SLOT_SIZE, buf.getInt(12));
+        assertEquals(3, buf.getLong(24));
+
+        // Round 3 overwrote round 1, in the first slot
+        int base = ObservationExport.HEADER_SIZE;
+        assertEquals(3, buf.getLong(base));
+        assertEquals(3, buf.getInt(base + 8));
+        assertEquals(3, buf.getInt(base + 12));
+        assertEquals(10, buf.getInt(base + 16));
+        assertEquals(8, buf.getInt(base + 20));
+        assertEquals(2, buf.getLong(base + ObservationExport.SLOT_SIZE));
+
+        InternalRobot center = world.getRobot(new MapLocation(2, 3));
+        int cell = 2 + 3 * 10;
+        assertEquals(center.getInfluence(), buf.getInt(base + ObservationExport.INFLUENCE_OFFSET + 4 * cell));
+        assertEquals(center.getConviction(), buf.getInt(base + ObservationExport.CONVICTION_OFFSET + 4 * cell));
+        assertEquals(1 + Team.A.ordinal(), buf.get(base + ObservationExport.TEAM_OFFSET + cell));
+        assertEquals(1 + RobotType.ENLIGHTENMENT_CENTER.ordinal(), buf.get(base + ObservationExport.TYPE_OFFSET + cell));
+        assertEquals((float) world.getPassability(new MapLocation(2, 3)),
+                buf.getFloat(base + ObservationExport.PASSABILITY_OFFSET + 4 * cell), 0);
+
+        int empty = 0;
+        assertEquals(0, buf.get(base + ObservationExport.TEAM_OFFSET + empty));
+        assertEquals(0, buf.getInt(base + ObservationExport.INFLUENCE_OFFSET + 4 * empty));
+    }
+
+    @Test
+    public void testReusesFile() throws Exception {
+        LiveMap map = new TestMapBuilder("observe", 0, 0, 10, 8, 1337, 3000)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 3))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(7, 5))
+                .build();
+        File file = File.createTempFile("observations", ".bin");
+        file.deleteOnExit();
+        for (int game = 0; game < 2; game++) {
+            GameWorld world = new GameWorld(map, new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+            try (ObservationExport export = new ObservationExport(file, 4)) {
+                export.startMatch(0);
+                world.setObservationExport(export);
+                world.runRound();
+                world.runRound();
+            }
+        }
+
+        // The second game carried on from the first
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(4, buf.getLong(24));
+        assertEquals(3, buf.getLong(ObservationExport.HEADER_SIZE + 2 * ObservationExport.SLOT_SIZE));
+        assertEquals(1, buf.getInt(ObservationExport.HEADER_SIZE + 2 * ObservationExport.SLOT_SIZE + 12));
+
+        // A file laid out differently starts over
+        try (ObservationExport export = new ObservationExport(file, 2)) {
+            assertEquals(2 * ObservationExport.SLOT_SIZE + ObservationExport.HEADER_SIZE, file.length());
+        }
+        buf = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2, buf.getInt(8));
+        assertEquals(0, buf.getLong(24));
+    }
+}
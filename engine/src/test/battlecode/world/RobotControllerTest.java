@@ -5,6 +5,10 @@ import battlecode.common.*;
 import gnu.trove.list.array.TIntArrayList;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -304,4 +308,175 @@ public class RobotControllerTest {
     //         }
     //     });
     // }
-}
\ No newline at end of file
+
+    /**
+     * A 40x40 map with a Team A muckraker at (4, 4), Team B robots near it,
+     * and a Team B muckraker far away at (30, 30).
+     */
+    private static TestGame sensingGame() {
+        TestGame game = new TestGame(new TestMapBuilder("sense", 0, 0, 40, 40, 1337, 100)
+                .setPassability()
+                .build());
+        game.spawn(4, 4, RobotType.MUCKRAKER, Team.A, 10);
+        game.spawn(6, 5, RobotType.POLITICIAN, Team.B, 20);
+        game.spawn(3, 7, RobotType.SLANDERER, Team.B, 30);
+        game.spawn(30, 30, RobotType.MUCKRAKER, Team.B, 10);
+        return game;
+    }
+
+    /**
+     * Checks that a robot's (possibly cached) sensing results match the
+     * robots around it now.
+     */
+    private static void assertSensesFresh(GameWorld world, InternalRobot observer) {
+        RobotController rc = observer.getController();
+        List<RobotInfo> sensed = new ArrayList<>();
+        List<RobotInfo> sensedB = new ArrayList<>();
+        List<MapLocation> detected = new ArrayList<>();
+        for (InternalRobot robot : world.getAllRobotsWithinRadiusSquared(observer.getLocation(), observer.getType().detectionRadiusSquared)) {
+            if (robot == observer)
+                continue;
+            detected.add(robot.getLocation());
+            if (!observer.getLocation().isWithinDistanceSquared(robot.getLocation(), observer.getType().sensorRadiusSquared))
+                continue;
+            RobotType type = robot.getType() == RobotType.SLANDERER && !observer.getType().canTrueSense()
+                    ? RobotType.POLITICIAN
+                    : robot.getType();
+            RobotInfo info = new RobotInfo(robot.getID(), robot.getTeam(), type,
+                    robot.getInfluence(), robot.getConviction(), robot.getLocation());
+            sensed.add(info);
+            if (robot.getTeam() == Team.B)
+                sensedB.add(info);
+        }
+        assertEquals(sensed, Arrays.asList(rc.senseNearbyRobots()));
+        assertEquals(sensedB, Arrays.asList(rc.senseNearbyRobots(-1, Team.B)));
+        assertEquals(detected, Arrays.asList(rc.detectNearbyRobots()));
+    }
+
+    private static void moveRobot(GameWorld world, InternalRobot robot, MapLocation to) {
+        world.moveRobot(robot.getLocation(), to);
+        robot.setLocation(to);
+    }
+
+    @Test
+    public void testSensingCacheSeesChangesInRange() {
+        TestGame game = sensingGame();
+        GameWorld world = game.getWorld();
+        InternalRobot observer = world.getRobot(new MapLocation(4, 4));
+        InternalRobot politician = world.getRobot(new MapLocation(6, 5));
+        InternalRobot slanderer = world.getRobot(new MapLocation(3, 7));
+        assertEquals(2, observer.getController().senseNearbyRobots().length);
+        assertSensesFresh(world, observer);
+
+        // Move
+        moveRobot(world, politician, new MapLocation(7, 5));
+        assertSensesFresh(world, observer);
+
+        // Spawn
+        game.spawn(5, 2, RobotType.MUCKRAKER, Team.B, 5);
+        assertEquals(3, observer.getController().senseNearbyRobots().length);
+        assertSensesFresh(world, observer);
+
+        // Influence and conviction
+        politician.addConviction(-7);
+        assertSensesFresh(world, observer);
+        slanderer.addInfluenceAndConviction(4);
+        assertSensesFresh(world, observer);
+
+        // Death
+        world.destroyRobot(world.getRobot(new MapLocation(5, 2)).getID());
+        assertEquals(2, observer.getController().senseNearbyRobots().length);
+        assertSensesFresh(world, observer);
+
+        // Conversion: the robot is replaced by one of the other team
+        MapLocation loc = politician.getLocation();
+        world.destroyRobot(politician.getID());
+        game.spawn(loc.x, loc.y, RobotType.POLITICIAN, Team.A, 20);
+        assertEquals(1, observer.getController().senseNearbyRobots(-1, Team.B).length);
+        assertSensesFresh(world, observer);
+
+        // Camouflage
+        slanderer.camouflage();
+        assertSensesFresh(world, observer);
+    }
+
+    @Test
+    public void testSensingCacheIgnoresChangesOutOfRange() {
+        GameWorld world = sensingGame().getWorld();
+        InternalRobot observer = world.getRobot(new MapLocation(4, 4));
+        InternalRobot far = world.getRobot(new MapLocation(30, 30));
+        int radiusSquared = observer.getType().sensorRadiusSquared;
+
+        SensingCache<RobotInfo> cache = new SensingCache<>();
+        RobotInfo[] result = observer.getController().senseNearbyRobots();
+        cache.put(world, observer, observer.getLocation(), radiusSquared, null, result);
+
+        moveRobot(world, far, new MapLocation(31, 30));
+        far.addConviction(3);
+        world.destroyRobot(far.getID());
+        assertSame(result, cache.get(world, observer, observer.getLocation(), radiusSquared, null));
+        assertSensesFresh(world, observer);
+
+        // A different query misses
+        assertNull(cache.get(world, observer, observer.getLocation(), radiusSquared, Team.B));
+        assertNull(cache.get(world, observer, new MapLocation(5, 4), radiusSquared, null));
+
+        moveRobot(world, world.getRobot(new MapLocation(6, 5)), new MapLocation(6, 6));
+        assertNull(cache.get(world, observer, observer.getLocation(), radiusSquared, null));
+    }
+
+    @Test
+    public void testSensingCacheSeesObserverChanges() {
+        TestGame game = sensingGame();
+        GameWorld world = game.getWorld();
+        InternalRobot observer = world.getRobot(new MapLocation(4, 4));
+
+        // Moving changes what the observer can sense, even with the same
+        // query over an area it isn't in
+        MapLocation away = new MapLocation(20, 4);
+        SensingCache<RobotInfo> cache = new SensingCache<>();
+        cache.put(world, observer, away, 1, null, new RobotInfo[0]);
+        assertNotNull(cache.get(world, observer, away, 1, null));
+        moveRobot(world, observer, new MapLocation(4, 3));
+        assertNull(cache.get(world, observer, away, 1, null));
+        assertSensesFresh(world, observer);
+        moveRobot(world, observer, new MapLocation(4, 4));
+        assertSensesFresh(world, observer);
+
+        // As does the observer's type: a slanderer can't sense a robot at
+        // distance 25, but once it camouflages itself as a politician it can.
+        // The query's area and the slanderer are in different regions.
+        MapLocation center = new MapLocation(5, 20);
+        game.spawn(center.x, center.y, RobotType.MUCKRAKER, Team.A, 10);
+        game.spawn(center.x, center.y - 5, RobotType.SLANDERER, Team.A, 10);
+        InternalRobot slanderer = world.getRobot(new MapLocation(center.x, center.y - 5));
+        assertEquals(0, slanderer.getController().senseNearbyRobots(center, 1, null).length);
+        assertEquals(0, slanderer.getController().detectNearbyRobots(center, 1).length);
+        slanderer.camouflage();
+        assertEquals(1, slanderer.getController().senseNearbyRobots(center, 1, null).length);
+        assertEquals(1, slanderer.getController().detectNearbyRobots(center, 1).length);
+        assertSensesFresh(world, slanderer);
+    }
+
+    @Test
+    public void testSensingResultsAreCopies() {
+        GameWorld world = sensingGame().getWorld();
+        InternalRobot observer = world.getRobot(new MapLocation(4, 4));
+        RobotController rc = observer.getController();
+
+        rc.senseNearbyRobots();
+        rc.detectNearbyRobots();
+
+        // Change the cached results' copies
+        RobotInfo[] sensed = rc.senseNearbyRobots();
+        MapLocation[] detected = rc.detectNearbyRobots();
+        assertTrue(sensed.length > 0);
+        assertTrue(detected.length > 0);
+        sensed[0] = null;
+        detected[0] = null;
+
+        assertNotNull(rc.senseNearbyRobots()[0]);
+        assertNotNull(rc.detectNearbyRobots()[0]);
+        assertSensesFresh(world, observer);
+    }
+}
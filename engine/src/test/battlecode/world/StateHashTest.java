@@ -0,0 +1,155 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.server.GameMaker;
+import battlecode.world.control.NullControlProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StateHashTest {
+
+    private static GameWorld newWorld() {
+        LiveMap map = new TestMapBuilder("hash", 0, 0, 20, 20, 1337, 3000)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 2))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(17, 17))
+                .addEnlightenmentCenter(2, Team.NEUTRAL, 200, new MapLocation(10, 10))
+                .build();
+        return new GameWorld(map, new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+    }
+
+    private static List<InternalRobot> robots(GameWorld world) {
+        List<InternalRobot> robots = new ArrayList<>();
+        world.getObjectInfo().eachRobot(robot -> {
+            robots.add(robot);
+            return true;
+        });
+        robots.sort((a, b) -> a.getID() - b.getID());
+        return robots;
+    }
+
+    /**
+     * Plays a round in which every field that goes into the hash changes
+     * for some robot: units are spawned, moved, flagged, given influence
+     * and destroyed.
+     */
+    private static void playRound(GameWorld world) {
+        int round = world.getCurrentRound();
+        for (InternalRobot robot : robots(world)) {
+            if (robot.getType() == RobotType.ENLIGHTENMENT_CENTER && robot.getTeam().isPlayer()) {
+                RobotType type = round % 2 == 0 ? RobotType.SLANDERER : RobotType.MUCKRAKER;
+                for (Direction dir : Direction.allDirections()) {
+                    MapLocation loc = robot.getLocation().add(dir);
+                    if (world.getGameMap().onTheMap(loc) && world.getRobot(loc) == null) {
+                        world.spawnRobot(robot, type, loc, robot.getTeam(), 20);
+                        break;
+                    }
+                }
+                robot.setFlag(round);
+            } else if (robot.getType() == RobotType.MUCKRAKER) {
+                MapLocation loc = robot.getLocation().add(robot.getTeam() == Team.A ? Direction.NORTHEAST : Direction.SOUTHWEST);
+                if (world.getGameMap().onTheMap(loc) && world.getRobot(loc) == null) {
+                    world.moveRobot(robot.getLocation(), loc);
+                    robot.setLocation(loc);
+                } else {
+                    world.destroyRobot(robot.getID());
+                }
+            } else if (robot.getType() == RobotType.SLANDERER && robot.getID() % 3 == round % 3) {
+                robot.addInfluenceAndConviction(1);
+            }
+        }
+        world.runRound();
+    }
+
+    @Test
+    public void testIncrementalHashMatchesRecompute() {
+        GameWorld world = newWorld();
+        assertEquals(world.computeStateHash(), world.getStateHash());
+        for (int i = 0; i < 30; i++) {
+            playRound(world);
+            assertEquals(world.computeStateHash(), world.getStateHash());
+        }
+
+        GameWorld fork = world.fork(new NullControlProvider(), Mockito.mock(GameMaker.MatchMaker.class));
+        assertEquals(world.getStateHash(), fork.getStateHash());
+        for (int i = 0; i < GameConstants.CAMOUFLAGE_NUM_ROUNDS; i++) {
+            playRound(world);
+            playRound(fork);
+            assertEquals(fork.computeStateHash(), fork.getStateHash());
+            assertEquals(world.getStateHash(), fork.getStateHash());
+        }
+        assertEquals(world.computeStateHash(), world.getStateHash());
+    }
+
+    @Test
+    public void testStateChangesChangeHash() {
+        GameWorld world = newWorld();
+        playRound(world);
+        InternalRobot center = world.getRobot(new MapLocation(2, 2));
+
+        long before = world.getStateHash();
+        center.setFlag(12345);
+        assertNotEquals(before, world.getStateHash());
+        center.setFlag(world.getCurrentRound() - 1);
+        assertEquals(before, world.getStateHash());
+    }
+
+    /**
+     * Plays a game of two worlds, logging their hashes; world B's neutral
+     * center gets a different flag at the start of a round.
+     *
+     * @return the round the flag was changed in, or -1
+     */
+    private static int logRuns(File logA, File logB, int divergeAt) throws IOException {
+        GameWorld[] worlds = {newWorld(), newWorld()};
+        StateHashLog[] logs = {new StateHashLog(logA), new StateHashLog(logB)};
+        for (int i = 0; i < 2; i++) {
+            logs[i].startMatch(0, "hash");
+            worlds[i].setStateHashLog(logs[i]);
+        }
+        int diverged = -1;
+        for (int round = 1; round <= 10; round++) {
+            for (int i = 0; i < 2; i++) {
+                playRound(worlds[i]);
+                if (i == 1 && round == divergeAt) {
+                    worlds[i].getRobot(new MapLocation(10, 10)).setFlag(-1);
+                    diverged = worlds[i].getCurrentRound() + 1;
+                }
+            }
+        }
+        for (StateHashLog log : logs)
+            log.close();
+        return diverged;
+    }
+
+    @Test
+    public void testDiff() throws IOException {
+        File logA = File.createTempFile("hashes", ".txt");
+        File logB = File.createTempFile("hashes", ".txt");
+        logA.deleteOnExit();
+        logB.deleteOnExit();
+
+        logRuns(logA, logB, -1);
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        assertTrue(StateHashDiff.compare(logA, logB, new PrintStream(report)));
+        assertEquals("No divergence in 10 rounds", report.toString().trim());
+
+        int neutral = newWorld().getRobot(new MapLocation(10, 10)).getID();
+        int round = logRuns(logA, logB, 4);
+        report = new ByteArrayOutputStream();
+        assertFalse(StateHashDiff.compare(logA, logB, new PrintStream(report)));
+        String[] lines = report.toString().trim().split("\n");
+        assertEquals("First divergence: match 0 hash, round " + round, lines[0]);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1], lines[1].startsWith("  robot " + neutral + ": A "));
+    }
+}
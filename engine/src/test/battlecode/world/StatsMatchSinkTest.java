@@ -0,0 +1,77 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.schema.Action;
+import battlecode.world.control.NullControlProvider;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatsMatchSinkTest {
+
+    @Test
+    public void testRoundTotals() throws Exception {
+        LiveMap map = new TestMapBuilder("stats", 0, 0, 10, 8, 1337, 3000)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 3))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(7, 5))
+                .addEnlightenmentCenter(2, Team.NEUTRAL, 200, new MapLocation(5, 1))
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StatsMatchSink sink = new StatsMatchSink(out);
+        GameWorld world = new GameWorld(map, new NullControlProvider(), sink);
+
+        InternalRobot center = world.getRobot(new MapLocation(2, 3));
+        int muckraker = world.spawnRobot(center, RobotType.MUCKRAKER, new MapLocation(3, 3), Team.A, 1);
+        sink.addAction(center.getID(), Action.PLACE_BID, 7);
+        sink.addAction(muckraker, Action.EXPOSE, 99);
+        world.runRound();
+
+        world.destroyRobot(muckraker);
+        // A robot that dies on its turn reports its bytecodes after its death
+        int politician = world.spawnRobot(center, RobotType.POLITICIAN, new MapLocation(1, 3), Team.A, 10);
+        world.destroyRobot(politician);
+        sink.addBytecodes(politician, 500);
+        world.runRound();
+        sink.makeMatchFooter(Team.A, 2, Collections.emptyList());
+        sink.close();
+
+        List<String> lines = Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+        assertEquals(3, lines.size());
+        List<String> names = Arrays.asList(lines.get(0).split(","));
+        List<String> first = Arrays.asList(lines.get(1).split(","));
+        List<String> second = Arrays.asList(lines.get(2).split(","));
+        assertEquals(names.size(), first.size());
+
+        assertEquals("0", first.get(names.indexOf("match")));
+        assertEquals("1", first.get(names.indexOf("round")));
+        assertEquals("2", second.get(names.indexOf("round")));
+
+        assertEquals("1", first.get(names.indexOf("a_enlightenment_center")));
+        assertEquals("1", first.get(names.indexOf("a_muckraker")));
+        assertEquals("0", second.get(names.indexOf("a_muckraker")));
+        assertEquals("1", first.get(names.indexOf("b_enlightenment_center")));
+
+        // The bodies on the map don't count as spawned
+        assertEquals("1", first.get(names.indexOf("a_spawned")));
+        assertEquals("0", first.get(names.indexOf("b_spawned")));
+        assertEquals("0", first.get(names.indexOf("a_died")));
+        assertEquals("2", second.get(names.indexOf("a_died")));
+        assertEquals("1", second.get(names.indexOf("a_spawned")));
+        assertEquals("0", second.get(names.indexOf("a_politician")));
+        assertEquals("500", second.get(names.indexOf("a_bytecodes")));
+        assertEquals("0", second.get(names.indexOf("b_bytecodes")));
+        assertEquals("7", first.get(names.indexOf("a_bids")));
+        assertEquals("0", second.get(names.indexOf("a_bids")));
+        assertEquals("1", first.get(names.indexOf("a_exposes")));
+        assertEquals("0", first.get(names.indexOf("b_exposes")));
+
+        assertEquals(Integer.toString(center.getInfluence()), second.get(names.indexOf("a_influence")));
+    }
+}
@@ -0,0 +1,44 @@
+package battlecode.world;
+
+import battlecode.common.GameConstants;
+import battlecode.common.Team;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class TeamInfoTest {
+    @Test
+    public void testBuffsMatchExpirationMap() {
+        Random rand = new Random(2021);
+        TeamInfo info = new TeamInfo(null);
+
+        // Straightforward model: round -> number of buffs expiring then
+        TreeMap<Integer, Integer> expirations = new TreeMap<>();
+        int numBuffs = 0;
+
+        for (int round = 1; round <= 500; round++) {
+            info.updateNumBuffs(round);
+            while (!expirations.isEmpty() && expirations.firstKey() <= round)
+                numBuffs -= expirations.pollFirstEntry().getValue();
+
+            for (int future = -2; future <= GameConstants.EXPOSE_BUFF_NUM_ROUNDS + 3; future++) {
+                int expected = numBuffs;
+                for (int expiration : expirations.headMap(round + future, true).values())
+                    expected -= expiration;
+                assertEquals(expected, info.getNumBuffs(Team.A, round + future));
+                assertEquals(Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, expected),
+                        info.getBuff(Team.A, round + future), 0);
+            }
+            assertEquals(Math.pow(GameConstants.EXPOSE_BUFF_FACTOR, numBuffs), info.getBuff(Team.A), 0);
+            assertEquals(0, info.getNumBuffs(Team.B, round));
+
+            int buffs = rand.nextInt(4) == 0 ? rand.nextInt(100) : 0;
+            info.addBuffs(round + 1, Team.A, buffs);
+            numBuffs += buffs;
+            expirations.merge(round + 1 + GameConstants.EXPOSE_BUFF_NUM_ROUNDS, buffs, Integer::sum);
+        }
+    }
+}
@@ -31,6 +31,20 @@ public class TestMapBuilder {
         this.bodies = new ArrayList<>();
     }
 
+    /**
+     * @param name the name of the map
+     * @param size the width and height of the map
+     * @return a square map with seed 1337 and an Enlightenment Center of 150
+     *         influence for each team, two cells in from opposite corners
+     */
+    public static LiveMap twoCenters(String name, int size) {
+        return new TestMapBuilder(name, 0, 0, size, size, 1337, GameConstants.GAME_MAX_NUMBER_OF_ROUNDS)
+                .setPassability()
+                .addEnlightenmentCenter(0, Team.A, 150, new MapLocation(2, 2))
+                .addEnlightenmentCenter(1, Team.B, 150, new MapLocation(size - 3, size - 3))
+                .build();
+    }
+
     public TestMapBuilder addEnlightenmentCenter(int id, Team team, int influence, MapLocation loc) {
         bodies.add(new RobotInfo(
                 id,
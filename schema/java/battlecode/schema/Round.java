@@ -176,6 +176,59 @@ public final class Round extends Table {
   public int teamNumBuffsLength() { int o = __offset(46); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer teamNumBuffsAsByteBuffer() { return __vector_as_bytebuffer(46, 4); }
   public ByteBuffer teamNumBuffsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 46, 4); }
+  /**
+   * The bodies that moved, as packed IDs; replaces movedIDs.
+   */
+  public int movedIDsPacked(int j) { int o = __offset(48); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int movedIDsPackedLength() { int o = __offset(48); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer movedIDsPackedAsByteBuffer() { return __vector_as_bytebuffer(48, 1); }
+  public ByteBuffer movedIDsPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 48, 1); }
+  /**
+   * The direction each body moved in, in the same order; replaces
+   * movedLocs. Directions are numbered clockwise from north (0) to
+   * northwest (7).
+   */
+  public byte movedDirections(int j) { int o = __offset(50); return o != 0 ? bb.get(__vector(o) + j * 1) : 0; }
+  public int movedDirectionsLength() { int o = __offset(50); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer movedDirectionsAsByteBuffer() { return __vector_as_bytebuffer(50, 1); }
+  public ByteBuffer movedDirectionsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 50, 1); }
+  /**
+   * The bodies that died, as packed IDs; replaces diedIDs.
+   */
+  public int diedIDsPacked(int j) { int o = __offset(52); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int diedIDsPackedLength() { int o = __offset(52); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer diedIDsPackedAsByteBuffer() { return __vector_as_bytebuffer(52, 1); }
+  public ByteBuffer diedIDsPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 52, 1); }
+  /**
+   * The bodies that acted, as packed IDs; replaces actionIDs.
+   */
+  public int actionIDsPacked(int j) { int o = __offset(54); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int actionIDsPackedLength() { int o = __offset(54); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer actionIDsPackedAsByteBuffer() { return __vector_as_bytebuffer(54, 1); }
+  public ByteBuffer actionIDsPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 54, 1); }
+  /**
+   * The targets of the actions, as zigzag varints; replaces
+   * actionTargets.
+   */
+  public int actionTargetsPacked(int j) { int o = __offset(56); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int actionTargetsPackedLength() { int o = __offset(56); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer actionTargetsPackedAsByteBuffer() { return __vector_as_bytebuffer(56, 1); }
+  public ByteBuffer actionTargetsPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 56, 1); }
+  /**
+   * The player bodies, as packed IDs; replaces bytecodeIDs.
+   */
+  public int bytecodeIDsPacked(int j) { int o = __offset(58); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int bytecodeIDsPackedLength() { int o = __offset(58); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer bytecodeIDsPackedAsByteBuffer() { return __vector_as_bytebuffer(58, 1); }
+  public ByteBuffer bytecodeIDsPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 58, 1); }
+  /**
+   * The bytecodes used by the player bodies, as varints; replaces
+   * bytecodesUsed.
+   */
+  public int bytecodesUsedPacked(int j) { int o = __offset(60); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int bytecodesUsedPackedLength() { int o = __offset(60); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer bytecodesUsedPackedAsByteBuffer() { return __vector_as_bytebuffer(60, 1); }
+  public ByteBuffer bytecodesUsedPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 60, 1); }
 
   public static int createRound(FlatBufferBuilder builder,
       int teamIDsOffset,
@@ -199,8 +252,22 @@ public final class Round extends Table {
       int roundID,
       int bytecodeIDsOffset,
       int bytecodesUsedOffset,
-      int teamNumBuffsOffset) {
-    builder.startObject(22);
+      int teamNumBuffsOffset,
+      int movedIDsPackedOffset,
+      int movedDirectionsOffset,
+      int diedIDsPackedOffset,
+      int actionIDsPackedOffset,
+      int actionTargetsPackedOffset,
+      int bytecodeIDsPackedOffset,
+      int bytecodesUsedPackedOffset) {
+    builder.startObject(29);
+    Round.addBytecodesUsedPacked(builder, bytecodesUsedPackedOffset);
+    Round.addBytecodeIDsPacked(builder, bytecodeIDsPackedOffset);
+    Round.addActionTargetsPacked(builder, actionTargetsPackedOffset);
+    Round.addActionIDsPacked(builder, actionIDsPackedOffset);
+    Round.addDiedIDsPacked(builder, diedIDsPackedOffset);
+    Round.addMovedDirections(builder, movedDirectionsOffset);
+    Round.addMovedIDsPacked(builder, movedIDsPackedOffset);
     Round.addTeamNumBuffs(builder, teamNumBuffsOffset);
     Round.addBytecodesUsed(builder, bytecodesUsedOffset);
     Round.addBytecodeIDs(builder, bytecodeIDsOffset);
@@ -226,7 +293,7 @@ public final class Round extends Table {
     return Round.endRound(builder);
   }
 
-  public static void startRound(FlatBufferBuilder builder) { builder.startObject(22); }
+  public static void startRound(FlatBufferBuilder builder) { builder.startObject(29); }
   public static void addTeamIDs(FlatBufferBuilder builder, int teamIDsOffset) { builder.addOffset(0, teamIDsOffset, 0); }
   public static int createTeamIDsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startTeamIDsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -275,6 +342,27 @@ public final class Round extends Table {
   public static void addTeamNumBuffs(FlatBufferBuilder builder, int teamNumBuffsOffset) { builder.addOffset(21, teamNumBuffsOffset, 0); }
   public static int createTeamNumBuffsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startTeamNumBuffsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addMovedIDsPacked(FlatBufferBuilder builder, int movedIDsPackedOffset) { builder.addOffset(22, movedIDsPackedOffset, 0); }
+  public static int createMovedIDsPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startMovedIDsPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addMovedDirections(FlatBufferBuilder builder, int movedDirectionsOffset) { builder.addOffset(23, movedDirectionsOffset, 0); }
+  public static int createMovedDirectionsVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startMovedDirectionsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addDiedIDsPacked(FlatBufferBuilder builder, int diedIDsPackedOffset) { builder.addOffset(24, diedIDsPackedOffset, 0); }
+  public static int createDiedIDsPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startDiedIDsPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addActionIDsPacked(FlatBufferBuilder builder, int actionIDsPackedOffset) { builder.addOffset(25, actionIDsPackedOffset, 0); }
+  public static int createActionIDsPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startActionIDsPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addActionTargetsPacked(FlatBufferBuilder builder, int actionTargetsPackedOffset) { builder.addOffset(26, actionTargetsPackedOffset, 0); }
+  public static int createActionTargetsPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startActionTargetsPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addBytecodeIDsPacked(FlatBufferBuilder builder, int bytecodeIDsPackedOffset) { builder.addOffset(27, bytecodeIDsPackedOffset, 0); }
+  public static int createBytecodeIDsPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startBytecodeIDsPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addBytecodesUsedPacked(FlatBufferBuilder builder, int bytecodesUsedPackedOffset) { builder.addOffset(28, bytecodesUsedPackedOffset, 0); }
+  public static int createBytecodesUsedPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startBytecodesUsedPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
   public static int endRound(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
@@ -153,7 +153,13 @@ export enum Event{
   /**
    * There should only be one GameFooter, at the end of the stream.
    */
-  GameFooter= 5
+  GameFooter= 5,
+
+  /**
+   * A snapshot of a match, sent every so often after a Round.
+   * Readers that replay every Round may skip these.
+   */
+  Keyframe= 6
 }};
 
 /**
@@ -2793,11 +2799,204 @@ teamNumBuffsArray():Int32Array|null {
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
+/**
+ * The bodies that moved, as packed IDs; replaces movedIDs.
+ *
+ * @param number index
+ * @returns number
+ */
+movedIDsPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 48);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+movedIDsPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 48);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+movedIDsPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 48);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The direction each body moved in, in the same order; replaces
+ * movedLocs. Directions are numbered clockwise from north (0) to
+ * northwest (7).
+ *
+ * @param number index
+ * @returns number
+ */
+movedDirections(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 50);
+  return offset ? this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+movedDirectionsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 50);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+movedDirectionsArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 50);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The bodies that died, as packed IDs; replaces diedIDs.
+ *
+ * @param number index
+ * @returns number
+ */
+diedIDsPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 52);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+diedIDsPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 52);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+diedIDsPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 52);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The bodies that acted, as packed IDs; replaces actionIDs.
+ *
+ * @param number index
+ * @returns number
+ */
+actionIDsPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 54);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+actionIDsPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 54);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+actionIDsPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 54);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The targets of the actions, as zigzag varints; replaces
+ * actionTargets.
+ *
+ * @param number index
+ * @returns number
+ */
+actionTargetsPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 56);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+actionTargetsPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 56);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+actionTargetsPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 56);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The player bodies, as packed IDs; replaces bytecodeIDs.
+ *
+ * @param number index
+ * @returns number
+ */
+bytecodeIDsPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 58);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+bytecodeIDsPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 58);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+bytecodeIDsPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 58);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The bytecodes used by the player bodies, as varints; replaces
+ * bytecodesUsed.
+ *
+ * @param number index
+ * @returns number
+ */
+bytecodesUsedPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 60);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+bytecodesUsedPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 60);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+bytecodesUsedPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 60);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startRound(builder:flatbuffers.Builder) {
-  builder.startObject(22);
+  builder.startObject(29);
 };
 
 /**
@@ -3251,38 +3450,629 @@ static startTeamNumBuffsVector(builder:flatbuffers.Builder, numElems:number) {
 
 /**
  * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedIDsPackedOffset
+ */
+static addMovedIDsPacked(builder:flatbuffers.Builder, movedIDsPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(22, movedIDsPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
  * @returns flatbuffers.Offset
  */
-static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
-  var offset = builder.endObject();
-  return offset;
+static createMovedIDsPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
 };
 
-static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamVotesOffset:flatbuffers.Offset, teamBidderIDsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset, teamNumBuffsOffset:flatbuffers.Offset):flatbuffers.Offset {
-  Round.startRound(builder);
-  Round.addTeamIDs(builder, teamIDsOffset);
-  Round.addTeamVotes(builder, teamVotesOffset);
-  Round.addTeamBidderIDs(builder, teamBidderIDsOffset);
-  Round.addMovedIDs(builder, movedIDsOffset);
-  Round.addMovedLocs(builder, movedLocsOffset);
-  Round.addSpawnedBodies(builder, spawnedBodiesOffset);
-  Round.addDiedIDs(builder, diedIDsOffset);
-  Round.addActionIDs(builder, actionIDsOffset);
-  Round.addActions(builder, actionsOffset);
-  Round.addActionTargets(builder, actionTargetsOffset);
-  Round.addIndicatorDotIDs(builder, indicatorDotIDsOffset);
-  Round.addIndicatorDotLocs(builder, indicatorDotLocsOffset);
-  Round.addIndicatorDotRGBs(builder, indicatorDotRGBsOffset);
-  Round.addIndicatorLineIDs(builder, indicatorLineIDsOffset);
-  Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsOffset);
-  Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsOffset);
-  Round.addIndicatorLineRGBs(builder, indicatorLineRGBsOffset);
-  Round.addLogs(builder, logsOffset);
-  Round.addRoundID(builder, roundID);
-  Round.addBytecodeIDs(builder, bytecodeIDsOffset);
-  Round.addBytecodesUsed(builder, bytecodesUsedOffset);
-  Round.addTeamNumBuffs(builder, teamNumBuffsOffset);
-  return Round.endRound(builder);
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMovedIDsPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedDirectionsOffset
+ */
+static addMovedDirections(builder:flatbuffers.Builder, movedDirectionsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(23, movedDirectionsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMovedDirectionsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMovedDirectionsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset diedIDsPackedOffset
+ */
+static addDiedIDsPacked(builder:flatbuffers.Builder, diedIDsPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(24, diedIDsPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createDiedIDsPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startDiedIDsPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset actionIDsPackedOffset
+ */
+static addActionIDsPacked(builder:flatbuffers.Builder, actionIDsPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(25, actionIDsPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createActionIDsPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startActionIDsPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset actionTargetsPackedOffset
+ */
+static addActionTargetsPacked(builder:flatbuffers.Builder, actionTargetsPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(26, actionTargetsPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createActionTargetsPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startActionTargetsPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bytecodeIDsPackedOffset
+ */
+static addBytecodeIDsPacked(builder:flatbuffers.Builder, bytecodeIDsPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(27, bytecodeIDsPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createBytecodeIDsPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startBytecodeIDsPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bytecodesUsedPackedOffset
+ */
+static addBytecodesUsedPacked(builder:flatbuffers.Builder, bytecodesUsedPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(28, bytecodesUsedPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createBytecodesUsedPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startBytecodesUsedPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamVotesOffset:flatbuffers.Offset, teamBidderIDsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset, teamNumBuffsOffset:flatbuffers.Offset, movedIDsPackedOffset:flatbuffers.Offset, movedDirectionsOffset:flatbuffers.Offset, diedIDsPackedOffset:flatbuffers.Offset, actionIDsPackedOffset:flatbuffers.Offset, actionTargetsPackedOffset:flatbuffers.Offset, bytecodeIDsPackedOffset:flatbuffers.Offset, bytecodesUsedPackedOffset:flatbuffers.Offset):flatbuffers.Offset {
+  Round.startRound(builder);
+  Round.addTeamIDs(builder, teamIDsOffset);
+  Round.addTeamVotes(builder, teamVotesOffset);
+  Round.addTeamBidderIDs(builder, teamBidderIDsOffset);
+  Round.addMovedIDs(builder, movedIDsOffset);
+  Round.addMovedLocs(builder, movedLocsOffset);
+  Round.addSpawnedBodies(builder, spawnedBodiesOffset);
+  Round.addDiedIDs(builder, diedIDsOffset);
+  Round.addActionIDs(builder, actionIDsOffset);
+  Round.addActions(builder, actionsOffset);
+  Round.addActionTargets(builder, actionTargetsOffset);
+  Round.addIndicatorDotIDs(builder, indicatorDotIDsOffset);
+  Round.addIndicatorDotLocs(builder, indicatorDotLocsOffset);
+  Round.addIndicatorDotRGBs(builder, indicatorDotRGBsOffset);
+  Round.addIndicatorLineIDs(builder, indicatorLineIDsOffset);
+  Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsOffset);
+  Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsOffset);
+  Round.addIndicatorLineRGBs(builder, indicatorLineRGBsOffset);
+  Round.addLogs(builder, logsOffset);
+  Round.addRoundID(builder, roundID);
+  Round.addBytecodeIDs(builder, bytecodeIDsOffset);
+  Round.addBytecodesUsed(builder, bytecodesUsedOffset);
+  Round.addTeamNumBuffs(builder, teamNumBuffsOffset);
+  Round.addMovedIDsPacked(builder, movedIDsPackedOffset);
+  Round.addMovedDirections(builder, movedDirectionsOffset);
+  Round.addDiedIDsPacked(builder, diedIDsPackedOffset);
+  Round.addActionIDsPacked(builder, actionIDsPackedOffset);
+  Round.addActionTargetsPacked(builder, actionTargetsPackedOffset);
+  Round.addBytecodeIDsPacked(builder, bytecodeIDsPackedOffset);
+  Round.addBytecodesUsedPacked(builder, bytecodesUsedPackedOffset);
+  return Round.endRound(builder);
+}
+}
+}
+/**
+ * The state of a match at the end of a round, so that a reader can start
+ * there rather than at the MatchHeader: applying the Rounds that follow a
+ * Keyframe to it gives the state at any later round.
+ * Keyframes are optional; one follows the Round it is a snapshot of.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class Keyframe {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns Keyframe
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):Keyframe {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param Keyframe= obj
+ * @returns Keyframe
+ */
+static getRootAsKeyframe(bb:flatbuffers.ByteBuffer, obj?:Keyframe):Keyframe {
+  return (obj || new Keyframe).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * The round this is a snapshot at the end of; the same as the roundID
+ * of the Round before it.
+ *
+ * @returns number
+ */
+roundID():number {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.readInt32(this.bb_pos + offset) : 0;
+};
+
+/**
+ * Every body in the match. Their influences are their current
+ * influences, not what was paid to create them.
+ *
+ * @param battlecode.schema.SpawnedBodyTable= obj
+ * @returns battlecode.schema.SpawnedBodyTable|null
+ */
+bodies(obj?:battlecode.schema.SpawnedBodyTable):battlecode.schema.SpawnedBodyTable|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? (obj || new battlecode.schema.SpawnedBodyTable).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * The conviction of each body, in the same order.
+ *
+ * @param number index
+ * @returns number
+ */
+convictions(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+convictionsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+convictionsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The flag of each body, in the same order.
+ *
+ * @param number index
+ * @returns number
+ */
+flags(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+flagsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+flagsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The IDs of teams in the Game.
+ *
+ * @param number index
+ * @returns number
+ */
+teamIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The total votes the teams have won.
+ *
+ * @param number index
+ * @returns number
+ */
+teamVotes(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamVotesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamVotesArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * Amount of influence contributing to the teams' buffs, as in Round.
+ *
+ * @param number index
+ * @returns number
+ */
+teamNumBuffs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamNumBuffsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamNumBuffsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startKeyframe(builder:flatbuffers.Builder) {
+  builder.startObject(7);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number roundID
+ */
+static addRoundID(builder:flatbuffers.Builder, roundID:number) {
+  builder.addFieldInt32(0, roundID, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bodiesOffset
+ */
+static addBodies(builder:flatbuffers.Builder, bodiesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, bodiesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset convictionsOffset
+ */
+static addConvictions(builder:flatbuffers.Builder, convictionsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, convictionsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createConvictionsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startConvictionsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset flagsOffset
+ */
+static addFlags(builder:flatbuffers.Builder, flagsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, flagsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createFlagsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startFlagsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamIDsOffset
+ */
+static addTeamIDs(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(4, teamIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamVotesOffset
+ */
+static addTeamVotes(builder:flatbuffers.Builder, teamVotesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(5, teamVotesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamVotesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamVotesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamNumBuffsOffset
+ */
+static addTeamNumBuffs(builder:flatbuffers.Builder, teamNumBuffsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(6, teamNumBuffsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamNumBuffsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamNumBuffsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endKeyframe(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createKeyframe(builder:flatbuffers.Builder, roundID:number, bodiesOffset:flatbuffers.Offset, convictionsOffset:flatbuffers.Offset, flagsOffset:flatbuffers.Offset, teamIDsOffset:flatbuffers.Offset, teamVotesOffset:flatbuffers.Offset, teamNumBuffsOffset:flatbuffers.Offset):flatbuffers.Offset {
+  Keyframe.startKeyframe(builder);
+  Keyframe.addRoundID(builder, roundID);
+  Keyframe.addBodies(builder, bodiesOffset);
+  Keyframe.addConvictions(builder, convictionsOffset);
+  Keyframe.addFlags(builder, flagsOffset);
+  Keyframe.addTeamIDs(builder, teamIDsOffset);
+  Keyframe.addTeamVotes(builder, teamVotesOffset);
+  Keyframe.addTeamNumBuffs(builder, teamNumBuffsOffset);
+  return Keyframe.endKeyframe(builder);
 }
 }
 }